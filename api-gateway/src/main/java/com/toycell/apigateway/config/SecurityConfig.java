@@ -2,6 +2,7 @@ package com.toycell.apigateway.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
@@ -15,6 +16,9 @@ public class SecurityConfig {
         http
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .authorizeExchange(exchange -> exchange
+                        // Service-to-service only; reached directly, never through the gateway
+                        .pathMatchers("/api/*/internal/**").denyAll()
+                        .pathMatchers(HttpMethod.POST, "/api/transactions/batch").denyAll()
                         .anyExchange().permitAll()
                 );
 
@@ -0,0 +1,164 @@
+package com.toycell.apigateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.toycell.commondomain.security.InternalIdentity;
+import com.toycell.commondomain.security.ServiceCredential;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the caller's JWT once at the edge and forwards the result as a signed
+ * {@value InternalIdentity#HEADER} header (userId, role, expiry), so services running with
+ * {@code security.identity.trust-header} skip their own JWT verification.
+ * <p>
+ * Any identity or {@value ServiceCredential#HEADER} header sent by the client is always stripped. Signed headers are cached under the
+ * token's SHA-256 digest until the token expires; hit/miss counts are published as
+ * {@code cache.gets{cache=gateway.identity}}. Requests without a valid token are forwarded
+ * unchanged and the services decide as before.
+ */
+@Slf4j
+@Component
+public class IdentityPropagationFilter implements GlobalFilter, Ordered {
+
+    private final JwtParser parser;
+    private final byte[] identitySecret;
+    private final Cache<String, SignedIdentity> identityCache;
+
+    public IdentityPropagationFilter(@Value("${jwt.secret.key}") String secretKey,
+                                     @Value("${internal.identity.secret:}") String identitySecret,
+                                     @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                                     MeterRegistry meterRegistry) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.identitySecret = StringUtils.hasText(identitySecret)
+                ? InternalIdentity.requireSecret(identitySecret, "internal.identity.secret")
+                : null;
+        this.identityCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilIdentityExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, identityCache, "gateway.identity");
+        if (this.identitySecret == null) {
+            log.warn("internal.identity.secret is empty; identity headers will not be issued");
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(InternalIdentity.HEADER);
+                    headers.remove(ServiceCredential.HEADER);
+                });
+
+        String token = extractToken(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (token != null && identitySecret != null) {
+            SignedIdentity identity = signedIdentity(token);
+            if (identity != null) {
+                request.header(InternalIdentity.HEADER, identity.header());
+            }
+        }
+        return chain.filter(exchange.mutate().request(request.build()).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * Returns the cached signed identity for the token, verifying it on a miss; null if invalid
+     */
+    private SignedIdentity signedIdentity(String token) {
+        String digest = digest(token);
+        SignedIdentity identity = identityCache.getIfPresent(digest);
+        if (identity != null) {
+            return identity;
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Not issuing identity header: {}", e.getMessage());
+            return null;
+        }
+        Long userId = claims.get("userId", Long.class);
+        // The identity header must expire, so tokens without exp keep going through JWT verification
+        if (userId == null || claims.getExpiration() == null) {
+            return null;
+        }
+
+        String role = claims.get("role", String.class);
+        long expiresAt = claims.getExpiration().getTime() / 1000;
+        InternalIdentity internal = new InternalIdentity(userId, StringUtils.hasText(role) ? role : "USER", expiresAt);
+        identity = new SignedIdentity(internal.sign(identitySecret), expiresAt);
+        identityCache.put(digest, identity);
+        return identity;
+    }
+
+    private static String extractToken(String authorization) {
+        if (StringUtils.hasText(authorization) && authorization.startsWith("Bearer ")) {
+            return authorization.substring(7);
+        }
+        return null;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record SignedIdentity(String header, long expiresAt) {
+    }
+
+    // Entries drop when the underlying token expires
+    private static final class UntilIdentityExpiry implements Expiry<String, SignedIdentity> {
+
+        @Override
+        public long expireAfterCreate(String key, SignedIdentity identity, long currentTime) {
+            long remainingMillis = identity.expiresAt() * 1000 - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0L));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, SignedIdentity identity, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, identity, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, SignedIdentity identity, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
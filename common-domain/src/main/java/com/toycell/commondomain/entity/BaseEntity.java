@@ -15,8 +15,12 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public abstract class BaseEntity {
 
+    /**
+     * Generated by {@link ToycellIdGenerator}: pooled-lo from {@code <table>_seq} or snowflake,
+     * depending on the service's {@code toycell.id.strategy} setting.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @ToycellGeneratedId
     private Long id;
 
     @CreatedDate
@@ -0,0 +1,97 @@
+package com.toycell.commondomain.entity;
+
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Id generator shared by every {@link BaseEntity}.
+ * <p>
+ * Strategy is chosen per service through Hibernate settings
+ * ({@code spring.jpa.properties.toycell.id.*}):
+ * <ul>
+ *     <li>{@code pooled} (default): the table's {@code <table>_seq} sequence with the pooled-lo
+ *     optimizer, one {@code NEXTVAL} per {@code allocation-size} ids</li>
+ *     <li>{@code snowflake}: {@link SnowflakeIdGenerator} ids, no database round trip;
+ *     {@code node-id} must be unique per running instance</li>
+ * </ul>
+ */
+public class ToycellIdGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY_SETTING = "toycell.id.strategy";
+    public static final String ALLOCATION_SIZE_SETTING = "toycell.id.allocation-size";
+    public static final String NODE_ID_SETTING = "toycell.id.node-id";
+
+    public static final String STRATEGY_POOLED = "pooled";
+    public static final String STRATEGY_SNOWFLAKE = "snowflake";
+
+    private static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    // One generator per node id, shared by all entities of the service
+    private static final Map<Integer, SnowflakeIdGenerator> SNOWFLAKES = new ConcurrentHashMap<>();
+
+    private SnowflakeIdGenerator snowflake;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        Map<String, Object> settings = serviceRegistry.requireService(ConfigurationService.class).getSettings();
+        String strategy = ConfigurationHelper.getString(STRATEGY_SETTING, settings, STRATEGY_POOLED);
+
+        if (STRATEGY_SNOWFLAKE.equalsIgnoreCase(strategy)) {
+            int nodeId = ConfigurationHelper.getInt(NODE_ID_SETTING, settings, 0);
+            snowflake = SNOWFLAKES.computeIfAbsent(nodeId, SnowflakeIdGenerator::new);
+            return;
+        }
+        if (!STRATEGY_POOLED.equalsIgnoreCase(strategy)) {
+            throw new IllegalArgumentException("Unknown " + STRATEGY_SETTING + ": " + strategy);
+        }
+
+        // Keep the existing per-table sequences (wallets_seq, transactions_seq, ...)
+        if (!parameters.containsKey(SEQUENCE_PARAM)) {
+            parameters.setProperty(SEQUENCE_PARAM, parameters.getProperty(PersistentIdentifierGenerator.TABLE) + "_seq");
+        }
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(
+                ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING, settings, DEFAULT_ALLOCATION_SIZE)));
+        parameters.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        if (snowflake == null) {
+            super.registerExportables(database);
+        }
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        if (snowflake == null) {
+            super.initialize(context);
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (snowflake != null) {
+            return snowflake.nextId();
+        }
+        return super.generate(session, object);
+    }
+
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return snowflake == null && super.supportsBulkInsertionIdentifierGeneration();
+    }
+}
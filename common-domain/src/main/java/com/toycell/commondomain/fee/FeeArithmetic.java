@@ -0,0 +1,102 @@
+package com.toycell.commondomain.fee;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fee arithmetic shared by service-fee and its in-process clients. The fast path works on
+ * {@code long} minor units with basis-point rates and returns exactly what the BigDecimal path
+ * (HALF_UP, 2 decimals) returns; amounts with more than 2 decimals or out of bounds fall back
+ * to BigDecimal.
+ */
+public final class FeeArithmetic {
+
+    /**
+     * Largest number of integer digits taken on the fast path. 10^13 minor units times
+     * 99999 basis points stays below Long.MAX_VALUE, so no overflow checks are needed.
+     */
+    private static final int MAX_INTEGER_DIGITS = 11;
+
+    /**
+     * Rule values above this (in minor units) keep the rule on the BigDecimal path.
+     */
+    static final long MAX_RULE_MINOR = 1_000_000_000_000_000L;
+
+    static final long NOT_MINOR = Long.MIN_VALUE;
+
+    private static final long BASIS_POINT_DIVISOR = 10_000L;
+
+    private FeeArithmetic() {
+    }
+
+    public static BigDecimal calculate(BigDecimal amount, FeeRuleDefinition rule) {
+        if (rule.minorUnits()
+                && amount.scale() <= 2
+                && amount.precision() - amount.scale() <= MAX_INTEGER_DIGITS) {
+            long amountMinor = amount.movePointRight(2).longValue();
+            return BigDecimal.valueOf(calculateMinor(amountMinor, rule), 2);
+        }
+        return calculateExact(amount, rule);
+    }
+
+    /**
+     * Fee in minor units: round(amount x bp / 10000) + fixed, then clamped to min/max.
+     */
+    public static long calculateMinor(long amountMinor, FeeRuleDefinition rule) {
+        long fee = roundHalfUp(amountMinor * rule.feeBasisPoints(), BASIS_POINT_DIVISOR) + rule.fixedFeeMinor();
+
+        if (fee < rule.minFeeMinor()) {
+            fee = rule.minFeeMinor();
+        }
+
+        if (rule.maxFeeMinor() != NOT_MINOR && fee > rule.maxFeeMinor()) {
+            fee = rule.maxFeeMinor();
+        }
+
+        return fee;
+    }
+
+    /**
+     * BigDecimal path, the reference for the fast path.
+     */
+    public static BigDecimal calculateExact(BigDecimal amount, FeeRuleDefinition rule) {
+        // amount * (feePercentage / 100)
+        BigDecimal percentageFee = amount
+                .multiply(rule.feePercentage())
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+
+        BigDecimal totalFee = percentageFee.add(rule.fixedFee());
+
+        if (totalFee.compareTo(rule.minFee()) < 0) {
+            totalFee = rule.minFee();
+        }
+
+        if (rule.maxFee() != null && totalFee.compareTo(rule.maxFee()) > 0) {
+            totalFee = rule.maxFee();
+        }
+
+        return totalFee.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Converts {@code value} to an integer count of {@code 10^-places}; returns {@link #NOT_MINOR}
+     * when that is not exact or exceeds {@link #MAX_RULE_MINOR}.
+     */
+    static long toUnits(BigDecimal value, int places) {
+        if (value == null) {
+            return NOT_MINOR;
+        }
+        try {
+            long units = value.movePointRight(places).longValueExact();
+            return Math.abs(units) <= MAX_RULE_MINOR ? units : NOT_MINOR;
+        } catch (ArithmeticException e) {
+            return NOT_MINOR;
+        }
+    }
+
+    // Same as BigDecimal HALF_UP: halves are rounded away from zero
+    private static long roundHalfUp(long value, long divisor) {
+        long half = divisor / 2;
+        return value >= 0 ? (value + half) / divisor : -((-value + half) / divisor);
+    }
+}
@@ -0,0 +1,50 @@
+package com.toycell.commondomain.fee;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable copy of one fee rule as used for pricing. Besides the decimal values it carries
+ * the rate in basis points and the fees in minor units (kuruş/cents); {@code minorUnits} is
+ * true when all of them are exactly representable, which enables the {@link FeeArithmetic}
+ * fast path. A rule with a positive {@code minMonthlyVolume} only applies to senders whose
+ * rolling 30-day transfer volume in the rule's currency is at least that much.
+ */
+public record FeeRuleDefinition(Long id,
+                                BigDecimal minAmount,
+                                BigDecimal maxAmount,
+                                BigDecimal minMonthlyVolume,
+                                BigDecimal feePercentage,
+                                BigDecimal fixedFee,
+                                BigDecimal minFee,
+                                BigDecimal maxFee,
+                                int priority,
+                                boolean minorUnits,
+                                long feeBasisPoints,
+                                long fixedFeeMinor,
+                                long minFeeMinor,
+                                long maxFeeMinor) {
+
+    public static FeeRuleDefinition of(Long id, BigDecimal minAmount, BigDecimal maxAmount, BigDecimal minMonthlyVolume,
+                                       BigDecimal feePercentage, BigDecimal fixedFee, BigDecimal minFee,
+                                       BigDecimal maxFee, int priority) {
+        long feeBasisPoints = FeeArithmetic.toUnits(feePercentage, 2);
+        long fixedFeeMinor = FeeArithmetic.toUnits(fixedFee, 2);
+        long minFeeMinor = FeeArithmetic.toUnits(minFee, 2);
+        long maxFeeMinor = FeeArithmetic.toUnits(maxFee, 2);
+
+        boolean minorUnits = feeBasisPoints != FeeArithmetic.NOT_MINOR
+                && Math.abs(feeBasisPoints) < 100_000
+                && fixedFeeMinor != FeeArithmetic.NOT_MINOR
+                && minFeeMinor != FeeArithmetic.NOT_MINOR
+                && (maxFee == null || maxFeeMinor != FeeArithmetic.NOT_MINOR);
+
+        return new FeeRuleDefinition(id, minAmount, maxAmount,
+                minMonthlyVolume != null ? minMonthlyVolume : BigDecimal.ZERO,
+                feePercentage, fixedFee, minFee, maxFee, priority,
+                minorUnits, feeBasisPoints, fixedFeeMinor, minFeeMinor, maxFeeMinor);
+    }
+
+    public boolean covers(BigDecimal amount) {
+        return minAmount.compareTo(amount) <= 0 && (maxAmount == null || maxAmount.compareTo(amount) >= 0);
+    }
+}
@@ -0,0 +1,138 @@
+package com.toycell.commondomain.fee;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The fee rules of one currency compiled for O(log n) lookup. The sorted distinct rule bounds
+ * (minAmount and maxAmount) form {@code bounds}; the winning rule is precomputed for every
+ * bound itself and for the open interval up to the next bound. Instances are immutable.
+ * <p>
+ * Volume-tiered rules add a second dimension: one such interval table is compiled per distinct
+ * {@code minMonthlyVolume}, holding every rule whose threshold is at or below it, and a lookup
+ * first picks the highest tier the sender's volume reaches.
+ * <p>
+ * Among the rules covering an amount the highest priority wins, then the highest
+ * minMonthlyVolume, then the highest minAmount, then the lowest id.
+ */
+public final class FeeRuleTable {
+
+    private static final Comparator<FeeRuleDefinition> PRECEDENCE = Comparator
+            .comparingInt(FeeRuleDefinition::priority)
+            .thenComparing(FeeRuleDefinition::minMonthlyVolume)
+            .thenComparing(FeeRuleDefinition::minAmount)
+            .thenComparing(FeeRuleDefinition::id, Comparator.reverseOrder());
+
+    private final BigDecimal[] volumeTiers;
+    private final Intervals[] tiers;
+
+    private FeeRuleTable(BigDecimal[] volumeTiers, Intervals[] tiers) {
+        this.volumeTiers = volumeTiers;
+        this.tiers = tiers;
+    }
+
+    public static FeeRuleTable compile(List<FeeRuleDefinition> rules) {
+        TreeSet<BigDecimal> thresholds = new TreeSet<>();
+        thresholds.add(BigDecimal.ZERO);
+        for (FeeRuleDefinition rule : rules) {
+            thresholds.add(rule.minMonthlyVolume());
+        }
+
+        BigDecimal[] volumeTiers = thresholds.toArray(new BigDecimal[0]);
+        Intervals[] tiers = new Intervals[volumeTiers.length];
+        for (int i = 0; i < volumeTiers.length; i++) {
+            BigDecimal threshold = volumeTiers[i];
+            tiers[i] = Intervals.compile(rules.stream()
+                    .filter(rule -> rule.minMonthlyVolume().compareTo(threshold) <= 0)
+                    .toList());
+        }
+        return new FeeRuleTable(volumeTiers, tiers);
+    }
+
+    /**
+     * Returns the rule that applies to {@code amount} for a sender without volume, or null when
+     * none covers it.
+     */
+    public FeeRuleDefinition find(BigDecimal amount) {
+        return tiers[0].find(amount);
+    }
+
+    /**
+     * Returns the rule that applies to {@code amount} for a sender whose rolling 30-day volume
+     * is {@code monthlyVolume}, or null when none covers it.
+     */
+    public FeeRuleDefinition find(BigDecimal amount, BigDecimal monthlyVolume) {
+        int index = Arrays.binarySearch(volumeTiers, monthlyVolume, BigDecimal::compareTo);
+        int tier = index >= 0 ? index : Math.max(-index - 2, 0);
+        return tiers[tier].find(amount);
+    }
+
+    /**
+     * True when some rule depends on the sender's volume, so {@link #find(BigDecimal)} alone
+     * cannot price every sender.
+     */
+    public boolean hasVolumeTiers() {
+        return volumeTiers.length > 1;
+    }
+
+    private static final class Intervals {
+
+        private final BigDecimal[] bounds;
+        private final FeeRuleDefinition[] atBound;
+        private final FeeRuleDefinition[] afterBound;
+
+        private Intervals(BigDecimal[] bounds, FeeRuleDefinition[] atBound, FeeRuleDefinition[] afterBound) {
+            this.bounds = bounds;
+            this.atBound = atBound;
+            this.afterBound = afterBound;
+        }
+
+        private static Intervals compile(List<FeeRuleDefinition> rules) {
+            TreeSet<BigDecimal> boundSet = new TreeSet<>();
+            for (FeeRuleDefinition rule : rules) {
+                boundSet.add(rule.minAmount());
+                if (rule.maxAmount() != null) {
+                    boundSet.add(rule.maxAmount());
+                }
+            }
+
+            BigDecimal[] bounds = boundSet.toArray(new BigDecimal[0]);
+            FeeRuleDefinition[] atBound = new FeeRuleDefinition[bounds.length];
+            FeeRuleDefinition[] afterBound = new FeeRuleDefinition[bounds.length];
+
+            for (int i = 0; i < bounds.length; i++) {
+                BigDecimal bound = bounds[i];
+                BigDecimal next = i + 1 < bounds.length ? bounds[i + 1] : null;
+
+                List<FeeRuleDefinition> atCandidates = new ArrayList<>();
+                List<FeeRuleDefinition> afterCandidates = new ArrayList<>();
+                for (FeeRuleDefinition rule : rules) {
+                    if (rule.covers(bound)) {
+                        atCandidates.add(rule);
+                    }
+                    // Rules covering the whole open interval (bound, next)
+                    if (rule.minAmount().compareTo(bound) <= 0
+                            && (rule.maxAmount() == null || (next != null && rule.maxAmount().compareTo(next) >= 0))) {
+                        afterCandidates.add(rule);
+                    }
+                }
+                atBound[i] = atCandidates.stream().max(PRECEDENCE).orElse(null);
+                afterBound[i] = afterCandidates.stream().max(PRECEDENCE).orElse(null);
+            }
+            return new Intervals(bounds, atBound, afterBound);
+        }
+
+        private FeeRuleDefinition find(BigDecimal amount) {
+            int index = Arrays.binarySearch(bounds, amount, BigDecimal::compareTo);
+            if (index >= 0) {
+                return atBound[index];
+            }
+            int insertion = -index - 1;
+            return insertion == 0 ? null : afterBound[insertion - 1];
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.toycell.commondomain.response;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Position in a listing ordered by {@code (created_at DESC, id DESC)}: the last row a client has
+ * seen. It travels as an opaque URL-safe token so clients cannot depend on its layout; the next
+ * page seeks to rows strictly before this position instead of skipping an OFFSET.
+ */
+public record SeekCursor(LocalDateTime createdAt, long id) {
+
+    private static final byte VERSION = 1;
+    private static final int ENCODED_LENGTH = 1 + Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_LENGTH)
+                .put(VERSION)
+                .putLong(createdAt.toEpochSecond(ZoneOffset.UTC))
+                .putInt(createdAt.getNano())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static SeekCursor decode(String token) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != ENCODED_LENGTH || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, ENCODED_LENGTH - 1);
+        try {
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            return new SeekCursor(createdAt, buffer.getLong());
+        } catch (DateTimeException e) {
+            // Right length but an out-of-range second or nano
+            throw new IllegalArgumentException("Unsupported cursor", e);
+        }
+    }
+
+    /**
+     * Builds a page from {@code rows} fetched with a limit of {@code size + 1}: the extra row only
+     * signals that another page exists and is dropped.
+     */
+    public static <E, T> CursorPageResponse<T> page(List<E> rows, int size,
+                                                    Function<E, SeekCursor> position,
+                                                    Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        return CursorPageResponse.<T>builder()
+                .content(pageRows.stream().map(mapper).toList())
+                .size(pageRows.size())
+                .nextCursor(hasNext ? position.apply(pageRows.get(size - 1)).encode() : null)
+                .hasNext(hasNext)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.toycell.commondomain.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Caller identity that api-gateway attaches to a request after verifying its JWT once. It travels
+ * in the {@value #HEADER} header as {@code base64url(userId:role:expiresAt) "." base64url(hmac)},
+ * signed with HMAC-SHA256 under a secret shared only by the gateway and the services, so a service
+ * can trust it with one short HMAC instead of re-verifying the JWT on every hop.
+ *
+ * @param expiresAt epoch seconds; equals the JWT's exp claim
+ */
+public record InternalIdentity(long userId, String role, long expiresAt) {
+
+    public static final String HEADER = "X-Toycell-Identity";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    // Shipped once as a development default, so it is public and must never sign anything
+    private static final String PUBLISHED_DEFAULT_SECRET = "ToycellDefaultInternalIdentitySecret32Bytes!";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public InternalIdentity {
+        if (role == null || role.isEmpty() || role.indexOf(':') >= 0) {
+            throw new IllegalArgumentException("Invalid role");
+        }
+    }
+
+    /**
+     * Returns the bytes of a signing secret, refusing one anyone could know or guess.
+     *
+     * @throws IllegalStateException if the secret is missing, shorter than 32 bytes or the
+     *                               development default that was once published in this repository
+     */
+    public static byte[] requireSecret(String secret, String property) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException(property + " must be set");
+        }
+        if (secret.equals(PUBLISHED_DEFAULT_SECRET)) {
+            throw new IllegalStateException(property + " is the published development default; set a private value");
+        }
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException(property + " must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    public String sign(byte[] secret) {
+        byte[] payload = (userId + ":" + role + ":" + expiresAt).getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac(secret, payload));
+    }
+
+    /**
+     * Parses and checks a header value produced by {@link #sign}.
+     *
+     * @throws IllegalArgumentException if the value is malformed, the signature does not match or
+     *                                  it expired before {@code nowEpochSeconds}
+     */
+    public static InternalIdentity verify(String header, byte[] secret, long nowEpochSeconds) {
+        int dot = header.indexOf('.');
+        if (dot <= 0) {
+            throw new IllegalArgumentException("Malformed identity header");
+        }
+        byte[] payload = DECODER.decode(header.substring(0, dot));
+        byte[] signature = DECODER.decode(header.substring(dot + 1));
+        if (!MessageDigest.isEqual(mac(secret, payload), signature)) {
+            throw new IllegalArgumentException("Identity header signature mismatch");
+        }
+
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed identity header");
+        }
+        InternalIdentity identity = new InternalIdentity(Long.parseLong(parts[0]), parts[1], Long.parseLong(parts[2]));
+        if (identity.expiresAt() <= nowEpochSeconds) {
+            throw new IllegalArgumentException("Identity header expired");
+        }
+        return identity;
+    }
+
+    static byte[] mac(byte[] secret, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret, ALGORITHM));
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.toycell.commondomain.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Short-lived credential one service attaches when it calls another service's internal endpoints.
+ * It travels in the {@value #HEADER} header as {@code base64url("service":name:userId:expiresAt)
+ * "." base64url(hmac)}, signed with HMAC-SHA256 under {@code internal.service.secret}, a secret that
+ * only the services hold; api-gateway never has it and strips the header from client requests.
+ *
+ * @param userId    user the calling service acts for, already authenticated by that service;
+ *                  null for calls made on the service's own behalf
+ * @param expiresAt epoch seconds
+ */
+public record ServiceCredential(String service, Long userId, long expiresAt) {
+
+    public static final String HEADER = "X-Toycell-Service";
+    public static final String SECRET_PROPERTY = "internal.service.secret";
+
+    // Keeps a service payload from ever parsing as an InternalIdentity and the other way round
+    private static final String KIND = "service";
+    private static final String NO_USER = "-";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public ServiceCredential {
+        if (service == null || service.isEmpty() || service.indexOf(':') >= 0) {
+            throw new IllegalArgumentException("Invalid service name");
+        }
+    }
+
+    /**
+     * Signs a credential for {@code service} acting for {@code userId} (null for none) that stays
+     * valid for {@code ttlSeconds}
+     */
+    public static String issue(String service, Long userId, byte[] secret, long nowEpochSeconds, long ttlSeconds) {
+        return new ServiceCredential(service, userId, nowEpochSeconds + ttlSeconds).sign(secret);
+    }
+
+    public String sign(byte[] secret) {
+        String user = userId != null ? userId.toString() : NO_USER;
+        byte[] payload = (KIND + ":" + service + ":" + user + ":" + expiresAt).getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(InternalIdentity.mac(secret, payload));
+    }
+
+    /**
+     * Parses and checks a header value produced by {@link #sign}.
+     *
+     * @throws IllegalArgumentException if the value is malformed, the signature does not match or
+     *                                  it expired before {@code nowEpochSeconds}
+     */
+    public static ServiceCredential verify(String header, byte[] secret, long nowEpochSeconds) {
+        int dot = header.indexOf('.');
+        if (dot <= 0) {
+            throw new IllegalArgumentException("Malformed service credential");
+        }
+        byte[] payload = DECODER.decode(header.substring(0, dot));
+        byte[] signature = DECODER.decode(header.substring(dot + 1));
+        if (!MessageDigest.isEqual(InternalIdentity.mac(secret, payload), signature)) {
+            throw new IllegalArgumentException("Service credential signature mismatch");
+        }
+
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split(":");
+        if (parts.length != 4 || !KIND.equals(parts[0])) {
+            throw new IllegalArgumentException("Malformed service credential");
+        }
+        Long userId = NO_USER.equals(parts[2]) ? null : Long.valueOf(parts[2]);
+        ServiceCredential credential = new ServiceCredential(parts[1], userId, Long.parseLong(parts[3]));
+        if (credential.expiresAt() <= nowEpochSeconds) {
+            throw new IllegalArgumentException("Service credential expired");
+        }
+        return credential;
+    }
+}
@@ -0,0 +1,125 @@
+package com.toycell.commondomain.fee;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link FeeArithmetic#calculate} returns exactly what the BigDecimal formula that
+ * FeeService used before the minor-unit fast path returned, value and scale.
+ */
+class FeeArithmeticTest {
+
+    private static final int RANDOM_CASES = 200_000;
+
+    @Test
+    void matchesBigDecimalFormulaOnRandomRules() {
+        Random random = new Random(20261018L);
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            BigDecimal amount = randomDecimal(random, 100_000_000_000L, random.nextInt(3));
+            if (random.nextInt(10) == 0) {
+                amount = amount.negate();
+            }
+            FeeRuleDefinition rule = randomRule(random);
+
+            assertTrue(rule.minorUnits(), () -> "expected a fast-path rule: " + rule);
+            assertSame(amount, rule);
+        }
+    }
+
+    @Test
+    void matchesBigDecimalFormulaOnFallbackInputs() {
+        Random random = new Random(42L);
+        for (int i = 0; i < RANDOM_CASES / 10; i++) {
+            // More than 2 decimals, more than 11 integer digits, or a rate with more than 2 decimals
+            BigDecimal amount = switch (i % 3) {
+                case 0 -> randomDecimal(random, 1_000_000L, 3 + random.nextInt(3));
+                case 1 -> randomDecimal(random, Long.MAX_VALUE / 1000, 2).add(BigDecimal.valueOf(100_000_000_000L));
+                default -> randomDecimal(random, 1_000_000L, 2);
+            };
+            BigDecimal percentage = i % 3 == 2
+                    ? randomDecimal(random, 10_000L, 3 + random.nextInt(2))
+                    : randomDecimal(random, 10_000L, 2);
+            FeeRuleDefinition rule = FeeRuleDefinition.of(1L, BigDecimal.ZERO, null, null, percentage,
+                    randomDecimal(random, 1_000L, 2), randomDecimal(random, 500L, 2), null, 0);
+
+            assertSame(amount, rule);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // amount, percentage, fixed, min, max, expected
+            "100.00, 1.50, 0.00, 0.00, , 1.50",
+            "0.01, 50.00, 0.00, 0.00, , 0.01",       // 0.005 rounds half up
+            "-0.01, 50.00, 0.00, -1.00, , -0.01",    // and away from zero when negative
+            "0.03, 50.00, 0.00, 0.00, , 0.02",       // 0.015
+            "1000.00, 2.00, 5.00, 10.00, 20.00, 20.00",
+            "10.00, 1.00, 0.00, 3.00, 20.00, 3.00",
+            "-500.00, 1.00, 0.00, 0.00, , 0.00",
+            "12345678901.99, 99.99, 9999.99, 0.00, , 12344454334.09", // 11 integer digits, the fast-path limit
+    })
+    void matchesKnownValues(String amount, String percentage, String fixed, String min, String max, String expected) {
+        FeeRuleDefinition rule = FeeRuleDefinition.of(1L, BigDecimal.ZERO, null, null, new BigDecimal(percentage),
+                new BigDecimal(fixed), new BigDecimal(min), max != null ? new BigDecimal(max) : null, 0);
+
+        assertEquals(new BigDecimal(expected), FeeArithmetic.calculate(new BigDecimal(amount), rule));
+        assertSame(new BigDecimal(amount), rule);
+    }
+
+    private static void assertSame(BigDecimal amount, FeeRuleDefinition rule) {
+        BigDecimal expected = referenceFee(amount, rule);
+        assertEquals(expected, FeeArithmetic.calculate(amount, rule),
+                () -> "amount=" + amount + " rule=" + rule);
+    }
+
+    /**
+     * The formula FeeService applied before FeeArithmetic existed, copied verbatim.
+     */
+    private static BigDecimal referenceFee(BigDecimal amount, FeeRuleDefinition rule) {
+        BigDecimal percentageFee = amount
+                .multiply(rule.feePercentage())
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+
+        BigDecimal totalFee = percentageFee.add(rule.fixedFee());
+
+        if (totalFee.compareTo(rule.minFee()) < 0) {
+            totalFee = rule.minFee();
+        }
+
+        if (rule.maxFee() != null && totalFee.compareTo(rule.maxFee()) > 0) {
+            totalFee = rule.maxFee();
+        }
+
+        return totalFee.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static FeeRuleDefinition randomRule(Random random) {
+        BigDecimal percentage = randomDecimal(random, random.nextInt(4) == 0 ? 1_000L : 100L, random.nextInt(3));
+        BigDecimal fixed = random.nextBoolean() ? BigDecimal.ZERO : randomDecimal(random, 10_000L, random.nextInt(3));
+        BigDecimal min = random.nextBoolean() ? BigDecimal.ZERO : randomDecimal(random, 1_000L, random.nextInt(3));
+        BigDecimal max = random.nextBoolean() ? null : min.add(randomDecimal(random, 100_000L, random.nextInt(3)));
+        return FeeRuleDefinition.of(1L, BigDecimal.ZERO, null, null, percentage, fixed, min, max, 0);
+    }
+
+    // Non-negative value below bound (in whole units) with the given number of decimals
+    private static BigDecimal randomDecimal(Random random, long bound, int scale) {
+        long unscaled = Math.floorMod(random.nextLong(), Math.max(1L, bound) * pow10(scale));
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    private static long pow10(int scale) {
+        long result = 1L;
+        for (int i = 0; i < scale; i++) {
+            result = Math.multiplyExact(result, 10L);
+        }
+        return result;
+    }
+}
@@ -7,22 +7,36 @@ import lombok.Getter;
 public class BusinessException extends RuntimeException {
     private final ErrorCode errorCode;
     private final String details;
+    /**
+     * Seconds the client should wait before retrying, sent as Retry-After; null when not applicable
+     */
+    private final Long retryAfterSeconds;
 
     public BusinessException(ErrorCode errorCode) {
         super(errorCode.getMessage());
         this.errorCode = errorCode;
         this.details = null;
+        this.retryAfterSeconds = null;
     }
 
     public BusinessException(ErrorCode errorCode, String details) {
         super(errorCode.getMessage() + ": " + details);
         this.errorCode = errorCode;
         this.details = details;
+        this.retryAfterSeconds = null;
+    }
+
+    public BusinessException(ErrorCode errorCode, String details, long retryAfterSeconds) {
+        super(errorCode.getMessage() + ": " + details);
+        this.errorCode = errorCode;
+        this.details = details;
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
     public BusinessException(ErrorCode errorCode, Throwable cause) {
         super(errorCode.getMessage(), cause);
         this.errorCode = errorCode;
         this.details = cause.getMessage();
+        this.retryAfterSeconds = null;
     }
 }
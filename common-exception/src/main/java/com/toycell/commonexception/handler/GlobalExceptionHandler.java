@@ -6,6 +6,7 @@ import com.toycell.commonexception.exception.BusinessException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -32,9 +33,11 @@ public class GlobalExceptionHandler {
                 .details(ex.getDetails())
                 .build();
 
-        return ResponseEntity
-                .status(getHttpStatus(ex.getErrorCode()))
-                .body(errorResponse);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(getHttpStatus(ex.getErrorCode()));
+        if (ex.getRetryAfterSeconds() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()));
+        }
+        return response.body(errorResponse);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -87,8 +90,11 @@ public class GlobalExceptionHandler {
             case "AUTH" -> HttpStatus.UNAUTHORIZED;
             case "VAL" -> HttpStatus.BAD_REQUEST;
             case "BAL", "TRF", "ACC", "FEE", "TXN" -> HttpStatus.BAD_REQUEST;
-            case "GEN" -> errorCode == ErrorCode.RESOURCE_NOT_FOUND ? 
-                    HttpStatus.NOT_FOUND : HttpStatus.INTERNAL_SERVER_ERROR;
+            case "GEN" -> switch (errorCode) {
+                case RESOURCE_NOT_FOUND -> HttpStatus.NOT_FOUND;
+                case SERVICE_UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE;
+                default -> HttpStatus.INTERNAL_SERVER_ERROR;
+            };
             default -> HttpStatus.INTERNAL_SERVER_ERROR;
         };
     }
@@ -16,11 +16,6 @@ import java.time.LocalDate;
 @Builder
 public class UserProfile extends BaseEntity {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_profiles_seq_gen")
-    @SequenceGenerator(name = "user_profiles_seq_gen", sequenceName = "user_profiles_seq", allocationSize = 1)
-    private Long id;
-
     @Column(nullable = false, unique = true, name = "user_id")
     private Long userId; // Reference to User from service-auth
 
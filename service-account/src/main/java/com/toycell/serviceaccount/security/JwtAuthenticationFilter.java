@@ -1,5 +1,6 @@
 package com.toycell.serviceaccount.security;
 
+import com.toycell.commondomain.security.InternalIdentity;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,15 +24,31 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenValidator jwtTokenValidator;
+    private final IdentityHeaderVerifier identityHeaderVerifier;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
+            InternalIdentity identity = identityHeaderVerifier.verify(request);
+            if (identity != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                identity.userId(),
+                                null,
+                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                        );
+
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                log.debug("Set authentication from gateway identity for user ID: {}", identity.userId());
+            }
+
             String jwt = extractJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt)) {
+            if (identity == null && StringUtils.hasText(jwt)) {
                 Long userId = jwtTokenValidator.getUserIdFromToken(jwt);
                 
                 UsernamePasswordAuthenticationToken authentication = 
@@ -1,31 +1,54 @@
 package com.toycell.serviceaccount.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Verifies JWTs issued by service-auth. The parser is built once (it is immutable and thread-safe)
+ * and verified claims are cached under the token's SHA-256 digest until the token expires, so a
+ * token is HMAC-verified once rather than on every call. Failed verifications are not cached.
+ * Hit/miss counts are published as {@code cache.gets{cache=jwt.claims}}.
+ */
 @Slf4j
 @Component
 public class JwtTokenValidator {
 
-    private final SecretKey key;
+    private final JwtParser parser;
+    private final Cache<String, Claims> claimsCache;
 
-    public JwtTokenValidator(@Value("${jwt.secret.key}") String secretKey) {
-        this.key = Keys.hmacShaKeyFor(secretKey.getBytes());
+    public JwtTokenValidator(@Value("${jwt.secret.key}") String secretKey,
+                             @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                             MeterRegistry meterRegistry) {
+        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwt.claims");
     }
 
     public Claims validateToken(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return verifiedClaims(token);
         } catch (Exception e) {
             log.error("JWT validation failed: {}", e.getMessage());
             throw new RuntimeException("Invalid or expired token");
@@ -36,4 +59,49 @@ public class JwtTokenValidator {
         Claims claims = validateToken(token);
         return claims.get("userId", Long.class);
     }
+
+    /**
+     * Claims from the cache, or verified and cached on a miss; throws JwtException if the token is invalid
+     */
+    private Claims verifiedClaims(String token) {
+        String digest = digest(token);
+        Claims claims = claimsCache.getIfPresent(digest);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            // Tokens without exp are never cached
+            if (claims.getExpiration() != null) {
+                claimsCache.put(digest, claims);
+            }
+        }
+        return claims;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // An entry lives until its token's exp claim
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0L));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
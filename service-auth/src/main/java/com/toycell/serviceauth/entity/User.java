@@ -16,11 +16,6 @@ import lombok.*;
 @Builder
 public class User extends BaseEntity {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq_gen")
-    @SequenceGenerator(name = "users_seq_gen", sequenceName = "users_seq", allocationSize = 1)
-    private Long id;
-
     @Column(nullable = false, unique = true, length = 50)
     private String username;
 
@@ -10,7 +10,6 @@ import com.toycell.serviceauth.repository.UserRepository;
 import com.toycell.serviceauth.security.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,7 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtTokenProvider jwtTokenProvider;
     private final CaptchaService captchaService;
 
@@ -41,7 +40,7 @@ public class AuthService {
         User user = User.builder()
                 .username(request.getUsername())
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHashingService.encode(request.getPassword()))
                 .active(true)
                 .build();
 
@@ -65,7 +64,7 @@ public class AuthService {
         );
     }
 
-    @Transactional(readOnly = true)
+    @Transactional
     public AuthResponse login(LoginRequest request) {
         log.info("Login attempt for email: {}", request.getEmail());
 
@@ -89,10 +88,15 @@ public class AuthService {
             }
 
             // Validate password
-            if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+            if (!passwordHashingService.matches(request.getPassword(), user.getPasswordHash())) {
                 throw new BusinessException(ErrorCode.INVALID_CREDENTIALS);
             }
 
+            // Upgrade hashes made with an older BCrypt cost
+            if (passwordHashingService.needsRehash(user.getPasswordHash())) {
+                rehash(user, request.getPassword());
+            }
+
             // Success - clear failed attempts
             captchaService.clearFailedAttempts(request.getEmail());
             log.info("User logged in successfully: {}", user.getEmail());
@@ -113,11 +117,25 @@ public class AuthService {
                     user.getEmail()
             );
         } catch (BusinessException e) {
-            captchaService.recordFailedAttempt(request.getEmail());
+            // Rejections under load are not the caller's failure
+            if (e.getErrorCode() != ErrorCode.SERVICE_UNAVAILABLE) {
+                captchaService.recordFailedAttempt(request.getEmail());
+            }
             throw e;
         }
     }
 
+    private void rehash(User user, String rawPassword) {
+        try {
+            user.setPasswordHash(passwordHashingService.encode(rawPassword));
+            userRepository.save(user);
+            log.info("Rehashed password of user {} with the configured BCrypt strength", user.getId());
+        } catch (BusinessException e) {
+            // Saturated: keep the old hash and retry on a later login
+            log.debug("Skipping password rehash for user {}: {}", user.getId(), e.getDetails());
+        }
+    }
+
     @Transactional(readOnly = true)
     public User validateUser(Long userId) {
         return userRepository.findById(userId)
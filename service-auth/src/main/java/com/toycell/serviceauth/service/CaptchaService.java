@@ -3,45 +3,45 @@ package com.toycell.serviceauth.service;
 import com.toycell.commonexception.enums.ErrorCode;
 import com.toycell.commonexception.exception.BusinessException;
 import com.toycell.serviceauth.dto.CaptchaResponse;
+import com.toycell.serviceauth.service.captcha.CaptchaStore;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Issues and verifies math captchas and counts failed logins per email. State is kept in the
+ * configured {@link CaptchaStore}, so with a shared store any node can verify a captcha and the
+ * attempt count is not split across nodes.
+ */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class CaptchaService {
 
-    private static final long CAPTCHA_TTL_MS = 5 * 60 * 1000; // 5 minutes
-
-    private record CaptchaEntry(int answer, long createdAt) {}
-
-    private final Map<String, CaptchaEntry> captchaStore = new ConcurrentHashMap<>();
-    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private final CaptchaStore captchaStore;
 
     /**
      * Returns true if this email has at least 1 failed login attempt.
      */
     public boolean isCaptchaRequired(String email) {
-        return failedAttempts.getOrDefault(email.toLowerCase(), 0) >= 1;
+        return captchaStore.getFailedAttempts(email.toLowerCase()) >= 1;
     }
 
     /**
      * Records a failed login attempt for the given email.
      */
     public void recordFailedAttempt(String email) {
-        failedAttempts.merge(email.toLowerCase(), 1, Integer::sum);
-        log.debug("Failed attempts for {}: {}", email, failedAttempts.get(email.toLowerCase()));
+        int attempts = captchaStore.incrementFailedAttempts(email.toLowerCase());
+        log.debug("Failed attempts for {}: {}", email, attempts);
     }
 
     /**
      * Clears failed login attempts on successful login.
      */
     public void clearFailedAttempts(String email) {
-        failedAttempts.remove(email.toLowerCase());
+        captchaStore.clearFailedAttempts(email.toLowerCase());
     }
 
     /**
@@ -75,7 +75,7 @@ public class CaptchaService {
         }
 
         String captchaId = UUID.randomUUID().toString();
-        captchaStore.put(captchaId, new CaptchaEntry(answer, System.currentTimeMillis()));
+        captchaStore.putCaptcha(captchaId, answer);
 
         log.debug("Generated captcha [{}]: {} (answer: {})", captchaId, question, answer);
 
@@ -94,24 +94,18 @@ public class CaptchaService {
      * @throws BusinessException if verification fails
      */
     public void verifyCaptcha(String captchaId, String userAnswer) {
-        CaptchaEntry entry = captchaStore.remove(captchaId);
+        Integer expected = captchaStore.takeCaptcha(captchaId);
 
-        if (entry == null) {
+        if (expected == null) {
             log.warn("CAPTCHA not found or already used: {}", captchaId);
             throw new BusinessException(ErrorCode.CAPTCHA_VALIDATION_FAILED, "CAPTCHA expired or invalid. Please refresh and try again.");
         }
 
-        // Check TTL
-        if (System.currentTimeMillis() - entry.createdAt() > CAPTCHA_TTL_MS) {
-            log.warn("CAPTCHA expired: {}", captchaId);
-            throw new BusinessException(ErrorCode.CAPTCHA_VALIDATION_FAILED, "CAPTCHA expired. Please refresh and try again.");
-        }
-
         // Check answer
         try {
             int parsed = Integer.parseInt(userAnswer.trim());
-            if (parsed != entry.answer()) {
-                log.warn("CAPTCHA answer mismatch for [{}]: expected={}, got={}", captchaId, entry.answer(), parsed);
+            if (parsed != expected) {
+                log.warn("CAPTCHA answer mismatch for [{}]: expected={}, got={}", captchaId, expected, parsed);
                 throw new BusinessException(ErrorCode.CAPTCHA_VALIDATION_FAILED, "Incorrect CAPTCHA answer.");
             }
         } catch (NumberFormatException e) {
@@ -120,23 +114,4 @@ public class CaptchaService {
 
         log.debug("CAPTCHA verified successfully: {}", captchaId);
     }
-
-    /**
-     * Cleanup expired captchas every 10 minutes.
-     */
-    @Scheduled(fixedRate = 600_000)
-    public void cleanupExpiredCaptchas() {
-        long now = System.currentTimeMillis();
-        int removed = 0;
-        var iterator = captchaStore.entrySet().iterator();
-        while (iterator.hasNext()) {
-            if (now - iterator.next().getValue().createdAt() > CAPTCHA_TTL_MS) {
-                iterator.remove();
-                removed++;
-            }
-        }
-        if (removed > 0) {
-            log.debug("Cleaned up {} expired captchas. Remaining: {}", removed, captchaStore.size());
-        }
-    }
 }
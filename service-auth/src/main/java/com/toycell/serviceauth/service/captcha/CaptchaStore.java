@@ -0,0 +1,31 @@
+package com.toycell.serviceauth.service.captcha;
+
+/**
+ * Holds issued captchas and per-email failed login counters. Implementations are selected with
+ * {@code auth.captcha.store}; a shared store lets any service-auth node verify a captcha issued
+ * by another and keeps one attempt count per email across nodes.
+ */
+public interface CaptchaStore {
+
+    /**
+     * Stores the answer of a newly issued captcha until it is taken or expires.
+     */
+    void putCaptcha(String captchaId, int answer);
+
+    /**
+     * Atomically returns and removes the captcha's answer; null if it is unknown, used or expired.
+     */
+    Integer takeCaptcha(String captchaId);
+
+    /**
+     * Atomically increments the email's failed attempt count, restarts its expiry and returns the new count.
+     */
+    int incrementFailedAttempts(String email);
+
+    /**
+     * Returns the email's current failed attempt count, 0 if none or expired.
+     */
+    int getFailedAttempts(String email);
+
+    void clearFailedAttempts(String email);
+}
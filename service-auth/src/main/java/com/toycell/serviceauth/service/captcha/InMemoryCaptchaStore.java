@@ -0,0 +1,85 @@
+package com.toycell.serviceauth.service.captcha;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Default mode: bounded Caffeine caches local to this node. Each entry expires a fixed time after
+ * its last write (O(1) per entry, no full sweeps) and each cache has a hard size cap beyond which
+ * the least valuable entries are evicted, so spraying random emails or captcha requests cannot
+ * grow the heap. Size, hit/miss and eviction counts are published as
+ * {@code cache.*{cache=auth.failed-attempts|auth.captchas}}.
+ * <p>
+ * Only correct for a single service-auth node; use the redis store when scaling out.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.captcha.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCaptchaStore implements CaptchaStore {
+
+    private final Cache<String, Integer> captchas;
+    private final Cache<String, Integer> failedAttempts;
+
+    public InMemoryCaptchaStore(@Value("${auth.captcha.ttl:5m}") Duration captchaTtl,
+                                @Value("${auth.captcha.max-size:100000}") long captchaMaxSize,
+                                @Value("${auth.failed-attempts.ttl:15m}") Duration failedAttemptsTtl,
+                                @Value("${auth.failed-attempts.max-size:100000}") long failedAttemptsMaxSize,
+                                MeterRegistry meterRegistry) {
+        this.captchas = boundedCache(captchaTtl, captchaMaxSize);
+        this.failedAttempts = boundedCache(failedAttemptsTtl, failedAttemptsMaxSize);
+        CaffeineCacheMetrics.monitor(meterRegistry, captchas, "auth.captchas");
+        CaffeineCacheMetrics.monitor(meterRegistry, failedAttempts, "auth.failed-attempts");
+    }
+
+    @Override
+    public void putCaptcha(String captchaId, int answer) {
+        captchas.put(captchaId, answer);
+    }
+
+    @Override
+    public Integer takeCaptcha(String captchaId) {
+        // Expired entries are never returned
+        return captchas.asMap().remove(captchaId);
+    }
+
+    @Override
+    public int incrementFailedAttempts(String email) {
+        return failedAttempts.asMap().merge(email, 1, Integer::sum);
+    }
+
+    @Override
+    public int getFailedAttempts(String email) {
+        Integer attempts = failedAttempts.getIfPresent(email);
+        return attempts != null ? attempts : 0;
+    }
+
+    @Override
+    public void clearFailedAttempts(String email) {
+        failedAttempts.invalidate(email);
+    }
+
+    /**
+     * Runs pending expiry and size eviction now instead of on the cache's own schedule
+     */
+    void cleanUp() {
+        captchas.cleanUp();
+        failedAttempts.cleanUp();
+    }
+
+    private static Cache<String, Integer> boundedCache(Duration ttl, long maxSize) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                // Removes expired entries promptly even when the cache sees no traffic
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+    }
+}
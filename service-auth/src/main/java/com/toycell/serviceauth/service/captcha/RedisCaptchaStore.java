@@ -0,0 +1,72 @@
+package com.toycell.serviceauth.service.captcha;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Shared mode: captchas and counters live in Redis, so every service-auth node sees the same state
+ * and no sticky sessions are needed. Each operation is a single atomic command: captchas are
+ * written with {@code SET ... PX} and taken with {@code GETDEL} (Redis 6.2+), and a failed
+ * attempt is an {@code INCR} plus {@code PEXPIRE} in one Lua script. Redis expires the keys itself;
+ * size is bounded by the server's {@code maxmemory} policy.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.captcha.store", havingValue = "redis")
+public class RedisCaptchaStore implements CaptchaStore {
+
+    private static final String CAPTCHA_PREFIX = "auth:captcha:";
+    private static final String ATTEMPTS_PREFIX = "auth:failed-attempts:";
+
+    private static final RedisScript<Long> INCREMENT_WITH_EXPIRY = RedisScript.of("""
+            local attempts = redis.call('INCR', KEYS[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return attempts
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final Duration captchaTtl;
+    private final Duration failedAttemptsTtl;
+
+    public RedisCaptchaStore(StringRedisTemplate redis,
+                             @Value("${auth.captcha.ttl:5m}") Duration captchaTtl,
+                             @Value("${auth.failed-attempts.ttl:15m}") Duration failedAttemptsTtl) {
+        this.redis = redis;
+        this.captchaTtl = captchaTtl;
+        this.failedAttemptsTtl = failedAttemptsTtl;
+    }
+
+    @Override
+    public void putCaptcha(String captchaId, int answer) {
+        redis.opsForValue().set(CAPTCHA_PREFIX + captchaId, Integer.toString(answer), captchaTtl);
+    }
+
+    @Override
+    public Integer takeCaptcha(String captchaId) {
+        String answer = redis.opsForValue().getAndDelete(CAPTCHA_PREFIX + captchaId);
+        return answer != null ? Integer.valueOf(answer) : null;
+    }
+
+    @Override
+    public int incrementFailedAttempts(String email) {
+        Long attempts = redis.execute(INCREMENT_WITH_EXPIRY, List.of(ATTEMPTS_PREFIX + email),
+                Long.toString(failedAttemptsTtl.toMillis()));
+        return attempts != null ? attempts.intValue() : 0;
+    }
+
+    @Override
+    public int getFailedAttempts(String email) {
+        String attempts = redis.opsForValue().get(ATTEMPTS_PREFIX + email);
+        return attempts != null ? Integer.parseInt(attempts) : 0;
+    }
+
+    @Override
+    public void clearFailedAttempts(String email) {
+        redis.delete(ATTEMPTS_PREFIX + email);
+    }
+}
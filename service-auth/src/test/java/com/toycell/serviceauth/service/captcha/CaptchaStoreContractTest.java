@@ -0,0 +1,127 @@
+package com.toycell.serviceauth.service.captcha;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Behaviour every {@link CaptchaStore} must share, whichever {@code auth.captcha.store} is selected:
+ * a captcha can be taken once, failed attempts count up and restart their expiry on each increment,
+ * and clearing resets the count.
+ */
+abstract class CaptchaStoreContractTest {
+
+    private static final Duration TTL = Duration.ofMillis(600);
+
+    /**
+     * A new, empty store whose captchas and failed attempt counters expire after {@code ttl}
+     */
+    protected abstract CaptchaStore store(Duration ttl);
+
+    @Test
+    void captchaCanBeTakenOnlyOnce() {
+        CaptchaStore store = store(Duration.ofMinutes(5));
+        store.putCaptcha("captcha", 12);
+
+        assertEquals(12, store.takeCaptcha("captcha"));
+        assertNull(store.takeCaptcha("captcha"));
+    }
+
+    @Test
+    void unknownCaptchaIsNull() {
+        assertNull(store(Duration.ofMinutes(5)).takeCaptcha("missing"));
+    }
+
+    @Test
+    void concurrentTakesHandOutTheAnswerOnce() throws Exception {
+        CaptchaStore store = store(Duration.ofMinutes(5));
+        store.putCaptcha("captcha", 5);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> takes = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                takes.add(pool.submit(() -> {
+                    start.await();
+                    return store.takeCaptcha("captcha");
+                }));
+            }
+            start.countDown();
+
+            long answered = 0;
+            for (Future<Integer> take : takes) {
+                if (Objects.equals(take.get(), 5)) {
+                    answered++;
+                }
+            }
+            assertEquals(1L, answered);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void captchaExpires() throws InterruptedException {
+        CaptchaStore store = store(TTL);
+        store.putCaptcha("captcha", 3);
+
+        Thread.sleep(TTL.toMillis() * 2);
+
+        assertNull(store.takeCaptcha("captcha"));
+    }
+
+    @Test
+    void failedAttemptsCountUpPerEmail() {
+        CaptchaStore store = store(Duration.ofMinutes(15));
+
+        assertEquals(0, store.getFailedAttempts("a@example.com"));
+        assertEquals(1, store.incrementFailedAttempts("a@example.com"));
+        assertEquals(2, store.incrementFailedAttempts("a@example.com"));
+        assertEquals(1, store.incrementFailedAttempts("b@example.com"));
+
+        assertEquals(2, store.getFailedAttempts("a@example.com"));
+        assertEquals(1, store.getFailedAttempts("b@example.com"));
+    }
+
+    @Test
+    void incrementRestartsTheExpiry() throws InterruptedException {
+        CaptchaStore store = store(TTL);
+
+        store.incrementFailedAttempts("a@example.com");
+        Thread.sleep(TTL.toMillis() / 2);
+        store.incrementFailedAttempts("a@example.com");
+        Thread.sleep(TTL.toMillis() * 2 / 3);
+
+        // Past the first increment's expiry, within the second's
+        assertEquals(2, store.getFailedAttempts("a@example.com"));
+
+        Thread.sleep(TTL.toMillis() * 2);
+        assertEquals(0, store.getFailedAttempts("a@example.com"));
+        assertEquals(1, store.incrementFailedAttempts("a@example.com"));
+    }
+
+    @Test
+    void clearResetsTheCount() {
+        CaptchaStore store = store(Duration.ofMinutes(15));
+        store.incrementFailedAttempts("a@example.com");
+        store.incrementFailedAttempts("a@example.com");
+        store.incrementFailedAttempts("b@example.com");
+
+        store.clearFailedAttempts("a@example.com");
+
+        assertEquals(0, store.getFailedAttempts("a@example.com"));
+        assertEquals(1, store.getFailedAttempts("b@example.com"));
+        assertEquals(1, store.incrementFailedAttempts("a@example.com"));
+    }
+}
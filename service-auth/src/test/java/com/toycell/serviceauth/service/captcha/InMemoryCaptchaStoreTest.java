@@ -0,0 +1,114 @@
+package com.toycell.serviceauth.service.captcha;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link CaptchaStore} contract, plus size cap, eviction metrics and heap use of the
+ * Caffeine-backed store under many distinct keys.
+ */
+class InMemoryCaptchaStoreTest extends CaptchaStoreContractTest {
+
+    private static final int MAX_SIZE = 1_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void capsCaptchasAndCountsEvictions() {
+        InMemoryCaptchaStore store = store(Duration.ofMinutes(5), MAX_SIZE);
+
+        for (int i = 0; i < 10 * MAX_SIZE; i++) {
+            store.putCaptcha("captcha-" + i, i);
+        }
+        store.cleanUp();
+
+        assertTrue(gauge("cache.size", "auth.captchas") <= MAX_SIZE);
+        assertTrue(functionCounter("cache.evictions", "auth.captchas") >= 9 * MAX_SIZE);
+
+        long remaining = IntStream.range(0, 10 * MAX_SIZE)
+                .filter(i -> store.takeCaptcha("captcha-" + i) != null)
+                .count();
+        assertTrue(remaining <= MAX_SIZE, () -> remaining + " captchas left over a cap of " + MAX_SIZE);
+    }
+
+    @Test
+    void capsFailedAttemptsAndCountsEvictions() {
+        InMemoryCaptchaStore store = store(Duration.ofMinutes(15), MAX_SIZE);
+
+        for (int i = 0; i < 10 * MAX_SIZE; i++) {
+            store.incrementFailedAttempts("user-" + i + "@example.com");
+        }
+        store.cleanUp();
+
+        assertTrue(gauge("cache.size", "auth.failed-attempts") <= MAX_SIZE);
+        assertTrue(functionCounter("cache.evictions", "auth.failed-attempts") >= 9 * MAX_SIZE);
+    }
+
+    @Test
+    void heapStaysFlatUnderAMillionDistinctEmails() {
+        InMemoryCaptchaStore store = store(Duration.ofMinutes(15), 10_000);
+
+        // Both samples are taken once the cache is full, so an unbounded map would keep growing between them
+        sprayFailedAttempts(store, 0, 200_000);
+        long afterFill = usedHeapAfterGc();
+        sprayFailedAttempts(store, 200_000, 1_000_000);
+        long afterMillion = usedHeapAfterGc();
+
+        assertTrue(gauge("cache.size", "auth.failed-attempts") <= 10_000);
+        long growth = afterMillion - afterFill;
+        assertTrue(growth < 16L * 1024 * 1024, () -> "heap grew by " + growth / 1024 + " KiB over 800k more emails");
+    }
+
+    @Test
+    void expiredEntriesAreNotReturned() throws InterruptedException {
+        InMemoryCaptchaStore store = store(Duration.ofMillis(200), MAX_SIZE);
+        store.putCaptcha("captcha", 7);
+        store.incrementFailedAttempts("user@example.com");
+
+        Thread.sleep(400);
+        store.cleanUp();
+
+        assertNull(store.takeCaptcha("captcha"));
+        assertEquals(0, store.getFailedAttempts("user@example.com"));
+        assertEquals(0.0, gauge("cache.size", "auth.captchas"));
+    }
+
+    @Override
+    protected CaptchaStore store(Duration ttl) {
+        return store(ttl, MAX_SIZE);
+    }
+
+    private InMemoryCaptchaStore store(Duration ttl, long maxSize) {
+        return new InMemoryCaptchaStore(ttl, maxSize, ttl, maxSize, meterRegistry);
+    }
+
+    private static void sprayFailedAttempts(InMemoryCaptchaStore store, int from, int to) {
+        for (int i = from; i < to; i++) {
+            store.incrementFailedAttempts("user-" + i + "@example.com");
+        }
+        store.cleanUp();
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private double gauge(String name, String cache) {
+        return meterRegistry.get(name).tag("cache", cache).gauge().value();
+    }
+
+    private double functionCounter(String name, String cache) {
+        return meterRegistry.get(name).tag("cache", cache).functionCounter().count();
+    }
+}
@@ -4,6 +4,7 @@ import com.toycell.servicebalance.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -24,7 +25,13 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/wallets/health", "/api/wallets/internal/**").permitAll()
+                        .requestMatchers("/api/wallets/health", "/actuator/health", "/actuator/info").permitAll()
+                        // Metrics expose traffic and retry counters, admins only
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        // Operational switch, callable by another service or an admin
+                        .requestMatchers(HttpMethod.POST, "/api/wallets/internal/*/striping").hasAnyRole("SERVICE", "ADMIN")
+                        // Moves money on behalf of users; only other services with a signed credential
+                        .requestMatchers("/api/wallets/internal/**").hasRole("SERVICE")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -1,6 +1,10 @@
 package com.toycell.servicebalance.controller;
 
 import com.toycell.commondomain.response.ApiResponse;
+import com.toycell.commondomain.security.ServiceCredential;
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.commondomain.response.CursorPageResponse;
 import com.toycell.servicebalance.dto.*;
 import com.toycell.servicebalance.service.WalletService;
 import jakarta.validation.Valid;
@@ -90,6 +94,29 @@ public class WalletController {
         return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", transactions));
     }
 
+    @GetMapping("/{walletId}/transactions/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> getWalletTransactionsCursor(
+            @PathVariable Long walletId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        Long userId = (Long) authentication.getPrincipal();
+        CursorPageResponse<TransactionResponse> transactions = walletService.getWalletTransactionsCursor(
+                walletId, userId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", transactions));
+    }
+
+    @GetMapping("/transactions/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> getMyTransactionsCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        Long userId = (Long) authentication.getPrincipal();
+        CursorPageResponse<TransactionResponse> transactions = walletService.getUserTransactionsCursor(
+                userId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", transactions));
+    }
+
     @GetMapping("/health")
     public ResponseEntity<ApiResponse<String>> health() {
         return ResponseEntity.ok(ApiResponse.success("Balance Service is running"));
@@ -117,4 +144,43 @@ public class WalletController {
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Withdrawal successful", transaction));
     }
+
+    @PostMapping("/internal/transfer")
+    public ResponseEntity<ApiResponse<TransferInternalResponse>> transferInternal(
+            @Valid @RequestBody TransferInternalRequest request,
+            Authentication authentication) {
+        request.setSenderUserId(actingUserId(authentication));
+        TransferInternalResponse transfer = walletService.transferInternal(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Transfer successful", transfer));
+    }
+
+    @PostMapping("/internal/transfer/batch")
+    public ResponseEntity<ApiResponse<BatchTransferInternalResponse>> transferInternalBatch(
+            @Valid @RequestBody BatchTransferInternalRequest request,
+            Authentication authentication) {
+        request.setSenderUserId(actingUserId(authentication));
+        BatchTransferInternalResponse transfer = walletService.transferInternalBatch(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Batch transfer processed", transfer));
+    }
+
+    @PostMapping("/internal/{walletId}/striping")
+    public ResponseEntity<ApiResponse<WalletResponse>> enableStriping(
+            @PathVariable Long walletId,
+            @RequestParam(defaultValue = "16") int buckets) {
+        WalletResponse wallet = walletService.enableStriping(walletId, buckets);
+        return ResponseEntity.ok(ApiResponse.success("Wallet striping enabled", wallet));
+    }
+
+    /**
+     * The user a calling service acts for, taken from its signed credential and never from the body
+     */
+    private static Long actingUserId(Authentication authentication) {
+        ServiceCredential credential = (ServiceCredential) authentication.getPrincipal();
+        if (credential.userId() == null) {
+            throw new BusinessException(ErrorCode.AUTH_FAILED, "Service credential carries no acting user");
+        }
+        return credential.userId();
+    }
 }
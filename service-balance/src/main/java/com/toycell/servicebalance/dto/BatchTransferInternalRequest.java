@@ -0,0 +1,60 @@
+package com.toycell.servicebalance.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransferInternalRequest {
+
+    // Set from the caller's verified service credential; a value sent in the body is ignored
+    private Long senderUserId;
+
+    @NotNull(message = "Sender wallet ID is required")
+    private Long senderWalletId;
+
+    @NotNull(message = "Currency is required")
+    private Currency currency;
+
+    private String senderDescription;
+
+    @Valid
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 900, message = "At most 900 items per chunk")
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+
+        @NotNull(message = "Receiver wallet ID is required")
+        private Long receiverWalletId;
+
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+        private BigDecimal amount;
+
+        @NotNull(message = "Fee is required")
+        @DecimalMin(value = "0.00", message = "Fee must not be negative")
+        private BigDecimal fee;
+
+        private String receiverDescription;
+
+        private String referenceId;
+    }
+}
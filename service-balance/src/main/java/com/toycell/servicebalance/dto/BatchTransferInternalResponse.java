@@ -0,0 +1,44 @@
+package com.toycell.servicebalance.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransferInternalResponse {
+    private Long senderWalletId;
+    private Long senderUserId;
+    private Currency currency;
+    private BigDecimal senderBalanceBefore;
+    private BigDecimal senderBalanceAfter;
+    private BigDecimal debitedAmount;
+    private List<ItemResult> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemResult {
+        private Long receiverWalletId;
+        private Long receiverUserId;
+        private BigDecimal amount;
+        private BigDecimal fee;
+        private String referenceId;
+        private TransactionStatus status;
+        private String errorCode;
+        private String message;
+        private BigDecimal senderBalanceBefore;
+        private BigDecimal senderBalanceAfter;
+        private BigDecimal receiverBalanceBefore;
+        private BigDecimal receiverBalanceAfter;
+    }
+}
@@ -0,0 +1,44 @@
+package com.toycell.servicebalance.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferInternalRequest {
+
+    // Set from the caller's verified service credential; a value sent in the body is ignored
+    private Long senderUserId;
+
+    @NotNull(message = "Sender wallet ID is required")
+    private Long senderWalletId;
+
+    @NotNull(message = "Receiver wallet ID is required")
+    private Long receiverWalletId;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+    private BigDecimal amount;
+
+    @NotNull(message = "Fee is required")
+    @DecimalMin(value = "0.00", message = "Fee must not be negative")
+    private BigDecimal fee;
+
+    @NotNull(message = "Currency is required")
+    private Currency currency;
+
+    private String senderDescription;
+
+    private String receiverDescription;
+
+    private String referenceId;
+}
@@ -9,15 +9,15 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "balance_transactions", indexes = {
-    @Index(name = "idx_wallet_id", columnList = "wallet_id"),
-    @Index(name = "idx_user_id", columnList = "user_id")
+    @Index(name = "idx_balance_tx_wallet_created", columnList = "wallet_id, created_at, id"),
+    @Index(name = "idx_balance_tx_user_created", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_balance_tx_reference", columnList = "reference_id")
 })
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@SequenceGenerator(name = "base_seq_gen", sequenceName = "balance_transactions_seq", allocationSize = 1)
 public class BalanceTransaction extends BaseEntity {
 
     @Column(nullable = false, name = "wallet_id")
@@ -4,6 +4,7 @@ import com.toycell.commondomain.entity.BaseEntity;
 import com.toycell.commondomain.enums.Currency;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -16,7 +17,6 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@SequenceGenerator(name = "base_seq_gen", sequenceName = "wallets_seq", allocationSize = 1)
 public class Wallet extends BaseEntity {
 
     @Column(nullable = false, name = "user_id")
@@ -33,4 +33,20 @@ public class Wallet extends BaseEntity {
     @Column(nullable = false)
     @Builder.Default
     private Boolean active = true;
+
+    // Number of balance buckets; 0 = regular wallet (see WalletBalanceBucket)
+    @ColumnDefault("0")
+    @Column(nullable = false, name = "stripe_count")
+    @Builder.Default
+    private Integer stripeCount = 0;
+
+    // Optimistic locking; the default fills the column for rows created before it existed
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    public boolean isStriped() {
+        return stripeCount != null && stripeCount > 0;
+    }
 }
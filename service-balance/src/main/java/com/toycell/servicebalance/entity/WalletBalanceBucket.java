@@ -0,0 +1,34 @@
+package com.toycell.servicebalance.entity;
+
+import com.toycell.commondomain.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One sub-balance of a striped wallet. Credits to a striped wallet land in a random bucket
+ * so that concurrent credits do not contend on the {@code wallets} row; the readable balance
+ * is the wallet balance plus the sum of its buckets.
+ */
+@Entity
+@Table(name = "wallet_balance_buckets", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"wallet_id", "bucket_index"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletBalanceBucket extends BaseEntity {
+
+    @Column(nullable = false, name = "wallet_id")
+    private Long walletId;
+
+    @Column(nullable = false, name = "bucket_index")
+    private Integer bucketIndex;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal balance = BigDecimal.ZERO;
+}
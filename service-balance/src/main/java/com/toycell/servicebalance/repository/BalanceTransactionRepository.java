@@ -4,8 +4,12 @@ import com.toycell.servicebalance.entity.BalanceTransaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +18,50 @@ public interface BalanceTransactionRepository extends JpaRepository<BalanceTrans
     Page<BalanceTransaction> findByUserId(Long userId, Pageable pageable);
     
     List<BalanceTransaction> findByWalletIdOrderByCreatedAtDesc(Long walletId);
+
+    List<BalanceTransaction> findByReferenceId(String referenceId);
+
+    List<BalanceTransaction> findByReferenceIdIn(Collection<String> referenceIds);
     
     Page<BalanceTransaction> findByWalletId(Long walletId, Pageable pageable);
+
+    /**
+     * First keyset page of a wallet's history, newest first.
+     */
+    @Query("SELECT t FROM BalanceTransaction t WHERE t.walletId = :walletId " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<BalanceTransaction> findFirstPageByWalletId(@Param("walletId") Long walletId, Pageable pageable);
+
+    /**
+     * Wallet history strictly before the {@code (createdAt, id)} position: a range scan on
+     * idx_balance_tx_wallet_created with no OFFSET and no COUNT query.
+     */
+    @Query("SELECT t FROM BalanceTransaction t WHERE t.walletId = :walletId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<BalanceTransaction> findPageByWalletIdBefore(
+            @Param("walletId") Long walletId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * First keyset page of a user's history across wallets, newest first.
+     */
+    @Query("SELECT t FROM BalanceTransaction t WHERE t.userId = :userId " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<BalanceTransaction> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * User history strictly before the {@code (createdAt, id)} position (range scan on
+     * idx_balance_tx_user_created).
+     */
+    @Query("SELECT t FROM BalanceTransaction t WHERE t.userId = :userId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<BalanceTransaction> findPageByUserIdBefore(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
 }
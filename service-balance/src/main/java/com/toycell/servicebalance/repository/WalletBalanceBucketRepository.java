@@ -0,0 +1,38 @@
+package com.toycell.servicebalance.repository;
+
+import com.toycell.servicebalance.entity.WalletBalanceBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WalletBalanceBucketRepository extends JpaRepository<WalletBalanceBucket, Long> {
+
+    List<WalletBalanceBucket> findByWalletId(Long walletId);
+
+    /**
+     * Atomic in-place credit; only the chosen bucket row is locked, never the wallet row.
+     */
+    @Modifying
+    @Query("UPDATE WalletBalanceBucket b SET b.balance = b.balance + :amount, b.updatedAt = :now " +
+           "WHERE b.walletId = :walletId AND b.bucketIndex = :bucketIndex")
+    int credit(@Param("walletId") Long walletId,
+               @Param("bucketIndex") Integer bucketIndex,
+               @Param("amount") BigDecimal amount,
+               @Param("now") LocalDateTime now);
+
+    @Query("SELECT COALESCE(SUM(b.balance), 0) FROM WalletBalanceBucket b WHERE b.walletId = :walletId")
+    BigDecimal sumBalance(@Param("walletId") Long walletId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM WalletBalanceBucket b WHERE b.walletId = :walletId ORDER BY b.bucketIndex")
+    List<WalletBalanceBucket> findByWalletIdForUpdate(@Param("walletId") Long walletId);
+}
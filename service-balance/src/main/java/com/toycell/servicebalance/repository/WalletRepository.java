@@ -2,18 +2,41 @@ package com.toycell.servicebalance.repository;
 
 import com.toycell.commondomain.enums.Currency;
 import com.toycell.servicebalance.entity.Wallet;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface WalletRepository extends JpaRepository<Wallet, Long> {
+public interface WalletRepository extends JpaRepository<Wallet, Long>, WalletRepositoryCustom {
     
     List<Wallet> findByUserId(Long userId);
     
     Optional<Wallet> findByUserIdAndCurrency(Long userId, Currency currency);
     
     boolean existsByUserIdAndCurrency(Long userId, Currency currency);
+
+    /**
+     * Loads the wallet with SELECT ... FOR UPDATE; the row stays locked until the transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id = :id")
+    Optional<Wallet> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Locks several wallets in one statement. Callers pass the ids in ascending order
+     * so the rows are locked in the same order as {@link #findByIdForUpdate}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id IN :ids ORDER BY w.id")
+    List<Wallet> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT w.id FROM Wallet w WHERE w.stripeCount > 0")
+    List<Long> findStripedWalletIds();
 }
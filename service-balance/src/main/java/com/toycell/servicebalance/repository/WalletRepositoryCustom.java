@@ -0,0 +1,24 @@
+package com.toycell.servicebalance.repository;
+
+import com.toycell.commondomain.enums.Currency;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Hand-written statements that Spring Data cannot derive, see {@link WalletRepositoryImpl}.
+ */
+public interface WalletRepositoryCustom {
+
+    /**
+     * Adds {@code delta} (negative for a debit) to an active wallet in a single conditional
+     * UPDATE. The row only matches when the resulting balance stays non-negative and, if
+     * {@code userId} is given, the wallet belongs to that user.
+     *
+     * @return the updated wallet's balance, owner and currency, or empty when no row matched
+     */
+    Optional<BalanceUpdate> applyBalanceDelta(Long walletId, Long userId, BigDecimal delta);
+
+    record BalanceUpdate(BigDecimal balance, Long userId, Currency currency) {
+    }
+}
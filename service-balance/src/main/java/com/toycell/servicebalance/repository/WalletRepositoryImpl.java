@@ -0,0 +1,64 @@
+package com.toycell.servicebalance.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Oracle implementation of {@link WalletRepositoryCustom}. The UPDATE runs in a PL/SQL block so the
+ * new balance ({@code RETURNING ... INTO}) and {@code SQL%ROWCOUNT} come back in the same round trip.
+ * It bypasses the persistence context: callers must not hold a managed copy of the wallet.
+ */
+public class WalletRepositoryImpl implements WalletRepositoryCustom {
+
+    private static final String APPLY_DELTA =
+            "BEGIN " +
+            "  UPDATE wallets SET balance = balance + ?, version = version + 1, updated_at = ? " +
+            "   WHERE id = ? AND active = 1 AND balance + ? >= 0 AND (? IS NULL OR user_id = ?) " +
+            "  RETURNING balance, user_id, currency INTO ?, ?, ?; " +
+            "  ? := SQL%ROWCOUNT; " +
+            "END;";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<BalanceUpdate> applyBalanceDelta(Long walletId, Long userId, BigDecimal delta) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (CallableStatement statement = connection.prepareCall(APPLY_DELTA)) {
+                statement.setBigDecimal(1, delta);
+                statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                statement.setLong(3, walletId);
+                statement.setBigDecimal(4, delta);
+                if (userId != null) {
+                    statement.setLong(5, userId);
+                    statement.setLong(6, userId);
+                } else {
+                    statement.setNull(5, Types.NUMERIC);
+                    statement.setNull(6, Types.NUMERIC);
+                }
+                statement.registerOutParameter(7, Types.NUMERIC);
+                statement.registerOutParameter(8, Types.NUMERIC);
+                statement.registerOutParameter(9, Types.VARCHAR);
+                statement.registerOutParameter(10, Types.INTEGER);
+                statement.execute();
+
+                if (statement.getInt(10) != 1) {
+                    return Optional.<BalanceUpdate>empty();
+                }
+                return Optional.of(new BalanceUpdate(
+                        statement.getBigDecimal(7),
+                        statement.getLong(8),
+                        Currency.valueOf(statement.getString(9))));
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.toycell.servicebalance.security;
+
+import com.toycell.commondomain.security.InternalIdentity;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+
+/**
+ * Reads the caller identity that api-gateway signs into the {@value InternalIdentity#HEADER} header
+ * after verifying the JWT once. When {@code security.identity.trust-header} is on, a request
+ * carrying a valid header is authenticated with one short HMAC instead of a JWT verification;
+ * a missing, expired or forged header is ignored and the filter falls back to the JWT.
+ */
+@Slf4j
+@Component
+public class IdentityHeaderVerifier {
+
+    private final byte[] secret;
+
+    public IdentityHeaderVerifier(@Value("${security.identity.trust-header:false}") boolean trustHeader,
+                                  @Value("${internal.identity.secret:}") String secret) {
+        // Trusting the header with a missing or public secret would accept forged identities
+        this.secret = trustHeader ? InternalIdentity.requireSecret(secret, "internal.identity.secret") : null;
+        log.info("Gateway identity header is {}", trustHeader ? "trusted" : "ignored");
+    }
+
+    /**
+     * Returns the verified identity, or null when the header is absent, untrusted or invalid
+     */
+    public InternalIdentity verify(HttpServletRequest request) {
+        if (secret == null) {
+            return null;
+        }
+        String header = request.getHeader(InternalIdentity.HEADER);
+        if (!StringUtils.hasText(header)) {
+            return null;
+        }
+        try {
+            return InternalIdentity.verify(header, secret, Instant.now().getEpochSecond());
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring identity header: {}", e.getMessage());
+            return null;
+        }
+    }
+}
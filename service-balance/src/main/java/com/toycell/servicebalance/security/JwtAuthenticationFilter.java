@@ -1,5 +1,8 @@
 package com.toycell.servicebalance.security;
 
+import com.toycell.commondomain.security.InternalIdentity;
+import com.toycell.commondomain.security.ServiceCredential;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,6 +10,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,6 +20,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -23,33 +28,69 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenValidator jwtTokenValidator;
+    private final IdentityHeaderVerifier identityHeaderVerifier;
+    private final ServiceCredentialVerifier serviceCredentialVerifier;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
+            // Service-to-service call: the principal is the credential itself, carrying the acting user
+            ServiceCredential service = serviceCredentialVerifier.verify(request);
+            if (service != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                service,
+                                null,
+                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_SERVICE"))
+                        );
+
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                log.debug("Set authentication for service: {}", service.service());
+                filterChain.doFilter(request, response);
+                return;
+            }
+
+            InternalIdentity identity = identityHeaderVerifier.verify(request);
+            if (identity != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                identity.userId(),
+                                null,
+                                userAuthorities(identity.role())
+                        );
+
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                log.debug("Set authentication from gateway identity for user ID: {}", identity.userId());
+            }
+
             String jwt = extractJwtFromRequest(request);
             
             log.debug("Processing request to: {}", request.getRequestURI());
             log.debug("Authorization header present: {}", request.getHeader("Authorization") != null);
             
-            if (StringUtils.hasText(jwt)) {
+            if (identity == null && StringUtils.hasText(jwt)) {
                 log.debug("JWT token found, validating...");
-                Long userId = jwtTokenValidator.getUserIdFromToken(jwt);
+                Claims claims = jwtTokenValidator.validateToken(jwt);
+                Long userId = claims.get("userId", Long.class);
                 
                 UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(
                                 userId, 
                                 null, 
-                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                                userAuthorities(claims.get("role", String.class))
                         );
                 
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 
                 log.debug("Set authentication for user ID: {}", userId);
-            } else {
+            } else if (identity == null) {
                 log.debug("No JWT token found in request");
             }
         } catch (Exception e) {
@@ -59,6 +100,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * ROLE_USER for every user, plus ROLE_ADMIN for admins; the same for a JWT and a gateway identity
+     */
+    private static List<GrantedAuthority> userAuthorities(String role) {
+        if ("ADMIN".equals(role)) {
+            return List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+    }
+
     private String extractJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
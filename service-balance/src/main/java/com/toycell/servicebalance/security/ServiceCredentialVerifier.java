@@ -0,0 +1,43 @@
+package com.toycell.servicebalance.security;
+
+import com.toycell.commondomain.security.InternalIdentity;
+import com.toycell.commondomain.security.ServiceCredential;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+
+/**
+ * Verifies the signed {@value ServiceCredential#HEADER} credential other services send to
+ * {@code /api/wallets/internal/**}. Those endpoints move money, so they accept nothing else and
+ * startup fails without a private {@code internal.service.secret}.
+ */
+@Slf4j
+@Component
+public class ServiceCredentialVerifier {
+
+    private final byte[] secret;
+
+    public ServiceCredentialVerifier(@Value("${internal.service.secret:}") String secret) {
+        this.secret = InternalIdentity.requireSecret(secret, ServiceCredential.SECRET_PROPERTY);
+    }
+
+    /**
+     * Returns the verified credential, or null when the header is absent or invalid
+     */
+    public ServiceCredential verify(HttpServletRequest request) {
+        String header = request.getHeader(ServiceCredential.HEADER);
+        if (!StringUtils.hasText(header)) {
+            return null;
+        }
+        try {
+            return ServiceCredential.verify(header, secret, Instant.now().getEpochSecond());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting service credential: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.toycell.servicebalance.service;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.Wallet;
+import com.toycell.servicebalance.entity.WalletBalanceBucket;
+import com.toycell.servicebalance.repository.BalanceTransactionRepository;
+import com.toycell.servicebalance.repository.WalletBalanceBucketRepository;
+import com.toycell.servicebalance.repository.WalletRepository;
+import com.toycell.servicebalance.service.mutation.WalletMutation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Striped wallets spread credits over {@code stripe_count} bucket rows instead of the single
+ * {@code wallets} row. Debits and any other locked mutation first consolidate the buckets back
+ * into the wallet balance, so they always see (and record) the exact balance.
+ * <p>
+ * Lock order: a transaction takes all of its wallet rows first (ascending id), then bucket rows in
+ * ascending wallet id, and at most one bucket per wallet when crediting. Every path follows it,
+ * which keeps striping deadlock-free next to the transfer paths.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StripedBalanceService {
+
+    private static final int MAX_BUCKETS = 256;
+
+    private final WalletRepository walletRepository;
+    private final WalletBalanceBucketRepository bucketRepository;
+    private final BalanceTransactionRepository transactionRepository;
+
+    // Striping is only ever switched on, so a stale cache just sends credits through the locked path
+    private final Set<Long> stripedWalletIds = ConcurrentHashMap.newKeySet();
+
+    @Scheduled(fixedDelayString = "${wallet.striping.refresh-ms:10000}")
+    public void refreshStripedWallets() {
+        stripedWalletIds.addAll(walletRepository.findStripedWalletIds());
+    }
+
+    public boolean isStriped(Long walletId) {
+        return stripedWalletIds.contains(walletId);
+    }
+
+    public Set<Long> filterStriped(Collection<Long> walletIds) {
+        return walletIds.stream().filter(stripedWalletIds::contains).collect(Collectors.toSet());
+    }
+
+    /**
+     * Turns striping on for a wallet, or raises its bucket count. Shrinking is not supported.
+     */
+    @Transactional
+    public Wallet enable(Long walletId, int buckets) {
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Bucket count must be between 1 and " + MAX_BUCKETS);
+        }
+
+        Wallet wallet = walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+        if (buckets < wallet.getStripeCount()) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                    "Wallet already has " + wallet.getStripeCount() + " buckets");
+        }
+
+        for (int index = wallet.getStripeCount(); index < buckets; index++) {
+            bucketRepository.save(WalletBalanceBucket.builder()
+                    .walletId(walletId)
+                    .bucketIndex(index)
+                    .build());
+        }
+        wallet.setStripeCount(buckets);
+        walletRepository.save(wallet);
+        stripedWalletIds.add(walletId);
+
+        log.info("Wallet {} striped over {} buckets", walletId, buckets);
+        return wallet;
+    }
+
+    /**
+     * Credits a striped wallet without touching its row (deposit path).
+     */
+    @Transactional
+    public BalanceTransaction credit(WalletMutation mutation) {
+        Wallet wallet = walletRepository.findById(mutation.walletId())
+                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+
+        if (mutation.userId() != null && !wallet.getUserId().equals(mutation.userId())) {
+            throw new BusinessException(ErrorCode.INVALID_TOKEN, "Unauthorized access to wallet");
+        }
+
+        if (!wallet.getActive()) {
+            throw new BusinessException(ErrorCode.WALLET_INACTIVE);
+        }
+
+        BigDecimal balanceAfter = creditBucket(wallet, mutation.amount());
+
+        return transactionRepository.save(BalanceTransaction.builder()
+                .walletId(wallet.getId())
+                .userId(wallet.getUserId())
+                .type(mutation.type())
+                .amount(mutation.amount())
+                .balanceBefore(balanceAfter.subtract(mutation.amount()))
+                .balanceAfter(balanceAfter)
+                .currency(wallet.getCurrency())
+                .description(mutation.description())
+                .referenceId(mutation.referenceId())
+                .build());
+    }
+
+    /**
+     * Adds {@code amount} to a random bucket of the wallet in the current transaction and returns
+     * the readable balance right after it. Concurrent credits to other buckets may be included,
+     * so before/after values of bucket credits are a snapshot rather than a strict sequence.
+     */
+    public BigDecimal creditBucket(Wallet wallet, BigDecimal amount) {
+        int bucketIndex = ThreadLocalRandom.current().nextInt(wallet.getStripeCount());
+        if (bucketRepository.credit(wallet.getId(), bucketIndex, amount, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Bucket " + bucketIndex + " of wallet " + wallet.getId() + " is missing");
+        }
+        return wallet.getBalance().add(bucketRepository.sumBalance(wallet.getId()));
+    }
+
+    /**
+     * Moves all bucket balances into the wallet balance. The caller must hold the wallet row lock
+     * in the current transaction.
+     */
+    public void consolidate(Wallet wallet) {
+        if (!wallet.isStriped()) {
+            return;
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (WalletBalanceBucket bucket : bucketRepository.findByWalletIdForUpdate(wallet.getId())) {
+            if (bucket.getBalance().signum() != 0) {
+                total = total.add(bucket.getBalance());
+                bucket.setBalance(BigDecimal.ZERO);
+            }
+        }
+
+        if (total.signum() != 0) {
+            wallet.setBalance(wallet.getBalance().add(total));
+            log.debug("Consolidated {} from buckets into wallet {}", total, wallet.getId());
+        }
+    }
+
+    public BigDecimal readableBalance(Wallet wallet) {
+        if (!wallet.isStriped()) {
+            return wallet.getBalance();
+        }
+        return wallet.getBalance().add(bucketRepository.sumBalance(wallet.getId()));
+    }
+}
@@ -3,20 +3,33 @@ package com.toycell.servicebalance.service;
 import com.toycell.commonexception.exception.BusinessException;
 import com.toycell.commonexception.enums.ErrorCode;
 import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionStatus;
+import com.toycell.commondomain.response.CursorPageResponse;
+import com.toycell.commondomain.response.SeekCursor;
 import com.toycell.servicebalance.dto.*;
 import com.toycell.servicebalance.entity.BalanceTransaction;
 import com.toycell.servicebalance.entity.Wallet;
 import com.toycell.servicebalance.repository.BalanceTransactionRepository;
 import com.toycell.servicebalance.repository.WalletRepository;
+import com.toycell.servicebalance.service.mutation.WalletMutation;
+import com.toycell.servicebalance.service.mutation.WalletMutationExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -25,8 +38,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WalletService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final WalletRepository walletRepository;
     private final BalanceTransactionRepository transactionRepository;
+    private final WalletMutationExecutor walletMutationExecutor;
+    private final StripedBalanceService stripedBalanceService;
 
     @Transactional
     public WalletResponse createWallet(Long userId, CreateWalletRequest request) {
@@ -67,78 +84,23 @@ public class WalletService {
         return mapToResponse(wallet);
     }
 
-    @Transactional
+    // Balance changes run in the WalletMutationExecutor's own transaction (see wallet.mutation.mode)
     public TransactionResponse deposit(Long userId, DepositRequest request) {
-        Wallet wallet = walletRepository.findById(request.getWalletId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
-
-        if (!wallet.getUserId().equals(userId)) {
-            throw new BusinessException(ErrorCode.INVALID_TOKEN, "Unauthorized access to wallet");
-        }
-
-        if (!wallet.getActive()) {
-            throw new BusinessException(ErrorCode.WALLET_INACTIVE);
-        }
-
-        BigDecimal balanceBefore = wallet.getBalance();
-        BigDecimal balanceAfter = balanceBefore.add(request.getAmount());
-        wallet.setBalance(balanceAfter);
-        walletRepository.save(wallet);
-
-        BalanceTransaction transaction = BalanceTransaction.builder()
-                .walletId(wallet.getId())
-                .userId(userId)
-                .type(BalanceTransaction.TransactionType.DEPOSIT)
-                .amount(request.getAmount())
-                .balanceBefore(balanceBefore)
-                .balanceAfter(balanceAfter)
-                .currency(wallet.getCurrency())
-                .description(request.getDescription())
-                .referenceId(generateReferenceId())
-                .build();
-
-        transaction = transactionRepository.save(transaction);
-        log.info("Deposited {} to wallet {}, new balance: {}", request.getAmount(), wallet.getId(), balanceAfter);
+        BalanceTransaction transaction = credit(new WalletMutation(
+                request.getWalletId(), userId, BalanceTransaction.TransactionType.DEPOSIT,
+                request.getAmount(), request.getDescription(), generateReferenceId()));
+        log.info("Deposited {} to wallet {}, new balance: {}",
+                request.getAmount(), transaction.getWalletId(), transaction.getBalanceAfter());
 
         return mapToTransactionResponse(transaction);
     }
 
-    @Transactional
     public TransactionResponse withdraw(Long userId, WithdrawRequest request) {
-        Wallet wallet = walletRepository.findById(request.getWalletId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
-
-        if (!wallet.getUserId().equals(userId)) {
-            throw new BusinessException(ErrorCode.INVALID_TOKEN, "Unauthorized access to wallet");
-        }
-
-        if (!wallet.getActive()) {
-            throw new BusinessException(ErrorCode.WALLET_INACTIVE);
-        }
-
-        if (wallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE);
-        }
-
-        BigDecimal balanceBefore = wallet.getBalance();
-        BigDecimal balanceAfter = balanceBefore.subtract(request.getAmount());
-        wallet.setBalance(balanceAfter);
-        walletRepository.save(wallet);
-
-        BalanceTransaction transaction = BalanceTransaction.builder()
-                .walletId(wallet.getId())
-                .userId(userId)
-                .type(BalanceTransaction.TransactionType.WITHDRAW)
-                .amount(request.getAmount())
-                .balanceBefore(balanceBefore)
-                .balanceAfter(balanceAfter)
-                .currency(wallet.getCurrency())
-                .description(request.getDescription())
-                .referenceId(generateReferenceId())
-                .build();
-
-        transaction = transactionRepository.save(transaction);
-        log.info("Withdrew {} from wallet {}, new balance: {}", request.getAmount(), wallet.getId(), balanceAfter);
+        BalanceTransaction transaction = walletMutationExecutor.execute(new WalletMutation(
+                request.getWalletId(), userId, BalanceTransaction.TransactionType.WITHDRAW,
+                request.getAmount(), request.getDescription(), generateReferenceId()));
+        log.info("Withdrew {} from wallet {}, new balance: {}",
+                request.getAmount(), transaction.getWalletId(), transaction.getBalanceAfter());
 
         return mapToTransactionResponse(transaction);
     }
@@ -162,6 +124,45 @@ public class WalletService {
                 .map(this::mapToTransactionResponse);
     }
 
+    /**
+     * Keyset variant of {@link #getWalletTransactions}: newest first, no total count. A null
+     * {@code cursor} returns the first page; later pages pass the previous {@code nextCursor}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> getWalletTransactionsCursor(
+            Long walletId, Long userId, String cursor, int size) {
+        Wallet wallet = walletRepository.findById(walletId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+
+        if (!wallet.getUserId().equals(userId)) {
+            throw new BusinessException(ErrorCode.INVALID_TOKEN, "Unauthorized access to wallet");
+        }
+
+        Pageable limit = cursorLimit(size);
+        SeekCursor position = decodeCursor(cursor);
+        List<BalanceTransaction> rows = position == null
+                ? transactionRepository.findFirstPageByWalletId(walletId, limit)
+                : transactionRepository.findPageByWalletIdBefore(walletId, position.createdAt(), position.id(), limit);
+
+        return SeekCursor.page(rows, size, t -> new SeekCursor(t.getCreatedAt(), t.getId()),
+                this::mapToTransactionResponse);
+    }
+
+    /**
+     * Keyset variant of {@link #getUserTransactions}: newest first, no total count.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> getUserTransactionsCursor(Long userId, String cursor, int size) {
+        Pageable limit = cursorLimit(size);
+        SeekCursor position = decodeCursor(cursor);
+        List<BalanceTransaction> rows = position == null
+                ? transactionRepository.findFirstPageByUserId(userId, limit)
+                : transactionRepository.findPageByUserIdBefore(userId, position.createdAt(), position.id(), limit);
+
+        return SeekCursor.page(rows, size, t -> new SeekCursor(t.getCreatedAt(), t.getId()),
+                this::mapToTransactionResponse);
+    }
+
     // Internal methods for service-to-service communication (no user authentication required)
     @Transactional(readOnly = true)
     public WalletResponse getWalletInternal(Long walletId) {
@@ -171,72 +172,491 @@ public class WalletService {
         return mapToResponse(wallet);
     }
 
-    @Transactional
     public TransactionResponse depositInternal(DepositRequest request) {
-        Wallet wallet = walletRepository.findById(request.getWalletId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+        BalanceTransaction transaction = credit(new WalletMutation(
+                request.getWalletId(), null, BalanceTransaction.TransactionType.DEPOSIT,
+                request.getAmount(), request.getDescription(), generateReferenceId()));
+        log.info("Internal deposit: {} to wallet {}, new balance: {}",
+                request.getAmount(), transaction.getWalletId(), transaction.getBalanceAfter());
+
+        return mapToTransactionResponse(transaction);
+    }
+
+    public TransactionResponse withdrawInternal(WithdrawRequest request) {
+        BalanceTransaction transaction = walletMutationExecutor.execute(new WalletMutation(
+                request.getWalletId(), null, BalanceTransaction.TransactionType.WITHDRAW,
+                request.getAmount(), request.getDescription(), generateReferenceId()));
+        log.info("Internal withdraw: {} from wallet {}, new balance: {}",
+                request.getAmount(), transaction.getWalletId(), transaction.getBalanceAfter());
+
+        return mapToTransactionResponse(transaction);
+    }
+
+    /**
+     * Turns on balance striping for a high fan-in wallet, see {@link StripedBalanceService}.
+     */
+    public WalletResponse enableStriping(Long walletId, int buckets) {
+        return mapToResponse(stripedBalanceService.enable(walletId, buckets));
+    }
+
+    /**
+     * Moves {@code amount} from the sender to the receiver and charges {@code fee} to the sender,
+     * all in one local transaction. Both rows are locked lowest id first so that two opposite
+     * transfers between the same pair of wallets cannot deadlock. A striped receiver is not
+     * locked at all; its credit goes to a bucket after the sender row is held.
+     * <p>
+     * Idempotent on {@code referenceId}: a caller that lost the response retries with the same
+     * reference and gets the original result back instead of moving the money twice. The lookup
+     * runs under the sender's row lock, so a retry waits for an in-flight original to finish.
+     */
+    @Transactional
+    public TransferInternalResponse transferInternal(TransferInternalRequest request) {
+        Long senderWalletId = request.getSenderWalletId();
+        Long receiverWalletId = request.getReceiverWalletId();
+
+        if (senderWalletId.equals(receiverWalletId)) {
+            throw new BusinessException(ErrorCode.SAME_USER_TRANSFER);
+        }
+
+        boolean creditToBucket = stripedBalanceService.isStriped(receiverWalletId);
+        Wallet sender;
+        Wallet receiver;
+        if (creditToBucket) {
+            sender = lockWallet(senderWalletId);
+            receiver = walletRepository.findById(receiverWalletId)
+                    .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+        } else {
+            Wallet first = lockWallet(Math.min(senderWalletId, receiverWalletId));
+            Wallet second = lockWallet(Math.max(senderWalletId, receiverWalletId));
+            sender = first.getId().equals(senderWalletId) ? first : second;
+            receiver = sender == first ? second : first;
+        }
+
+        if (!sender.getUserId().equals(request.getSenderUserId())) {
+            throw new BusinessException(ErrorCode.INVALID_TOKEN, "You can only transfer from your own wallet");
+        }
+
+        if (request.getReferenceId() != null) {
+            TransferInternalResponse applied = findAppliedTransfer(request, sender, receiver);
+            if (applied != null) {
+                log.info("Internal transfer {} already applied, returning the original result", request.getReferenceId());
+                return applied;
+            }
+        }
 
-        if (!wallet.getActive()) {
+        if (!sender.getActive() || !receiver.getActive()) {
             throw new BusinessException(ErrorCode.WALLET_INACTIVE);
         }
 
-        BigDecimal balanceBefore = wallet.getBalance();
-        BigDecimal balanceAfter = balanceBefore.add(request.getAmount());
-        wallet.setBalance(balanceAfter);
-        walletRepository.save(wallet);
+        if (sender.getCurrency() != request.getCurrency() || receiver.getCurrency() != request.getCurrency()) {
+            throw new BusinessException(ErrorCode.CURRENCY_MISMATCH);
+        }
 
-        BalanceTransaction transaction = BalanceTransaction.builder()
-                .walletId(wallet.getId())
-                .userId(wallet.getUserId())
-                .type(BalanceTransaction.TransactionType.DEPOSIT)
+        BigDecimal totalAmount = request.getAmount().add(request.getFee());
+        BigDecimal senderBalanceBefore = stripedBalanceService.readableBalance(sender);
+        if (senderBalanceBefore.compareTo(totalAmount) < 0) {
+            throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE);
+        }
+        BigDecimal senderBalanceAfter = senderBalanceBefore.subtract(totalAmount);
+
+        // Bucket rows are touched only now, after the wallet rows, in ascending wallet id
+        BigDecimal receiverBalanceAfter;
+        if (senderWalletId < receiverWalletId) {
+            debit(sender, totalAmount);
+            receiverBalanceAfter = credit(receiver, request.getAmount(), creditToBucket);
+        } else {
+            receiverBalanceAfter = credit(receiver, request.getAmount(), creditToBucket);
+            debit(sender, totalAmount);
+        }
+        BigDecimal receiverBalanceBefore = receiverBalanceAfter.subtract(request.getAmount());
+
+        String referenceId = request.getReferenceId() != null ? request.getReferenceId() : generateReferenceId();
+
+        BalanceTransaction senderTransaction = BalanceTransaction.builder()
+                .walletId(sender.getId())
+                .userId(sender.getUserId())
+                .type(BalanceTransaction.TransactionType.TRANSFER_OUT)
+                .amount(totalAmount)
+                .balanceBefore(senderBalanceBefore)
+                .balanceAfter(senderBalanceAfter)
+                .currency(sender.getCurrency())
+                .description(request.getSenderDescription())
+                .referenceId(referenceId)
+                .build();
+
+        BalanceTransaction receiverTransaction = BalanceTransaction.builder()
+                .walletId(receiver.getId())
+                .userId(receiver.getUserId())
+                .type(BalanceTransaction.TransactionType.TRANSFER_IN)
                 .amount(request.getAmount())
-                .balanceBefore(balanceBefore)
-                .balanceAfter(balanceAfter)
-                .currency(wallet.getCurrency())
-                .description(request.getDescription())
-                .referenceId(generateReferenceId())
+                .balanceBefore(receiverBalanceBefore)
+                .balanceAfter(receiverBalanceAfter)
+                .currency(receiver.getCurrency())
+                .description(request.getReceiverDescription())
+                .referenceId(referenceId)
                 .build();
 
-        transaction = transactionRepository.save(transaction);
-        log.info("Internal deposit: {} to wallet {}, new balance: {}", request.getAmount(), wallet.getId(), balanceAfter);
+        walletRepository.saveAll(List.of(sender, receiver));
+        transactionRepository.saveAll(List.of(senderTransaction, receiverTransaction));
+        log.info("Internal transfer {}: {} (+{} fee) from wallet {} to wallet {}",
+                referenceId, request.getAmount(), request.getFee(), sender.getId(), receiver.getId());
 
-        return mapToTransactionResponse(transaction);
+        return TransferInternalResponse.builder()
+                .referenceId(referenceId)
+                .currency(sender.getCurrency())
+                .amount(request.getAmount())
+                .fee(request.getFee())
+                .totalAmount(totalAmount)
+                .senderWalletId(sender.getId())
+                .senderUserId(sender.getUserId())
+                .senderBalanceBefore(senderBalanceBefore)
+                .senderBalanceAfter(senderBalanceAfter)
+                .senderTransactionId(senderTransaction.getId())
+                .receiverWalletId(receiver.getId())
+                .receiverUserId(receiver.getUserId())
+                .receiverBalanceBefore(receiverBalanceBefore)
+                .receiverBalanceAfter(receiverBalanceAfter)
+                .receiverTransactionId(receiverTransaction.getId())
+                .build();
+    }
+
+    /**
+     * Rebuilds the result of a transfer already committed under the request's reference ID, or
+     * returns null if there is none. A reference reused for a different transfer is rejected.
+     */
+    private TransferInternalResponse findAppliedTransfer(TransferInternalRequest request, Wallet sender, Wallet receiver) {
+        BalanceTransaction out = null;
+        BalanceTransaction in = null;
+        for (BalanceTransaction transaction : transactionRepository.findByReferenceId(request.getReferenceId())) {
+            if (transaction.getType() == BalanceTransaction.TransactionType.TRANSFER_OUT) {
+                out = transaction;
+            } else if (transaction.getType() == BalanceTransaction.TransactionType.TRANSFER_IN) {
+                in = transaction;
+            }
+        }
+        if (out == null && in == null) {
+            return null;
+        }
+        if (out == null || in == null
+                || !out.getWalletId().equals(sender.getId())
+                || !in.getWalletId().equals(receiver.getId())
+                || in.getAmount().compareTo(request.getAmount()) != 0
+                || out.getAmount().compareTo(request.getAmount().add(request.getFee())) != 0) {
+            throw new BusinessException(ErrorCode.TRANSFER_FAILED,
+                    "Reference ID " + request.getReferenceId() + " belongs to another transfer");
+        }
+
+        return TransferInternalResponse.builder()
+                .referenceId(request.getReferenceId())
+                .currency(out.getCurrency())
+                .amount(in.getAmount())
+                .fee(out.getAmount().subtract(in.getAmount()))
+                .totalAmount(out.getAmount())
+                .senderWalletId(sender.getId())
+                .senderUserId(sender.getUserId())
+                .senderBalanceBefore(out.getBalanceBefore())
+                .senderBalanceAfter(out.getBalanceAfter())
+                .senderTransactionId(out.getId())
+                .receiverWalletId(receiver.getId())
+                .receiverUserId(receiver.getUserId())
+                .receiverBalanceBefore(in.getBalanceBefore())
+                .receiverBalanceAfter(in.getBalanceAfter())
+                .receiverTransactionId(in.getId())
+                .build();
+    }
+
+    private Map<String, List<BalanceTransaction>> findAppliedByReference(BatchTransferInternalRequest request) {
+        List<String> referenceIds = new ArrayList<>();
+        request.getItems().forEach(item -> {
+            if (item.getReferenceId() != null) {
+                referenceIds.add(item.getReferenceId());
+            }
+        });
+        if (referenceIds.isEmpty()) {
+            return Map.of();
+        }
+        return transactionRepository.findByReferenceIdIn(referenceIds).stream()
+                .collect(Collectors.groupingBy(BalanceTransaction::getReferenceId));
     }
 
+    /**
+     * Result of a batch item that was already applied under its reference ID; a reference reused
+     * for a different transfer is reported as FAILED
+     */
+    private BatchTransferInternalResponse.ItemResult appliedItemResult(BatchTransferInternalRequest.Item item,
+                                                                       Wallet sender,
+                                                                       List<BalanceTransaction> applied) {
+        BalanceTransaction out = null;
+        BalanceTransaction in = null;
+        for (BalanceTransaction transaction : applied) {
+            if (transaction.getType() == BalanceTransaction.TransactionType.TRANSFER_OUT) {
+                out = transaction;
+            } else if (transaction.getType() == BalanceTransaction.TransactionType.TRANSFER_IN) {
+                in = transaction;
+            }
+        }
+
+        BatchTransferInternalResponse.ItemResult.ItemResultBuilder result = BatchTransferInternalResponse.ItemResult.builder()
+                .receiverWalletId(item.getReceiverWalletId())
+                .amount(item.getAmount())
+                .fee(item.getFee())
+                .referenceId(item.getReferenceId());
+        if (out == null || in == null
+                || !out.getWalletId().equals(sender.getId())
+                || !in.getWalletId().equals(item.getReceiverWalletId())
+                || in.getAmount().compareTo(item.getAmount()) != 0
+                || out.getAmount().compareTo(item.getAmount().add(item.getFee())) != 0) {
+            return result
+                    .status(TransactionStatus.FAILED)
+                    .errorCode(ErrorCode.TRANSFER_FAILED.getCode())
+                    .message("Reference ID " + item.getReferenceId() + " belongs to another transfer")
+                    .build();
+        }
+        return result
+                .receiverUserId(in.getUserId())
+                .status(TransactionStatus.SUCCESS)
+                .senderBalanceBefore(out.getBalanceBefore())
+                .senderBalanceAfter(out.getBalanceAfter())
+                .receiverBalanceBefore(in.getBalanceBefore())
+                .receiverBalanceAfter(in.getBalanceAfter())
+                .build();
+    }
+
+    /**
+     * Pays several receivers from one sender wallet in a single transaction.
+     * The sender row is locked and updated once for the whole chunk; items that cannot be
+     * applied (missing/inactive receiver, currency mismatch, funds exhausted) are reported
+     * as FAILED without rolling back the others. Striped receivers are not locked; their share
+     * of the chunk is credited to one bucket each.
+     * <p>
+     * Idempotent per item on {@code referenceId}, like {@link #transferInternal}: resending a chunk
+     * whose response was lost reports the items already applied from their rows and applies only
+     * the rest.
+     */
     @Transactional
-    public TransactionResponse withdrawInternal(WithdrawRequest request) {
-        Wallet wallet = walletRepository.findById(request.getWalletId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+    public BatchTransferInternalResponse transferInternalBatch(BatchTransferInternalRequest request) {
+        Long senderWalletId = request.getSenderWalletId();
+
+        // Lock sender and receivers in ascending id order, same as transferInternal
+        TreeSet<Long> walletIds = new TreeSet<>();
+        walletIds.add(senderWalletId);
+        request.getItems().forEach(item -> walletIds.add(item.getReceiverWalletId()));
+        Set<Long> bucketReceiverIds = stripedBalanceService.filterStriped(walletIds);
+        bucketReceiverIds.remove(senderWalletId);
+        walletIds.removeAll(bucketReceiverIds);
+
+        Map<Long, Wallet> wallets = new HashMap<>();
+        walletRepository.findAllByIdForUpdate(walletIds).forEach(wallet -> wallets.put(wallet.getId(), wallet));
+        walletRepository.findAllById(bucketReceiverIds).forEach(wallet -> wallets.put(wallet.getId(), wallet));
+
+        Wallet sender = wallets.get(senderWalletId);
+        if (sender == null) {
+            throw new BusinessException(ErrorCode.WALLET_NOT_FOUND);
+        }
+
+        if (!sender.getUserId().equals(request.getSenderUserId())) {
+            throw new BusinessException(ErrorCode.INVALID_TOKEN, "You can only transfer from your own wallet");
+        }
 
-        if (!wallet.getActive()) {
+        if (!sender.getActive()) {
             throw new BusinessException(ErrorCode.WALLET_INACTIVE);
         }
 
-        if (wallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE);
+        if (sender.getCurrency() != request.getCurrency()) {
+            throw new BusinessException(ErrorCode.CURRENCY_MISMATCH);
         }
 
-        BigDecimal balanceBefore = wallet.getBalance();
-        BigDecimal balanceAfter = balanceBefore.subtract(request.getAmount());
-        wallet.setBalance(balanceAfter);
-        walletRepository.save(wallet);
+        // Looked up under the sender's row lock, so a resend waits for an in-flight original
+        Map<String, List<BalanceTransaction>> appliedByReference = findAppliedByReference(request);
+
+        BigDecimal senderBalanceStart = stripedBalanceService.readableBalance(sender);
+        BigDecimal senderBalance = senderBalanceStart;
+        Map<Wallet, BigDecimal> receiverBalances = new LinkedHashMap<>();
+        Map<Long, List<BucketCredit>> bucketCredits = new TreeMap<>();
+        List<BalanceTransaction> transactions = new ArrayList<>();
+        List<BatchTransferInternalResponse.ItemResult> results = new ArrayList<>(request.getItems().size());
+
+        for (BatchTransferInternalRequest.Item item : request.getItems()) {
+            Wallet receiver = wallets.get(item.getReceiverWalletId());
+            String referenceId = item.getReferenceId() != null ? item.getReferenceId() : generateReferenceId();
+            BigDecimal totalAmount = item.getAmount().add(item.getFee());
+
+            List<BalanceTransaction> applied = appliedByReference.get(referenceId);
+            if (applied != null) {
+                results.add(appliedItemResult(item, sender, applied));
+                continue;
+            }
+
+            ErrorCode failure = null;
+            if (receiver == null) {
+                failure = ErrorCode.WALLET_NOT_FOUND;
+            } else if (receiver == sender) {
+                failure = ErrorCode.SAME_USER_TRANSFER;
+            } else if (!receiver.getActive()) {
+                failure = ErrorCode.WALLET_INACTIVE;
+            } else if (receiver.getCurrency() != request.getCurrency()) {
+                failure = ErrorCode.CURRENCY_MISMATCH;
+            } else if (senderBalance.compareTo(totalAmount) < 0) {
+                failure = ErrorCode.INSUFFICIENT_BALANCE;
+            }
+
+            if (failure != null) {
+                results.add(BatchTransferInternalResponse.ItemResult.builder()
+                        .receiverWalletId(item.getReceiverWalletId())
+                        .receiverUserId(receiver != null ? receiver.getUserId() : null)
+                        .amount(item.getAmount())
+                        .fee(item.getFee())
+                        .referenceId(referenceId)
+                        .status(TransactionStatus.FAILED)
+                        .errorCode(failure.getCode())
+                        .message(failure.getMessage())
+                        .build());
+                continue;
+            }
+
+            BigDecimal senderBalanceBefore = senderBalance;
+            senderBalance = senderBalance.subtract(totalAmount);
+
+            BigDecimal receiverBalanceBefore = null;
+            BigDecimal receiverBalanceAfter = null;
+            if (!bucketReceiverIds.contains(receiver.getId())) {
+                receiverBalanceBefore = receiverBalances.computeIfAbsent(receiver, stripedBalanceService::readableBalance);
+                receiverBalanceAfter = receiverBalanceBefore.add(item.getAmount());
+                receiverBalances.put(receiver, receiverBalanceAfter);
+                receiver.setBalance(receiver.getBalance().add(item.getAmount()));
+            }
+
+            transactions.add(BalanceTransaction.builder()
+                    .walletId(sender.getId())
+                    .userId(sender.getUserId())
+                    .type(BalanceTransaction.TransactionType.TRANSFER_OUT)
+                    .amount(totalAmount)
+                    .balanceBefore(senderBalanceBefore)
+                    .balanceAfter(senderBalance)
+                    .currency(sender.getCurrency())
+                    .description(request.getSenderDescription())
+                    .referenceId(referenceId)
+                    .build());
+
+            BalanceTransaction receiverTransaction = BalanceTransaction.builder()
+                    .walletId(receiver.getId())
+                    .userId(receiver.getUserId())
+                    .type(BalanceTransaction.TransactionType.TRANSFER_IN)
+                    .amount(item.getAmount())
+                    .balanceBefore(receiverBalanceBefore)
+                    .balanceAfter(receiverBalanceAfter)
+                    .currency(receiver.getCurrency())
+                    .description(item.getReceiverDescription())
+                    .referenceId(referenceId)
+                    .build();
+            transactions.add(receiverTransaction);
+
+            BatchTransferInternalResponse.ItemResult result = BatchTransferInternalResponse.ItemResult.builder()
+                    .receiverWalletId(receiver.getId())
+                    .receiverUserId(receiver.getUserId())
+                    .amount(item.getAmount())
+                    .fee(item.getFee())
+                    .referenceId(referenceId)
+                    .status(TransactionStatus.SUCCESS)
+                    .senderBalanceBefore(senderBalanceBefore)
+                    .senderBalanceAfter(senderBalance)
+                    .receiverBalanceBefore(receiverBalanceBefore)
+                    .receiverBalanceAfter(receiverBalanceAfter)
+                    .build();
+            results.add(result);
+
+            if (receiverBalanceAfter == null) {
+                bucketCredits.computeIfAbsent(receiver.getId(), id -> new ArrayList<>())
+                        .add(new BucketCredit(item.getAmount(), receiverTransaction, result));
+            }
+        }
 
-        BalanceTransaction transaction = BalanceTransaction.builder()
-                .walletId(wallet.getId())
-                .userId(wallet.getUserId())
-                .type(BalanceTransaction.TransactionType.WITHDRAW)
-                .amount(request.getAmount())
-                .balanceBefore(balanceBefore)
-                .balanceAfter(balanceAfter)
-                .currency(wallet.getCurrency())
-                .description(request.getDescription())
-                .referenceId(generateReferenceId())
+        BigDecimal debitedAmount = senderBalanceStart.subtract(senderBalance);
+
+        // Bucket rows after all wallet rows, ascending wallet id: one debit for the whole chunk, one bucket credit per striped receiver
+        boolean senderDebited = false;
+        for (Map.Entry<Long, List<BucketCredit>> entry : bucketCredits.entrySet()) {
+            if (!senderDebited && senderWalletId < entry.getKey()) {
+                debit(sender, debitedAmount);
+                senderDebited = true;
+            }
+            creditBuckets(wallets.get(entry.getKey()), entry.getValue());
+        }
+        if (!senderDebited) {
+            debit(sender, debitedAmount);
+        }
+
+        List<Wallet> touchedWallets = new ArrayList<>(receiverBalances.size() + 1);
+        touchedWallets.add(sender);
+        touchedWallets.addAll(receiverBalances.keySet());
+        walletRepository.saveAll(touchedWallets);
+        transactionRepository.saveAll(transactions);
+
+        log.info("Internal batch transfer from wallet {}: {} items, {} applied, {} debited",
+                sender.getId(), results.size(), transactions.size() / 2, debitedAmount);
+
+        return BatchTransferInternalResponse.builder()
+                .senderWalletId(sender.getId())
+                .senderUserId(sender.getUserId())
+                .currency(sender.getCurrency())
+                .senderBalanceBefore(senderBalanceStart)
+                .senderBalanceAfter(senderBalance)
+                .debitedAmount(debitedAmount)
+                .items(results)
                 .build();
+    }
 
-        transaction = transactionRepository.save(transaction);
-        log.info("Internal withdraw: {} from wallet {}, new balance: {}", request.getAmount(), wallet.getId(), balanceAfter);
+    private BalanceTransaction credit(WalletMutation mutation) {
+        return stripedBalanceService.isStriped(mutation.walletId())
+                ? stripedBalanceService.credit(mutation)
+                : walletMutationExecutor.execute(mutation);
+    }
 
-        return mapToTransactionResponse(transaction);
+    /**
+     * Debits a locked wallet, consolidating its buckets first when it is striped.
+     */
+    private void debit(Wallet wallet, BigDecimal amount) {
+        stripedBalanceService.consolidate(wallet);
+        wallet.setBalance(wallet.getBalance().subtract(amount));
+    }
+
+    /**
+     * Credits the receiver and returns its readable balance afterwards.
+     */
+    private BigDecimal credit(Wallet wallet, BigDecimal amount, boolean toBucket) {
+        if (toBucket) {
+            return stripedBalanceService.creditBucket(wallet, amount);
+        }
+        wallet.setBalance(wallet.getBalance().add(amount));
+        return stripedBalanceService.readableBalance(wallet);
+    }
+
+    /**
+     * Credits all of a striped receiver's items to a single bucket and back-fills their
+     * receiver balances from the resulting snapshot.
+     */
+    private void creditBuckets(Wallet receiver, List<BucketCredit> credits) {
+        BigDecimal total = credits.stream().map(BucketCredit::amount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal balance = stripedBalanceService.creditBucket(receiver, total).subtract(total);
+
+        for (BucketCredit credit : credits) {
+            BigDecimal balanceAfter = balance.add(credit.amount());
+            credit.transaction().setBalanceBefore(balance);
+            credit.transaction().setBalanceAfter(balanceAfter);
+            credit.result().setReceiverBalanceBefore(balance);
+            credit.result().setReceiverBalanceAfter(balanceAfter);
+            balance = balanceAfter;
+        }
+    }
+
+    private record BucketCredit(BigDecimal amount,
+                                BalanceTransaction transaction,
+                                BatchTransferInternalResponse.ItemResult result) {
+    }
+
+    private Wallet lockWallet(Long walletId) {
+        return walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
     }
 
     private WalletResponse mapToResponse(Wallet wallet) {
@@ -244,11 +664,31 @@ public class WalletService {
                 .id(wallet.getId())
                 .userId(wallet.getUserId())
                 .currency(wallet.getCurrency())
-                .balance(wallet.getBalance())
+                .balance(stripedBalanceService.readableBalance(wallet))
                 .active(wallet.getActive())
                 .build();
     }
 
+    // One extra row is fetched only to tell whether another page exists
+    private Pageable cursorLimit(int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                    "size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        return PageRequest.of(0, size + 1);
+    }
+
+    private SeekCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return SeekCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Invalid cursor");
+        }
+    }
+
     private TransactionResponse mapToTransactionResponse(BalanceTransaction transaction) {
         return TransactionResponse.builder()
                 .id(transaction.getId())
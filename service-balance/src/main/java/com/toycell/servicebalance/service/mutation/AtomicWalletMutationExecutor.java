@@ -0,0 +1,108 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.Wallet;
+import com.toycell.servicebalance.repository.BalanceTransactionRepository;
+import com.toycell.servicebalance.repository.WalletRepository;
+import com.toycell.servicebalance.repository.WalletRepositoryCustom.BalanceUpdate;
+import com.toycell.servicebalance.service.StripedBalanceService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Default mode: the balance check and the update are one conditional {@code UPDATE ... RETURNING},
+ * so a successful mutation costs a single statement plus the transaction insert and never reads
+ * the wallet in Java. When no row matches, the wallet is read once to report the precise error.
+ * Striped wallets, and the rare case where the read no longer explains the miss, go through the
+ * locked path instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "wallet.mutation.mode", havingValue = "atomic", matchIfMissing = true)
+public class AtomicWalletMutationExecutor implements WalletMutationExecutor {
+
+    private final WalletRepository walletRepository;
+    private final BalanceTransactionRepository transactionRepository;
+    private final WalletMutationApplier applier;
+    private final StripedBalanceService stripedBalanceService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public BalanceTransaction execute(WalletMutation mutation) {
+        if (stripedBalanceService.isStriped(mutation.walletId())) {
+            return executeLocked(mutation);
+        }
+
+        BigDecimal delta = mutation.isCredit() ? mutation.amount() : mutation.amount().negate();
+        Optional<BalanceUpdate> update = walletRepository.applyBalanceDelta(mutation.walletId(), mutation.userId(), delta);
+        if (update.isEmpty()) {
+            return diagnose(mutation);
+        }
+
+        BalanceUpdate result = update.get();
+        return transactionRepository.save(BalanceTransaction.builder()
+                .walletId(mutation.walletId())
+                .userId(result.userId())
+                .type(mutation.type())
+                .amount(mutation.amount())
+                .balanceBefore(result.balance().subtract(delta))
+                .balanceAfter(result.balance())
+                .currency(result.currency())
+                .description(mutation.description())
+                .referenceId(mutation.referenceId())
+                .build());
+    }
+
+    private BalanceTransaction diagnose(WalletMutation mutation) {
+        Wallet wallet = walletRepository.findById(mutation.walletId())
+                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+
+        if (!wallet.isStriped()) {
+            if (mutation.userId() != null && !wallet.getUserId().equals(mutation.userId())) {
+                throw new BusinessException(ErrorCode.INVALID_TOKEN, "Unauthorized access to wallet");
+            }
+
+            if (!wallet.getActive()) {
+                throw new BusinessException(ErrorCode.WALLET_INACTIVE);
+            }
+
+            if (!mutation.isCredit() && wallet.getBalance().compareTo(mutation.amount()) < 0) {
+                throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE);
+            }
+
+            log.debug("Conditional update of wallet {} missed but the wallet now qualifies, using the locked path",
+                    mutation.walletId());
+        }
+
+        // Striped (bucket balances need consolidating) or changed since the UPDATE
+        entityManager.refresh(wallet, LockModeType.PESSIMISTIC_WRITE);
+        return applyLocked(wallet, mutation);
+    }
+
+    private BalanceTransaction executeLocked(WalletMutation mutation) {
+        Wallet wallet = walletRepository.findByIdForUpdate(mutation.walletId())
+                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+        return applyLocked(wallet, mutation);
+    }
+
+    private BalanceTransaction applyLocked(Wallet wallet, WalletMutation mutation) {
+        BalanceTransaction transaction = applier.apply(wallet, mutation);
+        walletRepository.save(wallet);
+        return transactionRepository.save(transaction);
+    }
+}
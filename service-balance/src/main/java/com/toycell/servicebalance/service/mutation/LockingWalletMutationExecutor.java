@@ -0,0 +1,36 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.Wallet;
+import com.toycell.servicebalance.repository.BalanceTransactionRepository;
+import com.toycell.servicebalance.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Locking mode: each mutation locks its wallet row ({@code SELECT ... FOR UPDATE}) in its own transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "wallet.mutation.mode", havingValue = "locking")
+public class LockingWalletMutationExecutor implements WalletMutationExecutor {
+
+    private final WalletRepository walletRepository;
+    private final BalanceTransactionRepository transactionRepository;
+    private final WalletMutationApplier applier;
+
+    @Override
+    @Transactional
+    public BalanceTransaction execute(WalletMutation mutation) {
+        Wallet wallet = walletRepository.findByIdForUpdate(mutation.walletId())
+                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+
+        BalanceTransaction transaction = applier.apply(wallet, mutation);
+        walletRepository.save(wallet);
+        return transactionRepository.save(transaction);
+    }
+}
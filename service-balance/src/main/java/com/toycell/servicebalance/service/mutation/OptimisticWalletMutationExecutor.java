@@ -0,0 +1,115 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.Wallet;
+import com.toycell.servicebalance.repository.BalanceTransactionRepository;
+import com.toycell.servicebalance.repository.WalletRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Optimistic mode: the wallet is read without a lock and written with a version-checked UPDATE.
+ * On a version conflict the whole transaction is retried with exponential backoff and full jitter,
+ * up to {@code max-attempts}. Suited to the common case where a wallet is rarely written concurrently.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.mutation.mode", havingValue = "optimistic")
+public class OptimisticWalletMutationExecutor implements WalletMutationExecutor {
+
+    private final WalletRepository walletRepository;
+    private final BalanceTransactionRepository transactionRepository;
+    private final WalletMutationApplier applier;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter retries;
+    private final Counter exhausted;
+    private final DistributionSummary attempts;
+
+    public OptimisticWalletMutationExecutor(WalletRepository walletRepository,
+                                            BalanceTransactionRepository transactionRepository,
+                                            WalletMutationApplier applier,
+                                            PlatformTransactionManager transactionManager,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${wallet.mutation.optimistic.max-attempts:5}") int maxAttempts,
+                                            @Value("${wallet.mutation.optimistic.initial-backoff-ms:5}") long initialBackoffMs,
+                                            @Value("${wallet.mutation.optimistic.max-backoff-ms:200}") long maxBackoffMs) {
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.applier = applier;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+
+        this.retries = Counter.builder("wallet.mutation.optimistic.retries")
+                .description("Wallet mutations retried after a version conflict")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("wallet.mutation.optimistic.exhausted")
+                .description("Wallet mutations rejected after max-attempts version conflicts")
+                .register(meterRegistry);
+        this.attempts = DistributionSummary.builder("wallet.mutation.optimistic.attempts")
+                .description("Attempts needed per successful wallet mutation")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public BalanceTransaction execute(WalletMutation mutation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BalanceTransaction transaction = transactionTemplate.execute(status -> applyOnce(mutation));
+                attempts.record(attempt);
+                return transaction;
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Wallet {} mutation gave up after {} version conflicts", mutation.walletId(), attempt);
+                    throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Wallet is busy, please retry");
+                }
+                retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private BalanceTransaction applyOnce(WalletMutation mutation) {
+        Wallet wallet = walletRepository.findById(mutation.walletId())
+                .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+        if (wallet.isStriped()) {
+            // Consolidation locks bucket rows, which must come after the wallet row
+            wallet = walletRepository.findByIdForUpdate(mutation.walletId())
+                    .orElseThrow(() -> new BusinessException(ErrorCode.WALLET_NOT_FOUND));
+        }
+
+        BalanceTransaction transaction = applier.apply(wallet, mutation);
+        // Flush now so a version conflict surfaces here rather than at commit
+        walletRepository.saveAndFlush(wallet);
+        return transactionRepository.save(transaction);
+    }
+
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Wallet mutation interrupted");
+        }
+    }
+}
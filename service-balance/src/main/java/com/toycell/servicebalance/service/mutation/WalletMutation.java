@@ -0,0 +1,23 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.servicebalance.entity.BalanceTransaction;
+
+import java.math.BigDecimal;
+
+/**
+ * A single balance change requested for one wallet.
+ *
+ * @param userId owner the caller claims to be, or {@code null} for internal calls that skip the ownership check
+ */
+public record WalletMutation(Long walletId,
+                             Long userId,
+                             BalanceTransaction.TransactionType type,
+                             BigDecimal amount,
+                             String description,
+                             String referenceId) {
+
+    public boolean isCredit() {
+        return type == BalanceTransaction.TransactionType.DEPOSIT
+                || type == BalanceTransaction.TransactionType.TRANSFER_IN;
+    }
+}
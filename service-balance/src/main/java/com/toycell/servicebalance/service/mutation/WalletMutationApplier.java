@@ -0,0 +1,57 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.Wallet;
+import com.toycell.servicebalance.service.StripedBalanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Validation and balance arithmetic shared by every {@link WalletMutationExecutor}.
+ * The wallet is only modified when all checks pass. Striped wallets are consolidated first so
+ * the recorded before/after balances are exact.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletMutationApplier {
+
+    private final StripedBalanceService stripedBalanceService;
+
+    public BalanceTransaction apply(Wallet wallet, WalletMutation mutation) {
+        if (mutation.userId() != null && !wallet.getUserId().equals(mutation.userId())) {
+            throw new BusinessException(ErrorCode.INVALID_TOKEN, "Unauthorized access to wallet");
+        }
+
+        if (!wallet.getActive()) {
+            throw new BusinessException(ErrorCode.WALLET_INACTIVE);
+        }
+
+        stripedBalanceService.consolidate(wallet);
+
+        BigDecimal balanceBefore = wallet.getBalance();
+        if (!mutation.isCredit() && balanceBefore.compareTo(mutation.amount()) < 0) {
+            throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE);
+        }
+
+        BigDecimal balanceAfter = mutation.isCredit()
+                ? balanceBefore.add(mutation.amount())
+                : balanceBefore.subtract(mutation.amount());
+        wallet.setBalance(balanceAfter);
+
+        return BalanceTransaction.builder()
+                .walletId(wallet.getId())
+                .userId(wallet.getUserId())
+                .type(mutation.type())
+                .amount(mutation.amount())
+                .balanceBefore(balanceBefore)
+                .balanceAfter(balanceAfter)
+                .currency(wallet.getCurrency())
+                .description(mutation.description())
+                .referenceId(mutation.referenceId())
+                .build();
+    }
+}
@@ -0,0 +1,318 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.Wallet;
+import com.toycell.servicebalance.repository.BalanceTransactionRepository;
+import com.toycell.servicebalance.repository.WalletRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-writer lanes for wallet mutations.
+ * <p>
+ * Every wallet id is routed to one lane, so mutations of the same wallet are applied in arrival
+ * order by one thread. A lane drains up to {@code max-batch} queued mutations and applies them in
+ * one transaction: each wallet in the batch is locked once (ascending id order, like the transfer
+ * paths), all its mutations are applied in memory, and the result is written as one wallet UPDATE
+ * plus a batch of {@link BalanceTransaction} inserts. The row lock is still taken so that
+ * transfers and other instances stay consistent with the lanes.
+ * <p>
+ * Callers block until their own mutation is committed or rejected. A caller that times out before
+ * its mutation was picked up cancels it; once picked up, the caller waits for the real outcome.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.mutation.mode", havingValue = "lanes")
+public class WalletMutationEngine implements WalletMutationExecutor {
+
+    private final WalletRepository walletRepository;
+    private final BalanceTransactionRepository transactionRepository;
+    private final WalletMutationApplier applier;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final long timeoutMs;
+    private final Lane[] lanes;
+
+    private volatile boolean running = true;
+
+    public WalletMutationEngine(WalletRepository walletRepository,
+                                BalanceTransactionRepository transactionRepository,
+                                WalletMutationApplier applier,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${wallet.mutation.lanes:0}") int laneCount,
+                                @Value("${wallet.mutation.lane-queue-capacity:10000}") int queueCapacity,
+                                @Value("${wallet.mutation.max-batch:256}") int maxBatch,
+                                @Value("${wallet.mutation.timeout-ms:5000}") long timeoutMs) {
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.applier = applier;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatch = maxBatch;
+        this.timeoutMs = timeoutMs;
+
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(i, queueCapacity);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+        log.info("Wallet mutation engine started with {} lanes", lanes.length);
+    }
+
+    @Override
+    public BalanceTransaction execute(WalletMutation mutation) {
+        if (!running) {
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Wallet mutation engine is stopped");
+        }
+
+        PendingMutation pending = new PendingMutation(mutation);
+        Lane lane = lanes[Math.floorMod(Long.hashCode(mutation.walletId()), lanes.length)];
+        if (!lane.queue.offer(pending)) {
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Wallet mutation queue is full");
+        }
+        return pending.await(timeoutMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+        for (Lane lane : lanes) {
+            lane.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void flush(List<PendingMutation> batch) {
+        // Ascending wallet id, arrival order within a wallet
+        Map<Long, List<PendingMutation>> byWallet = new TreeMap<>();
+        for (PendingMutation pending : batch) {
+            if (pending.claim()) {
+                byWallet.computeIfAbsent(pending.mutation.walletId(), id -> new ArrayList<>()).add(pending);
+            }
+        }
+        if (byWallet.isEmpty()) {
+            return;
+        }
+
+        Map<PendingMutation, Object> outcomes;
+        AtomicBoolean applied = new AtomicBoolean();
+        try {
+            outcomes = transactionTemplate.execute(status -> applyGroups(byWallet, applied));
+        } catch (RuntimeException e) {
+            if (applied.get()) {
+                // Failed while committing: the batch may be written, so replaying it could apply it twice
+                log.error("Wallet mutation flush of {} mutations failed during commit, outcome unknown: {}",
+                        batch.size(), e.getMessage(), e);
+                byWallet.values().forEach(group -> group.forEach(pending -> pending.complete(outcomeUnknown())));
+                return;
+            }
+            // Failed before commit, so the whole flush rolled back; apply one by one so a single failure does not fail the others
+            log.warn("Wallet mutation flush of {} mutations failed, retrying individually: {}", batch.size(), e.getMessage());
+            byWallet.values().forEach(group -> group.forEach(this::flushSingle));
+            return;
+        }
+
+        outcomes.forEach(PendingMutation::complete);
+    }
+
+    private void flushSingle(PendingMutation pending) {
+        AtomicBoolean applied = new AtomicBoolean();
+        try {
+            Map<PendingMutation, Object> outcome = transactionTemplate.execute(
+                    status -> applyGroups(Map.of(pending.mutation.walletId(), List.of(pending)), applied));
+            outcome.forEach(PendingMutation::complete);
+        } catch (RuntimeException e) {
+            if (applied.get()) {
+                log.error("Wallet mutation of wallet {} failed during commit, outcome unknown: {}",
+                        pending.mutation.walletId(), e.getMessage(), e);
+                pending.complete(outcomeUnknown());
+                return;
+            }
+            pending.complete(e);
+        }
+    }
+
+    private static BusinessException outcomeUnknown() {
+        return new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Wallet mutation outcome unknown");
+    }
+
+    /**
+     * Applies the grouped mutations inside the current transaction. Each outcome is either the
+     * {@link BalanceTransaction} to return or the {@link BusinessException} that rejected it.
+     * The statements are flushed before returning, so {@code applied} is only set once nothing but
+     * the commit itself can fail.
+     */
+    private Map<PendingMutation, Object> applyGroups(Map<Long, List<PendingMutation>> byWallet, AtomicBoolean applied) {
+        Map<PendingMutation, Object> outcomes = new IdentityHashMap<>();
+        List<BalanceTransaction> transactions = new ArrayList<>();
+
+        // Every wallet row before any bucket row (the applier consolidates striped wallets), same as the transfer paths
+        Map<Long, Wallet> wallets = new HashMap<>();
+        byWallet.keySet().forEach(walletId ->
+                walletRepository.findByIdForUpdate(walletId).ifPresent(wallet -> wallets.put(walletId, wallet)));
+
+        byWallet.forEach((walletId, group) -> {
+            Wallet wallet = wallets.get(walletId);
+            if (wallet == null) {
+                group.forEach(pending -> outcomes.put(pending, new BusinessException(ErrorCode.WALLET_NOT_FOUND)));
+                return;
+            }
+
+            boolean changed = false;
+            for (PendingMutation pending : group) {
+                try {
+                    BalanceTransaction transaction = applier.apply(wallet, pending.mutation);
+                    transactions.add(transaction);
+                    outcomes.put(pending, transaction);
+                    changed = true;
+                } catch (BusinessException e) {
+                    outcomes.put(pending, e);
+                }
+            }
+            if (changed) {
+                walletRepository.save(wallet);
+            }
+        });
+
+        transactionRepository.saveAll(transactions);
+        transactionRepository.flush();
+        applied.set(true);
+        return outcomes;
+    }
+
+    private final class Lane implements Runnable {
+
+        private final BlockingQueue<PendingMutation> queue;
+        private final Thread thread;
+
+        private Lane(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "wallet-mutation-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<PendingMutation> batch = new ArrayList<>(maxBatch);
+            while (running) {
+                try {
+                    PendingMutation first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatch - 1);
+                    flush(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (RuntimeException e) {
+                    log.error("Wallet mutation lane error: {}", e.getMessage(), e);
+                    batch.forEach(pending -> pending.complete(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+
+            // Nothing queued here has been applied, reject it
+            queue.drainTo(batch);
+            batch.forEach(pending -> pending.complete(
+                    new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Wallet mutation engine is stopped")));
+        }
+    }
+
+    private static final class PendingMutation {
+
+        private static final int PENDING = 0;
+        private static final int CLAIMED = 1;
+        private static final int CANCELLED = 2;
+
+        private final WalletMutation mutation;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CompletableFuture<BalanceTransaction> result = new CompletableFuture<>();
+
+        private PendingMutation(WalletMutation mutation) {
+            this.mutation = mutation;
+        }
+
+        private boolean claim() {
+            return state.compareAndSet(PENDING, CLAIMED);
+        }
+
+        private void complete(Object outcome) {
+            if (outcome instanceof BalanceTransaction transaction) {
+                result.complete(transaction);
+            } else {
+                result.completeExceptionally((Throwable) outcome);
+            }
+        }
+
+        private BalanceTransaction await(long timeoutMs) {
+            try {
+                return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (state.compareAndSet(PENDING, CANCELLED)) {
+                    throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Wallet mutation timed out");
+                }
+                // Already being applied, its outcome is decided by the lane
+                return join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (state.compareAndSet(PENDING, CANCELLED)) {
+                    throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Wallet mutation interrupted");
+                }
+                // Claimed by the lane and possibly committed, so report its real outcome
+                return join();
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            }
+        }
+
+        // Waits without reacting to interrupts; the lane always completes a claimed mutation
+        private BalanceTransaction join() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw unwrap(e.getCause());
+            }
+        }
+
+        private static RuntimeException unwrap(Throwable cause) {
+            return cause instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.servicebalance.entity.BalanceTransaction;
+
+/**
+ * Applies balance changes to a wallet and records them. Implementations are selected
+ * with {@code wallet.mutation.mode}.
+ */
+public interface WalletMutationExecutor {
+
+    /**
+     * Applies the mutation and returns the persisted {@link BalanceTransaction}.
+     * Business rule violations are thrown as {@code BusinessException}.
+     */
+    BalanceTransaction execute(WalletMutation mutation);
+}
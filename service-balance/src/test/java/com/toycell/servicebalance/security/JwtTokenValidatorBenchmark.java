@@ -0,0 +1,89 @@
+package com.toycell.servicebalance.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling cost per request in {@link JwtAuthenticationFilter}, before and after the
+ * verified-claims cache:
+ * <ul>
+ *     <li>{@code perRequestParserTwice}: the old filter, which built a parser and verified the token
+ *     once for {@code validateToken} and again for {@code getUserIdFromToken}</li>
+ *     <li>{@code sharedParserOnce}: one verification with the reused parser, what a cache miss costs now</li>
+ *     <li>{@code cachedValidator}: {@link JwtTokenValidator} for a token it has already verified</li>
+ * </ul>
+ * Run with {@code gradle :service-balance:jwtBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenValidatorBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-of-at-least-256-bits-for-hs256";
+
+    private SecretKey key;
+    private JwtParser parser;
+    private JwtTokenValidator validator;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+        validator = new JwtTokenValidator(SECRET, 10_000, new SimpleMeterRegistry());
+        token = Jwts.builder()
+                .claim("userId", 42L)
+                .claim("role", "USER")
+                .subject("42")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(key)
+                .compact();
+        validator.validateToken(token);
+    }
+
+    @Benchmark
+    public Long perRequestParserTwice() {
+        Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().get("userId", Long.class);
+    }
+
+    @Benchmark
+    public Long sharedParserOnce() {
+        return parser.parseSignedClaims(token).getPayload().get("userId", Long.class);
+    }
+
+    @Benchmark
+    public Long cachedValidator() {
+        Claims claims = validator.validateToken(token);
+        return claims.get("userId", Long.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtTokenValidatorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
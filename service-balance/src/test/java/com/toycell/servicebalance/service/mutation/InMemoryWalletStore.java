@@ -0,0 +1,242 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.Wallet;
+import com.toycell.servicebalance.repository.BalanceTransactionRepository;
+import com.toycell.servicebalance.repository.WalletBalanceBucketRepository;
+import com.toycell.servicebalance.repository.WalletRepository;
+import com.toycell.servicebalance.repository.WalletRepositoryCustom.BalanceUpdate;
+import com.toycell.servicebalance.service.StripedBalanceService;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wallets and balance transactions kept in memory, with just enough transaction semantics for the
+ * mutation executors: writes made inside a transaction of {@link #transactionManager()} only become
+ * visible on commit and are dropped on rollback. Outside a transaction they are applied directly,
+ * which is what the atomic executor sees when it runs without its Spring proxy.
+ * <p>
+ * Failures can be injected: a version conflict on {@code saveAndFlush}, a statement failure on
+ * {@code flush}, or a commit that writes the data and then reports an error.
+ */
+final class InMemoryWalletStore {
+
+    private final Map<Long, Wallet> wallets = new HashMap<>();
+    private final List<BalanceTransaction> transactions = new ArrayList<>();
+    private final ThreadLocal<Staged> staged = new ThreadLocal<>();
+
+    private final AtomicInteger versionConflicts = new AtomicInteger();
+    private final AtomicInteger flushFailures = new AtomicInteger();
+    private final AtomicInteger commitFailures = new AtomicInteger();
+
+    private final WalletRepository walletRepository = proxy(WalletRepository.class, this::walletCall);
+    private final BalanceTransactionRepository transactionRepository =
+            proxy(BalanceTransactionRepository.class, this::transactionCall);
+    private final WalletBalanceBucketRepository bucketRepository = proxy(WalletBalanceBucketRepository.class,
+            (name, args) -> {
+                throw new UnsupportedOperationException(name);
+            });
+
+    synchronized void addWallet(long id, long userId, BigDecimal balance) {
+        Wallet wallet = Wallet.builder().userId(userId).currency(Currency.TRY).balance(balance).build();
+        wallet.setId(id);
+        wallet.setVersion(0L);
+        wallets.put(id, wallet);
+    }
+
+    synchronized BigDecimal balance(long walletId) {
+        return wallets.get(walletId).getBalance();
+    }
+
+    synchronized List<BalanceTransaction> transactions() {
+        return new ArrayList<>(transactions);
+    }
+
+    void failNextSavesWithVersionConflict(int count) {
+        versionConflicts.set(count);
+    }
+
+    void failNextFlushes(int count) {
+        flushFailures.set(count);
+    }
+
+    void failNextCommitsAfterWriting(int count) {
+        commitFailures.set(count);
+    }
+
+    WalletRepository walletRepository() {
+        return walletRepository;
+    }
+
+    BalanceTransactionRepository transactionRepository() {
+        return transactionRepository;
+    }
+
+    WalletMutationApplier applier() {
+        return new WalletMutationApplier(stripedBalanceService());
+    }
+
+    StripedBalanceService stripedBalanceService() {
+        return new StripedBalanceService(walletRepository, bucketRepository, transactionRepository);
+    }
+
+    PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                staged.set(new Staged());
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                Staged writes = staged.get();
+                staged.remove();
+                synchronized (InMemoryWalletStore.this) {
+                    writes.wallets.values().forEach(wallet -> wallets.put(wallet.getId(), wallet));
+                    transactions.addAll(writes.transactions);
+                }
+                if (commitFailures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                    throw new TransactionSystemException("Connection lost while committing");
+                }
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                staged.remove();
+            }
+        };
+    }
+
+    private Object walletCall(String name, Object[] args) {
+        return switch (name) {
+            case "findById", "findByIdForUpdate" -> find((Long) args[0]);
+            case "save", "saveAndFlush" -> saveWallet((Wallet) args[0]);
+            case "applyBalanceDelta" -> applyBalanceDelta((Long) args[0], (Long) args[1], (BigDecimal) args[2]);
+            case "findStripedWalletIds" -> List.of();
+            case "flush" -> null;
+            default -> throw new UnsupportedOperationException(name);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object transactionCall(String name, Object[] args) {
+        return switch (name) {
+            case "save" -> {
+                saveTransactions(List.of((BalanceTransaction) args[0]));
+                yield args[0];
+            }
+            case "saveAll" -> {
+                List<BalanceTransaction> saved = new ArrayList<>((Collection<BalanceTransaction>) args[0]);
+                saveTransactions(saved);
+                yield saved;
+            }
+            case "flush" -> {
+                if (flushFailures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                    throw new DataAccessResourceFailureException("Statement failed");
+                }
+                yield null;
+            }
+            default -> throw new UnsupportedOperationException(name);
+        };
+    }
+
+    private synchronized Optional<Wallet> find(Long walletId) {
+        Staged writes = staged.get();
+        Wallet wallet = writes != null && writes.wallets.containsKey(walletId)
+                ? writes.wallets.get(walletId)
+                : wallets.get(walletId);
+        return Optional.ofNullable(wallet).map(InMemoryWalletStore::copy);
+    }
+
+    private synchronized Wallet saveWallet(Wallet wallet) {
+        if (versionConflicts.getAndUpdate(n -> Math.max(n - 1, 0)) > 0
+                || !wallets.get(wallet.getId()).getVersion().equals(wallet.getVersion())) {
+            throw new OptimisticLockingFailureException("Wallet " + wallet.getId() + " was updated concurrently");
+        }
+
+        Wallet saved = copy(wallet);
+        saved.setVersion(wallet.getVersion() + 1);
+        Staged writes = staged.get();
+        if (writes != null) {
+            writes.wallets.put(saved.getId(), saved);
+        } else {
+            wallets.put(saved.getId(), saved);
+        }
+        return saved;
+    }
+
+    private synchronized Optional<BalanceUpdate> applyBalanceDelta(Long walletId, Long userId, BigDecimal delta) {
+        Wallet wallet = wallets.get(walletId);
+        if (wallet == null || !wallet.getActive() || (userId != null && !wallet.getUserId().equals(userId))
+                || wallet.getBalance().add(delta).signum() < 0) {
+            return Optional.empty();
+        }
+
+        Wallet updated = copy(wallet);
+        updated.setBalance(wallet.getBalance().add(delta));
+        updated.setVersion(wallet.getVersion() + 1);
+        wallets.put(walletId, updated);
+        return Optional.of(new BalanceUpdate(updated.getBalance(), updated.getUserId(), updated.getCurrency()));
+    }
+
+    private synchronized void saveTransactions(List<BalanceTransaction> saved) {
+        Staged writes = staged.get();
+        if (writes != null) {
+            writes.transactions.addAll(saved);
+        } else {
+            transactions.addAll(saved);
+        }
+    }
+
+    private static Wallet copy(Wallet wallet) {
+        Wallet copy = Wallet.builder()
+                .userId(wallet.getUserId())
+                .currency(wallet.getCurrency())
+                .balance(wallet.getBalance())
+                .active(wallet.getActive())
+                .stripeCount(wallet.getStripeCount())
+                .build();
+        copy.setId(wallet.getId());
+        copy.setVersion(wallet.getVersion());
+        return copy;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + " (in memory)";
+                };
+            }
+            return handler.handle(method.getName(), args);
+        }));
+    }
+
+    private interface Handler {
+        Object handle(String name, Object[] args);
+    }
+
+    private static final class Staged {
+        private final Map<Long, Wallet> wallets = new HashMap<>();
+        private final List<BalanceTransaction> transactions = new ArrayList<>();
+    }
+}
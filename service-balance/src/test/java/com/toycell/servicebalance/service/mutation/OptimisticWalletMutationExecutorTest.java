@@ -0,0 +1,78 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.BalanceTransaction.TransactionType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Version conflicts are retried up to {@code max-attempts}, and every retry, give-up and
+ * successful attempt count is published.
+ */
+class OptimisticWalletMutationExecutorTest {
+
+    private final InMemoryWalletStore store = new InMemoryWalletStore();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void retriesVersionConflictsUntilTheMutationApplies() {
+        store.addWallet(1, 1, new BigDecimal("100.00"));
+        store.failNextSavesWithVersionConflict(2);
+
+        BalanceTransaction transaction = executor(5).execute(withdrawal("30.00"));
+
+        assertEquals(new BigDecimal("70.00"), transaction.getBalanceAfter());
+        assertEquals(new BigDecimal("70.00"), store.balance(1));
+        assertEquals(1, store.transactions().size());
+        assertEquals(2.0, meterRegistry.get("wallet.mutation.optimistic.retries").counter().count());
+        assertEquals(0.0, meterRegistry.get("wallet.mutation.optimistic.exhausted").counter().count());
+
+        DistributionSummary attempts = meterRegistry.get("wallet.mutation.optimistic.attempts").summary();
+        assertEquals(1L, attempts.count());
+        assertEquals(3.0, attempts.totalAmount());
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsWithoutWriting() {
+        store.addWallet(1, 1, new BigDecimal("100.00"));
+        store.failNextSavesWithVersionConflict(10);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> executor(3).execute(withdrawal("30.00")));
+
+        assertEquals(ErrorCode.SERVICE_UNAVAILABLE, e.getErrorCode());
+        assertEquals(new BigDecimal("100.00"), store.balance(1));
+        assertEquals(0, store.transactions().size());
+        assertEquals(2.0, meterRegistry.get("wallet.mutation.optimistic.retries").counter().count());
+        assertEquals(1.0, meterRegistry.get("wallet.mutation.optimistic.exhausted").counter().count());
+        assertEquals(0L, meterRegistry.get("wallet.mutation.optimistic.attempts").summary().count());
+    }
+
+    @Test
+    void businessRuleViolationsAreNotRetried() {
+        store.addWallet(1, 1, new BigDecimal("10.00"));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> executor(5).execute(withdrawal("30.00")));
+
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, e.getErrorCode());
+        assertEquals(0.0, meterRegistry.get("wallet.mutation.optimistic.retries").counter().count());
+        assertEquals(0.0, meterRegistry.get("wallet.mutation.optimistic.exhausted").counter().count());
+    }
+
+    private OptimisticWalletMutationExecutor executor(int maxAttempts) {
+        // No backoff, the conflicts are injected rather than raced
+        return new OptimisticWalletMutationExecutor(store.walletRepository(), store.transactionRepository(),
+                store.applier(), store.transactionManager(), meterRegistry, maxAttempts, 0, 0);
+    }
+
+    private static WalletMutation withdrawal(String amount) {
+        return new WalletMutation(1L, 1L, TransactionType.WITHDRAW, new BigDecimal(amount), "test", "ref");
+    }
+}
@@ -0,0 +1,210 @@
+package com.toycell.servicebalance.service.mutation;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicebalance.entity.BalanceTransaction;
+import com.toycell.servicebalance.entity.BalanceTransaction.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the same concurrent deposits and withdrawals through lanes mode and atomic mode and checks
+ * that both end with the same, exact balances; also covers how a lane reports a failed flush.
+ */
+class WalletMutationEngineTest {
+
+    private static final int WALLETS = 4;
+    private static final int THREADS = 8;
+    private static final int MUTATIONS = 4_000;
+
+    @Test
+    void lanesMatchAtomicModeWhenEveryMutationSucceeds() throws Exception {
+        // Withdrawals total at most 100k per wallet, so none of them can fail on balance
+        List<WalletMutation> mutations = randomMutations(new Random(20261018L), 100);
+        BigDecimal initial = new BigDecimal("100000.00");
+
+        InMemoryWalletStore atomic = runAtomic(initial, mutations);
+        InMemoryWalletStore lanes = runLanes(initial, mutations);
+
+        for (long walletId = 1; walletId <= WALLETS; walletId++) {
+            BigDecimal expected = initial.add(netChange(mutations, walletId));
+            assertEquals(expected, atomic.balance(walletId));
+            assertEquals(expected, lanes.balance(walletId));
+        }
+        assertEquals(MUTATIONS, atomic.transactions().size());
+        assertEquals(MUTATIONS, lanes.transactions().size());
+    }
+
+    @Test
+    void lanesKeepBalancesConsistentWhenWithdrawalsRunOut() throws Exception {
+        // Small balances and large withdrawals, so the outcome depends on the interleaving
+        List<WalletMutation> mutations = randomMutations(new Random(42L), 500);
+        BigDecimal initial = new BigDecimal("1000.00");
+
+        for (InMemoryWalletStore store : List.of(runAtomic(initial, mutations), runLanes(initial, mutations))) {
+            for (long walletId = 1; walletId <= WALLETS; walletId++) {
+                long id = walletId;
+                List<BalanceTransaction> recorded = store.transactions().stream()
+                        .filter(transaction -> transaction.getWalletId() == id)
+                        .toList();
+                BigDecimal recordedChange = recorded.stream()
+                        .map(transaction -> transaction.getBalanceAfter().subtract(transaction.getBalanceBefore()))
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+                assertEquals(initial.add(recordedChange), store.balance(walletId));
+                assertTrue(recorded.stream().allMatch(transaction -> transaction.getBalanceAfter().signum() >= 0));
+            }
+        }
+    }
+
+    @Test
+    void commitFailureReportsOutcomeUnknownWithoutReapplying() throws Exception {
+        InMemoryWalletStore store = new InMemoryWalletStore();
+        store.addWallet(1, 1, new BigDecimal("100.00"));
+        store.failNextCommitsAfterWriting(1);
+
+        WalletMutationEngine engine = engine(store);
+        try {
+            BusinessException e = assertThrows(BusinessException.class,
+                    () -> engine.execute(mutation(1, TransactionType.DEPOSIT, "25.00")));
+            assertEquals(ErrorCode.SERVICE_UNAVAILABLE, e.getErrorCode());
+        } finally {
+            engine.stop();
+        }
+
+        // The failed commit had written the deposit, a replay would have applied it twice
+        assertEquals(new BigDecimal("125.00"), store.balance(1));
+        assertEquals(1, store.transactions().size());
+    }
+
+    @Test
+    void failureBeforeCommitIsReplayedIndividually() throws Exception {
+        InMemoryWalletStore store = new InMemoryWalletStore();
+        store.addWallet(1, 1, new BigDecimal("100.00"));
+        store.failNextFlushes(1);
+
+        WalletMutationEngine engine = engine(store);
+        try {
+            BalanceTransaction transaction = engine.execute(mutation(1, TransactionType.WITHDRAW, "40.00"));
+            assertEquals(new BigDecimal("60.00"), transaction.getBalanceAfter());
+        } finally {
+            engine.stop();
+        }
+
+        assertEquals(new BigDecimal("60.00"), store.balance(1));
+        assertEquals(1, store.transactions().size());
+    }
+
+    @Test
+    void lanesDoNotRunBeforeStart() throws Exception {
+        InMemoryWalletStore store = new InMemoryWalletStore();
+        store.addWallet(1, 1, new BigDecimal("100.00"));
+        WalletMutationEngine engine = new WalletMutationEngine(store.walletRepository(), store.transactionRepository(),
+                store.applier(), store.transactionManager(), 1, 16, 16, 200);
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> engine.execute(mutation(1, TransactionType.DEPOSIT, "1.00")));
+        assertEquals(ErrorCode.SERVICE_UNAVAILABLE, e.getErrorCode());
+        assertEquals(new BigDecimal("100.00"), store.balance(1));
+        engine.stop();
+    }
+
+    private static InMemoryWalletStore runAtomic(BigDecimal initial, List<WalletMutation> mutations) throws Exception {
+        InMemoryWalletStore store = store(initial);
+        AtomicWalletMutationExecutor executor = new AtomicWalletMutationExecutor(store.walletRepository(),
+                store.transactionRepository(), store.applier(), store.stripedBalanceService());
+        runConcurrently(executor::execute, mutations);
+        return store;
+    }
+
+    private static InMemoryWalletStore runLanes(BigDecimal initial, List<WalletMutation> mutations) throws Exception {
+        InMemoryWalletStore store = store(initial);
+        WalletMutationEngine engine = engine(store);
+        try {
+            runConcurrently(engine::execute, mutations);
+        } finally {
+            engine.stop();
+        }
+        return store;
+    }
+
+    private static WalletMutationEngine engine(InMemoryWalletStore store) {
+        WalletMutationEngine engine = new WalletMutationEngine(store.walletRepository(), store.transactionRepository(),
+                store.applier(), store.transactionManager(), 2, 10_000, 64, 10_000);
+        engine.start();
+        return engine;
+    }
+
+    private static InMemoryWalletStore store(BigDecimal initial) {
+        InMemoryWalletStore store = new InMemoryWalletStore();
+        for (long walletId = 1; walletId <= WALLETS; walletId++) {
+            store.addWallet(walletId, walletId, initial);
+        }
+        return store;
+    }
+
+    private static void runConcurrently(Function<WalletMutation, BalanceTransaction> executor,
+                                        List<WalletMutation> mutations) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = offset; i < mutations.size(); i += THREADS) {
+                        try {
+                            executor.apply(mutations.get(i));
+                        } catch (BusinessException e) {
+                            assertEquals(ErrorCode.INSUFFICIENT_BALANCE, e.getErrorCode());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<WalletMutation> randomMutations(Random random, int maxWithdrawal) {
+        List<WalletMutation> mutations = new ArrayList<>(MUTATIONS);
+        for (int i = 0; i < MUTATIONS; i++) {
+            long walletId = 1 + random.nextInt(WALLETS);
+            boolean deposit = random.nextBoolean();
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt((deposit ? 100 : maxWithdrawal) * 100), 2);
+            mutations.add(new WalletMutation(walletId, walletId, deposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAW,
+                    amount, "test", "ref-" + i));
+        }
+        return mutations;
+    }
+
+    private static BigDecimal netChange(List<WalletMutation> mutations, long walletId) {
+        return mutations.stream()
+                .filter(mutation -> mutation.walletId() == walletId)
+                .map(mutation -> mutation.isCredit() ? mutation.amount() : mutation.amount().negate())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static WalletMutation mutation(long walletId, TransactionType type, String amount) {
+        return new WalletMutation(walletId, walletId, type, new BigDecimal(amount), "test", "ref");
+    }
+}
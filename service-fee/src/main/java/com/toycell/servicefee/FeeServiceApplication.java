@@ -2,8 +2,10 @@ package com.toycell.servicefee;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FeeServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(FeeServiceApplication.class, args);
@@ -0,0 +1,32 @@
+package com.toycell.servicefee.client;
+
+import com.toycell.commondomain.security.InternalIdentity;
+import com.toycell.commondomain.security.ServiceCredential;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * service-transaction'ın {@code /internal/**} uç noktalarına gönderilen kısa ömürlü
+ * {@value ServiceCredential#HEADER} kimliğini imzalar; {@code internal.service.secret} tanımlı
+ * değilse servis açılmaz.
+ */
+@Component
+public class ServiceCredentialIssuer {
+
+    private static final String SERVICE = "service-fee";
+
+    private final byte[] secret;
+    private final long ttlSeconds;
+
+    public ServiceCredentialIssuer(@Value("${internal.service.secret:}") String secret,
+                                   @Value("${internal.service.credential-ttl-seconds:60}") long ttlSeconds) {
+        this.secret = InternalIdentity.requireSecret(secret, ServiceCredential.SECRET_PROPERTY);
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String issue() {
+        return ServiceCredential.issue(SERVICE, null, secret, Instant.now().getEpochSecond(), ttlSeconds);
+    }
+}
@@ -0,0 +1,66 @@
+package com.toycell.servicefee.client;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.commondomain.response.ApiResponse;
+import com.toycell.commondomain.security.ServiceCredential;
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicefee.dto.client.TransactionExportPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * service-transaction'ın {@code /api/transactions/internal/export} uç noktası için istemci.
+ * Her istek imzalı servis kimliğiyle gönderilir.
+ */
+@Component
+public class TransactionExportClient {
+
+    private static final ParameterizedTypeReference<ApiResponse<TransactionExportPage>> PAGE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final RestClient restClient;
+    private final ServiceCredentialIssuer serviceCredentials;
+
+    public TransactionExportClient(RestClient.Builder builder,
+                                   ServiceCredentialIssuer serviceCredentials,
+                                   @Value("${fee.simulation.transaction-service-url:http://localhost:8086}") String baseUrl) {
+        this.restClient = builder.baseUrl(baseUrl).build();
+        this.serviceCredentials = serviceCredentials;
+    }
+
+    /**
+     * (from, afterId) konumundan sonraki en fazla {@code limit} işlemi getirir
+     */
+    public TransactionExportPage fetchPage(TransactionType type, Currency currency,
+                                           LocalDateTime from, LocalDateTime to, long afterId, int limit) {
+        try {
+            ApiResponse<TransactionExportPage> response = restClient.get()
+                    .uri(uri -> uri.path("/api/transactions/internal/export")
+                            .queryParam("type", type)
+                            .queryParamIfPresent("currency", Optional.ofNullable(currency))
+                            .queryParam("from", from)
+                            .queryParam("to", to)
+                            .queryParam("afterId", afterId)
+                            .queryParam("limit", limit)
+                            .build())
+                    .header(ServiceCredential.HEADER, serviceCredentials.issue())
+                    .retrieve()
+                    .body(PAGE_TYPE);
+            if (response == null || response.getData() == null) {
+                throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Empty transaction export response");
+            }
+            return response.getData();
+        } catch (RestClientException e) {
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, e);
+        }
+    }
+}
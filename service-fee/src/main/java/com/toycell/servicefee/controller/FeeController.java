@@ -2,13 +2,20 @@ package com.toycell.servicefee.controller;
 
 import com.toycell.commondomain.response.ApiResponse;
 import com.toycell.commondomain.enums.Currency;
+import com.toycell.servicefee.dto.FeeBatchCalculationRequest;
 import com.toycell.servicefee.dto.FeeCalculationRequest;
 import com.toycell.servicefee.dto.FeeCalculationResponse;
 import com.toycell.servicefee.dto.FeeRuleRequest;
 import com.toycell.servicefee.dto.FeeRuleResponse;
+import com.toycell.servicefee.dto.FeeRuleSnapshotResponse;
+import com.toycell.servicefee.dto.FeeSimulationRequest;
+import com.toycell.servicefee.dto.FeeSimulationResponse;
 import com.toycell.servicefee.service.FeeService;
+import com.toycell.servicefee.service.FeeSimulationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,7 +29,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FeeController {
 
+    /**
+     * Hesaplamada kullanılan kural seti sürümü; istemci önbellekleri daha yeni bir sürüm görünce yenilenir
+     */
+    public static final String FEE_RULES_VERSION_HEADER = "X-Fee-Rules-Version";
+
     private final FeeService feeService;
+    private final FeeSimulationService feeSimulationService;
 
     /**
      * Transfer ücreti hesaplar
@@ -31,7 +44,44 @@ public class FeeController {
     public ResponseEntity<ApiResponse<FeeCalculationResponse>> calculateFee(
             @Valid @RequestBody FeeCalculationRequest request) {
         FeeCalculationResponse response = feeService.calculateFee(request);
-        return ResponseEntity.ok(ApiResponse.success("Fee calculated successfully", response));
+        return ResponseEntity.ok()
+                .header(FEE_RULES_VERSION_HEADER, String.valueOf(feeService.getRuleSetVersion()))
+                .body(ApiResponse.success("Fee calculated successfully", response));
+    }
+
+    /**
+     * Toplu ücret hesaplar; sonuçlar istek sırasıyla döner
+     */
+    @PostMapping("/calculate/batch")
+    public ResponseEntity<ApiResponse<List<FeeCalculationResponse>>> calculateFees(
+            @Valid @RequestBody FeeBatchCalculationRequest request) {
+        List<FeeCalculationResponse> response = feeService.calculateFees(request);
+        return ResponseEntity.ok()
+                .header(FEE_RULES_VERSION_HEADER, String.valueOf(feeService.getRuleSetVersion()))
+                .body(ApiResponse.success("Fees calculated successfully", response));
+    }
+
+    /**
+     * Aktif kural seti snapshot'ı. Sürüm ETag olarak döner; If-None-Match aynı sürümü
+     * gösteriyorsa gövdesiz 304 döner
+     */
+    @GetMapping("/rules/snapshot")
+    public ResponseEntity<ApiResponse<FeeRuleSnapshotResponse>> getRuleSnapshot(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        FeeRuleSnapshotResponse snapshot = feeService.getRuleSnapshot();
+        String eTag = "\"" + snapshot.getVersion() + "\"";
+
+        if (ifNoneMatch != null && ifNoneMatch.replace("W/", "").trim().equals(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .header(FEE_RULES_VERSION_HEADER, String.valueOf(snapshot.getVersion()))
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .header(FEE_RULES_VERSION_HEADER, String.valueOf(snapshot.getVersion()))
+                .body(ApiResponse.success(snapshot));
     }
 
     /**
@@ -107,10 +157,35 @@ public class FeeController {
     @GetMapping("/calculate/transfer")
     public ResponseEntity<ApiResponse<FeeCalculationResponse>> calculateTransferFee(
             @RequestParam java.math.BigDecimal amount,
-            @RequestParam Currency currency) {
-        FeeCalculationRequest request = new FeeCalculationRequest(amount, currency);
+            @RequestParam Currency currency,
+            @RequestParam(defaultValue = "false") boolean details,
+            @RequestParam(required = false) Long userId) {
+        FeeCalculationRequest request = new FeeCalculationRequest(amount, currency, details, userId);
         FeeCalculationResponse response = feeService.calculateFee(request);
-        return ResponseEntity.ok(ApiResponse.success("Fee calculated successfully", response));
+        return ResponseEntity.ok()
+                .header(FEE_RULES_VERSION_HEADER, String.valueOf(feeService.getRuleSetVersion()))
+                .body(ApiResponse.success("Fee calculated successfully", response));
+    }
+
+    /**
+     * Önerilen kural setini geçmiş transferler üzerinde yayındaki kurallarla karşılaştıran
+     * simülasyonu başlatır (ADMIN); iş arka planda çalışır
+     */
+    @PostMapping("/simulations")
+    public ResponseEntity<ApiResponse<FeeSimulationResponse>> startSimulation(
+            @Valid @RequestBody FeeSimulationRequest request) {
+        FeeSimulationResponse response = feeSimulationService.startSimulation(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Fee simulation started", response));
+    }
+
+    /**
+     * Simülasyon durumunu ve tamamlandıysa raporunu getirir (ADMIN)
+     */
+    @GetMapping("/simulations/{id}")
+    public ResponseEntity<ApiResponse<FeeSimulationResponse>> getSimulation(@PathVariable String id) {
+        FeeSimulationResponse response = feeSimulationService.getSimulation(id);
+        return ResponseEntity.ok(ApiResponse.success(response));
     }
 
     /**
@@ -0,0 +1,43 @@
+package com.toycell.servicefee.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Toplu ücret hesaplama request DTO. Sonuçlar aynı sırada döner.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeBatchCalculationRequest {
+
+    @Valid
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 10000, message = "At most 10000 items per request")
+    private List<Item> items;
+
+    private boolean includeDetails; // feeDetails alanını doldur
+
+    private Long userId; // Tüm kalemlerin göndereni; verilirse hacim kademeli kurallar değerlendirilir
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        @NotNull(message = "Amount is required")
+        private BigDecimal amount;
+
+        @NotNull(message = "Currency is required")
+        private Currency currency;
+    }
+}
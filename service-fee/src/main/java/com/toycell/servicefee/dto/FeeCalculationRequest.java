@@ -16,4 +16,6 @@ import java.math.BigDecimal;
 public class FeeCalculationRequest {
     private BigDecimal amount;
     private Currency currency;
+    private boolean includeDetails = true; // feeDetails alanını doldur
+    private Long userId; // Gönderen; verilirse hacim kademeli kurallar değerlendirilir
 }
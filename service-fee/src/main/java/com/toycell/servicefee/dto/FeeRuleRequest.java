@@ -26,6 +26,9 @@ public class FeeRuleRequest {
     @DecimalMin(value = "0.0", message = "Maximum amount must be greater than or equal to 0")
     private BigDecimal maxAmount;
 
+    @DecimalMin(value = "0.0", message = "Minimum monthly volume must be greater than or equal to 0")
+    private BigDecimal minMonthlyVolume; // Gönderenin son 30 günlük hacmi en az bu kadarsa uygulanır
+
     @NotNull(message = "Fee percentage is required")
     @DecimalMin(value = "0.0", message = "Fee percentage must be greater than or equal to 0")
     @DecimalMax(value = "100.0", message = "Fee percentage must be less than or equal to 100")
@@ -21,6 +21,7 @@ public class FeeRuleResponse {
     private Currency currency;
     private BigDecimal minAmount;
     private BigDecimal maxAmount;
+    private BigDecimal minMonthlyVolume;
     private BigDecimal feePercentage;
     private BigDecimal fixedFee;
     private BigDecimal minFee;
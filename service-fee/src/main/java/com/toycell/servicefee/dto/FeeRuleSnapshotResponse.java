@@ -0,0 +1,21 @@
+package com.toycell.servicefee.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Aktif kural seti snapshot'ı; {@code version} ETag olarak da döner
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FeeRuleSnapshotResponse {
+    private Long version;
+    private List<FeeRuleResponse> rules; // Aktif kurallar
+    private FeeRuleResponse defaultRule; // Uyan kural yoksa uygulanan kural
+}
@@ -0,0 +1,48 @@
+package com.toycell.servicefee.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ücret simülasyonu request DTO. Önerilen kural seti, [from, to) aralığındaki geçmiş
+ * transferlere yayındaki kural setiyle yan yana uygulanır.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeSimulationRequest {
+
+    @NotNull(message = "Start date is required")
+    private LocalDateTime from;
+
+    @NotNull(message = "End date is required")
+    private LocalDateTime to;
+
+    private Currency currency; // Boşsa tüm para birimleri
+
+    @Valid
+    @NotEmpty(message = "At least one proposed rule is required")
+    @Size(max = 1000, message = "At most 1000 proposed rules")
+    private List<FeeRuleRequest> proposedRules;
+
+    @Min(value = 1, message = "topUsers must be at least 1")
+    @Max(value = 1000, message = "topUsers must be at most 1000")
+    private int topUsers = 20; // Raporlanacak en çok etkilenen kullanıcı sayısı
+
+    @NotNull(message = "Histogram bucket width is required")
+    @DecimalMin(value = "0.01", message = "Histogram bucket width must be at least 0.01")
+    @Digits(integer = 15, fraction = 2, message = "Histogram bucket width must have at most 2 decimals")
+    private BigDecimal histogramBucketWidth = BigDecimal.ONE; // Ücret histogramı dilim genişliği
+
+    @Min(value = 1, message = "histogramBuckets must be at least 1")
+    @Max(value = 1000, message = "histogramBuckets must be at most 1000")
+    private int histogramBuckets = 50; // Son dilim üst sınırı aşan tüm ücretleri toplar
+}
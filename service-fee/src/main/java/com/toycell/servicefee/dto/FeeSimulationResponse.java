@@ -0,0 +1,68 @@
+package com.toycell.servicefee.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ücret simülasyonu durumu ve raporu. {@code currencies} iş tamamlanınca doldurulur.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FeeSimulationResponse {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+    private Status status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Long currentRuleSetVersion; // Karşılaştırılan yayındaki kural seti
+    private long processedTransactions;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private List<CurrencyReport> currencies;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CurrencyReport {
+        private Currency currency;
+        private long transactionCount;
+        private BigDecimal totalAmount; // Transfer hacmi
+        private BigDecimal currentRevenue; // Yayındaki kurallarla ücret geliri
+        private BigDecimal proposedRevenue; // Önerilen kurallarla ücret geliri
+        private BigDecimal revenueDelta; // proposed - current
+        private long feeIncreasedCount;
+        private long feeDecreasedCount;
+        private BigDecimal histogramBucketWidth;
+        private long[] currentHistogram; // i. dilim: [i * width, (i + 1) * width)
+        private long[] proposedHistogram;
+        private boolean topUsersExact; // false: kullanıcı tablosu budandı, sıralama yaklaşık
+        private List<UserImpact> topAffectedUsers; // |delta| büyükten küçüğe
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class UserImpact {
+        private Long userId; // Ücreti ödeyen (gönderen) kullanıcı
+        private long transactionCount;
+        private BigDecimal currentFees;
+        private BigDecimal proposedFees;
+        private BigDecimal delta;
+    }
+}
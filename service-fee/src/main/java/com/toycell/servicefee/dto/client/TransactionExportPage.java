@@ -0,0 +1,35 @@
+package com.toycell.servicefee.dto.client;
+
+import com.toycell.commondomain.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * service-transaction dışa aktarım sayfası; son sayfada {@code nextFrom}/{@code nextAfterId} null'dır
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionExportPage {
+
+    private List<Row> rows;
+    private LocalDateTime nextFrom;
+    private Long nextAfterId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private Long id;
+        private Long userId;
+        private Long relatedUserId;
+        private BigDecimal amount;
+        private Currency currency;
+        private LocalDateTime createdAt;
+    }
+}
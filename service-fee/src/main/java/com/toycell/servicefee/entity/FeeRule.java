@@ -19,7 +19,6 @@ import java.math.BigDecimal;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@SequenceGenerator(name = "base_seq_gen", sequenceName = "fee_rules_seq", allocationSize = 1)
 public class FeeRule extends BaseEntity {
 
     @Enumerated(EnumType.STRING)
@@ -32,6 +31,9 @@ public class FeeRule extends BaseEntity {
     @Column(name = "max_amount", precision = 19, scale = 2)
     private BigDecimal maxAmount; // Maximum işlem tutarı (null = sınırsız)
 
+    @Column(name = "min_monthly_volume", precision = 19, scale = 2)
+    private BigDecimal minMonthlyVolume; // Gönderenin son 30 günlük transfer hacmi alt sınırı (null = koşulsuz)
+
     @Column(name = "fee_percentage", precision = 5, scale = 2, nullable = false)
     private BigDecimal feePercentage; // Yüzde olarak ücret (örn: 1.5)
 
@@ -0,0 +1,29 @@
+package com.toycell.servicefee.entity;
+
+import com.toycell.commondomain.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Kural setinin sürüm sayacı. Her kural değişikliği aynı transaction içinde sürümü bir artırır;
+ * istemciler kural snapshot'ını bu sürümle (ETag) önbelleğe alır.
+ */
+@Entity
+@Table(name = "fee_rule_set_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeRuleSetVersion extends BaseEntity {
+
+    public static final String FEE_RULES = "FEE_RULES";
+
+    @Column(name = "name", length = 50, nullable = false, unique = true)
+    private String name;
+
+    @Column(name = "version", nullable = false)
+    private Long version = 1L;
+}
@@ -0,0 +1,39 @@
+package com.toycell.servicefee.entity;
+
+import com.toycell.commondomain.entity.BaseEntity;
+import com.toycell.commondomain.enums.Currency;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Gönderenin bir gündeki transfer hacmi; bellekteki hacim sayaçlarının checkpoint'i
+ */
+@Entity
+@Table(name = "fee_volume_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_fee_volume_buckets_user_day",
+                columnNames = {"user_id", "currency", "epoch_day"}),
+        indexes = @Index(name = "idx_fee_volume_buckets_day", columnList = "epoch_day"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeVolumeBucket extends BaseEntity {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "currency", length = 3, nullable = false)
+    private Currency currency;
+
+    @Column(name = "epoch_day", nullable = false)
+    private Long epochDay; // LocalDate.toEpochDay()
+
+    @Column(name = "amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal amount;
+}
@@ -0,0 +1,34 @@
+package com.toycell.servicefee.entity;
+
+import com.toycell.commondomain.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hacim checkpoint'inin işlem akışındaki konumu: {@link FeeVolumeBucket} satırları bu konuma kadar
+ * okunmuş transferleri içerir, açılışta akış buradan devam eder
+ */
+@Entity
+@Table(name = "fee_volume_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeVolumeCheckpoint extends BaseEntity {
+
+    public static final String TRANSFER_VOLUME = "TRANSFER_VOLUME";
+
+    @Column(name = "name", length = 50, nullable = false, unique = true)
+    private String name;
+
+    @Column(name = "last_created_at", nullable = false)
+    private LocalDateTime lastCreatedAt;
+
+    @Column(name = "last_transaction_id", nullable = false)
+    private Long lastTransactionId;
+}
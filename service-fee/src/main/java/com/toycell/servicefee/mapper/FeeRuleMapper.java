@@ -16,6 +16,7 @@ public class FeeRuleMapper {
         feeRule.setCurrency(request.getCurrency());
         feeRule.setMinAmount(request.getMinAmount());
         feeRule.setMaxAmount(request.getMaxAmount());
+        feeRule.setMinMonthlyVolume(request.getMinMonthlyVolume());
         feeRule.setFeePercentage(request.getFeePercentage());
         feeRule.setFixedFee(request.getFixedFee());
         feeRule.setMinFee(request.getMinFee());
@@ -29,6 +30,7 @@ public class FeeRuleMapper {
         feeRule.setCurrency(request.getCurrency());
         feeRule.setMinAmount(request.getMinAmount());
         feeRule.setMaxAmount(request.getMaxAmount());
+        feeRule.setMinMonthlyVolume(request.getMinMonthlyVolume());
         feeRule.setFeePercentage(request.getFeePercentage());
         feeRule.setFixedFee(request.getFixedFee());
         feeRule.setMinFee(request.getMinFee());
@@ -43,6 +45,7 @@ public class FeeRuleMapper {
                 .currency(feeRule.getCurrency())
                 .minAmount(feeRule.getMinAmount())
                 .maxAmount(feeRule.getMaxAmount())
+                .minMonthlyVolume(feeRule.getMinMonthlyVolume())
                 .feePercentage(feeRule.getFeePercentage())
                 .fixedFee(feeRule.getFixedFee())
                 .minFee(feeRule.getMinFee())
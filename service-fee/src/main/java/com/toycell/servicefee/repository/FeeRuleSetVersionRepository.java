@@ -0,0 +1,39 @@
+package com.toycell.servicefee.repository;
+
+import com.toycell.servicefee.entity.FeeRuleSetVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface FeeRuleSetVersionRepository extends JpaRepository<FeeRuleSetVersion, Long> {
+
+    boolean existsByName(String name);
+
+    /**
+     * Güncel sürümü okur
+     */
+    @Query("SELECT v.version FROM FeeRuleSetVersion v WHERE v.name = :name")
+    Optional<Long> findVersion(@Param("name") String name);
+
+    /**
+     * Sürümü bir artırır (çağıranın transaction'ında)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FeeRuleSetVersion v SET v.version = v.version + 1 WHERE v.name = :name")
+    int increment(@Param("name") String name);
+
+    /**
+     * Sürümü yalnızca hâlâ {@code expected} ise artırır; tabloya doğrudan yapılan değişiklikler için
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FeeRuleSetVersion v SET v.version = v.version + 1 WHERE v.name = :name AND v.version = :expected")
+    int incrementIfCurrent(@Param("name") String name, @Param("expected") Long expected);
+}
@@ -0,0 +1,52 @@
+package com.toycell.servicefee.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.servicefee.entity.FeeVolumeBucket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface FeeVolumeBucketRepository extends JpaRepository<FeeVolumeBucket, Long> {
+
+    /**
+     * Açılışta yüklenecek gün toplamları (varlık değil, yönetilmeyen projeksiyon)
+     */
+    interface DayVolumeView {
+        Long getUserId();
+
+        Currency getCurrency();
+
+        Long getEpochDay();
+
+        BigDecimal getAmount();
+    }
+
+    /**
+     * Penceredeki gün toplamlarını akış olarak okur (açık bir transaction içinde tüketilmeli)
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<DayVolumeView> streamByEpochDayGreaterThanEqual(Long epochDay);
+
+    /**
+     * Checkpoint'te güncellenecek satırlar
+     */
+    List<FeeVolumeBucket> findByUserIdInAndEpochDayIn(Collection<Long> userIds, Collection<Long> epochDays);
+
+    /**
+     * Pencereden çıkmış günleri siler
+     */
+    @Modifying
+    @Query("DELETE FROM FeeVolumeBucket b WHERE b.epochDay < :epochDay")
+    int deleteOlderThan(@Param("epochDay") Long epochDay);
+}
@@ -0,0 +1,28 @@
+package com.toycell.servicefee.repository;
+
+import com.toycell.servicefee.entity.FeeVolumeCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface FeeVolumeCheckpointRepository extends JpaRepository<FeeVolumeCheckpoint, Long> {
+
+    Optional<FeeVolumeCheckpoint> findByName(String name);
+
+    /**
+     * Konumu yalnızca ileri taşır; geride kalan bir instance daha ileri bir checkpoint'i geri alamaz
+     */
+    @Modifying
+    @Query("UPDATE FeeVolumeCheckpoint c SET c.lastCreatedAt = :createdAt, c.lastTransactionId = :transactionId " +
+           "WHERE c.name = :name AND (c.lastCreatedAt < :createdAt " +
+           "OR (c.lastCreatedAt = :createdAt AND c.lastTransactionId < :transactionId))")
+    int advance(@Param("name") String name,
+                @Param("createdAt") LocalDateTime createdAt,
+                @Param("transactionId") Long transactionId);
+}
@@ -0,0 +1,220 @@
+package com.toycell.servicefee.service;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.fee.FeeRuleDefinition;
+import com.toycell.commondomain.fee.FeeRuleTable;
+import com.toycell.servicefee.dto.FeeRuleResponse;
+import com.toycell.servicefee.dto.FeeRuleSnapshotResponse;
+import com.toycell.servicefee.entity.FeeRule;
+import com.toycell.servicefee.entity.FeeRuleSetVersion;
+import com.toycell.servicefee.mapper.FeeRuleMapper;
+import com.toycell.servicefee.repository.FeeRuleRepository;
+import com.toycell.servicefee.repository.FeeRuleSetVersionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Aktif ücret kurallarını para birimi başına derlenmiş, değişmez bir aralık tablosunda
+ * ({@link FeeRuleTable}) tutar. Hesaplama sırasında veritabanına gidilmez; kural, tutar
+ * sınırları üzerinde ikili arama ile O(log n) sürede bulunur.
+ * <p>
+ * Tablo kural ekleme/güncelleme/silme işlemi commit olduktan sonra ve periyodik olarak
+ * ({@code fee.rules.reload-ms}) yeniden derlenir; okuyucular her zaman tam bir tabloyu görür.
+ * Her tablo, yüklendiği andaki kural seti sürümüyle ({@link FeeRuleSetVersion}) birlikte yayınlanır.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeeRuleEngine {
+
+    /**
+     * Uyan kural yoksa: %1 + 1 TRY/USD/EUR, minimum 1, üst sınır yok
+     */
+    public static final FeeRuleDefinition DEFAULT_RULE = FeeRuleDefinition.of(0L, BigDecimal.ZERO, null, null,
+            BigDecimal.valueOf(1.0), BigDecimal.valueOf(1.0), BigDecimal.valueOf(1.0), null, 0);
+
+    private final FeeRuleRepository feeRuleRepository;
+    private final FeeRuleSetVersionRepository versionRepository;
+    private final FeeRuleMapper feeRuleMapper;
+
+    private volatile RuleState state = new RuleState(0L, Map.of(), List.of());
+
+    /**
+     * Kural değişikliği olayı; commit sonrası tabloyu yeniler
+     */
+    public record RulesChanged(Long ruleId) {
+    }
+
+    private record RuleState(long version, Map<Currency, FeeRuleTable> tables, List<FeeRuleResponse> rules) {
+    }
+
+    /**
+     * Tutara uyan kuralı döner, uyan kural yoksa null
+     */
+    public FeeRuleDefinition findRule(Currency currency, BigDecimal amount) {
+        return findRule(currency, amount, BigDecimal.ZERO);
+    }
+
+    /**
+     * Son 30 günlük hacmi {@code monthlyVolume} olan gönderen için tutara uyan kuralı döner,
+     * uyan kural yoksa null
+     */
+    public FeeRuleDefinition findRule(Currency currency, BigDecimal amount, BigDecimal monthlyVolume) {
+        FeeRuleTable table = state.tables().get(currency);
+        return table != null ? table.find(amount, monthlyVolume) : null;
+    }
+
+    /**
+     * Para biriminin o anki kural tablosu üzerinde arama fonksiyonu; toplu hesaplamada
+     * tablo para birimi başına bir kez çözülür
+     */
+    public Function<BigDecimal, FeeRuleDefinition> rulesFor(Currency currency) {
+        return rulesFor(currency, BigDecimal.ZERO);
+    }
+
+    /**
+     * Son 30 günlük hacmi {@code monthlyVolume} olan gönderen için arama fonksiyonu
+     */
+    public Function<BigDecimal, FeeRuleDefinition> rulesFor(Currency currency, BigDecimal monthlyVolume) {
+        FeeRuleTable table = state.tables().get(currency);
+        return table != null ? amount -> table.find(amount, monthlyVolume) : amount -> null;
+    }
+
+    /**
+     * Para biriminde gönderen hacmine bağlı kural var mı; yoksa hacim okunmaz
+     */
+    public boolean hasVolumeTiers(Currency currency) {
+        FeeRuleTable table = state.tables().get(currency);
+        return table != null && table.hasVolumeTiers();
+    }
+
+    /**
+     * Yayındaki tabloların kural seti sürümü
+     */
+    public long version() {
+        return state.version();
+    }
+
+    /**
+     * Yayındaki kural setinin snapshot'ı
+     */
+    public FeeRuleSnapshotResponse snapshot() {
+        RuleState current = state;
+        return FeeRuleSnapshotResponse.builder()
+                .version(current.version())
+                .rules(current.rules())
+                .defaultRule(FeeRuleResponse.builder()
+                        .id(DEFAULT_RULE.id())
+                        .minAmount(DEFAULT_RULE.minAmount())
+                        .minMonthlyVolume(DEFAULT_RULE.minMonthlyVolume())
+                        .feePercentage(DEFAULT_RULE.feePercentage())
+                        .fixedFee(DEFAULT_RULE.fixedFee())
+                        .minFee(DEFAULT_RULE.minFee())
+                        .active(true)
+                        .rulePriority(DEFAULT_RULE.priority())
+                        .build())
+                .build();
+    }
+
+    /**
+     * Veritabanındaki sürüm yayındakinden yeniyse tabloyu hemen yeniler (başka bir instance'ta
+     * yapılan değişiklikler için); tek satırlık bir sorgu maliyetindedir
+     */
+    public void refreshIfBehind() {
+        long current = versionRepository.findVersion(FeeRuleSetVersion.FEE_RULES).orElse(0L);
+        if (current > state.version()) {
+            reload();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!versionRepository.existsByName(FeeRuleSetVersion.FEE_RULES)) {
+            FeeRuleSetVersion version = new FeeRuleSetVersion();
+            version.setName(FeeRuleSetVersion.FEE_RULES);
+            try {
+                versionRepository.save(version);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Fee rule set version row created by another instance");
+            }
+        }
+        reload();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRulesChanged(RulesChanged event) {
+        log.debug("Fee rule {} changed, recompiling rule tables", event.ruleId());
+        reload();
+    }
+
+    /**
+     * Tabloya doğrudan veritabanında yapılan değişiklikleri de yansıtır
+     */
+    @Scheduled(initialDelayString = "${fee.rules.reload-ms:60000}", fixedDelayString = "${fee.rules.reload-ms:60000}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Fee rule reload failed, keeping the current tables: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sürümü ve aktif kuralları okur, yeni tabloları tek atamada yayınlar. Sürüm kurallardan
+     * önce okunur: arada commit olan bir değişiklik eski sürümle yayınlanabilir (sonraki yenileme
+     * düzeltir) ama eski kurallar hiçbir zaman yeni sürümle yayınlanmaz.
+     * <p>
+     * Sürüm değişmediği halde kurallar değiştiyse (tabloya doğrudan müdahale) sürüm burada artırılır.
+     * Eşzamanlı yenilemeler sıraya alınır, böylece eski bir okuma yenisinin üzerine yazılamaz.
+     */
+    public synchronized void reload() {
+        long version = versionRepository.findVersion(FeeRuleSetVersion.FEE_RULES).orElse(0L);
+        List<FeeRule> rules = feeRuleRepository.findByActiveOrderByRulePriorityDescMinAmountAsc(true);
+        List<FeeRuleResponse> responses = rules.stream().map(feeRuleMapper::toResponse).toList();
+
+        RuleState previous = state;
+        if (previous.version() > 0 && version == previous.version() && !responses.equals(previous.rules())) {
+            if (versionRepository.incrementIfCurrent(FeeRuleSetVersion.FEE_RULES, version) == 1) {
+                log.info("Fee rules changed outside the API, rule set version bumped to {}", version + 1);
+                version++;
+            } else {
+                // Başka bir yazma ya da instance araya girdi; sürüm-kural sırasını koruyarak yeniden oku
+                version = versionRepository.findVersion(FeeRuleSetVersion.FEE_RULES).orElse(0L);
+                rules = feeRuleRepository.findByActiveOrderByRulePriorityDescMinAmountAsc(true);
+                responses = rules.stream().map(feeRuleMapper::toResponse).toList();
+            }
+        }
+
+        Map<Currency, List<FeeRuleDefinition>> byCurrency = new EnumMap<>(Currency.class);
+        for (FeeRule rule : rules) {
+            byCurrency.computeIfAbsent(rule.getCurrency(), currency -> new ArrayList<>()).add(toDefinition(rule));
+        }
+
+        Map<Currency, FeeRuleTable> compiled = new EnumMap<>(Currency.class);
+        byCurrency.forEach((currency, definitions) -> compiled.put(currency, FeeRuleTable.compile(definitions)));
+        state = new RuleState(version, Collections.unmodifiableMap(compiled), responses);
+
+        log.info("Compiled {} active fee rules for {} currencies, rule set version {}",
+                rules.size(), compiled.size(), version);
+    }
+
+    private static FeeRuleDefinition toDefinition(FeeRule rule) {
+        return FeeRuleDefinition.of(rule.getId(), rule.getMinAmount(), rule.getMaxAmount(), rule.getMinMonthlyVolume(),
+                rule.getFeePercentage(), rule.getFixedFee(), rule.getMinFee(), rule.getMaxFee(),
+                rule.getRulePriority() != null ? rule.getRulePriority() : 0);
+    }
+}
@@ -3,21 +3,31 @@ package com.toycell.servicefee.service;
 import com.toycell.commonexception.exception.BusinessException;
 import com.toycell.commonexception.enums.ErrorCode;
 import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.fee.FeeArithmetic;
+import com.toycell.commondomain.fee.FeeRuleDefinition;
+import com.toycell.servicefee.dto.FeeBatchCalculationRequest;
 import com.toycell.servicefee.dto.FeeCalculationRequest;
 import com.toycell.servicefee.dto.FeeCalculationResponse;
 import com.toycell.servicefee.dto.FeeRuleRequest;
 import com.toycell.servicefee.dto.FeeRuleResponse;
+import com.toycell.servicefee.dto.FeeRuleSnapshotResponse;
 import com.toycell.servicefee.entity.FeeRule;
+import com.toycell.servicefee.entity.FeeRuleSetVersion;
 import com.toycell.servicefee.mapper.FeeRuleMapper;
 import com.toycell.servicefee.repository.FeeRuleRepository;
+import com.toycell.servicefee.repository.FeeRuleSetVersionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -29,88 +39,116 @@ import java.util.stream.Collectors;
 public class FeeService {
 
     private final FeeRuleRepository feeRuleRepository;
+    private final FeeRuleSetVersionRepository versionRepository;
     private final FeeRuleMapper feeRuleMapper;
+    private final FeeRuleEngine feeRuleEngine;
+    private final RollingVolumeTracker volumeTracker;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Transfer ücreti hesaplar
+     * Transfer ücreti hesaplar (derlenmiş kural tablosundan, veritabanına gitmeden).
+     * {@code feeDetails} yalnızca istenirse oluşturulur. Gönderen verilmişse hacim kademeli
+     * kurallar bellekteki 30 günlük hacim sayacına göre değerlendirilir.
      */
-    @Transactional(readOnly = true)
     public FeeCalculationResponse calculateFee(FeeCalculationRequest request) {
-        log.info("Calculating fee for amount: {} {}", request.getAmount(), request.getCurrency());
+        log.debug("Calculating fee for amount: {} {}", request.getAmount(), request.getCurrency());
 
         // Geçerli kuralı bul
-        FeeRule applicableRule = feeRuleRepository
-                .findApplicableRule(request.getCurrency(), request.getAmount())
-                .orElseGet(() -> getDefaultRule(request.getCurrency()));
+        FeeRuleDefinition applicableRule = feeRuleEngine.findRule(request.getCurrency(), request.getAmount(),
+                monthlyVolume(request.getUserId(), request.getCurrency()));
+        if (applicableRule == null) {
+            applicableRule = getDefaultRule(request.getCurrency());
+        }
 
-        // Ücret hesapla
-        BigDecimal feeAmount = calculateFeeAmount(request.getAmount(), applicableRule);
-        BigDecimal totalAmount = request.getAmount().add(feeAmount);
+        FeeCalculationResponse response = quote(request.getAmount(), request.getCurrency(),
+                applicableRule, request.isIncludeDetails());
+        log.debug("Fee calculated: {} {} for amount {} {}", response.getFeeAmount(), request.getCurrency(),
+                request.getAmount(), request.getCurrency());
+        return response;
+    }
 
-        String feeDetails = String.format(
-                "Fee: %.2f%% + %.2f %s (min: %.2f, max: %s)",
-                applicableRule.getFeePercentage(),
-                applicableRule.getFixedFee(),
-                request.getCurrency(),
-                applicableRule.getMinFee(),
-                applicableRule.getMaxFee() != null ? applicableRule.getMaxFee().toString() : "unlimited"
-        );
+    /**
+     * Birden fazla tutar için ücret hesaplar; kural tablosu (ve gönderen hacmi) para birimi başına
+     * bir kez çözülür, sonuçlar istek sırasıyla döner
+     */
+    public List<FeeCalculationResponse> calculateFees(FeeBatchCalculationRequest request) {
+        Map<Currency, Function<BigDecimal, FeeRuleDefinition>> lookups = new EnumMap<>(Currency.class);
+        List<FeeCalculationResponse> responses = new ArrayList<>(request.getItems().size());
+
+        for (FeeBatchCalculationRequest.Item item : request.getItems()) {
+            FeeRuleDefinition rule = lookups
+                    .computeIfAbsent(item.getCurrency(), currency ->
+                            feeRuleEngine.rulesFor(currency, monthlyVolume(request.getUserId(), currency)))
+                    .apply(item.getAmount());
+            if (rule == null) {
+                rule = FeeRuleEngine.DEFAULT_RULE;
+            }
+            responses.add(quote(item.getAmount(), item.getCurrency(), rule, request.isIncludeDetails()));
+        }
 
-        log.info("Fee calculated: {} {} for amount {} {}", feeAmount, request.getCurrency(), 
-                request.getAmount(), request.getCurrency());
+        log.debug("Calculated {} fees in batch", responses.size());
+        return responses;
+    }
 
-        return FeeCalculationResponse.builder()
-                .originalAmount(request.getAmount())
-                .feeAmount(feeAmount)
-                .totalAmount(totalAmount)
-                .currency(request.getCurrency())
-                .feeDetails(feeDetails)
-                .feeRuleId(applicableRule.getId())
-                .build();
+    /**
+     * Aktif kural seti snapshot'ı (istemci tarafı önbellek için). Başka bir instance'ta yapılan
+     * değişiklik varsa önce yerel tablo yenilenir.
+     */
+    public FeeRuleSnapshotResponse getRuleSnapshot() {
+        feeRuleEngine.refreshIfBehind();
+        return feeRuleEngine.snapshot();
     }
 
     /**
-     * Ücret tutarını hesaplar
+     * Yayındaki kural seti sürümü
      */
-    private BigDecimal calculateFeeAmount(BigDecimal amount, FeeRule rule) {
-        // Yüzde hesaplama: amount * (feePercentage / 100)
-        BigDecimal percentageFee = amount
-                .multiply(rule.getFeePercentage())
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-
-        // Sabit ücret ekle
-        BigDecimal totalFee = percentageFee.add(rule.getFixedFee());
-
-        // Minimum ücret kontrolü
-        if (totalFee.compareTo(rule.getMinFee()) < 0) {
-            totalFee = rule.getMinFee();
-        }
+    public long getRuleSetVersion() {
+        return feeRuleEngine.version();
+    }
 
-        // Maximum ücret kontrolü
-        if (rule.getMaxFee() != null && totalFee.compareTo(rule.getMaxFee()) > 0) {
-            totalFee = rule.getMaxFee();
+    /**
+     * Gönderenin son 30 günlük hacmi; gönderen yoksa ya da para biriminde hacme bağlı kural yoksa sıfır
+     */
+    private BigDecimal monthlyVolume(Long userId, Currency currency) {
+        if (userId == null || !feeRuleEngine.hasVolumeTiers(currency)) {
+            return BigDecimal.ZERO;
         }
+        return volumeTracker.volume(userId, currency);
+    }
+
+    private FeeCalculationResponse quote(BigDecimal amount, Currency currency, FeeRuleDefinition rule, boolean includeDetails) {
+        BigDecimal feeAmount = FeeArithmetic.calculate(amount, rule);
 
-        return totalFee.setScale(2, RoundingMode.HALF_UP);
+        return FeeCalculationResponse.builder()
+                .originalAmount(amount)
+                .feeAmount(feeAmount)
+                .totalAmount(amount.add(feeAmount))
+                .currency(currency)
+                .feeDetails(includeDetails ? formatFeeDetails(rule, currency) : null)
+                .feeRuleId(rule.id())
+                .build();
+    }
+
+    /**
+     * Ücret hesaplama detayları
+     */
+    private String formatFeeDetails(FeeRuleDefinition rule, Currency currency) {
+        return String.format(
+                "Fee: %.2f%% + %.2f %s (min: %.2f, max: %s)",
+                rule.feePercentage(),
+                rule.fixedFee(),
+                currency,
+                rule.minFee(),
+                rule.maxFee() != null ? rule.maxFee().toString() : "unlimited"
+        );
     }
 
     /**
      * Varsayılan kural döner (kural yoksa)
      */
-    private FeeRule getDefaultRule(Currency currency) {
+    private FeeRuleDefinition getDefaultRule(Currency currency) {
         log.warn("No fee rule found for currency: {}, using default", currency);
-        FeeRule defaultRule = new FeeRule();
-        defaultRule.setId(0L);
-        defaultRule.setCurrency(currency);
-        defaultRule.setMinAmount(BigDecimal.ZERO);
-        defaultRule.setMaxAmount(null);
-        defaultRule.setFeePercentage(BigDecimal.valueOf(1.0)); // %1
-        defaultRule.setFixedFee(BigDecimal.valueOf(1.0)); // 1 TRY/USD/EUR
-        defaultRule.setMinFee(BigDecimal.valueOf(1.0));
-        defaultRule.setMaxFee(null);
-        defaultRule.setActive(true);
-        defaultRule.setRulePriority(0);
-        return defaultRule;
+        return FeeRuleEngine.DEFAULT_RULE;
     }
 
     /**
@@ -134,6 +172,8 @@ public class FeeService {
 
         FeeRule feeRule = feeRuleMapper.toEntity(request);
         feeRule = feeRuleRepository.save(feeRule);
+        versionRepository.increment(FeeRuleSetVersion.FEE_RULES);
+        eventPublisher.publishEvent(new FeeRuleEngine.RulesChanged(feeRule.getId()));
 
         log.info("Fee rule created with ID: {}", feeRule.getId());
         return feeRuleMapper.toResponse(feeRule);
@@ -162,6 +202,8 @@ public class FeeService {
 
         feeRuleMapper.updateEntity(feeRule, request);
         feeRule = feeRuleRepository.save(feeRule);
+        versionRepository.increment(FeeRuleSetVersion.FEE_RULES);
+        eventPublisher.publishEvent(new FeeRuleEngine.RulesChanged(id));
 
         log.info("Fee rule updated: {}", id);
         return feeRuleMapper.toResponse(feeRule);
@@ -179,6 +221,8 @@ public class FeeService {
         }
 
         feeRuleRepository.deleteById(id);
+        versionRepository.increment(FeeRuleSetVersion.FEE_RULES);
+        eventPublisher.publishEvent(new FeeRuleEngine.RulesChanged(id));
         log.info("Fee rule deleted: {}", id);
     }
 
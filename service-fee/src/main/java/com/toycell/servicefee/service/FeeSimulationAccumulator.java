@@ -0,0 +1,166 @@
+package com.toycell.servicefee.service;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.servicefee.dto.FeeSimulationResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simülasyonun birleştirilebilir ara sonucu: para birimi başına adet, hacim, iki kural setiyle
+ * ücret toplamları, ücret histogramları ve kullanıcı bazında etki. Tutarlar kuruş/cent cinsinden
+ * {@code long} tutulur.
+ * <p>
+ * Sayfa parçaları ({@link #merge}) sınırsız kullanıcı tutar; iş geneli birikim
+ * {@link #mergeInto} ile eklenir ve kullanıcı tablosu {@code maxTrackedUsers} değerinin iki katını
+ * aşınca |delta| en büyük {@code maxTrackedUsers} kullanıcıya budanır. Böylece bellek satır
+ * sayısından bağımsız kalır; budama olduysa en çok etkilenen kullanıcı listesi yaklaşıktır.
+ */
+final class FeeSimulationAccumulator {
+
+    private static final int COUNT = 0;
+    private static final int CURRENT = 1;
+    private static final int PROPOSED = 2;
+
+    private static final Comparator<Map.Entry<Long, long[]>> BY_IMPACT = Comparator
+            .comparingLong((Map.Entry<Long, long[]> entry) -> Math.abs(entry.getValue()[PROPOSED] - entry.getValue()[CURRENT]))
+            .reversed()
+            .thenComparingLong(Map.Entry::getKey);
+
+    private final int histogramBuckets;
+    private final Map<Currency, Totals> totals = new EnumMap<>(Currency.class);
+
+    FeeSimulationAccumulator(int histogramBuckets) {
+        this.histogramBuckets = histogramBuckets;
+    }
+
+    void add(Currency currency, long userId, long amountMinor, long currentFeeMinor, long proposedFeeMinor,
+             long bucketWidthMinor) {
+        Totals t = totals.computeIfAbsent(currency, c -> new Totals(histogramBuckets));
+        t.count++;
+        t.amountMinor = Math.addExact(t.amountMinor, amountMinor);
+        t.currentMinor = Math.addExact(t.currentMinor, currentFeeMinor);
+        t.proposedMinor = Math.addExact(t.proposedMinor, proposedFeeMinor);
+        if (proposedFeeMinor > currentFeeMinor) {
+            t.increased++;
+        } else if (proposedFeeMinor < currentFeeMinor) {
+            t.decreased++;
+        }
+        t.currentHistogram[bucket(currentFeeMinor, bucketWidthMinor)]++;
+        t.proposedHistogram[bucket(proposedFeeMinor, bucketWidthMinor)]++;
+
+        long[] user = t.users.computeIfAbsent(userId, id -> new long[3]);
+        user[COUNT]++;
+        user[CURRENT] += currentFeeMinor;
+        user[PROPOSED] += proposedFeeMinor;
+    }
+
+    /**
+     * Başka bir sayfa parçasını olduğu gibi ekler (fork-join birleştirmesi)
+     */
+    FeeSimulationAccumulator merge(FeeSimulationAccumulator other) {
+        other.totals.forEach((currency, source) ->
+                totals.computeIfAbsent(currency, c -> new Totals(histogramBuckets)).add(source));
+        return this;
+    }
+
+    /**
+     * Sayfa sonucunu iş geneli birikime ekler ve kullanıcı tablosunu sınır içinde tutar
+     */
+    void mergeInto(FeeSimulationAccumulator page, int maxTrackedUsers) {
+        merge(page);
+        for (Totals t : totals.values()) {
+            if (t.users.size() > 2 * maxTrackedUsers) {
+                t.prune(maxTrackedUsers);
+            }
+        }
+    }
+
+    List<FeeSimulationResponse.CurrencyReport> report(int topUsers, BigDecimal bucketWidth) {
+        List<FeeSimulationResponse.CurrencyReport> reports = new ArrayList<>(totals.size());
+        totals.forEach((currency, t) -> reports.add(FeeSimulationResponse.CurrencyReport.builder()
+                .currency(currency)
+                .transactionCount(t.count)
+                .totalAmount(BigDecimal.valueOf(t.amountMinor, 2))
+                .currentRevenue(BigDecimal.valueOf(t.currentMinor, 2))
+                .proposedRevenue(BigDecimal.valueOf(t.proposedMinor, 2))
+                .revenueDelta(BigDecimal.valueOf(t.proposedMinor - t.currentMinor, 2))
+                .feeIncreasedCount(t.increased)
+                .feeDecreasedCount(t.decreased)
+                .histogramBucketWidth(bucketWidth)
+                .currentHistogram(t.currentHistogram)
+                .proposedHistogram(t.proposedHistogram)
+                .topUsersExact(!t.pruned)
+                .topAffectedUsers(t.users.entrySet().stream()
+                        .sorted(BY_IMPACT)
+                        .limit(topUsers)
+                        .map(entry -> FeeSimulationResponse.UserImpact.builder()
+                                .userId(entry.getKey())
+                                .transactionCount(entry.getValue()[COUNT])
+                                .currentFees(BigDecimal.valueOf(entry.getValue()[CURRENT], 2))
+                                .proposedFees(BigDecimal.valueOf(entry.getValue()[PROPOSED], 2))
+                                .delta(BigDecimal.valueOf(entry.getValue()[PROPOSED] - entry.getValue()[CURRENT], 2))
+                                .build())
+                        .toList())
+                .build()));
+        return reports;
+    }
+
+    // Ücretler negatif olamaz; son dilim taşan ücretleri toplar
+    private int bucket(long feeMinor, long bucketWidthMinor) {
+        return (int) Math.min(feeMinor / bucketWidthMinor, histogramBuckets - 1);
+    }
+
+    private static final class Totals {
+        private long count;
+        private long amountMinor;
+        private long currentMinor;
+        private long proposedMinor;
+        private long increased;
+        private long decreased;
+        private final long[] currentHistogram;
+        private final long[] proposedHistogram;
+        private Map<Long, long[]> users = new HashMap<>();
+        private boolean pruned;
+
+        private Totals(int histogramBuckets) {
+            this.currentHistogram = new long[histogramBuckets];
+            this.proposedHistogram = new long[histogramBuckets];
+        }
+
+        private void add(Totals other) {
+            count += other.count;
+            amountMinor = Math.addExact(amountMinor, other.amountMinor);
+            currentMinor = Math.addExact(currentMinor, other.currentMinor);
+            proposedMinor = Math.addExact(proposedMinor, other.proposedMinor);
+            increased += other.increased;
+            decreased += other.decreased;
+            for (int i = 0; i < currentHistogram.length; i++) {
+                currentHistogram[i] += other.currentHistogram[i];
+                proposedHistogram[i] += other.proposedHistogram[i];
+            }
+            other.users.forEach((userId, source) -> {
+                long[] target = users.computeIfAbsent(userId, id -> new long[3]);
+                target[COUNT] += source[COUNT];
+                target[CURRENT] += source[CURRENT];
+                target[PROPOSED] += source[PROPOSED];
+            });
+            pruned |= other.pruned;
+        }
+
+        private void prune(int keep) {
+            Map<Long, long[]> kept = new HashMap<>(keep * 2);
+            users.entrySet().stream()
+                    .sorted(BY_IMPACT)
+                    .limit(keep)
+                    .forEach(entry -> kept.put(entry.getKey(), entry.getValue()));
+            users = kept;
+            pruned = true;
+        }
+    }
+}
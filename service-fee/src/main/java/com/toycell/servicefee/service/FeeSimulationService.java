@@ -0,0 +1,327 @@
+package com.toycell.servicefee.service;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.commondomain.fee.FeeArithmetic;
+import com.toycell.commondomain.fee.FeeRuleDefinition;
+import com.toycell.commondomain.fee.FeeRuleTable;
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicefee.client.TransactionExportClient;
+import com.toycell.servicefee.dto.FeeRuleRequest;
+import com.toycell.servicefee.dto.FeeSimulationRequest;
+import com.toycell.servicefee.dto.FeeSimulationResponse;
+import com.toycell.servicefee.dto.client.TransactionExportPage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Ücret "what-if" simülasyonu: önerilen bir kural setinin geçmiş transferlerde ne kadar gelir
+ * getireceğini ve kullanıcıları nasıl etkileyeceğini yayındaki kural setiyle yan yana hesaplar.
+ * <p>
+ * Transferler service-transaction'dan (createdAt, id) konumuyla sayfa sayfa okunur. Ücreti ödeyen
+ * gönderendir ama TRANSFER_OUT tutarı ücreti de içerir; bu yüzden ana para TRANSFER_IN kayıtlarından,
+ * gönderen {@code relatedUserId} alanından alınır. Her sayfa bir {@link ForkJoinPool} üzerinde
+ * parçalara bölünerek değerlendirilir, bu sırada sonraki sayfa çekilir; bellekte en fazla iki sayfa
+ * ve sınırlı bir kullanıcı tablosu ({@link FeeSimulationAccumulator}) bulunur.
+ * <p>
+ * Geçmişteki gönderen hacmi yeniden kurulmadığından hacim kademeli kurallar her iki tarafta da
+ * hacim sıfırmış gibi değerlendirilir.
+ */
+@Slf4j
+@Service
+public class FeeSimulationService {
+
+    /**
+     * Bu sayıdan küçük satır aralıkları tek görevde değerlendirilir
+     */
+    private static final int SPLIT_THRESHOLD = 1024;
+
+    private final FeeRuleEngine feeRuleEngine;
+    private final TransactionExportClient transactionExportClient;
+    private final int pageSize;
+    private final int maxTrackedUsers;
+    private final int retainedJobs;
+    private final ForkJoinPool evaluationPool;
+    private final ExecutorService jobExecutor;
+    private final Map<String, SimulationJob> jobs = new ConcurrentHashMap<>();
+
+    public FeeSimulationService(FeeRuleEngine feeRuleEngine,
+                                TransactionExportClient transactionExportClient,
+                                @Value("${fee.simulation.page-size:5000}") int pageSize,
+                                @Value("${fee.simulation.parallelism:0}") int parallelism,
+                                @Value("${fee.simulation.max-concurrent:1}") int maxConcurrent,
+                                @Value("${fee.simulation.max-tracked-users:100000}") int maxTrackedUsers,
+                                @Value("${fee.simulation.retained-jobs:20}") int retainedJobs) {
+        this.feeRuleEngine = feeRuleEngine;
+        this.transactionExportClient = transactionExportClient;
+        this.pageSize = pageSize;
+        this.maxTrackedUsers = maxTrackedUsers;
+        this.retainedJobs = retainedJobs;
+        this.evaluationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        // Kuyruk yok: tüm iş parçacıkları doluysa yeni simülasyon reddedilir
+        this.jobExecutor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "fee-simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Simülasyonu arka planda başlatır; sonuç {@link #getSimulation} ile izlenir
+     */
+    public FeeSimulationResponse startSimulation(FeeSimulationRequest request) {
+        if (!request.getFrom().isBefore(request.getTo())) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "from must be before to");
+        }
+
+        // Yayındaki tablolar iş başında bir kez çözülür; simülasyon boyunca kural değişse de sabit kalır
+        long currentVersion = feeRuleEngine.version();
+        Map<Currency, Function<BigDecimal, FeeRuleDefinition>> currentRules = new EnumMap<>(Currency.class);
+        for (Currency currency : Currency.values()) {
+            currentRules.put(currency, feeRuleEngine.rulesFor(currency));
+        }
+        Map<Currency, FeeRuleTable> proposedRules = compile(request.getProposedRules());
+
+        SimulationJob job = new SimulationJob(UUID.randomUUID().toString(), request, currentVersion,
+                currentRules, proposedRules);
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Another fee simulation is already running");
+        }
+
+        log.info("Fee simulation {} started for {} - {}, current rule set version {}",
+                job.id, request.getFrom(), request.getTo(), currentVersion);
+        return job.toResponse();
+    }
+
+    public FeeSimulationResponse getSimulation(String id) {
+        SimulationJob job = jobs.get(id);
+        if (job == null) {
+            throw new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "Fee simulation not found: " + id);
+        }
+        return job.toResponse();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        evaluationPool.shutdownNow();
+    }
+
+    private void run(SimulationJob job) {
+        FeeSimulationRequest request = job.request;
+        long bucketWidthMinor = request.getHistogramBucketWidth().movePointRight(2).longValueExact();
+        FeeSimulationAccumulator totals = new FeeSimulationAccumulator(request.getHistogramBuckets());
+
+        try {
+            LocalDateTime from = request.getFrom();
+            long afterId = 0L;
+            ForkJoinTask<FeeSimulationAccumulator> inFlight = null;
+
+            while (true) {
+                TransactionExportPage page = transactionExportClient.fetchPage(TransactionType.TRANSFER_IN,
+                        request.getCurrency(), from, request.getTo(), afterId, pageSize);
+
+                // Önceki sayfa bu sayfa çekilirken değerlendirildi
+                if (inFlight != null) {
+                    totals.mergeInto(inFlight.join(), maxTrackedUsers);
+                    inFlight = null;
+                }
+
+                List<TransactionExportPage.Row> rows = page.getRows();
+                if (rows != null && !rows.isEmpty()) {
+                    inFlight = evaluationPool.submit(new PageTask(job, rows, 0, rows.size(), bucketWidthMinor));
+                    job.processed.addAndGet(rows.size());
+                }
+
+                if (page.getNextAfterId() == null) {
+                    break;
+                }
+                from = page.getNextFrom();
+                afterId = page.getNextAfterId();
+            }
+
+            if (inFlight != null) {
+                totals.mergeInto(inFlight.join(), maxTrackedUsers);
+            }
+
+            job.complete(totals.report(request.getTopUsers(), request.getHistogramBucketWidth()));
+            log.info("Fee simulation {} completed, {} transactions", job.id, job.processed.get());
+        } catch (RuntimeException e) {
+            job.fail(e);
+            log.warn("Fee simulation {} failed after {} transactions: {}", job.id, job.processed.get(), e.getMessage());
+        } finally {
+            evictFinishedJobs();
+        }
+    }
+
+    /**
+     * Önerilen kuralları para birimi başına derler; pasif kurallar atlanır
+     */
+    private static Map<Currency, FeeRuleTable> compile(List<FeeRuleRequest> rules) {
+        Map<Currency, List<FeeRuleDefinition>> byCurrency = new EnumMap<>(Currency.class);
+        long id = 1L;
+        for (FeeRuleRequest rule : rules) {
+            if (Boolean.FALSE.equals(rule.getActive())) {
+                continue;
+            }
+            if (rule.getMaxAmount() != null && rule.getMinAmount().compareTo(rule.getMaxAmount()) > 0) {
+                throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                        "Minimum amount cannot be greater than maximum amount");
+            }
+            byCurrency.computeIfAbsent(rule.getCurrency(), currency -> new ArrayList<>())
+                    .add(FeeRuleDefinition.of(id++, rule.getMinAmount(), rule.getMaxAmount(), rule.getMinMonthlyVolume(),
+                            rule.getFeePercentage(), rule.getFixedFee(), rule.getMinFee(), rule.getMaxFee(),
+                            rule.getRulePriority() != null ? rule.getRulePriority() : 0));
+        }
+
+        Map<Currency, FeeRuleTable> tables = new EnumMap<>(Currency.class);
+        byCurrency.forEach((currency, definitions) -> tables.put(currency, FeeRuleTable.compile(definitions)));
+        return tables;
+    }
+
+    private void evictFinishedJobs() {
+        List<SimulationJob> finished = jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((SimulationJob job) -> job.finishedAt).reversed())
+                .toList();
+        for (int i = retainedJobs; i < finished.size(); i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    /**
+     * Bir sayfanın [from, to) satırlarını değerlendirir; aralık büyükse ikiye bölünür
+     */
+    private static final class PageTask extends RecursiveTask<FeeSimulationAccumulator> {
+
+        private final SimulationJob job;
+        private final List<TransactionExportPage.Row> rows;
+        private final int from;
+        private final int to;
+        private final long bucketWidthMinor;
+
+        private PageTask(SimulationJob job, List<TransactionExportPage.Row> rows, int from, int to,
+                         long bucketWidthMinor) {
+            this.job = job;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.bucketWidthMinor = bucketWidthMinor;
+        }
+
+        @Override
+        protected FeeSimulationAccumulator compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                PageTask left = new PageTask(job, rows, from, middle, bucketWidthMinor);
+                left.fork();
+                FeeSimulationAccumulator right = new PageTask(job, rows, middle, to, bucketWidthMinor).compute();
+                return left.join().merge(right);
+            }
+
+            FeeSimulationAccumulator result = new FeeSimulationAccumulator(job.request.getHistogramBuckets());
+            for (int i = from; i < to; i++) {
+                TransactionExportPage.Row row = rows.get(i);
+                BigDecimal amount = row.getAmount();
+
+                FeeRuleDefinition current = job.currentRules.get(row.getCurrency()).apply(amount);
+                FeeRuleTable proposedTable = job.proposedRules.get(row.getCurrency());
+                FeeRuleDefinition proposed = proposedTable != null ? proposedTable.find(amount) : null;
+
+                long payer = row.getRelatedUserId() != null ? row.getRelatedUserId() : row.getUserId();
+                result.add(row.getCurrency(), payer, amount.movePointRight(2).longValueExact(),
+                        feeMinor(amount, current), feeMinor(amount, proposed), bucketWidthMinor);
+            }
+            return result;
+        }
+
+        // Uyan kural yoksa canlı hesaplamadaki gibi varsayılan kural uygulanır
+        private static long feeMinor(BigDecimal amount, FeeRuleDefinition rule) {
+            return FeeArithmetic.calculate(amount, rule != null ? rule : FeeRuleEngine.DEFAULT_RULE)
+                    .unscaledValue().longValueExact();
+        }
+    }
+
+    private static final class SimulationJob {
+
+        private final String id;
+        private final FeeSimulationRequest request;
+        private final long currentVersion;
+        private final Map<Currency, Function<BigDecimal, FeeRuleDefinition>> currentRules;
+        private final Map<Currency, FeeRuleTable> proposedRules;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong processed = new AtomicLong();
+
+        private volatile FeeSimulationResponse.Status status = FeeSimulationResponse.Status.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile List<FeeSimulationResponse.CurrencyReport> currencies;
+
+        private SimulationJob(String id, FeeSimulationRequest request, long currentVersion,
+                              Map<Currency, Function<BigDecimal, FeeRuleDefinition>> currentRules,
+                              Map<Currency, FeeRuleTable> proposedRules) {
+            this.id = id;
+            this.request = request;
+            this.currentVersion = currentVersion;
+            this.currentRules = currentRules;
+            this.proposedRules = proposedRules;
+        }
+
+        private void complete(List<FeeSimulationResponse.CurrencyReport> reports) {
+            currencies = reports;
+            status = FeeSimulationResponse.Status.COMPLETED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        private void fail(RuntimeException e) {
+            error = e instanceof BusinessException business && business.getDetails() != null
+                    ? business.getErrorCode().getMessage() + ": " + business.getDetails()
+                    : e.getClass().getSimpleName() + ": " + e.getMessage();
+            status = FeeSimulationResponse.Status.FAILED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        private FeeSimulationResponse toResponse() {
+            return FeeSimulationResponse.builder()
+                    .id(id)
+                    .status(status)
+                    .from(request.getFrom())
+                    .to(request.getTo())
+                    .currentRuleSetVersion(currentVersion)
+                    .processedTransactions(processed.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .currencies(currencies)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.toycell.servicefee.service;
+
+import com.toycell.servicefee.entity.FeeVolumeBucket;
+import com.toycell.servicefee.entity.FeeVolumeCheckpoint;
+import com.toycell.servicefee.repository.FeeVolumeBucketRepository;
+import com.toycell.servicefee.repository.FeeVolumeCheckpointRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link RollingVolumeTracker} checkpoint'ini veritabanına yazar ve açılışta geri yükler.
+ * <p>
+ * Gün toplamları yalnızca büyür ve konum yalnızca ileri gider; bu yüzden aynı tabloya birden
+ * fazla instance checkpoint yazabilir, geride kalan instance ilerideki bir durumu geri almaz.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeeVolumeCheckpointStore {
+
+    // Oracle IN listesi en fazla 1000 eleman alır
+    private static final int IN_LIST_LIMIT = 1000;
+
+    private final FeeVolumeBucketRepository bucketRepository;
+    private final FeeVolumeCheckpointRepository checkpointRepository;
+    private final EntityManager entityManager;
+
+    /**
+     * İşlem akışında (createdAt, id) konumu
+     */
+    public record Position(LocalDateTime createdAt, long transactionId) {
+    }
+
+    /**
+     * Konumu ve {@code sinceEpochDay} sonrasındaki gün toplamlarını aynı okuma anından yükler
+     */
+    @Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+    public Optional<Position> restore(RollingVolumeTracker tracker, long sinceEpochDay) {
+        Optional<Position> position = checkpointRepository.findByName(FeeVolumeCheckpoint.TRANSFER_VOLUME)
+                .map(checkpoint -> new Position(checkpoint.getLastCreatedAt(), checkpoint.getLastTransactionId()));
+        if (position.isEmpty()) {
+            return position;
+        }
+
+        long restored = 0;
+        try (Stream<FeeVolumeBucketRepository.DayVolumeView> buckets =
+                     bucketRepository.streamByEpochDayGreaterThanEqual(sinceEpochDay)) {
+            Iterator<FeeVolumeBucketRepository.DayVolumeView> iterator = buckets.iterator();
+            while (iterator.hasNext()) {
+                FeeVolumeBucketRepository.DayVolumeView bucket = iterator.next();
+                tracker.restore(bucket.getUserId(), bucket.getCurrency(), bucket.getEpochDay(),
+                        bucket.getAmount().movePointRight(2).longValueExact());
+                restored++;
+            }
+        }
+        log.info("Restored {} volume day buckets, feed position {}", restored, position.get());
+        return position;
+    }
+
+    /**
+     * Değişen gün toplamlarını ve konumu tek transaction'da yazar, pencereden çıkan günleri siler
+     */
+    @Transactional
+    public void save(List<RollingVolumeTracker.DayVolume> volumes, Position position, long expiredBeforeEpochDay) {
+        Map<Long, List<RollingVolumeTracker.DayVolume>> byUser = volumes.stream()
+                .collect(Collectors.groupingBy(RollingVolumeTracker.DayVolume::userId, LinkedHashMap::new,
+                        Collectors.toList()));
+        List<Long> userIds = new ArrayList<>(byUser.keySet());
+
+        for (int start = 0; start < userIds.size(); start += IN_LIST_LIMIT) {
+            List<Long> chunk = userIds.subList(start, Math.min(start + IN_LIST_LIMIT, userIds.size()));
+            Set<Long> days = chunk.stream()
+                    .flatMap(userId -> byUser.get(userId).stream())
+                    .map(RollingVolumeTracker.DayVolume::epochDay)
+                    .collect(Collectors.toSet());
+
+            Map<String, FeeVolumeBucket> existing = new HashMap<>();
+            for (FeeVolumeBucket bucket : bucketRepository.findByUserIdInAndEpochDayIn(chunk, days)) {
+                existing.put(key(bucket.getUserId(), bucket.getCurrency().name(), bucket.getEpochDay()), bucket);
+            }
+
+            for (Long userId : chunk) {
+                for (RollingVolumeTracker.DayVolume volume : byUser.get(userId)) {
+                    BigDecimal amount = BigDecimal.valueOf(volume.amountMinor(), 2);
+                    FeeVolumeBucket bucket = existing.get(key(userId, volume.currency().name(), volume.epochDay()));
+                    if (bucket == null) {
+                        entityManager.persist(new FeeVolumeBucket(userId, volume.currency(), volume.epochDay(), amount));
+                    } else if (bucket.getAmount().compareTo(amount) < 0) {
+                        bucket.setAmount(amount);
+                    }
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        if (checkpointRepository.advance(FeeVolumeCheckpoint.TRANSFER_VOLUME,
+                position.createdAt(), position.transactionId()) == 0
+                && checkpointRepository.findByName(FeeVolumeCheckpoint.TRANSFER_VOLUME).isEmpty()) {
+            entityManager.persist(new FeeVolumeCheckpoint(FeeVolumeCheckpoint.TRANSFER_VOLUME,
+                    position.createdAt(), position.transactionId()));
+        }
+
+        int expired = bucketRepository.deleteOlderThan(expiredBeforeEpochDay);
+        log.debug("Volume checkpoint: {} day buckets written, {} expired removed, position {}",
+                volumes.size(), expired, position);
+    }
+
+    private static String key(Long userId, String currency, Long epochDay) {
+        return userId + "|" + currency + "|" + epochDay;
+    }
+}
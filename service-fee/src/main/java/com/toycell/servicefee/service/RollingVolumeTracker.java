@@ -0,0 +1,209 @@
+package com.toycell.servicefee.service;
+
+import com.toycell.commondomain.enums.Currency;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gönderen başına son {@value #WINDOW_DAYS} günün transfer hacmini bellekte tutar; ücret
+ * hesaplaması {@code transactions} üzerinde SUM çalıştırmadan hacmi okur.
+ * <p>
+ * Her (kullanıcı, para birimi) için gün dilimli bir halka tutulur: dilim {@code epochDay % 30},
+ * dilimin hangi güne ait olduğu ayrıca saklanır ve pencereden çıkan gün yeni gün gelince sıfırlanır.
+ * Halkalar kullanıcı id'sine göre kilitli dilimlere (stripe) dağıtılır; okuma ve yazma yalnızca
+ * kendi dilimini kilitler. Değişen günler checkpoint için kirli işaretlenir.
+ */
+@Component
+public class RollingVolumeTracker {
+
+    public static final int WINDOW_DAYS = 30;
+
+    private final Map<Currency, Stripe[]> stripes = new EnumMap<>(Currency.class);
+    private final int stripeMask;
+
+    /**
+     * Checkpoint'e yazılacak bir gün dilimi; {@code amountMinor} o günün mutlak toplamıdır
+     */
+    public record DayVolume(long userId, Currency currency, long epochDay, long amountMinor) {
+    }
+
+    public RollingVolumeTracker(@Value("${fee.volume.stripes:64}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripeMask = size - 1;
+        for (Currency currency : Currency.values()) {
+            Stripe[] currencyStripes = new Stripe[size];
+            for (int i = 0; i < size; i++) {
+                currencyStripes[i] = new Stripe();
+            }
+            stripes.put(currency, currencyStripes);
+        }
+    }
+
+    /**
+     * Gönderenin bugün dahil son {@value #WINDOW_DAYS} gündeki hacmi
+     */
+    public BigDecimal volume(long userId, Currency currency) {
+        long today = LocalDate.now().toEpochDay();
+        Stripe stripe = stripe(userId, currency);
+        synchronized (stripe) {
+            DayRing ring = stripe.rings.get(userId);
+            return BigDecimal.valueOf(ring != null ? ring.sum(today) : 0L, 2);
+        }
+    }
+
+    /**
+     * Bir transferi hacme ekler; pencere dışında kalan günler yok sayılır
+     */
+    public void record(long userId, Currency currency, long epochDay, long amountMinor) {
+        long today = LocalDate.now().toEpochDay();
+        if (epochDay <= today - WINDOW_DAYS) {
+            return;
+        }
+        Stripe stripe = stripe(userId, currency);
+        synchronized (stripe) {
+            DayRing ring = stripe.rings.computeIfAbsent(userId, id -> new DayRing());
+            if (ring.add(epochDay, amountMinor)) {
+                stripe.dirty.merge(userId, 1 << slot(epochDay), (a, b) -> a | b);
+            }
+        }
+    }
+
+    /**
+     * Checkpoint'ten okunan gün toplamını olduğu gibi yükler (kirli işaretlenmez)
+     */
+    public void restore(long userId, Currency currency, long epochDay, long amountMinor) {
+        long today = LocalDate.now().toEpochDay();
+        if (epochDay <= today - WINDOW_DAYS) {
+            return;
+        }
+        Stripe stripe = stripe(userId, currency);
+        synchronized (stripe) {
+            stripe.rings.computeIfAbsent(userId, id -> new DayRing()).set(epochDay, amountMinor);
+        }
+    }
+
+    /**
+     * Son çağrıdan beri değişen gün dilimlerini güncel toplamlarıyla döner ve kirli işaretlerini siler
+     */
+    public List<DayVolume> drainDirty() {
+        List<DayVolume> changed = new ArrayList<>();
+        stripes.forEach((currency, currencyStripes) -> {
+            for (Stripe stripe : currencyStripes) {
+                synchronized (stripe) {
+                    stripe.dirty.forEach((userId, slots) -> {
+                        DayRing ring = stripe.rings.get(userId);
+                        for (int slot = 0; slot < WINDOW_DAYS; slot++) {
+                            if (ring != null && (slots & (1 << slot)) != 0) {
+                                changed.add(new DayVolume(userId, currency, ring.days[slot], ring.amounts[slot]));
+                            }
+                        }
+                    });
+                    stripe.dirty.clear();
+                }
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Yazılamayan gün dilimlerini bir sonraki checkpoint için yeniden kirli işaretler
+     */
+    public void markDirty(List<DayVolume> volumes) {
+        for (DayVolume volume : volumes) {
+            Stripe stripe = stripe(volume.userId(), volume.currency());
+            synchronized (stripe) {
+                stripe.dirty.merge(volume.userId(), 1 << slot(volume.epochDay()), (a, b) -> a | b);
+            }
+        }
+    }
+
+    /**
+     * Penceresi tamamen dolmuş (hacmi sıfır) halkaları bellekten atar; kirli halkalar korunur
+     */
+    public int evictExpired() {
+        long today = LocalDate.now().toEpochDay();
+        int evicted = 0;
+        for (Stripe[] currencyStripes : stripes.values()) {
+            for (Stripe stripe : currencyStripes) {
+                synchronized (stripe) {
+                    Iterator<Map.Entry<Long, DayRing>> iterator = stripe.rings.entrySet().iterator();
+                    while (iterator.hasNext()) {
+                        Map.Entry<Long, DayRing> entry = iterator.next();
+                        if (entry.getValue().sum(today) == 0L && !stripe.dirty.containsKey(entry.getKey())) {
+                            iterator.remove();
+                            evicted++;
+                        }
+                    }
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private Stripe stripe(long userId, Currency currency) {
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return stripes.get(currency)[(int) (hash >>> 32) & stripeMask];
+    }
+
+    private static int slot(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) WINDOW_DAYS);
+    }
+
+    private static final class Stripe {
+        private final Map<Long, DayRing> rings = new HashMap<>();
+        private final Map<Long, Integer> dirty = new HashMap<>(); // userId -> kirli dilim bitleri
+    }
+
+    private static final class DayRing {
+        private final long[] days = new long[WINDOW_DAYS];
+        private final long[] amounts = new long[WINDOW_DAYS];
+
+        private DayRing() {
+            Arrays.fill(days, Long.MIN_VALUE);
+        }
+
+        /**
+         * Dilim daha yeni bir güne aitse eski transfer yok sayılır; değişiklik olduysa true
+         */
+        private boolean add(long epochDay, long amountMinor) {
+            int slot = slot(epochDay);
+            if (days[slot] > epochDay) {
+                return false;
+            }
+            if (days[slot] < epochDay) {
+                days[slot] = epochDay;
+                amounts[slot] = 0L;
+            }
+            amounts[slot] += amountMinor;
+            return true;
+        }
+
+        private void set(long epochDay, long amountMinor) {
+            int slot = slot(epochDay);
+            if (days[slot] <= epochDay) {
+                days[slot] = epochDay;
+                amounts[slot] = amountMinor;
+            }
+        }
+
+        private long sum(long today) {
+            long total = 0L;
+            for (int slot = 0; slot < WINDOW_DAYS; slot++) {
+                if (days[slot] > today - WINDOW_DAYS && days[slot] <= today) {
+                    total += amounts[slot];
+                }
+            }
+            return total;
+        }
+    }
+}
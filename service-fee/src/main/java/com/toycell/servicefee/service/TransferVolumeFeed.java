@@ -0,0 +1,145 @@
+package com.toycell.servicefee.service;
+
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.servicefee.client.TransactionExportClient;
+import com.toycell.servicefee.dto.client.TransactionExportPage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transfer olaylarını {@link RollingVolumeTracker}'a besler. Olay kaynağı service-transaction'daki
+ * işlem kaydıdır: TRANSFER_IN kayıtları (ana para, gönderen {@code relatedUserId}) (createdAt, id)
+ * konumuyla {@code poll-ms} aralıklarla okunur. Commit'i geciken kayıtları kaçırmamak için son
+ * {@code settle-seconds} saniye okunmaz.
+ * <p>
+ * Sayaçlar ve konum {@code checkpoint-ms} aralıklarla {@link FeeVolumeCheckpointStore} ile birlikte
+ * yazılır. Açılışta checkpoint yüklenir ve akış checkpoint konumundan yeniden oynatılır; checkpoint
+ * yoksa pencerenin başından okunur. Yeniden oynatma bitene kadar hacimler eksik görünebilir.
+ */
+@Slf4j
+@Component
+public class TransferVolumeFeed {
+
+    private final RollingVolumeTracker tracker;
+    private final FeeVolumeCheckpointStore checkpointStore;
+    private final TransactionExportClient transactionExportClient;
+    private final boolean enabled;
+    private final int pageSize;
+    private final long settleSeconds;
+    private final long checkpointIntervalMs;
+
+    // Yalnızca zamanlayıcı iş parçacığında değişir; metotlar senkronize
+    private FeeVolumeCheckpointStore.Position position;
+    private long lastCheckpointAt = System.currentTimeMillis();
+    private long lastEvictionDay;
+    private volatile boolean caughtUp;
+
+    public TransferVolumeFeed(RollingVolumeTracker tracker,
+                              FeeVolumeCheckpointStore checkpointStore,
+                              TransactionExportClient transactionExportClient,
+                              @Value("${fee.volume.enabled:true}") boolean enabled,
+                              @Value("${fee.volume.page-size:5000}") int pageSize,
+                              @Value("${fee.volume.settle-seconds:10}") long settleSeconds,
+                              @Value("${fee.volume.checkpoint-ms:60000}") long checkpointIntervalMs) {
+        this.tracker = tracker;
+        this.checkpointStore = checkpointStore;
+        this.transactionExportClient = transactionExportClient;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.settleSeconds = settleSeconds;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+    }
+
+    /**
+     * Akış checkpoint konumundan gerçek zamana yetişti mi
+     */
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    @Scheduled(fixedDelayString = "${fee.volume.poll-ms:5000}")
+    public synchronized void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime windowStart = LocalDate.now().minusDays(RollingVolumeTracker.WINDOW_DAYS - 1L).atStartOfDay();
+            if (position == null) {
+                position = checkpointStore.restore(tracker, windowStart.toLocalDate().toEpochDay())
+                        .orElseGet(() -> new FeeVolumeCheckpointStore.Position(windowStart, 0L));
+            }
+            // Pencereden çıkmış transferleri okumaya gerek yok
+            if (position.createdAt().isBefore(windowStart)) {
+                position = new FeeVolumeCheckpointStore.Position(windowStart, 0L);
+            }
+
+            LocalDateTime to = LocalDateTime.now().minusSeconds(settleSeconds);
+            boolean more = true;
+            while (more && position.createdAt().isBefore(to)) {
+                TransactionExportPage page = transactionExportClient.fetchPage(TransactionType.TRANSFER_IN, null,
+                        position.createdAt(), to, position.transactionId(), pageSize);
+
+                List<TransactionExportPage.Row> rows = page.getRows() != null ? page.getRows() : List.of();
+                for (TransactionExportPage.Row row : rows) {
+                    long payer = row.getRelatedUserId() != null ? row.getRelatedUserId() : row.getUserId();
+                    tracker.record(payer, row.getCurrency(), row.getCreatedAt().toLocalDate().toEpochDay(),
+                            row.getAmount().movePointRight(2).longValueExact());
+                }
+                if (!rows.isEmpty()) {
+                    TransactionExportPage.Row last = rows.get(rows.size() - 1);
+                    position = new FeeVolumeCheckpointStore.Position(last.getCreatedAt(), last.getId());
+                }
+                more = page.getNextAfterId() != null;
+
+                // Uzun yeniden oynatmalarda da checkpoint alınır
+                if (System.currentTimeMillis() - lastCheckpointAt >= checkpointIntervalMs) {
+                    checkpoint();
+                }
+            }
+
+            if (!caughtUp) {
+                caughtUp = true;
+                log.info("Transfer volume feed caught up at {}", position);
+            }
+            if (System.currentTimeMillis() - lastCheckpointAt >= checkpointIntervalMs) {
+                checkpoint();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Transfer volume feed poll failed at {}: {}", position, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (enabled && position != null) {
+            checkpoint();
+        }
+    }
+
+    private void checkpoint() {
+        long today = LocalDate.now().toEpochDay();
+        List<RollingVolumeTracker.DayVolume> dirty = tracker.drainDirty();
+        try {
+            checkpointStore.save(dirty, position, today - RollingVolumeTracker.WINDOW_DAYS + 1);
+        } catch (RuntimeException e) {
+            tracker.markDirty(dirty);
+            log.warn("Volume checkpoint failed, {} day buckets kept for the next attempt: {}", dirty.size(), e.getMessage());
+            return;
+        } finally {
+            lastCheckpointAt = System.currentTimeMillis();
+        }
+
+        if (lastEvictionDay != today) {
+            int evicted = tracker.evictExpired();
+            lastEvictionDay = today;
+            log.debug("Evicted {} idle volume counters", evicted);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.toycell.servicetransaction.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -32,6 +33,10 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/transactions/health", "/actuator/**").permitAll()
+                        // Dışa aktarım ve istatistik bakımı tüm kullanıcıların verisine dokunur; yalnızca servisler çağırır
+                        .requestMatchers("/api/transactions/internal/**").hasRole("SERVICE")
+                        // Toplu kayıt service-transfer'ın arka plan kuyruğundan gelir; imzalı servis kimliği gerekir
+                        .requestMatchers(HttpMethod.POST, "/api/transactions/batch").hasRole("SERVICE")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
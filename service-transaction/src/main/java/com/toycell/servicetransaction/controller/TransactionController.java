@@ -3,16 +3,25 @@ package com.toycell.servicetransaction.controller;
 import com.toycell.commondomain.enums.Currency;
 import com.toycell.commondomain.enums.TransactionType;
 import com.toycell.commondomain.response.ApiResponse;
+import com.toycell.commondomain.response.CursorPageResponse;
+import com.toycell.servicetransaction.dto.TransactionBatchRequest;
+import com.toycell.servicetransaction.dto.TransactionExportPage;
+import com.toycell.servicetransaction.dto.TransactionHistogramResponse;
 import com.toycell.servicetransaction.dto.TransactionRequest;
 import com.toycell.servicetransaction.dto.TransactionResponse;
+import com.toycell.servicetransaction.dto.TransactionSearchRequest;
 import com.toycell.servicetransaction.dto.TransactionStatisticsResponse;
+import com.toycell.servicetransaction.dto.UserStatsJobResponse;
+import com.toycell.servicetransaction.entity.TransactionRollup;
 import com.toycell.servicetransaction.service.TransactionService;
+import com.toycell.servicetransaction.service.UserStatsMaintenanceService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,6 +34,7 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final UserStatsMaintenanceService userStatsMaintenanceService;
 
     /**
      * Yeni bir transaction kaydı oluşturur
@@ -36,6 +46,16 @@ public class TransactionController {
         return ResponseEntity.ok(ApiResponse.success("Transaction created successfully", response));
     }
 
+    /**
+     * Birden fazla transaction kaydını tek istekte oluşturur
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<TransactionResponse>>> createTransactions(
+            @Valid @RequestBody TransactionBatchRequest request) {
+        List<TransactionResponse> response = transactionService.createTransactions(request.getTransactions());
+        return ResponseEntity.ok(ApiResponse.success("Transactions created successfully", response));
+    }
+
     /**
      * Transaction ID'ye göre işlemi getirir
      */
@@ -73,6 +93,48 @@ public class TransactionController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * Kullanıcının işlemlerini cursor ile getirir; toplam sayı dönmez, sonraki sayfa nextCursor ile istenir
+     */
+    @GetMapping("/user/{userId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> getUserTransactionsCursor(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<TransactionResponse> response = transactionService.getUserTransactionsCursor(
+                userId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * Kullanıcının belirli bir cüzdanındaki işlemlerini cursor ile getirir
+     */
+    @GetMapping("/user/{userId}/wallet/{walletId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> getWalletTransactionsCursor(
+            @PathVariable Long userId,
+            @PathVariable Long walletId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<TransactionResponse> response = transactionService.getWalletTransactionsCursor(
+                userId, walletId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * Kullanıcının işlemlerini cüzdan, tür kümesi, para birimi, tutar/tarih aralığı ve karşı
+     * kullanıcı süzgeçlerinin herhangi bir kombinasyonuyla arar (cursor ile sayfalı)
+     */
+    @GetMapping("/user/{userId}/search")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransactionResponse>>> searchTransactions(
+            @PathVariable Long userId,
+            @ModelAttribute TransactionSearchRequest filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<TransactionResponse> response = transactionService.searchTransactions(
+                userId, filter, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     /**
      * Kullanıcının belirli türdeki işlemlerini getirir
      */
@@ -152,6 +214,72 @@ public class TransactionController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * Kullanıcının işlem zaman serisini saatlik ya da günlük dilimlerle getirir
+     */
+    @GetMapping("/user/{userId}/statistics/histogram")
+    public ResponseEntity<ApiResponse<TransactionHistogramResponse>> getUserHistogram(
+            @PathVariable Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "DAY") TransactionRollup.Granularity granularity,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) Currency currency) {
+        TransactionHistogramResponse response = transactionService.getUserHistogram(
+                userId, granularity, startDate, endDate, type, currency);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * İşlemleri (createdAt, id) sırasıyla sayfa sayfa dışa aktarır (servisler arası).
+     * Sonraki sayfa yanıttaki nextFrom/nextAfterId ile istenir.
+     */
+    @GetMapping("/internal/export")
+    public ResponseEntity<ApiResponse<TransactionExportPage>> exportTransactions(
+            @RequestParam TransactionType type,
+            @RequestParam(required = false) Currency currency,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "5000") int limit) {
+        TransactionExportPage response = transactionService.exportTransactions(
+                type, currency, from, to, afterId, limit);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * Kullanıcı istatistiklerini mevcut işlemlerden arka planda doldurur (servisler arası / operasyon)
+     */
+    @PostMapping("/internal/stats/backfill")
+    public ResponseEntity<ApiResponse<UserStatsJobResponse>> backfillStatistics(
+            @RequestParam(required = false) Long afterUserId) {
+        UserStatsJobResponse response = userStatsMaintenanceService.start(
+                UserStatsJobResponse.Mode.BACKFILL, true, afterUserId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("User statistics backfill started", response));
+    }
+
+    /**
+     * Kullanıcı istatistiklerinin tutarlılığını arka planda kontrol eder; repair ise farkları düzeltir
+     */
+    @PostMapping("/internal/stats/check")
+    public ResponseEntity<ApiResponse<UserStatsJobResponse>> checkStatistics(
+            @RequestParam(defaultValue = "false") boolean repair,
+            @RequestParam(required = false) Long afterUserId) {
+        UserStatsJobResponse response = userStatsMaintenanceService.start(
+                UserStatsJobResponse.Mode.CHECK, repair, afterUserId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("User statistics check started", response));
+    }
+
+    /**
+     * Çalışan ya da son tamamlanan istatistik bakım işinin durumu
+     */
+    @GetMapping("/internal/stats/job")
+    public ResponseEntity<ApiResponse<UserStatsJobResponse>> getStatisticsJob() {
+        return ResponseEntity.ok(ApiResponse.success(userStatsMaintenanceService.getCurrentJob()));
+    }
+
     /**
      * Health check endpoint
      */
@@ -0,0 +1,23 @@
+package com.toycell.servicetransaction.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchRequest {
+
+    @Valid
+    @NotEmpty(message = "At least one transaction is required")
+    @Size(max = 10000, message = "At most 10000 transactions per batch")
+    private List<TransactionRequest> transactions;
+}
@@ -0,0 +1,24 @@
+package com.toycell.servicetransaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Dışa aktarım sayfası. Sonraki sayfa için {@code nextFrom} ve {@code nextAfterId} aynen geri
+ * gönderilir; son sayfada ikisi de null'dır.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionExportPage {
+
+    private List<TransactionExportRow> rows;
+    private LocalDateTime nextFrom;
+    private Long nextAfterId;
+}
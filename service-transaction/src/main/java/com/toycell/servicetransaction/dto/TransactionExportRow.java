@@ -0,0 +1,25 @@
+package com.toycell.servicetransaction.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Dışa aktarımda tek işlem satırı; yalnızca analiz için gereken kolonlar taşınır
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionExportRow {
+
+    private Long id;
+    private Long userId;
+    private Long relatedUserId;
+    private BigDecimal amount;
+    private Currency currency;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,41 @@
+package com.toycell.servicetransaction.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.servicetransaction.entity.TransactionRollup;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Kullanıcının işlem zaman serisi. {@code from}/{@code to} dilim sınırlarına genişletilmiş aralıktır;
+ * yalnızca işlem olan dilimler döner, noktalar (bucketStart, type, currency) sırasındadır.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistogramResponse {
+
+    private TransactionRollup.Granularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<Point> points;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Point {
+        private LocalDateTime bucketStart;
+        private TransactionType type;
+        private Currency currency;
+        private long count;
+        private BigDecimal totalAmount;
+    }
+}
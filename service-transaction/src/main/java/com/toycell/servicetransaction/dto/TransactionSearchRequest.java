@@ -0,0 +1,37 @@
+package com.toycell.servicetransaction.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * İşlem arama süzgeçleri; verilmeyen alanlar süzmez. Tutar ve tarih aralıkları uçlar dahildir.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSearchRequest {
+
+    private Long walletId;
+    private Set<TransactionType> types;
+    private Currency currency;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime endDate;
+
+    private Long relatedUserId;
+}
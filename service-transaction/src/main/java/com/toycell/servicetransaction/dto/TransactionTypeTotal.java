@@ -0,0 +1,21 @@
+package com.toycell.servicetransaction.dto;
+
+import com.toycell.commondomain.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * İşlem türü başına adet ve tutar toplamı (para birimleri üzerinden toplanmış)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionTypeTotal {
+
+    private TransactionType type;
+    private Long count;
+    private BigDecimal amount;
+}
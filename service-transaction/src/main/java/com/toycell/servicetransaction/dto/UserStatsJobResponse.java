@@ -0,0 +1,38 @@
+package com.toycell.servicetransaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Kullanıcı istatistikleri bakım işinin (backfill / tutarlılık kontrolü) durumu
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserStatsJobResponse {
+
+    public enum Mode {
+        BACKFILL, CHECK
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private String id;
+    private Mode mode;
+    private boolean repair; // Farklı satırlar düzeltiliyor mu (backfill'de her zaman true)
+    private Status status;
+    private long usersScanned;
+    private long mismatchedUsers;
+    private long mismatchedRows;
+    private Long lastUserId; // İşlenen son kullanıcı; iş bu konumdan devam ettirilebilir
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -9,13 +9,19 @@ import lombok.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_type_created", columnList = "type, created_at, id"),
+        @Index(name = "idx_transactions_user_stats", columnList = "user_id, type, currency, amount"),
+        @Index(name = "idx_transactions_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_transactions_wallet_created", columnList = "user_id, wallet_id, created_at, id"),
+        @Index(name = "idx_transactions_user_type_created", columnList = "user_id, type, created_at, id"),
+        @Index(name = "idx_transactions_user_related", columnList = "user_id, related_user_id, created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@SequenceGenerator(name = "base_seq_gen", sequenceName = "transactions_seq", allocationSize = 1)
 public class Transaction extends BaseEntity {
 
     @Column(name = "user_id", nullable = false)
@@ -0,0 +1,66 @@
+package com.toycell.servicetransaction.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Kullanıcının saatlik ve günlük zaman dilimlerindeki işlem adedi/tutarı (tür ve para birimi başına).
+ * Satırlar {@link UserTransactionStats} gibi işlem kaydıyla aynı transaction'da artırılır; tarih
+ * aralığı istatistikleri ve histogram bu dilimlerden okunur.
+ */
+@Entity
+@Table(name = "transaction_rollups", indexes = {
+        @Index(name = "idx_rollups_granularity_bucket", columnList = "granularity, bucket_start")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class TransactionRollup {
+
+    public enum Granularity {
+        HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public ChronoUnit unit() {
+            return unit;
+        }
+
+        /**
+         * Zamanın düştüğü dilimin başlangıcı
+         */
+        public LocalDateTime floor(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        /**
+         * Zamana eşit ya da ondan sonraki ilk dilim başlangıcı
+         */
+        public LocalDateTime ceil(LocalDateTime time) {
+            LocalDateTime floor = floor(time);
+            return floor.equals(time) ? floor : floor.plus(1, unit);
+        }
+    }
+
+    @EmbeddedId
+    private TransactionRollupId id;
+
+    @Column(name = "tx_count", nullable = false)
+    private Long txCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,35 @@
+package com.toycell.servicetransaction.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Kullanıcının işlem türü ve para birimi başına toplam adet/tutarı. Satırlar yalnızca
+ * {@link com.toycell.servicetransaction.repository.UserTransactionStatsRepositoryCustom} üzerinden,
+ * işlem kaydıyla aynı transaction'da artırılır; istatistik okuması kullanıcının birkaç satırını okur.
+ * Doğal anahtarla tutulduğu için {@code BaseEntity}'den türemez.
+ */
+@Entity
+@Table(name = "user_transaction_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserTransactionStats {
+
+    @EmbeddedId
+    private UserTransactionStatsId id;
+
+    @Column(name = "tx_count", nullable = false)
+    private Long txCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -2,20 +2,28 @@ package com.toycell.servicetransaction.repository;
 
 import com.toycell.commondomain.enums.Currency;
 import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.servicetransaction.dto.TransactionExportRow;
+import com.toycell.servicetransaction.dto.TransactionTypeTotal;
 import com.toycell.servicetransaction.entity.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
+
+    /**
+     * Verilen reference ID'lere ait işlemleri getirir (toplu kayıtta tekrarları ayıklamak için)
+     */
+    List<Transaction> findByReferenceIdIn(Collection<String> referenceIds);
 
     /**
      * Kullanıcının tüm işlemlerini getirir
@@ -34,6 +42,50 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     Page<Transaction> findByUserIdAndTypeOrderByCreatedAtDesc(
             Long userId, TransactionType type, Pageable pageable);
 
+    /**
+     * Kullanıcının işlemlerinin ilk cursor sayfası, (createdAt, id) azalan sırada
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Kullanıcının (createdAt, id) konumundan önceki işlemleri. COUNT ve OFFSET yoktur; her sayfa
+     * idx_transactions_user_created indeksinde konumdan başlayan aralık taramasıdır.
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageByUserIdBefore(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * Kullanıcının bir cüzdanındaki işlemlerin ilk cursor sayfası, (createdAt, id) azalan sırada
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.walletId = :walletId " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findFirstPageByUserIdAndWalletId(
+            @Param("userId") Long userId,
+            @Param("walletId") Long walletId,
+            Pageable pageable);
+
+    /**
+     * Kullanıcının bir cüzdanındaki (createdAt, id) konumundan önceki işlemler
+     * (idx_transactions_wallet_created üzerinde aralık taraması)
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.walletId = :walletId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageByUserIdAndWalletIdBefore(
+            @Param("userId") Long userId,
+            @Param("walletId") Long walletId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
     /**
      * Tarih aralığında işlemleri getirir
      */
@@ -58,34 +110,46 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByReferenceId(String referenceId);
 
     /**
-     * Kullanıcının toplam gelir/gider istatistiklerini hesaplar
+     * Dışa aktarım sayfası: (createdAt, id) sırasında verilen konumdan sonraki işlemler.
+     * Konum OFFSET yerine değerle (keyset) ilerletilir, her sayfa idx_transactions_type_created
+     * indeksinde aralık taramasıdır; varlık yerine yalnızca gereken kolonlar okunur.
      */
-    @Query("SELECT SUM(t.amount) FROM Transaction t " +
-           "WHERE t.userId = :userId AND t.type = :type")
-    BigDecimal sumAmountByUserIdAndType(
-            @Param("userId") Long userId,
-            @Param("type") TransactionType type);
+    @Query("SELECT new com.toycell.servicetransaction.dto.TransactionExportRow(" +
+           "t.id, t.userId, t.relatedUserId, t.amount, t.currency, t.createdAt) " +
+           "FROM Transaction t " +
+           "WHERE t.type = :type " +
+           "AND (:currency IS NULL OR t.currency = :currency) " +
+           "AND t.createdAt >= :from AND t.createdAt < :to " +
+           "AND (t.createdAt > :from OR t.id > :afterId) " +
+           "ORDER BY t.createdAt, t.id")
+    List<TransactionExportRow> findExportPage(
+            @Param("type") TransactionType type,
+            @Param("currency") Currency currency,
+            @Param("from") LocalDateTime from,
+            @Param("afterId") Long afterId,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
 
     /**
-     * Kullanıcının belirli tarih aralığındaki toplam tutarını hesaplar
+     * Kullanıcının [from, to) aralığındaki işlemlerinin tür başına toplamı. Tarih aralığı
+     * istatistiklerinde yalnızca dilimlere denk gelmeyen kısa uçlar için kullanılır
+     * (idx_transactions_user_created üzerinde aralık taraması).
      */
-    @Query("SELECT SUM(t.amount) FROM Transaction t " +
+    @Query("SELECT new com.toycell.servicetransaction.dto.TransactionTypeTotal(" +
+           "t.type, COUNT(t), SUM(t.amount)) " +
+           "FROM Transaction t " +
            "WHERE t.userId = :userId " +
-           "AND t.type = :type " +
-           "AND t.createdAt BETWEEN :startDate AND :endDate")
-    BigDecimal sumAmountByUserIdAndTypeAndDateRange(
+           "AND t.createdAt >= :from AND t.createdAt < :to " +
+           "GROUP BY t.type")
+    List<TransactionTypeTotal> sumByTypeInRange(
             @Param("userId") Long userId,
-            @Param("type") TransactionType type,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate);
-
-    /**
-     * Kullanıcının işlem sayısını hesaplar
-     */
-    long countByUserId(Long userId);
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 
     /**
-     * Kullanıcının belirli türdeki işlem sayısını hesaplar
+     * İşlemi olan kullanıcı id'leri, {@code afterUserId}'den büyükler artan sırayla (istatistik
+     * bakım işi için keyset sayfalama; idx_transactions_user_stats indeksinden okunur)
      */
-    long countByUserIdAndType(Long userId, TransactionType type);
+    @Query("SELECT DISTINCT t.userId FROM Transaction t WHERE t.userId > :afterUserId ORDER BY t.userId")
+    List<Long> findUserIdsAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
 }
@@ -0,0 +1,51 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.servicetransaction.dto.TransactionTypeTotal;
+import com.toycell.servicetransaction.entity.TransactionRollup;
+import com.toycell.servicetransaction.entity.TransactionRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository
+        extends JpaRepository<TransactionRollup, TransactionRollupId>, TransactionRollupRepositoryCustom {
+
+    /**
+     * [from, to) aralığında başlayan dilimlerin tür başına toplamı (birincil anahtar aralık taraması)
+     */
+    @Query("SELECT new com.toycell.servicetransaction.dto.TransactionTypeTotal(" +
+           "r.id.type, SUM(r.txCount), SUM(r.totalAmount)) " +
+           "FROM TransactionRollup r " +
+           "WHERE r.id.userId = :userId AND r.id.granularity = :granularity " +
+           "AND r.id.bucketStart >= :from AND r.id.bucketStart < :to " +
+           "GROUP BY r.id.type")
+    List<TransactionTypeTotal> sumByType(
+            @Param("userId") Long userId,
+            @Param("granularity") TransactionRollup.Granularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * [from, to) aralığındaki dilimler, isteğe bağlı tür/para birimi süzgeciyle (histogram için)
+     */
+    @Query("SELECT r FROM TransactionRollup r " +
+           "WHERE r.id.userId = :userId AND r.id.granularity = :granularity " +
+           "AND r.id.bucketStart >= :from AND r.id.bucketStart < :to " +
+           "AND (:type IS NULL OR r.id.type = :type) " +
+           "AND (:currency IS NULL OR r.id.currency = :currency) " +
+           "ORDER BY r.id.bucketStart, r.id.type, r.id.currency")
+    List<TransactionRollup> findBuckets(
+            @Param("userId") Long userId,
+            @Param("granularity") TransactionRollup.Granularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("type") TransactionType type,
+            @Param("currency") Currency currency);
+}
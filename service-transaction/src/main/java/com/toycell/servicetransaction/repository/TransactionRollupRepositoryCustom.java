@@ -0,0 +1,39 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.servicetransaction.entity.TransactionRollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Spring Data'nın türetemediği dilim SQL'leri, bkz. {@link TransactionRollupRepositoryImpl}
+ */
+public interface TransactionRollupRepositoryCustom {
+
+    /**
+     * Dilimleri çağıranın transaction'ında artırır; {@link UserTransactionStatsRepositoryCustom#applyDeltas}
+     * ile aynı şekilde (önce eksik satırlar, sonra sıralı UPDATE). İstatistik artışından sonra
+     * çağrılmalıdır: kullanıcının (tür, para birimi) kilidi istatistik satırında alınır.
+     */
+    void applyDeltas(Collection<RollupDelta> deltas);
+
+    /**
+     * Kullanıcının dilimlerini {@code transactions} tablosundan yeniden hesaplar ve farklı ya da
+     * eksik dilim sayısını döner; {@code repair} ise bunları yazar. Saatlik dilimler yalnızca
+     * {@code hourlySince} sonrası için hesaplanır. Kullanıcının istatistik satırları kilitliyken
+     * ({@link UserTransactionStatsRepositoryCustom#reconcileUser} ile aynı transaction'da) çağrılmalıdır.
+     */
+    int reconcileUser(Long userId, LocalDateTime hourlySince, boolean repair);
+
+    /**
+     * {@code before} öncesindeki saatlik dilimlerden en fazla {@code limit} tanesini siler
+     */
+    int deleteHourlyBefore(LocalDateTime before, int limit);
+
+    record RollupDelta(Long userId, TransactionRollup.Granularity granularity, LocalDateTime bucketStart,
+                       TransactionType type, Currency currency, long count, BigDecimal amount) {
+    }
+}
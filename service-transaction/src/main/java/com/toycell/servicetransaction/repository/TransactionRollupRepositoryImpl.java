@@ -0,0 +1,176 @@
+package com.toycell.servicetransaction.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link TransactionRollupRepositoryCustom}'ın Oracle uygulaması. Artış yolu
+ * {@link UserTransactionStatsRepositoryImpl} ile aynıdır; yeniden hesaplama tek bir
+ * {@code MERGE} ile yalnızca farklı ya da eksik dilimlere yazar.
+ */
+public class TransactionRollupRepositoryImpl implements TransactionRollupRepositoryCustom {
+
+    private static final int UNIQUE_VIOLATION = 1;
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private static final Comparator<RollupDelta> KEY_ORDER = Comparator
+            .comparing(RollupDelta::userId)
+            .thenComparing(RollupDelta::granularity)
+            .thenComparing(RollupDelta::bucketStart)
+            .thenComparing(RollupDelta::type)
+            .thenComparing(RollupDelta::currency);
+
+    private static final String KEY_MATCH =
+            "r.user_id = d.user_id AND r.granularity = d.granularity AND r.bucket_start = d.bucket_start " +
+            "AND r.type = d.type AND r.currency = d.currency";
+
+    private static final String INSERT_MISSING =
+            "MERGE INTO transaction_rollups r " +
+            "USING (SELECT ? AS user_id, ? AS granularity, ? AS bucket_start, ? AS type, ? AS currency FROM dual) d " +
+            "ON (" + KEY_MATCH + ") " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, granularity, bucket_start, type, currency, tx_count, total_amount, updated_at) " +
+            "VALUES (d.user_id, d.granularity, d.bucket_start, d.type, d.currency, 0, 0, ?)";
+
+    private static final String INCREMENT =
+            "UPDATE transaction_rollups " +
+            "SET tx_count = tx_count + ?, total_amount = total_amount + ?, updated_at = ? " +
+            "WHERE user_id = ? AND granularity = ? AND bucket_start = ? AND type = ? AND currency = ?";
+
+    // Parametreler: userId, hourlySince, userId
+    private static final String AGGREGATE_USER =
+            "SELECT user_id, 'HOUR' AS granularity, CAST(TRUNC(created_at, 'HH24') AS TIMESTAMP) AS bucket_start, " +
+            "       type, currency, COUNT(*) AS tx_count, SUM(amount) AS total_amount " +
+            "  FROM transactions WHERE user_id = ? AND created_at >= ? " +
+            " GROUP BY user_id, TRUNC(created_at, 'HH24'), type, currency " +
+            "UNION ALL " +
+            "SELECT user_id, 'DAY', CAST(TRUNC(created_at, 'DD') AS TIMESTAMP), " +
+            "       type, currency, COUNT(*), SUM(amount) " +
+            "  FROM transactions WHERE user_id = ? " +
+            " GROUP BY user_id, TRUNC(created_at, 'DD'), type, currency";
+
+    private static final String COUNT_MISMATCHED =
+            "SELECT COUNT(*) FROM (" + AGGREGATE_USER + ") d " +
+            "LEFT JOIN transaction_rollups r ON " + KEY_MATCH + " " +
+            "WHERE r.user_id IS NULL OR r.tx_count <> d.tx_count OR r.total_amount <> d.total_amount";
+
+    // Sonunda iki updated_at parametresi
+    private static final String MERGE_MISMATCHED =
+            "MERGE INTO transaction_rollups r USING (" + AGGREGATE_USER + ") d " +
+            "ON (" + KEY_MATCH + ") " +
+            "WHEN MATCHED THEN UPDATE SET r.tx_count = d.tx_count, r.total_amount = d.total_amount, r.updated_at = ? " +
+            "  WHERE r.tx_count <> d.tx_count OR r.total_amount <> d.total_amount " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, granularity, bucket_start, type, currency, tx_count, total_amount, updated_at) " +
+            "  VALUES (d.user_id, d.granularity, d.bucket_start, d.type, d.currency, d.tx_count, d.total_amount, ?)";
+
+    private static final String DELETE_HOURLY =
+            "DELETE FROM transaction_rollups WHERE granularity = 'HOUR' AND bucket_start < ? AND ROWNUM <= ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void applyDeltas(Collection<RollupDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<RollupDelta> sorted = new ArrayList<>(deltas);
+        sorted.sort(KEY_ORDER);
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (int attempt = 1; ; attempt++) {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_MISSING)) {
+                    for (RollupDelta delta : sorted) {
+                        bindKey(statement, 1, delta);
+                        statement.setTimestamp(6, now);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    break;
+                } catch (SQLException e) {
+                    // Aynı dilimi eşzamanlı ekleyen transaction commit etti; tekrar çalıştırmak güvenli
+                    if (e.getErrorCode() != UNIQUE_VIOLATION || attempt >= MAX_INSERT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(INCREMENT)) {
+                for (RollupDelta delta : sorted) {
+                    statement.setLong(1, delta.count());
+                    statement.setBigDecimal(2, delta.amount());
+                    statement.setTimestamp(3, now);
+                    bindKey(statement, 4, delta);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public int reconcileUser(Long userId, LocalDateTime hourlySince, boolean repair) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            if (!repair) {
+                try (PreparedStatement statement = connection.prepareStatement(COUNT_MISMATCHED)) {
+                    bindAggregate(statement, userId, hourlySince);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        rs.next();
+                        return rs.getInt(1);
+                    }
+                }
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (int attempt = 1; ; attempt++) {
+                try (PreparedStatement statement = connection.prepareStatement(MERGE_MISMATCHED)) {
+                    bindAggregate(statement, userId, hourlySince);
+                    statement.setTimestamp(4, now);
+                    statement.setTimestamp(5, now);
+                    return statement.executeUpdate();
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != UNIQUE_VIOLATION || attempt >= MAX_INSERT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public int deleteHourlyBefore(LocalDateTime before, int limit) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_HOURLY)) {
+                statement.setTimestamp(1, Timestamp.valueOf(before));
+                statement.setInt(2, limit);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    private static void bindAggregate(PreparedStatement statement, Long userId, LocalDateTime hourlySince)
+            throws SQLException {
+        statement.setLong(1, userId);
+        statement.setTimestamp(2, Timestamp.valueOf(hourlySince));
+        statement.setLong(3, userId);
+    }
+
+    private static void bindKey(PreparedStatement statement, int index, RollupDelta delta) throws SQLException {
+        statement.setLong(index, delta.userId());
+        statement.setString(index + 1, delta.granularity().name());
+        statement.setTimestamp(index + 2, Timestamp.valueOf(delta.bucketStart()));
+        statement.setString(index + 3, delta.type().name());
+        statement.setString(index + 4, delta.currency().name());
+    }
+}
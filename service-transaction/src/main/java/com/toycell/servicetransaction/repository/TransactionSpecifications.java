@@ -0,0 +1,70 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.commondomain.response.SeekCursor;
+import com.toycell.servicetransaction.dto.TransactionSearchRequest;
+import com.toycell.servicetransaction.entity.Transaction;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * İşlem araması için dinamik sorgu. Yalnızca verilen süzgeçler WHERE'e eklenir; kullanıcı her
+ * zaman vardır, böylece her kombinasyon user_id ile başlayan bir indeksten okunur:
+ * <ul>
+ *     <li>walletId → idx_transactions_wallet_created (user_id, wallet_id, created_at, id)</li>
+ *     <li>relatedUserId → idx_transactions_user_related (user_id, related_user_id, created_at, id)</li>
+ *     <li>types → idx_transactions_user_type_created (user_id, type, created_at, id)</li>
+ *     <li>diğerleri → idx_transactions_user_created (user_id, created_at, id); para birimi ve
+ *     tutar indeks üzerinden okunan satırlarda süzülür</li>
+ * </ul>
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    /**
+     * Süzgeçlere uyan ve {@code position} verilirse (createdAt, id) olarak ondan önce gelen işlemler
+     */
+    public static Specification<Transaction> search(Long userId, TransactionSearchRequest filter, SeekCursor position) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("userId"), userId));
+
+            if (filter.getWalletId() != null) {
+                predicates.add(cb.equal(root.get("walletId"), filter.getWalletId()));
+            }
+            if (filter.getRelatedUserId() != null) {
+                predicates.add(cb.equal(root.get("relatedUserId"), filter.getRelatedUserId()));
+            }
+            if (filter.getTypes() != null && !filter.getTypes().isEmpty()) {
+                predicates.add(root.get("type").in(filter.getTypes()));
+            }
+            if (filter.getCurrency() != null) {
+                predicates.add(cb.equal(root.get("currency"), filter.getCurrency()));
+            }
+            if (filter.getMinAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), filter.getMinAmount()));
+            }
+            if (filter.getMaxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), filter.getMaxAmount()));
+            }
+            if (filter.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("createdAt"), filter.getStartDate()));
+            }
+            if (filter.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<LocalDateTime>get("createdAt"), filter.getEndDate()));
+            }
+            if (position != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<LocalDateTime>get("createdAt"), position.createdAt()));
+                predicates.add(cb.or(
+                        cb.lessThan(root.<LocalDateTime>get("createdAt"), position.createdAt()),
+                        cb.lessThan(root.<Long>get("id"), position.id())));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.servicetransaction.entity.UserTransactionStats;
+import com.toycell.servicetransaction.entity.UserTransactionStatsId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserTransactionStatsRepository
+        extends JpaRepository<UserTransactionStats, UserTransactionStatsId>, UserTransactionStatsRepositoryCustom {
+
+    /**
+     * Kullanıcının tüm tür/para birimi toplamları (birincil anahtar öneki üzerinde aralık okuması)
+     */
+    List<UserTransactionStats> findByIdUserId(Long userId);
+}
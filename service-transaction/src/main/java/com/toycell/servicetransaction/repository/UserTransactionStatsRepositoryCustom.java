@@ -0,0 +1,31 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Spring Data'nın türetemediği istatistik SQL'leri, bkz. {@link UserTransactionStatsRepositoryImpl}
+ */
+public interface UserTransactionStatsRepositoryCustom {
+
+    /**
+     * Toplamları çağıranın transaction'ında artırır. Eksik satırlar önce sıfırla eklenir, sonra
+     * artış tek bir UPDATE ile uygulanır; anahtarlar sıralı işlendiği için eşzamanlı kayıtlar
+     * kilitleri aynı sırada alır.
+     */
+    void applyDeltas(Collection<StatsDelta> deltas);
+
+    /**
+     * Kullanıcının toplamlarını {@code transactions} tablosundan yeniden hesaplar ve farklı olan
+     * satır sayısını döner; {@code repair} ise farklı satırları düzeltir. Kullanıcının istatistik
+     * satırları hesaplama boyunca kilitli tutulur, böylece eşzamanlı artışlar kaybolmaz ya da
+     * iki kez sayılmaz. Çağıranın transaction'ında çalışır.
+     */
+    int reconcileUser(Long userId, boolean repair);
+
+    record StatsDelta(Long userId, TransactionType type, Currency currency, long count, BigDecimal amount) {
+    }
+}
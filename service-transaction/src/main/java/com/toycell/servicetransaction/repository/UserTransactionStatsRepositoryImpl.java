@@ -0,0 +1,201 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link UserTransactionStatsRepositoryCustom}'ın Oracle uygulaması.
+ * <p>
+ * Artış iki adımda yapılır: önce eksik anahtarlar sıfır satır olarak eklenir (yalnızca
+ * {@code WHEN NOT MATCHED}), sonra {@code UPDATE ... SET tx_count = tx_count + ?} çalışır. Aynı
+ * anahtarı eşzamanlı ekleyen iki transaction'dan biri ORA-00001 alır; ekleme adımı tekrar
+ * çalıştırılabilir olduğundan (var olan satıra dokunmaz) yeniden denenir ve artış hiçbir zaman
+ * iki kez uygulanmaz. Persistence context atlanır: çağıranlar yönetilen bir kopya tutmamalıdır.
+ */
+public class UserTransactionStatsRepositoryImpl implements UserTransactionStatsRepositoryCustom {
+
+    private static final int UNIQUE_VIOLATION = 1;
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private static final Comparator<StatsDelta> KEY_ORDER = Comparator
+            .comparing(StatsDelta::userId)
+            .thenComparing(StatsDelta::type)
+            .thenComparing(StatsDelta::currency);
+
+    private static final String INSERT_MISSING =
+            "MERGE INTO user_transaction_stats s " +
+            "USING (SELECT ? AS user_id, ? AS type, ? AS currency FROM dual) d " +
+            "ON (s.user_id = d.user_id AND s.type = d.type AND s.currency = d.currency) " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, type, currency, tx_count, total_amount, updated_at) " +
+            "VALUES (d.user_id, d.type, d.currency, 0, 0, ?)";
+
+    private static final String INSERT_MISSING_FOR_USER =
+            "MERGE INTO user_transaction_stats s " +
+            "USING (SELECT DISTINCT user_id, type, currency FROM transactions WHERE user_id = ?) d " +
+            "ON (s.user_id = d.user_id AND s.type = d.type AND s.currency = d.currency) " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, type, currency, tx_count, total_amount, updated_at) " +
+            "VALUES (d.user_id, d.type, d.currency, 0, 0, ?)";
+
+    private static final String INCREMENT =
+            "UPDATE user_transaction_stats " +
+            "SET tx_count = tx_count + ?, total_amount = total_amount + ?, updated_at = ? " +
+            "WHERE user_id = ? AND type = ? AND currency = ?";
+
+    private static final String LOCK_USER =
+            "SELECT type, currency, tx_count, total_amount FROM user_transaction_stats " +
+            "WHERE user_id = ? FOR UPDATE";
+
+    private static final String AGGREGATE_USER =
+            "SELECT type, currency, COUNT(*), SUM(amount) FROM transactions " +
+            "WHERE user_id = ? GROUP BY type, currency";
+
+    private static final String OVERWRITE =
+            "UPDATE user_transaction_stats SET tx_count = ?, total_amount = ?, updated_at = ? " +
+            "WHERE user_id = ? AND type = ? AND currency = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void applyDeltas(Collection<StatsDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<StatsDelta> sorted = new ArrayList<>(deltas);
+        sorted.sort(KEY_ORDER);
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            insertMissing(connection, sorted, now);
+
+            try (PreparedStatement statement = connection.prepareStatement(INCREMENT)) {
+                for (StatsDelta delta : sorted) {
+                    statement.setLong(1, delta.count());
+                    statement.setBigDecimal(2, delta.amount());
+                    statement.setTimestamp(3, now);
+                    bindKey(statement, 4, delta.userId(), delta.type(), delta.currency());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public int reconcileUser(Long userId, boolean repair) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            // Kullanıcının işlem kaydı olan her anahtarı satır olarak garanti et, sonra hepsini kilitle
+            for (int attempt = 1; ; attempt++) {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_MISSING_FOR_USER)) {
+                    statement.setLong(1, userId);
+                    statement.setTimestamp(2, now);
+                    statement.executeUpdate();
+                    break;
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != UNIQUE_VIOLATION || attempt >= MAX_INSERT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+
+            Map<String, Totals> stored = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(LOCK_USER)) {
+                statement.setLong(1, userId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        stored.put(rs.getString(1) + "|" + rs.getString(2),
+                                new Totals(rs.getString(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)));
+                    }
+                }
+            }
+
+            // Satırlar kilitliyken yeni işlem yazan transaction'lar artış adımında bekler,
+            // bu yüzden buradaki toplam ile saklı değer aynı ana aittir
+            Map<String, Totals> actual = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(AGGREGATE_USER)) {
+                statement.setLong(1, userId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        actual.put(rs.getString(1) + "|" + rs.getString(2),
+                                new Totals(rs.getString(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)));
+                    }
+                }
+            }
+
+            // Kilitlemeden sonra eklenen anahtarlar stored'da yoktur; bir sonraki kontrolde görülür
+            List<Totals> mismatched = new ArrayList<>();
+            for (Map.Entry<String, Totals> entry : stored.entrySet()) {
+                Totals s = entry.getValue();
+                Totals expected = actual.getOrDefault(entry.getKey(),
+                        new Totals(s.type(), s.currency(), 0L, BigDecimal.ZERO));
+                if (s.count() != expected.count() || s.amount().compareTo(expected.amount()) != 0) {
+                    mismatched.add(expected);
+                }
+            }
+
+            if (repair && !mismatched.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(OVERWRITE)) {
+                    for (Totals totals : mismatched) {
+                        statement.setLong(1, totals.count());
+                        statement.setBigDecimal(2, totals.amount());
+                        statement.setTimestamp(3, now);
+                        statement.setLong(4, userId);
+                        statement.setString(5, totals.type());
+                        statement.setString(6, totals.currency());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            return mismatched.size();
+        });
+    }
+
+    private void insertMissing(Connection connection, List<StatsDelta> sorted, Timestamp now) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_MISSING)) {
+                for (StatsDelta delta : sorted) {
+                    bindKey(statement, 1, delta.userId(), delta.type(), delta.currency());
+                    statement.setTimestamp(4, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                return;
+            } catch (SQLException e) {
+                // Aynı anahtarı eşzamanlı ekleyen transaction commit etti; tekrar çalıştırmak güvenli
+                if (e.getErrorCode() != UNIQUE_VIOLATION || attempt >= MAX_INSERT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void bindKey(PreparedStatement statement, int index, Long userId,
+                                TransactionType type, Currency currency) throws SQLException {
+        statement.setLong(index, userId);
+        statement.setString(index + 1, type.name());
+        statement.setString(index + 2, currency.name());
+    }
+
+    private record Totals(String type, String currency, long count, BigDecimal amount) {
+    }
+}
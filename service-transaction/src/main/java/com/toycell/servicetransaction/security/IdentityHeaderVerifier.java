@@ -0,0 +1,49 @@
+package com.toycell.servicetransaction.security;
+
+import com.toycell.commondomain.security.InternalIdentity;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+
+/**
+ * api-gateway'in JWT'yi bir kez doğruladıktan sonra {@value InternalIdentity#HEADER} başlığına
+ * imzaladığı çağıran kimliğini okur. {@code security.identity.trust-header} açıksa geçerli başlık
+ * taşıyan istek JWT doğrulaması yerine tek bir kısa HMAC ile kimliklendirilir; eksik, süresi dolmuş
+ * ya da sahte başlık yok sayılır ve filtre JWT'ye döner.
+ */
+@Slf4j
+@Component
+public class IdentityHeaderVerifier {
+
+    private final byte[] secret;
+
+    public IdentityHeaderVerifier(@Value("${security.identity.trust-header:false}") boolean trustHeader,
+                                  @Value("${internal.identity.secret:}") String secret) {
+        // Eksik ya da herkesçe bilinen bir anahtarla başlığa güvenmek sahte kimlikleri kabul etmek olur
+        this.secret = trustHeader ? InternalIdentity.requireSecret(secret, "internal.identity.secret") : null;
+        log.info("Gateway identity header is {}", trustHeader ? "trusted" : "ignored");
+    }
+
+    /**
+     * Doğrulanmış kimliği döner; başlık yoksa, güvenilmiyorsa ya da geçersizse null
+     */
+    public InternalIdentity verify(HttpServletRequest request) {
+        if (secret == null) {
+            return null;
+        }
+        String header = request.getHeader(InternalIdentity.HEADER);
+        if (!StringUtils.hasText(header)) {
+            return null;
+        }
+        try {
+            return InternalIdentity.verify(header, secret, Instant.now().getEpochSecond());
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring identity header: {}", e.getMessage());
+            return null;
+        }
+    }
+}
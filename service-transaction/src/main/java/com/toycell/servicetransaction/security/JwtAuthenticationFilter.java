@@ -1,5 +1,7 @@
 package com.toycell.servicetransaction.security;
 
+import com.toycell.commondomain.security.InternalIdentity;
+import com.toycell.commondomain.security.ServiceCredential;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +26,8 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenValidator jwtTokenValidator;
+    private final IdentityHeaderVerifier identityHeaderVerifier;
+    private final ServiceCredentialVerifier serviceCredentialVerifier;
 
     @Override
     protected void doFilterInternal(
@@ -34,9 +38,42 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         log.debug("Processing request to: {}", request.getRequestURI());
 
         try {
+            // Servisler arası çağrı: kullanıcı kimliği yerine ROLE_SERVICE verilir
+            ServiceCredential service = serviceCredentialVerifier.verify(request);
+            if (service != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                service.service(),
+                                null,
+                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_SERVICE"))
+                        );
+
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                log.debug("Set authentication for service: {}", service.service());
+                filterChain.doFilter(request, response);
+                return;
+            }
+
+            InternalIdentity identity = identityHeaderVerifier.verify(request);
+            if (identity != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                identity.userId(),
+                                null,
+                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                        );
+
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                log.debug("Set authentication from gateway identity for user ID: {}", identity.userId());
+            }
+
             String jwt = extractJwtFromRequest(request);
             
-            if (jwt != null && jwtTokenValidator.validateToken(jwt)) {
+            if (identity == null && jwt != null && jwtTokenValidator.validateToken(jwt)) {
                 Long userId = jwtTokenValidator.getUserIdFromToken(jwt);
                 
                 UsernamePasswordAuthenticationToken authentication = 
@@ -50,7 +87,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 
                 log.debug("Set authentication for user ID: {}", userId);
-            } else {
+            } else if (identity == null) {
                 log.debug("No JWT token found in request");
             }
         } catch (Exception e) {
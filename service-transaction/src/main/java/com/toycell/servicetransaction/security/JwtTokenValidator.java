@@ -1,37 +1,55 @@
 package com.toycell.servicetransaction.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * service-auth'un ürettiği JWT'leri doğrular. Parser bir kez kurulur (değişmez ve thread-safe);
+ * doğrulanan claim'ler token'ın SHA-256 özeti altında token süresi dolana kadar önbellekte tutulur,
+ * böylece bir token her çağrıda değil bir kez HMAC ile doğrulanır. Başarısız doğrulamalar
+ * önbelleğe alınmaz. İsabet/ıskalama sayıları {@code cache.gets{cache=jwt.claims}} olarak yayınlanır.
+ */
 @Component
 @Slf4j
 public class JwtTokenValidator {
 
-    @Value("${jwt.secret.key}")
-    private String secret;
+    private final JwtParser parser;
+    private final Cache<String, Claims> claimsCache;
 
-    private SecretKey key;
-
-    @PostConstruct
-    public void init() {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    public JwtTokenValidator(@Value("${jwt.secret.key}") String secretKey,
+                             @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                             MeterRegistry meterRegistry) {
+        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwt.claims");
         log.info("JWT Token Validator initialized");
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
+            verifiedClaims(token);
             return true;
         } catch (Exception e) {
             log.error("JWT validation error: {}", e.getMessage());
@@ -40,22 +58,55 @@ public class JwtTokenValidator {
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.get("userId", Long.class);
+        return verifiedClaims(token).get("userId", Long.class);
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verifiedClaims(token).getSubject();
+    }
+
+    /**
+     * Token süresi dolmamışsa önbellekten, değilse doğrulayarak döner; geçersizse JwtException fırlatır
+     */
+    private Claims verifiedClaims(String token) {
+        String digest = digest(token);
+        Claims claims = claimsCache.getIfPresent(digest);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            // Süresiz token'lar önbelleğe alınmaz, her seferinde doğrulanır
+            if (claims.getExpiration() != null) {
+                claimsCache.put(digest, claims);
+            }
+        }
+        return claims;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Girdi token'ın süresi dolunca düşer
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0L));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
 
-        return claims.getSubject();
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,43 @@
+package com.toycell.servicetransaction.security;
+
+import com.toycell.commondomain.security.InternalIdentity;
+import com.toycell.commondomain.security.ServiceCredential;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+
+/**
+ * Diğer servislerin {@value ServiceCredential#HEADER} başlığında gönderdiği imzalı servis kimliğini
+ * doğrular. Toplu kayıt ve {@code /internal/**} uç noktaları yalnızca bu kimlikle çağrılabilir;
+ * anahtar tanımlı değilse servis açılmaz.
+ */
+@Slf4j
+@Component
+public class ServiceCredentialVerifier {
+
+    private final byte[] secret;
+
+    public ServiceCredentialVerifier(@Value("${internal.service.secret:}") String secret) {
+        this.secret = InternalIdentity.requireSecret(secret, ServiceCredential.SECRET_PROPERTY);
+    }
+
+    /**
+     * Doğrulanmış servis kimliğini döner; başlık yoksa ya da geçersizse null
+     */
+    public ServiceCredential verify(HttpServletRequest request) {
+        String header = request.getHeader(ServiceCredential.HEADER);
+        if (!StringUtils.hasText(header)) {
+            return null;
+        }
+        try {
+            return ServiceCredential.verify(header, secret, Instant.now().getEpochSecond());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting service credential: {}", e.getMessage());
+            return null;
+        }
+    }
+}
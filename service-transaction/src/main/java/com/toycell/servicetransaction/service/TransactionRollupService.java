@@ -0,0 +1,201 @@
+package com.toycell.servicetransaction.service;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicetransaction.dto.TransactionHistogramResponse;
+import com.toycell.servicetransaction.dto.TransactionTypeTotal;
+import com.toycell.servicetransaction.entity.Transaction;
+import com.toycell.servicetransaction.entity.TransactionRollup;
+import com.toycell.servicetransaction.repository.TransactionRepository;
+import com.toycell.servicetransaction.repository.TransactionRollupRepository;
+import com.toycell.servicetransaction.repository.TransactionRollupRepositoryCustom.RollupDelta;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saatlik/günlük işlem dilimleri (transaction_rollups). Dilimler işlem kaydıyla aynı transaction'da
+ * artırılır ({@link #record}); tarih aralığı toplamı şöyle parçalanır:
+ * <pre>
+ *   [from ─ ham ─ h0 ─ saatlik ─ d0 ─ ── günlük ── ─ d1 ─ saatlik ─ h1 ─ ham ─ to)
+ * </pre>
+ * Tam kapsanan günler günlük, kenardaki tam saatler saatlik dilimlerden, saat sınırına denk
+ * gelmeyen uçlar ise ham işlem satırlarından okunur. Böylece maliyet geçmişin uzunluğuna değil
+ * aralıktaki gün sayısına bağlıdır.
+ * <p>
+ * Saatlik dilimler {@code hour-retention-days} gün tutulur; daha eskileri sıkıştırma işi siler ve
+ * o günlerin kenar saatleri ham satırlardan okunur.
+ */
+@Slf4j
+@Service
+public class TransactionRollupService {
+
+    private static final int COMPACTION_CHUNK = 10000;
+
+    private final TransactionRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int hourRetentionDays;
+    private final int maxHistogramPoints;
+
+    public TransactionRollupService(TransactionRollupRepository rollupRepository,
+                                    TransactionRepository transactionRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${transaction.rollup.hour-retention-days:90}") int hourRetentionDays,
+                                    @Value("${transaction.rollup.max-histogram-points:1000}") int maxHistogramPoints) {
+        this.rollupRepository = rollupRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hourRetentionDays = hourRetentionDays;
+        this.maxHistogramPoints = maxHistogramPoints;
+    }
+
+    /**
+     * Yeni kayıtları saatlik ve günlük dilimlere ekler; çağıranın transaction'ında, istatistik
+     * artışından sonra çağrılır. Kayıtların createdAt değeri (persist ile) atanmış olmalıdır.
+     */
+    public void record(List<Transaction> transactions) {
+        Map<String, RollupDelta> deltas = new HashMap<>();
+        for (Transaction t : transactions) {
+            for (TransactionRollup.Granularity granularity : TransactionRollup.Granularity.values()) {
+                LocalDateTime bucketStart = granularity.floor(t.getCreatedAt());
+                deltas.merge(t.getUserId() + "|" + granularity + "|" + bucketStart + "|" + t.getType() + "|" + t.getCurrency(),
+                        new RollupDelta(t.getUserId(), granularity, bucketStart, t.getType(), t.getCurrency(),
+                                1L, t.getAmount()),
+                        (a, b) -> new RollupDelta(a.userId(), a.granularity(), a.bucketStart(), a.type(), a.currency(),
+                                a.count() + b.count(), a.amount().add(b.amount())));
+            }
+        }
+        rollupRepository.applyDeltas(deltas.values());
+    }
+
+    /**
+     * Kullanıcının [from, to) aralığındaki işlemlerinin tür başına toplamı
+     */
+    public Map<TransactionType, TransactionTypeTotal> sumByType(Long userId, LocalDateTime from, LocalDateTime to) {
+        Map<TransactionType, TransactionTypeTotal> totals = new EnumMap<>(TransactionType.class);
+
+        LocalDateTime h0 = TransactionRollup.Granularity.HOUR.ceil(from);
+        LocalDateTime h1 = TransactionRollup.Granularity.HOUR.floor(to);
+        if (!h0.isBefore(h1)) {
+            addRaw(totals, userId, from, to);
+            return totals;
+        }
+        addRaw(totals, userId, from, h0);
+        addRaw(totals, userId, h1, to);
+
+        LocalDateTime d0 = TransactionRollup.Granularity.DAY.ceil(h0);
+        LocalDateTime d1 = TransactionRollup.Granularity.DAY.floor(h1);
+        if (d0.isBefore(d1)) {
+            add(totals, rollupRepository.sumByType(userId, TransactionRollup.Granularity.DAY, d0, d1));
+            addHours(totals, userId, h0, d0);
+            addHours(totals, userId, d1, h1);
+        } else {
+            addHours(totals, userId, h0, h1);
+        }
+        return totals;
+    }
+
+    /**
+     * Kullanıcının işlem zaman serisi; aralık dilim sınırlarına genişletilir
+     */
+    public TransactionHistogramResponse histogram(Long userId, TransactionRollup.Granularity granularity,
+                                                  LocalDateTime from, LocalDateTime to,
+                                                  TransactionType type, Currency currency) {
+        if (!from.isBefore(to)) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "startDate must be before endDate");
+        }
+        LocalDateTime bucketFrom = granularity.floor(from);
+        LocalDateTime bucketTo = granularity.ceil(to);
+        if (granularity.unit().between(bucketFrom, bucketTo) > maxHistogramPoints) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                    "range exceeds " + maxHistogramPoints + " " + granularity + " buckets");
+        }
+        if (granularity == TransactionRollup.Granularity.HOUR && bucketFrom.isBefore(hourlyRetentionStart())) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                    "hourly buckets are kept for the last " + hourRetentionDays + " days");
+        }
+
+        List<TransactionHistogramResponse.Point> points = rollupRepository
+                .findBuckets(userId, granularity, bucketFrom, bucketTo, type, currency).stream()
+                .map(rollup -> TransactionHistogramResponse.Point.builder()
+                        .bucketStart(rollup.getId().getBucketStart())
+                        .type(rollup.getId().getType())
+                        .currency(rollup.getId().getCurrency())
+                        .count(rollup.getTxCount())
+                        .totalAmount(rollup.getTotalAmount())
+                        .build())
+                .toList();
+
+        return TransactionHistogramResponse.builder()
+                .granularity(granularity)
+                .from(bucketFrom)
+                .to(bucketTo)
+                .points(points)
+                .build();
+    }
+
+    /**
+     * Saatlik dilimlerin tutulduğu en eski an; öncesi yalnızca günlük dilimlerde bulunur
+     */
+    public LocalDateTime hourlyRetentionStart() {
+        return LocalDate.now().minusDays(hourRetentionDays).atStartOfDay();
+    }
+
+    /**
+     * Saklama süresini aşmış saatlik dilimleri küçük parçalar halinde, her parça ayrı transaction'da siler
+     */
+    @Scheduled(cron = "${transaction.rollup.compaction-cron:0 30 3 * * *}")
+    public void compactHourly() {
+        LocalDateTime before = hourlyRetentionStart();
+        long deleted = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> rollupRepository.deleteHourlyBefore(before, COMPACTION_CHUNK));
+            deleted += chunk;
+        } while (chunk == COMPACTION_CHUNK);
+        log.info("Compacted {} hourly rollups older than {}", deleted, before);
+    }
+
+    private void addHours(Map<TransactionType, TransactionTypeTotal> totals, Long userId,
+                          LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        LocalDateTime cutoff = hourlyRetentionStart();
+        if (!to.isAfter(cutoff)) {
+            addRaw(totals, userId, from, to);
+        } else if (from.isBefore(cutoff)) {
+            addRaw(totals, userId, from, cutoff);
+            add(totals, rollupRepository.sumByType(userId, TransactionRollup.Granularity.HOUR, cutoff, to));
+        } else {
+            add(totals, rollupRepository.sumByType(userId, TransactionRollup.Granularity.HOUR, from, to));
+        }
+    }
+
+    private void addRaw(Map<TransactionType, TransactionTypeTotal> totals, Long userId,
+                        LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            add(totals, transactionRepository.sumByTypeInRange(userId, from, to));
+        }
+    }
+
+    private static void add(Map<TransactionType, TransactionTypeTotal> totals, List<TransactionTypeTotal> rows) {
+        for (TransactionTypeTotal row : rows) {
+            totals.merge(row.getType(), row, (a, b) ->
+                    new TransactionTypeTotal(a.getType(), a.getCount() + b.getCount(), a.getAmount().add(b.getAmount())));
+        }
+    }
+}
@@ -2,24 +2,45 @@ package com.toycell.servicetransaction.service;
 
 import com.toycell.commondomain.enums.Currency;
 import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.commondomain.response.CursorPageResponse;
+import com.toycell.commondomain.response.SeekCursor;
 import com.toycell.commonexception.enums.ErrorCode;
 import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicetransaction.dto.TransactionExportPage;
+import com.toycell.servicetransaction.dto.TransactionExportRow;
+import com.toycell.servicetransaction.dto.TransactionHistogramResponse;
 import com.toycell.servicetransaction.dto.TransactionRequest;
 import com.toycell.servicetransaction.dto.TransactionResponse;
+import com.toycell.servicetransaction.dto.TransactionSearchRequest;
 import com.toycell.servicetransaction.dto.TransactionStatisticsResponse;
+import com.toycell.servicetransaction.dto.TransactionTypeTotal;
 import com.toycell.servicetransaction.entity.Transaction;
+import com.toycell.servicetransaction.entity.TransactionRollup;
+import com.toycell.servicetransaction.entity.UserTransactionStats;
 import com.toycell.servicetransaction.mapper.TransactionMapper;
 import com.toycell.servicetransaction.repository.TransactionRepository;
+import com.toycell.servicetransaction.repository.TransactionSpecifications;
+import com.toycell.servicetransaction.repository.UserTransactionStatsRepository;
+import com.toycell.servicetransaction.repository.UserTransactionStatsRepositoryCustom.StatsDelta;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,7 +49,17 @@ import java.util.stream.Collectors;
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final UserTransactionStatsRepository statsRepository;
+    private final TransactionRollupService rollupService;
     private final TransactionMapper transactionMapper;
+    private final EntityManager entityManager;
+
+    private static final int MAX_EXPORT_PAGE_SIZE = 10000;
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final Sort SEEK_ORDER = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    @Value("${transaction.batch.chunk-size:500}")
+    private int batchChunkSize;
 
     /**
      * Yeni bir transaction kaydı oluşturur
@@ -40,11 +71,56 @@ public class TransactionService {
 
         Transaction transaction = transactionMapper.toEntity(request);
         Transaction saved = transactionRepository.save(transaction);
+        recordStatistics(List.of(saved));
 
         log.info("Transaction created with ID: {}", saved.getId());
         return transactionMapper.toResponse(saved);
     }
 
+    /**
+     * Birden fazla transaction kaydını tek seferde oluşturur (toplu transfer için).
+     * Aynı (referenceId, walletId, type) ile daha önce yazılmış kayıtlar tekrar yazılmaz,
+     * mevcut kayıt döner; böylece service-transfer'ın yeniden denemeleri güvenlidir.
+     */
+    @Transactional
+    public List<TransactionResponse> createTransactions(List<TransactionRequest> requests) {
+        log.info("Creating {} transactions in batch", requests.size());
+
+        Map<String, Transaction> existing = findExistingByReference(requests);
+
+        List<Transaction> result = new ArrayList<>(requests.size());
+        List<Transaction> toSave = new ArrayList<>();
+        for (TransactionRequest request : requests) {
+            String key = idempotencyKey(request.getReferenceId(), request.getWalletId(), request.getType());
+            Transaction transaction = key != null ? existing.get(key) : null;
+            if (transaction == null) {
+                transaction = transactionMapper.toEntity(request);
+                toSave.add(transaction);
+                if (key != null) {
+                    existing.put(key, transaction);
+                }
+            }
+            result.add(transaction);
+        }
+
+        // Insert'ler JDBC batch olarak gider; her chunk sonrası flush/clear ile persistence context küçük tutulur
+        for (int i = 0; i < toSave.size(); i++) {
+            entityManager.persist(toSave.get(i));
+            if ((i + 1) % batchChunkSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        recordStatistics(toSave);
+        log.info("Batch created {} transactions, {} already existed", toSave.size(), requests.size() - toSave.size());
+
+        return result.stream()
+                .map(transactionMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Kullanıcının tüm işlemlerini getirir
      */
@@ -72,6 +148,71 @@ public class TransactionService {
         return transactions.map(transactionMapper::toResponse);
     }
 
+    /**
+     * Kullanıcının işlemlerini cursor ile getirir (en yeniden eskiye). {@code cursor} boşsa ilk
+     * sayfa döner; sonraki sayfa yanıttaki {@code nextCursor} ile istenir. Toplam sayı hesaplanmaz.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> getUserTransactionsCursor(Long userId, String cursor, int size) {
+        log.info("Fetching transactions for user: {} with cursor", userId);
+
+        Pageable limit = cursorLimit(size);
+        SeekCursor position = decodeCursor(cursor);
+        List<Transaction> rows = position == null
+                ? transactionRepository.findFirstPageByUserId(userId, limit)
+                : transactionRepository.findPageByUserIdBefore(userId, position.createdAt(), position.id(), limit);
+
+        return SeekCursor.page(rows, size, t -> new SeekCursor(t.getCreatedAt(), t.getId()),
+                transactionMapper::toResponse);
+    }
+
+    /**
+     * Kullanıcının belirli bir cüzdanındaki işlemlerini cursor ile getirir (en yeniden eskiye)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> getWalletTransactionsCursor(
+            Long userId, Long walletId, String cursor, int size) {
+        log.info("Fetching transactions for user: {}, wallet: {} with cursor", userId, walletId);
+
+        Pageable limit = cursorLimit(size);
+        SeekCursor position = decodeCursor(cursor);
+        List<Transaction> rows = position == null
+                ? transactionRepository.findFirstPageByUserIdAndWalletId(userId, walletId, limit)
+                : transactionRepository.findPageByUserIdAndWalletIdBefore(
+                        userId, walletId, position.createdAt(), position.id(), limit);
+
+        return SeekCursor.page(rows, size, t -> new SeekCursor(t.getCreatedAt(), t.getId()),
+                transactionMapper::toResponse);
+    }
+
+    /**
+     * Kullanıcının işlemlerini süzgeçlerin herhangi bir kombinasyonuyla arar (en yeniden eskiye,
+     * cursor ile). Sorgu yalnızca verilen süzgeçlerle kurulur, bkz. {@link TransactionSpecifications}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> searchTransactions(
+            Long userId, TransactionSearchRequest filter, String cursor, int size) {
+        log.info("Searching transactions for user: {} with {}", userId, filter);
+
+        if (filter.getMinAmount() != null && filter.getMaxAmount() != null
+                && filter.getMinAmount().compareTo(filter.getMaxAmount()) > 0) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "minAmount must not exceed maxAmount");
+        }
+        if (filter.getStartDate() != null && filter.getEndDate() != null
+                && filter.getStartDate().isAfter(filter.getEndDate())) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "startDate must not be after endDate");
+        }
+
+        int limit = cursorLimit(size).getPageSize();
+        SeekCursor position = decodeCursor(cursor);
+        List<Transaction> rows = transactionRepository.findBy(
+                TransactionSpecifications.search(userId, filter, position),
+                query -> query.sortBy(SEEK_ORDER).limit(limit).all());
+
+        return SeekCursor.page(rows, size, t -> new SeekCursor(t.getCreatedAt(), t.getId()),
+                transactionMapper::toResponse);
+    }
+
     /**
      * Kullanıcının belirli türdeki işlemlerini getirir
      */
@@ -143,32 +284,114 @@ public class TransactionService {
     }
 
     /**
-     * Kullanıcının işlem istatistiklerini hesaplar
+     * İşlemleri (createdAt, id) sırasıyla sayfa sayfa dışa aktarır (ücret simülasyonu gibi toplu
+     * analizler için). İlk sayfada {@code afterId} 0 verilir; sonraki sayfalar yanıttaki konumla istenir.
+     */
+    @Transactional(readOnly = true)
+    public TransactionExportPage exportTransactions(TransactionType type, Currency currency,
+                                                    LocalDateTime from, LocalDateTime to,
+                                                    long afterId, int limit) {
+        if (!from.isBefore(to)) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "from must be before to");
+        }
+        if (limit < 1 || limit > MAX_EXPORT_PAGE_SIZE) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                    "limit must be between 1 and " + MAX_EXPORT_PAGE_SIZE);
+        }
+
+        List<TransactionExportRow> rows = transactionRepository.findExportPage(
+                type, currency, from, afterId, to, PageRequest.of(0, limit));
+
+        TransactionExportPage.TransactionExportPageBuilder page = TransactionExportPage.builder().rows(rows);
+        if (rows.size() == limit) {
+            TransactionExportRow last = rows.get(rows.size() - 1);
+            page.nextFrom(last.getCreatedAt()).nextAfterId(last.getId());
+        }
+        return page.build();
+    }
+
+    // Bir fazla satır okunur; yalnızca sonraki sayfanın varlığını gösterir
+    private Pageable cursorLimit(int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                    "size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        return PageRequest.of(0, size + 1);
+    }
+
+    private SeekCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return SeekCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Invalid cursor");
+        }
+    }
+
+    private Map<String, Transaction> findExistingByReference(List<TransactionRequest> requests) {
+        List<String> referenceIds = requests.stream()
+                .map(TransactionRequest::getReferenceId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<String, Transaction> existing = new HashMap<>();
+        // Oracle IN listesi en fazla 1000 eleman alır
+        for (int start = 0; start < referenceIds.size(); start += 1000) {
+            List<String> chunk = referenceIds.subList(start, Math.min(start + 1000, referenceIds.size()));
+            for (Transaction transaction : transactionRepository.findByReferenceIdIn(chunk)) {
+                existing.put(idempotencyKey(transaction.getReferenceId(), transaction.getWalletId(),
+                        transaction.getType()), transaction);
+            }
+        }
+        return existing;
+    }
+
+    private String idempotencyKey(String referenceId, Long walletId, TransactionType type) {
+        return referenceId == null ? null : referenceId + "|" + walletId + "|" + type;
+    }
+
+    /**
+     * Yeni kayıtları kullanıcı istatistiklerine ve zaman dilimlerine aynı transaction içinde ekler;
+     * aynı (kullanıcı, tür, para birimi) anahtarına düşen kayıtlar tek artışta birleştirilir.
+     * İstatistik satırı dilimlerden önce güncellenir (kilit sırası, bkz. TransactionRollupRepositoryCustom).
+     */
+    private void recordStatistics(List<Transaction> transactions) {
+        Map<String, StatsDelta> deltas = new HashMap<>();
+        for (Transaction t : transactions) {
+            deltas.merge(t.getUserId() + "|" + t.getType() + "|" + t.getCurrency(),
+                    new StatsDelta(t.getUserId(), t.getType(), t.getCurrency(), 1L, t.getAmount()),
+                    (a, b) -> new StatsDelta(a.userId(), a.type(), a.currency(),
+                            a.count() + b.count(), a.amount().add(b.amount())));
+        }
+        statsRepository.applyDeltas(deltas.values());
+        rollupService.record(transactions);
+    }
+
+    /**
+     * Kullanıcının işlem istatistiklerini artımlı tutulan user_transaction_stats satırlarından okur
+     * (birincil anahtar öneki üzerinde tek okuma). Tutarlar para birimleri üzerinden toplanır.
      */
     @Transactional(readOnly = true)
     public TransactionStatisticsResponse getUserStatistics(Long userId) {
-        log.info("Calculating statistics for user: {}", userId);
-
-        long totalCount = transactionRepository.countByUserId(userId);
-        long depositCount = transactionRepository.countByUserIdAndType(userId, TransactionType.DEPOSIT);
-        long withdrawCount = transactionRepository.countByUserIdAndType(userId, TransactionType.WITHDRAWAL);
-        long transferInCount = transactionRepository.countByUserIdAndType(userId, TransactionType.TRANSFER_IN);
-        long transferOutCount = transactionRepository.countByUserIdAndType(userId, TransactionType.TRANSFER_OUT);
-
-        BigDecimal totalDeposits = transactionRepository
-                .sumAmountByUserIdAndType(userId, TransactionType.DEPOSIT);
-        BigDecimal totalWithdrawals = transactionRepository
-                .sumAmountByUserIdAndType(userId, TransactionType.WITHDRAWAL);
-        BigDecimal totalTransfersIn = transactionRepository
-                .sumAmountByUserIdAndType(userId, TransactionType.TRANSFER_IN);
-        BigDecimal totalTransfersOut = transactionRepository
-                .sumAmountByUserIdAndType(userId, TransactionType.TRANSFER_OUT);
-
-        // Null kontrolü
-        totalDeposits = totalDeposits != null ? totalDeposits : BigDecimal.ZERO;
-        totalWithdrawals = totalWithdrawals != null ? totalWithdrawals : BigDecimal.ZERO;
-        totalTransfersIn = totalTransfersIn != null ? totalTransfersIn : BigDecimal.ZERO;
-        totalTransfersOut = totalTransfersOut != null ? totalTransfersOut : BigDecimal.ZERO;
+        log.info("Reading statistics for user: {}", userId);
+
+        Map<TransactionType, Long> counts = new EnumMap<>(TransactionType.class);
+        Map<TransactionType, BigDecimal> totals = new EnumMap<>(TransactionType.class);
+        long totalCount = 0L;
+        for (UserTransactionStats stats : statsRepository.findByIdUserId(userId)) {
+            TransactionType type = stats.getId().getType();
+            counts.merge(type, stats.getTxCount(), Long::sum);
+            totals.merge(type, stats.getTotalAmount(), BigDecimal::add);
+            totalCount += stats.getTxCount();
+        }
+
+        BigDecimal totalDeposits = totals.getOrDefault(TransactionType.DEPOSIT, BigDecimal.ZERO);
+        BigDecimal totalWithdrawals = totals.getOrDefault(TransactionType.WITHDRAWAL, BigDecimal.ZERO);
+        BigDecimal totalTransfersIn = totals.getOrDefault(TransactionType.TRANSFER_IN, BigDecimal.ZERO);
+        BigDecimal totalTransfersOut = totals.getOrDefault(TransactionType.TRANSFER_OUT, BigDecimal.ZERO);
 
         // Net bakiye hesaplama
         BigDecimal netBalance = totalDeposits
@@ -178,10 +401,10 @@ public class TransactionService {
 
         return TransactionStatisticsResponse.builder()
                 .totalTransactions(totalCount)
-                .depositCount(depositCount)
-                .withdrawCount(withdrawCount)
-                .transferInCount(transferInCount)
-                .transferOutCount(transferOutCount)
+                .depositCount(counts.getOrDefault(TransactionType.DEPOSIT, 0L))
+                .withdrawCount(counts.getOrDefault(TransactionType.WITHDRAWAL, 0L))
+                .transferInCount(counts.getOrDefault(TransactionType.TRANSFER_IN, 0L))
+                .transferOutCount(counts.getOrDefault(TransactionType.TRANSFER_OUT, 0L))
                 .totalDeposits(totalDeposits)
                 .totalWithdrawals(totalWithdrawals)
                 .totalTransfersIn(totalTransfersIn)
@@ -191,27 +414,22 @@ public class TransactionService {
     }
 
     /**
-     * Tarih aralığında kullanıcının istatistiklerini hesaplar
+     * Tarih aralığında kullanıcının istatistiklerini hesaplar (uçlar dahil). Tam kapsanan gün ve
+     * saatler dilimlerden, kalan uçlar ham kayıtlardan okunur, bkz. {@link TransactionRollupService#sumByType}.
      */
     @Transactional(readOnly = true)
     public TransactionStatisticsResponse getUserStatisticsByDateRange(
             Long userId, LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Calculating statistics for user: {} between {} and {}", userId, startDate, endDate);
 
-        BigDecimal totalDeposits = transactionRepository
-                .sumAmountByUserIdAndTypeAndDateRange(userId, TransactionType.DEPOSIT, startDate, endDate);
-        BigDecimal totalWithdrawals = transactionRepository
-                .sumAmountByUserIdAndTypeAndDateRange(userId, TransactionType.WITHDRAWAL, startDate, endDate);
-        BigDecimal totalTransfersIn = transactionRepository
-                .sumAmountByUserIdAndTypeAndDateRange(userId, TransactionType.TRANSFER_IN, startDate, endDate);
-        BigDecimal totalTransfersOut = transactionRepository
-                .sumAmountByUserIdAndTypeAndDateRange(userId, TransactionType.TRANSFER_OUT, startDate, endDate);
-
-        // Null kontrolü
-        totalDeposits = totalDeposits != null ? totalDeposits : BigDecimal.ZERO;
-        totalWithdrawals = totalWithdrawals != null ? totalWithdrawals : BigDecimal.ZERO;
-        totalTransfersIn = totalTransfersIn != null ? totalTransfersIn : BigDecimal.ZERO;
-        totalTransfersOut = totalTransfersOut != null ? totalTransfersOut : BigDecimal.ZERO;
+        // BETWEEN ile aynı anlam: endDate dahil, yarı açık aralığa çevrilir
+        Map<TransactionType, TransactionTypeTotal> totals =
+                rollupService.sumByType(userId, startDate, endDate.plusNanos(1));
+
+        BigDecimal totalDeposits = amountOf(totals, TransactionType.DEPOSIT);
+        BigDecimal totalWithdrawals = amountOf(totals, TransactionType.WITHDRAWAL);
+        BigDecimal totalTransfersIn = amountOf(totals, TransactionType.TRANSFER_IN);
+        BigDecimal totalTransfersOut = amountOf(totals, TransactionType.TRANSFER_OUT);
 
         BigDecimal netBalance = totalDeposits
                 .add(totalTransfersIn)
@@ -226,4 +444,20 @@ public class TransactionService {
                 .netBalance(netBalance)
                 .build();
     }
+
+    /**
+     * Kullanıcının işlem zaman serisi (saatlik ya da günlük dilimler)
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistogramResponse getUserHistogram(Long userId, TransactionRollup.Granularity granularity,
+                                                         LocalDateTime startDate, LocalDateTime endDate,
+                                                         TransactionType type, Currency currency) {
+        log.info("Fetching {} histogram for user: {} between {} and {}", granularity, userId, startDate, endDate);
+        return rollupService.histogram(userId, granularity, startDate, endDate, type, currency);
+    }
+
+    private BigDecimal amountOf(Map<TransactionType, TransactionTypeTotal> totals, TransactionType type) {
+        TransactionTypeTotal total = totals.get(type);
+        return total != null ? total.getAmount() : BigDecimal.ZERO;
+    }
 }
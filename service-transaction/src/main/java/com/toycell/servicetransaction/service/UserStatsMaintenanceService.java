@@ -0,0 +1,213 @@
+package com.toycell.servicetransaction.service;
+
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicetransaction.dto.UserStatsJobResponse;
+import com.toycell.servicetransaction.repository.TransactionRepository;
+import com.toycell.servicetransaction.repository.TransactionRollupRepository;
+import com.toycell.servicetransaction.repository.UserTransactionStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * user_transaction_stats ve transaction_rollups tablolarının bakım işleri. İşlemi olan kullanıcılar
+ * id sırasıyla {@code batch-size}'lık sayfalarla gezilir ve her kullanıcı kendi kısa transaction'ında
+ * {@code transactions} tablosuyla karşılaştırılır (bkz. {@code reconcileUser}); dilimler, istatistik
+ * satırları kilitliyken aynı transaction'da kontrol edilir.
+ * <ul>
+ *     <li>BACKFILL: mevcut veriden tabloyu doldurur; farklı her satır düzeltilir. Tablo ilk kez
+ *     devreye alındığında deploy sonrası bir kez çalıştırılır.</li>
+ *     <li>CHECK: artımlı toplamların kaymadığını doğrular; {@code repair} ise farkları düzeltir.
+ *     {@code transaction.stats.check-cron} verilirse düzenli olarak arka planda çalışır.</li>
+ * </ul>
+ * Aynı anda tek iş çalışır; kullanıcılar arasında {@code pause-ms} beklenerek canlı yük korunur.
+ */
+@Slf4j
+@Service
+public class UserStatsMaintenanceService {
+
+    private final TransactionRepository transactionRepository;
+    private final UserTransactionStatsRepository statsRepository;
+    private final TransactionRollupRepository rollupRepository;
+    private final TransactionRollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long pauseMs;
+    private final boolean scheduledRepair;
+    private final ExecutorService executor;
+
+    private volatile Job current;
+
+    public UserStatsMaintenanceService(TransactionRepository transactionRepository,
+                                       UserTransactionStatsRepository statsRepository,
+                                       TransactionRollupRepository rollupRepository,
+                                       TransactionRollupService rollupService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${transaction.stats.maintenance.batch-size:500}") int batchSize,
+                                       @Value("${transaction.stats.maintenance.pause-ms:0}") long pauseMs,
+                                       @Value("${transaction.stats.check-repair:true}") boolean scheduledRepair) {
+        this.transactionRepository = transactionRepository;
+        this.statsRepository = statsRepository;
+        this.rollupRepository = rollupRepository;
+        this.rollupService = rollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.scheduledRepair = scheduledRepair;
+        // Kuyruk yok: bir iş çalışırken yenisi reddedilir
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "user-stats-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * İşi arka planda başlatır; {@code afterUserId} verilirse bu kullanıcıdan sonrasıyla devam eder
+     */
+    public UserStatsJobResponse start(UserStatsJobResponse.Mode mode, boolean repair, Long afterUserId) {
+        Job job = new Job(mode, mode == UserStatsJobResponse.Mode.BACKFILL || repair,
+                afterUserId != null ? afterUserId : 0L);
+        Job previous = current;
+        current = job;
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            current = previous;
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Another user statistics job is already running");
+        }
+
+        log.info("User statistics {} job {} started after user {}, repair={}", mode, job.id, job.lastUserId, job.repair);
+        return job.toResponse();
+    }
+
+    /**
+     * Çalışan ya da son tamamlanan işin durumu
+     */
+    public UserStatsJobResponse getCurrentJob() {
+        Job job = current;
+        if (job == null) {
+            throw new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "No user statistics job has run yet");
+        }
+        return job.toResponse();
+    }
+
+    @Scheduled(cron = "${transaction.stats.check-cron:-}")
+    public void scheduledCheck() {
+        try {
+            start(UserStatsJobResponse.Mode.CHECK, scheduledRepair, null);
+        } catch (BusinessException e) {
+            log.info("Scheduled user statistics check skipped: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Job job = current;
+        if (job != null) {
+            job.cancelled = true;
+        }
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        try {
+            while (!job.cancelled) {
+                List<Long> userIds = transactionRepository.findUserIdsAfter(job.lastUserId, PageRequest.of(0, batchSize));
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                for (Long userId : userIds) {
+                    if (job.cancelled) {
+                        break;
+                    }
+                    LocalDateTime hourlySince = rollupService.hourlyRetentionStart();
+                    Integer mismatched = transactionTemplate.execute(status ->
+                            statsRepository.reconcileUser(userId, job.repair)
+                                    + rollupRepository.reconcileUser(userId, hourlySince, job.repair));
+                    if (mismatched != null && mismatched > 0) {
+                        job.mismatchedUsers.incrementAndGet();
+                        job.mismatchedRows.addAndGet(mismatched);
+                        log.warn("User {} statistics differed in {} rows{}", userId, mismatched,
+                                job.repair ? ", repaired" : "");
+                    }
+                    job.usersScanned.incrementAndGet();
+                    job.lastUserId = userId;
+                    if (pauseMs > 0) {
+                        Thread.sleep(pauseMs);
+                    }
+                }
+            }
+            job.finish(job.cancelled ? UserStatsJobResponse.Status.CANCELLED : UserStatsJobResponse.Status.COMPLETED, null);
+            log.info("User statistics {} job {} finished: {} users scanned, {} mismatched",
+                    job.mode, job.id, job.usersScanned.get(), job.mismatchedUsers.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(UserStatsJobResponse.Status.CANCELLED, null);
+        } catch (RuntimeException e) {
+            job.finish(UserStatsJobResponse.Status.FAILED, e.getClass().getSimpleName() + ": " + e.getMessage());
+            log.error("User statistics {} job {} failed after user {}", job.mode, job.id, job.lastUserId, e);
+        }
+    }
+
+    private static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final UserStatsJobResponse.Mode mode;
+        private final boolean repair;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong usersScanned = new AtomicLong();
+        private final AtomicLong mismatchedUsers = new AtomicLong();
+        private final AtomicLong mismatchedRows = new AtomicLong();
+
+        private volatile long lastUserId;
+        private volatile boolean cancelled;
+        private volatile UserStatsJobResponse.Status status = UserStatsJobResponse.Status.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private Job(UserStatsJobResponse.Mode mode, boolean repair, long afterUserId) {
+            this.mode = mode;
+            this.repair = repair;
+            this.lastUserId = afterUserId;
+        }
+
+        private void finish(UserStatsJobResponse.Status finalStatus, String failure) {
+            error = failure;
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        private UserStatsJobResponse toResponse() {
+            return UserStatsJobResponse.builder()
+                    .id(id)
+                    .mode(mode)
+                    .repair(repair)
+                    .status(status)
+                    .usersScanned(usersScanned.get())
+                    .mismatchedUsers(mismatchedUsers.get())
+                    .mismatchedRows(mismatchedRows.get())
+                    .lastUserId(lastUserId)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
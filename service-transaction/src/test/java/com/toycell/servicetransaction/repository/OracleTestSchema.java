@@ -0,0 +1,95 @@
+package com.toycell.servicetransaction.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.jdbc.Work;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Oracle'a karşı çalışan depo testlerinin ortak bağlantısı. Testler yalnızca
+ * {@value #URL_VARIABLE} (ve {@code TOYCELL_ORACLE_TEST_USER}, {@code TOYCELL_ORACLE_TEST_PASSWORD})
+ * verildiğinde çalışır; şemada tablolar bulunmalıdır ({@code ddl-auto=update} ile bir kez başlatmak
+ * yeterli). Ayrı bir test şeması kullanın.
+ */
+final class OracleTestSchema {
+
+    static final String URL_VARIABLE = "TOYCELL_ORACLE_TEST_URL";
+
+    private OracleTestSchema() {
+    }
+
+    /**
+     * Otomatik commit kapalı bir bağlantı; testler sonunda geri alır, şemada iz bırakmaz
+     */
+    static Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(System.getenv(URL_VARIABLE),
+                System.getenv("TOYCELL_ORACLE_TEST_USER"), System.getenv("TOYCELL_ORACLE_TEST_PASSWORD"));
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    /**
+     * Depo uygulamasının {@code @PersistenceContext} alanına, işi doğrudan {@code connection}
+     * üzerinde çalıştıran bir EntityManager koyar
+     */
+    static <T> T withConnection(T repository, Connection connection) {
+        Session session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "doWork" -> {
+                        ((Work) args[0]).execute(connection);
+                        yield null;
+                    }
+                    case "doReturningWork" -> ((ReturningWork<?>) args[0]).execute(connection);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        EntityManager entityManager = (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("unwrap") && args[0] == Session.class) {
+                        return session;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        try {
+            Field field = repository.getClass().getDeclaredField("entityManager");
+            field.setAccessible(true);
+            field.set(repository, entityManager);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return repository;
+    }
+
+    /**
+     * Başka testlerin verisiyle çakışmayan bir kullanıcı kimliği
+     */
+    static long newUserId() {
+        return ThreadLocalRandom.current().nextLong(9_000_000_000_000L, 9_100_000_000_000L);
+    }
+
+    static void insertTransaction(Connection connection, long userId, String type, String currency,
+                                  String amount, LocalDateTime createdAt) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO transactions (id, user_id, wallet_id, type, amount, currency, balance_before, "
+                        + "balance_after, created_at) VALUES (?, ?, 1, ?, ?, ?, 0, 0, ?)")) {
+            statement.setLong(1, ThreadLocalRandom.current().nextLong(9_000_000_000_000L, Long.MAX_VALUE));
+            statement.setLong(2, userId);
+            statement.setString(3, type);
+            statement.setBigDecimal(4, new BigDecimal(amount));
+            statement.setString(5, currency);
+            statement.setTimestamp(6, Timestamp.valueOf(createdAt));
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.servicetransaction.entity.TransactionRollup.Granularity;
+import com.toycell.servicetransaction.repository.TransactionRollupRepositoryCustom.RollupDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link TransactionRollupRepositoryImpl}'in SQL'i Oracle'da: aynı dilime tekrarlanan artışlar
+ * toplanır ve {@code reconcileUser} her iki kipte de testin kendi hesapladığı saatlik ve günlük
+ * toplamlarla karşılaştırılır. Bkz. {@link OracleTestSchema}.
+ */
+@EnabledIfEnvironmentVariable(named = OracleTestSchema.URL_VARIABLE, matches = ".+")
+class TransactionRollupRepositoryImplTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 10, 18, 0, 0);
+    private static final LocalDateTime HOURLY_SINCE = DAY;
+
+    private Connection connection;
+    private TransactionRollupRepositoryImpl repository;
+    private long userId;
+    private final Map<String, Totals> expected = new TreeMap<>();
+
+    @BeforeEach
+    void connect() throws SQLException {
+        connection = OracleTestSchema.connect();
+        repository = OracleTestSchema.withConnection(new TransactionRollupRepositoryImpl(), connection);
+        userId = OracleTestSchema.newUserId();
+    }
+
+    @AfterEach
+    void rollback() throws SQLException {
+        connection.rollback();
+        connection.close();
+    }
+
+    @Test
+    void applyingDeltasTwiceForTheSameBucketAddsBoth() throws SQLException {
+        repository.applyDeltas(List.of(delta(Granularity.HOUR, DAY.plusHours(10), TransactionType.DEPOSIT, 1, "10.00")));
+        repository.applyDeltas(List.of(delta(Granularity.HOUR, DAY.plusHours(10), TransactionType.DEPOSIT, 2, "5.50")));
+
+        assertEquals(Map.of(key(Granularity.HOUR, DAY.plusHours(10), "DEPOSIT"), "3|15.50"), storedRollups());
+    }
+
+    @Test
+    void checkCountsMismatchedBucketsAndWritesNothing() throws SQLException {
+        recordTransactionsWithDriftedRollups();
+        Map<String, String> before = storedRollups();
+
+        // Eksik: 11:00 DEPOSIT, 10:00 WITHDRAWAL, günlük WITHDRAWAL; farklı: günlük DEPOSIT
+        assertEquals(4, repository.reconcileUser(userId, HOURLY_SINCE, false));
+        assertEquals(before, storedRollups());
+    }
+
+    @Test
+    void repairWritesTheRecomputedBuckets() throws SQLException {
+        recordTransactionsWithDriftedRollups();
+
+        assertEquals(4, repository.reconcileUser(userId, HOURLY_SINCE, true));
+        assertEquals(expectedRollups(), storedRollups());
+
+        assertEquals(0, repository.reconcileUser(userId, HOURLY_SINCE, false));
+    }
+
+    @Test
+    void hourlyBucketsBeforeTheCutoffAreNotRecomputed() throws SQLException {
+        record(TransactionType.DEPOSIT, "8.00", DAY.minusDays(1).plusHours(9));
+
+        assertEquals(1, repository.reconcileUser(userId, HOURLY_SINCE, true));
+        assertEquals(Map.of(key(Granularity.DAY, DAY.minusDays(1), "DEPOSIT"), "1|8.00"), storedRollups());
+    }
+
+    private void recordTransactionsWithDriftedRollups() throws SQLException {
+        record(TransactionType.DEPOSIT, "10.00", DAY.plusHours(10).plusMinutes(15));
+        record(TransactionType.WITHDRAWAL, "5.00", DAY.plusHours(10).plusMinutes(40));
+        record(TransactionType.DEPOSIT, "20.00", DAY.plusHours(11).plusMinutes(5));
+
+        // Saatlik 10:00 DEPOSIT doğru, günlük DEPOSIT bir işlem eksik, diğerleri hiç yazılmamış
+        repository.applyDeltas(List.of(
+                delta(Granularity.HOUR, DAY.plusHours(10), TransactionType.DEPOSIT, 1, "10.00"),
+                delta(Granularity.DAY, DAY, TransactionType.DEPOSIT, 1, "10.00")));
+    }
+
+    /**
+     * İşlemi tabloya yazar ve beklenen saatlik (kesimden sonraysa) ve günlük dilimlere ekler
+     */
+    private void record(TransactionType type, String amount, LocalDateTime createdAt) throws SQLException {
+        OracleTestSchema.insertTransaction(connection, userId, type.name(), "TRY", amount, createdAt);
+        if (!createdAt.isBefore(HOURLY_SINCE)) {
+            expected.merge(key(Granularity.HOUR, createdAt.truncatedTo(ChronoUnit.HOURS), type.name()),
+                    new Totals(1, new BigDecimal(amount)), Totals::plus);
+        }
+        expected.merge(key(Granularity.DAY, createdAt.truncatedTo(ChronoUnit.DAYS), type.name()),
+                new Totals(1, new BigDecimal(amount)), Totals::plus);
+    }
+
+    private RollupDelta delta(Granularity granularity, LocalDateTime bucketStart, TransactionType type,
+                              long count, String amount) {
+        return new RollupDelta(userId, granularity, bucketStart, type, Currency.TRY, count, new BigDecimal(amount));
+    }
+
+    private Map<String, String> expectedRollups() {
+        Map<String, String> rollups = new TreeMap<>();
+        expected.forEach((key, totals) -> rollups.put(key, totals.toString()));
+        return rollups;
+    }
+
+    // "dilim|başlangıç|tür" → "adet|tutar" (hep TRY)
+    private Map<String, String> storedRollups() throws SQLException {
+        Map<String, String> rollups = new TreeMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT granularity, bucket_start, type, tx_count, total_amount FROM transaction_rollups WHERE user_id = ?")) {
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rollups.put(key(Granularity.valueOf(rs.getString(1)), rs.getTimestamp(2).toLocalDateTime(), rs.getString(3)),
+                            new Totals(rs.getLong(4), rs.getBigDecimal(5)).toString());
+                }
+            }
+        }
+        return rollups;
+    }
+
+    private static String key(Granularity granularity, LocalDateTime bucketStart, String type) {
+        return granularity + "|" + bucketStart + "|" + type;
+    }
+
+    private record Totals(long count, BigDecimal amount) {
+
+        Totals plus(Totals other) {
+            return new Totals(count + other.count, amount.add(other.amount));
+        }
+
+        @Override
+        public String toString() {
+            return count + "|" + amount.setScale(2);
+        }
+    }
+}
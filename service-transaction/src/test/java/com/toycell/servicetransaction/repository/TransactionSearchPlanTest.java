@@ -0,0 +1,121 @@
+package com.toycell.servicetransaction.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Arama sorgusunun yaygın kombinasyonları için Oracle yürütme planı regresyon testi: hiçbiri
+ * {@code transactions} tablosunu tam taramamalı ve beklenen indeksten aralık okumalı.
+ * <p>
+ * Bağlantı {@link OracleTestSchema} ile kurulur. Küçük bir test tablosunda da üretimdeki planı
+ * görmek için tablo istatistikleri büyük bir tablo gibi ayarlanır. Sorgular
+ * {@link TransactionSpecifications#search} ile üretilenlerle aynı WHERE ve ORDER BY biçimindedir.
+ */
+@EnabledIfEnvironmentVariable(named = OracleTestSchema.URL_VARIABLE, matches = ".+")
+class TransactionSearchPlanTest {
+
+    private static final String PAGE = " ORDER BY t.created_at DESC, t.id DESC FETCH FIRST 21 ROWS ONLY";
+
+    @Test
+    void userOnlyUsesTheUserIndex() throws SQLException {
+        assertPlan("t.user_id = 7", "IDX_TRANSACTIONS_USER_CREATED");
+    }
+
+    @Test
+    void walletUsesTheWalletIndex() throws SQLException {
+        assertPlan("t.user_id = 7 AND t.wallet_id = 3", "IDX_TRANSACTIONS_WALLET_CREATED");
+    }
+
+    @Test
+    void relatedUserUsesTheRelatedIndex() throws SQLException {
+        assertPlan("t.user_id = 7 AND t.related_user_id = 9", "IDX_TRANSACTIONS_USER_RELATED");
+    }
+
+    @Test
+    void typeUsesTheTypeIndex() throws SQLException {
+        assertPlan("t.user_id = 7 AND t.type IN ('DEPOSIT')", "IDX_TRANSACTIONS_USER_TYPE_CREATED");
+    }
+
+    @Test
+    void currencyAmountAndDatesReadTheUserIndexRange() throws SQLException {
+        assertPlan("t.user_id = 7 AND t.currency = 'TRY' AND t.amount >= 10 AND t.amount <= 500"
+                        + " AND t.created_at >= TIMESTAMP '2026-01-01 00:00:00'"
+                        + " AND t.created_at <= TIMESTAMP '2026-02-01 00:00:00'",
+                "IDX_TRANSACTIONS_USER_CREATED");
+    }
+
+    @Test
+    void seekPositionKeepsTheIndexRange() throws SQLException {
+        assertPlan("t.user_id = 7 AND t.wallet_id = 3"
+                        + " AND t.created_at <= TIMESTAMP '2026-01-15 12:00:00'"
+                        + " AND (t.created_at < TIMESTAMP '2026-01-15 12:00:00' OR t.id < 42)",
+                "IDX_TRANSACTIONS_WALLET_CREATED");
+    }
+
+    private static void assertPlan(String where, String expectedIndex) throws SQLException {
+        List<String> plan = explain("SELECT t.* FROM transactions t WHERE " + where + PAGE);
+
+        assertTrue(plan.stream().noneMatch(step -> step.startsWith("TABLE ACCESS FULL TRANSACTIONS")),
+                () -> "full scan of transactions: " + plan);
+        assertTrue(plan.stream().anyMatch(step -> step.startsWith("INDEX") && step.endsWith(" " + expectedIndex)),
+                () -> "expected a read of " + expectedIndex + ": " + plan);
+    }
+
+    /**
+     * Planın adımları, "OPERATION OPTIONS OBJECT" biçiminde
+     */
+    private static List<String> explain(String sql) throws SQLException {
+        String statementId = UUID.randomUUID().toString().substring(0, 30);
+        try (Connection connection = OracleTestSchema.connect()) {
+            largeTableStatistics(connection);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + sql);
+            }
+
+            List<String> steps = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT operation, options, object_name FROM plan_table WHERE statement_id = ? ORDER BY id")) {
+                statement.setString(1, statementId);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        steps.add(String.join(" ", rows.getString(1),
+                                nullToEmpty(rows.getString(2)), nullToEmpty(rows.getString(3))).replaceAll(" +", " ").trim());
+                    }
+                }
+            }
+            // EXPLAIN PLAN satırları plan_table'a yazar, geri alınca silinir
+            connection.rollback();
+            return steps;
+        }
+    }
+
+    // Üretimdeki boyutlara yakın: 50 milyon satır, kullanıcı başına birkaç yüz işlem
+    private static void largeTableStatistics(Connection connection) throws SQLException {
+        try (CallableStatement statement = connection.prepareCall(
+                "BEGIN DBMS_STATS.SET_TABLE_STATS(ownname => USER, tabname => 'TRANSACTIONS',"
+                        + " numrows => 50000000, numblks => 1000000); END;")) {
+            statement.execute();
+        }
+        try (CallableStatement statement = connection.prepareCall(
+                "BEGIN DBMS_STATS.SET_COLUMN_STATS(ownname => USER, tabname => 'TRANSACTIONS',"
+                        + " colname => 'USER_ID', distcnt => 200000); END;")) {
+            statement.execute();
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,200 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.commondomain.response.SeekCursor;
+import com.toycell.servicetransaction.dto.TransactionSearchRequest;
+import com.toycell.servicetransaction.entity.Transaction;
+import jakarta.persistence.Column;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link TransactionSpecifications#search} yalnızca verilen süzgeçleri eklemeli ve her yaygın
+ * kombinasyonun eşitlik sütunları, ardından sıralama sütunları (created_at, id) ile başlayan bir
+ * indeks bulunmalı; böylece sorgu tam tablo taraması yerine indeks aralığı okur. Predicate'ler
+ * sahte bir CriteriaBuilder ile metin olarak kaydedilir, indeksler {@link Transaction} üzerindeki
+ * {@code @Index} tanımlarından okunur.
+ */
+class TransactionSpecificationsTest {
+
+    private static final long USER_ID = 7L;
+
+    @Test
+    void emptyFilterOnlyRestrictsTheUser() {
+        assertEquals(List.of("userId = 7"), predicates(TransactionSearchRequest.builder().build(), null));
+    }
+
+    @Test
+    void addsOnlyTheGivenFilters() {
+        TransactionSearchRequest filter = TransactionSearchRequest.builder()
+                .walletId(3L)
+                .currency(Currency.TRY)
+                .minAmount(new BigDecimal("10.00"))
+                .build();
+
+        assertEquals(List.of("userId = 7", "walletId = 3", "currency = TRY", "amount >= 10.00"), predicates(filter, null));
+    }
+
+    @Test
+    void addsEveryFilterAndTheSeekPosition() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 1, 0, 0);
+        LocalDateTime cursorTime = LocalDateTime.of(2026, 1, 15, 12, 0);
+        TransactionSearchRequest filter = new TransactionSearchRequest(3L, Set.of(TransactionType.DEPOSIT),
+                Currency.USD, new BigDecimal("1.00"), new BigDecimal("99.00"), start, end, 9L);
+
+        assertEquals(List.of(
+                "userId = 7",
+                "walletId = 3",
+                "relatedUserId = 9",
+                "type in [DEPOSIT]",
+                "currency = USD",
+                "amount >= 1.00",
+                "amount <= 99.00",
+                "createdAt >= " + start,
+                "createdAt <= " + end,
+                "createdAt <= " + cursorTime,
+                "(createdAt < " + cursorTime + " or id < 42)"
+        ), predicates(filter, new SeekCursor(cursorTime, 42L)));
+    }
+
+    @Test
+    void emptyTypeSetDoesNotFilter() {
+        TransactionSearchRequest filter = TransactionSearchRequest.builder().types(Set.of()).build();
+
+        assertEquals(List.of("userId = 7"), predicates(filter, null));
+    }
+
+    @Test
+    void everyCommonCombinationHasAnIndexLedByItsEqualityColumns() {
+        List<List<String>> indexes = indexColumns();
+
+        // (eşitlik sütunları, süzgeç) — sonuç her zaman (created_at, id) azalan sırayla sayfalanır
+        assertIndexed(indexes, TransactionSearchRequest.builder().build(), List.of("user_id"));
+        assertIndexed(indexes, TransactionSearchRequest.builder().walletId(3L).build(), List.of("user_id", "wallet_id"));
+        assertIndexed(indexes, TransactionSearchRequest.builder().relatedUserId(9L).build(), List.of("user_id", "related_user_id"));
+        assertIndexed(indexes, TransactionSearchRequest.builder().types(Set.of(TransactionType.DEPOSIT)).build(),
+                List.of("user_id", "type"));
+        assertIndexed(indexes, TransactionSearchRequest.builder().currency(Currency.TRY)
+                .startDate(LocalDateTime.of(2026, 1, 1, 0, 0)).build(), List.of("user_id"));
+    }
+
+    private static void assertIndexed(List<List<String>> indexes, TransactionSearchRequest filter, List<String> equalityColumns) {
+        // Süzgecin gerçekten bu sütunlarda eşitlik ürettiğini doğrula
+        List<String> equalities = predicates(filter, null).stream()
+                .filter(predicate -> predicate.contains(" = ") || predicate.contains(" in "))
+                .map(predicate -> columnOf(predicate.substring(0, predicate.indexOf(' '))))
+                // Para birimi indeks aralığından okunan satırlarda süzülür
+                .filter(column -> !column.equals("currency"))
+                .toList();
+        assertEquals(equalityColumns, equalities);
+
+        List<String> expected = new ArrayList<>(equalityColumns);
+        expected.addAll(List.of("created_at", "id"));
+        assertTrue(indexes.stream().anyMatch(index -> index.size() >= expected.size()
+                        && index.subList(0, expected.size()).equals(expected)),
+                () -> "no index starts with " + expected + ", indexes: " + indexes);
+    }
+
+    private static List<List<String>> indexColumns() {
+        Index[] indexes = Transaction.class.getAnnotation(Table.class).indexes();
+        return Arrays.stream(indexes)
+                .map(index -> Arrays.stream(index.columnList().split(",")).map(String::trim).toList())
+                .toList();
+    }
+
+    private static String columnOf(String attribute) {
+        for (Class<?> type = Transaction.class; type != Object.class; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(attribute);
+                Column column = field.getAnnotation(Column.class);
+                return column != null && !column.name().isEmpty() ? column.name() : attribute;
+            } catch (NoSuchFieldException e) {
+                // Üst sınıfta ara (BaseEntity: id, createdAt)
+            }
+        }
+        throw new IllegalArgumentException("Unknown attribute " + attribute);
+    }
+
+    /**
+     * Specification'ın AND ile birleştirdiği predicate'ler, eklenme sırasıyla
+     */
+    private static List<String> predicates(TransactionSearchRequest filter, SeekCursor position) {
+        List<String> conjuncts = new ArrayList<>();
+        Root<Transaction> root = criteria(Root.class, "root", conjuncts);
+        CriteriaBuilder cb = criteria(CriteriaBuilder.class, "cb", conjuncts);
+        CriteriaQuery<?> query = criteria(CriteriaQuery.class, "query", conjuncts);
+
+        Predicate predicate = TransactionSpecifications.search(USER_ID, filter, position).toPredicate(root, query, cb);
+        assertEquals("and", predicate.toString());
+        return conjuncts;
+    }
+
+    /**
+     * Criteria API nesnelerini taklit eder: her ifade kendi metnini taşır, {@code and} parçalarını kaydeder.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T criteria(Class<?> type, String label, List<String> conjuncts) {
+        Class<?>[] interfaces = type == Root.class || type == CriteriaBuilder.class || type == CriteriaQuery.class
+                ? new Class<?>[]{type}
+                : new Class<?>[]{Path.class, Predicate.class};
+        return (T) Proxy.newProxyInstance(TransactionSpecificationsTest.class.getClassLoader(), interfaces,
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (name) {
+                            case "toString" -> label;
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> proxy == args[0];
+                        };
+                    }
+                    return switch (name) {
+                        case "get" -> criteria(Predicate.class, (String) args[0], conjuncts);
+                        case "equal" -> criteria(Predicate.class, args[0] + " = " + args[1], conjuncts);
+                        case "greaterThanOrEqualTo" -> criteria(Predicate.class, args[0] + " >= " + args[1], conjuncts);
+                        case "lessThanOrEqualTo" -> criteria(Predicate.class, args[0] + " <= " + args[1], conjuncts);
+                        case "lessThan" -> criteria(Predicate.class, args[0] + " < " + args[1], conjuncts);
+                        case "in" -> criteria(Predicate.class, label + " in " + sorted(args[0]), conjuncts);
+                        case "or" -> criteria(Predicate.class, operands(args).stream()
+                                .collect(Collectors.joining(" or ", "(", ")")), conjuncts);
+                        case "and" -> {
+                            conjuncts.addAll(operands(args));
+                            yield criteria(Predicate.class, "and", conjuncts);
+                        }
+                        default -> throw new UnsupportedOperationException(name);
+                    };
+                });
+    }
+
+    // and/or: hem iki argümanlı hem de varargs biçimi
+    private static List<String> operands(Object[] args) {
+        Object[] operands = args.length == 1 && args[0] instanceof Object[] array ? array : args;
+        return Arrays.stream(operands).map(String::valueOf).toList();
+    }
+
+    private static String sorted(Object values) {
+        Collection<?> collection = values instanceof Collection<?> c ? c : Arrays.asList((Object[]) values);
+        return collection.stream().map(String::valueOf).sorted().toList().toString();
+    }
+}
@@ -0,0 +1,131 @@
+package com.toycell.servicetransaction.repository;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.servicetransaction.repository.UserTransactionStatsRepositoryCustom.StatsDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link UserTransactionStatsRepositoryImpl}'in SQL'i Oracle'da: aynı anahtara tekrarlanan artışlar
+ * toplanır ve {@code reconcileUser} her iki kipte de {@code transactions} tablosundan yeniden
+ * hesaplanan toplamlarla karşılaştırır. Bkz. {@link OracleTestSchema}.
+ */
+@EnabledIfEnvironmentVariable(named = OracleTestSchema.URL_VARIABLE, matches = ".+")
+class UserTransactionStatsRepositoryImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 10, 15);
+
+    private Connection connection;
+    private UserTransactionStatsRepositoryImpl repository;
+    private long userId;
+
+    @BeforeEach
+    void connect() throws SQLException {
+        connection = OracleTestSchema.connect();
+        repository = OracleTestSchema.withConnection(new UserTransactionStatsRepositoryImpl(), connection);
+        userId = OracleTestSchema.newUserId();
+    }
+
+    @AfterEach
+    void rollback() throws SQLException {
+        connection.rollback();
+        connection.close();
+    }
+
+    @Test
+    void applyingDeltasTwiceForTheSameKeyAddsBoth() throws SQLException {
+        repository.applyDeltas(List.of(delta(TransactionType.DEPOSIT, 1, "10.00")));
+        repository.applyDeltas(List.of(delta(TransactionType.DEPOSIT, 2, "5.50")));
+
+        assertEquals(Map.of("DEPOSIT|TRY", "3|15.50"), storedTotals());
+    }
+
+    @Test
+    void sameKeyTwiceInOneCallAddsBoth() throws SQLException {
+        repository.applyDeltas(List.of(
+                delta(TransactionType.DEPOSIT, 1, "10.00"),
+                delta(TransactionType.DEPOSIT, 1, "10.00"),
+                delta(TransactionType.WITHDRAWAL, 1, "4.00")));
+
+        assertEquals(Map.of("DEPOSIT|TRY", "2|20.00", "WITHDRAWAL|TRY", "1|4.00"), storedTotals());
+    }
+
+    @Test
+    void checkCountsMismatchesAndLeavesTotalsAlone() throws SQLException {
+        recordTransactionsWithDriftedStats();
+
+        // DEPOSIT bir işlem eksik, WITHDRAWAL satırı hiç yok (sıfır olarak eklenir)
+        assertEquals(2, repository.reconcileUser(userId, false));
+        assertEquals(Map.of("DEPOSIT|TRY", "1|10.00", "WITHDRAWAL|TRY", "0|0.00"), storedTotals());
+    }
+
+    @Test
+    void repairWritesTheRecomputedTotals() throws SQLException {
+        recordTransactionsWithDriftedStats();
+
+        assertEquals(2, repository.reconcileUser(userId, true));
+        assertEquals(recomputedTotals(), storedTotals());
+        assertEquals(Map.of("DEPOSIT|TRY", "2|30.00", "WITHDRAWAL|TRY", "1|5.00"), storedTotals());
+
+        assertEquals(0, repository.reconcileUser(userId, false));
+    }
+
+    @Test
+    void consistentTotalsNeedNoRepair() throws SQLException {
+        OracleTestSchema.insertTransaction(connection, userId, "DEPOSIT", "USD", "7.25", NOW);
+        repository.applyDeltas(List.of(new StatsDelta(userId, TransactionType.DEPOSIT, Currency.USD, 1, new BigDecimal("7.25"))));
+
+        assertEquals(0, repository.reconcileUser(userId, false));
+        assertEquals(0, repository.reconcileUser(userId, true));
+        assertEquals(recomputedTotals(), storedTotals());
+    }
+
+    private void recordTransactionsWithDriftedStats() throws SQLException {
+        OracleTestSchema.insertTransaction(connection, userId, "DEPOSIT", "TRY", "10.00", NOW);
+        OracleTestSchema.insertTransaction(connection, userId, "DEPOSIT", "TRY", "20.00", NOW);
+        OracleTestSchema.insertTransaction(connection, userId, "WITHDRAWAL", "TRY", "5.00", NOW);
+        repository.applyDeltas(List.of(delta(TransactionType.DEPOSIT, 1, "10.00")));
+    }
+
+    private StatsDelta delta(TransactionType type, long count, String amount) {
+        return new StatsDelta(userId, type, Currency.TRY, count, new BigDecimal(amount));
+    }
+
+    // "tür|para birimi" → "adet|tutar"
+    private Map<String, String> storedTotals() throws SQLException {
+        return totals("SELECT type, currency, tx_count, total_amount FROM user_transaction_stats WHERE user_id = ?");
+    }
+
+    private Map<String, String> recomputedTotals() throws SQLException {
+        return totals("SELECT type, currency, COUNT(*), SUM(amount) FROM transactions WHERE user_id = ? GROUP BY type, currency");
+    }
+
+    private Map<String, String> totals(String sql) throws SQLException {
+        Map<String, String> totals = new TreeMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getString(1) + "|" + rs.getString(2),
+                            rs.getLong(3) + "|" + rs.getBigDecimal(4).setScale(2));
+                }
+            }
+        }
+        return totals;
+    }
+}
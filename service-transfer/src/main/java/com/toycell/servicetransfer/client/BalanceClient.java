@@ -1,9 +1,15 @@
 package com.toycell.servicetransfer.client;
 
 import com.toycell.commondomain.response.ApiResponse;
+import com.toycell.commondomain.security.ServiceCredential;
+import com.toycell.servicetransfer.dto.client.BatchTransferInternalRequest;
+import com.toycell.servicetransfer.dto.client.BatchTransferInternalResponse;
 import com.toycell.servicetransfer.dto.client.DepositRequest;
+import com.toycell.servicetransfer.dto.client.TransferInternalRequest;
+import com.toycell.servicetransfer.dto.client.TransferInternalResponse;
 import com.toycell.servicetransfer.dto.client.WalletResponse;
 import com.toycell.servicetransfer.dto.client.WithdrawRequest;
+import feign.Request;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,8 +20,11 @@ import org.springframework.web.bind.annotation.*;
 )
 public interface BalanceClient {
 
+    /**
+     * {@code options} bounds this call's connect and read timeouts, overriding the client defaults
+     */
     @GetMapping("/api/wallets/{walletId}")
-    ApiResponse<WalletResponse> getWallet(@PathVariable("walletId") Long walletId);
+    ApiResponse<WalletResponse> getWallet(@PathVariable("walletId") Long walletId, Request.Options options);
 
     @GetMapping("/api/wallets/internal/{walletId}")
     ApiResponse<WalletResponse> getWalletInternal(@PathVariable("walletId") Long walletId);
@@ -31,4 +40,15 @@ public interface BalanceClient {
 
     @PostMapping("/api/wallets/internal/withdraw")
     ApiResponse<WalletResponse> withdrawInternal(@RequestBody WithdrawRequest request);
+
+    /**
+     * service-balance takes the sender from the signed credential, not from the request body
+     */
+    @PostMapping("/api/wallets/internal/transfer")
+    ApiResponse<TransferInternalResponse> transferInternal(@RequestHeader(ServiceCredential.HEADER) String serviceCredential,
+                                                           @RequestBody TransferInternalRequest request);
+
+    @PostMapping("/api/wallets/internal/transfer/batch")
+    ApiResponse<BatchTransferInternalResponse> transferInternalBatch(@RequestHeader(ServiceCredential.HEADER) String serviceCredential,
+                                                                     @RequestBody BatchTransferInternalRequest request);
 }
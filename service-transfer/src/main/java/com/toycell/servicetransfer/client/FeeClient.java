@@ -2,12 +2,21 @@ package com.toycell.servicetransfer.client;
 
 import com.toycell.commondomain.enums.Currency;
 import com.toycell.commondomain.response.ApiResponse;
+import com.toycell.servicetransfer.dto.client.FeeBatchCalculationRequest;
 import com.toycell.servicetransfer.dto.client.FeeResponse;
+import com.toycell.servicetransfer.dto.client.FeeRuleSnapshot;
+import feign.Request;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @FeignClient(
         name = "fee-service",
@@ -16,9 +25,31 @@ import java.math.BigDecimal;
 )
 public interface FeeClient {
 
+    /**
+     * With {@code userId}, volume-tiered rules are priced for that sender.
+     * {@code options} bounds this call's connect and read timeouts.
+     */
     @GetMapping("/api/fees/calculate/transfer")
     ApiResponse<FeeResponse> calculateTransferFee(
             @RequestParam("amount") BigDecimal amount,
-            @RequestParam("currency") Currency currency
+            @RequestParam("currency") Currency currency,
+            @RequestParam(value = "userId", required = false) Long userId,
+            Request.Options options
+    );
+
+    /**
+     * Quotes up to 10000 amounts in one call; results come back in request order.
+     * {@code options} bounds this call's connect and read timeouts.
+     */
+    @PostMapping("/api/fees/calculate/batch")
+    ApiResponse<List<FeeResponse>> calculateTransferFees(@RequestBody FeeBatchCalculationRequest request,
+                                                         Request.Options options);
+
+    /**
+     * Active rule set; answers 304 when {@code ifNoneMatch} carries the current version.
+     */
+    @GetMapping("/api/fees/rules/snapshot")
+    ResponseEntity<ApiResponse<FeeRuleSnapshot>> getRuleSnapshot(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     );
 }
@@ -1,8 +1,17 @@
 package com.toycell.servicetransfer.client;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toycell.commondomain.security.InternalIdentity;
+import com.toycell.commonexception.dto.ErrorResponse;
+import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commonexception.exception.BusinessException;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import feign.ResponseInterceptor;
+import feign.codec.ErrorDecoder;
+import com.toycell.servicetransfer.service.FeeRuleCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.Authentication;
@@ -10,6 +19,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
 @Configuration
 @Slf4j
 public class FeignClientConfig {
@@ -19,7 +32,7 @@ public class FeignClientConfig {
         return new RequestInterceptor() {
             @Override
             public void apply(RequestTemplate template) {
-                // JWT token'ı diğer servislere ilet
+                // JWT token'ı ve gateway'in imzaladığı kimlik başlığını diğer servislere ilet
                 ServletRequestAttributes attributes = 
                         (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
                 
@@ -29,8 +42,69 @@ public class FeignClientConfig {
                         template.header("Authorization", authorizationHeader);
                         log.debug("Forwarding Authorization header to: {}", template.url());
                     }
+                    String identityHeader = attributes.getRequest().getHeader(InternalIdentity.HEADER);
+                    if (identityHeader != null) {
+                        template.header(InternalIdentity.HEADER, identityHeader);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * service-fee'nin yanıtlarda bildirdiği kural seti sürümünü yerel ücret önbelleğine iletir;
+     * daha yeni bir sürüm görülürse önbellek hemen yenilenir.
+     */
+    @Bean
+    public ResponseInterceptor feeRulesVersionInterceptor(ObjectProvider<FeeRuleCache> feeRuleCache) {
+        return (context, chain) -> {
+            Collection<String> versions = context.response().headers().get(FeeRuleCache.FEE_RULES_VERSION_HEADER);
+            if (versions != null && !versions.isEmpty()) {
+                try {
+                    long version = Long.parseLong(versions.iterator().next().trim());
+                    feeRuleCache.ifAvailable(cache -> cache.onVersionAdvertised(version));
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring malformed {} header", FeeRuleCache.FEE_RULES_VERSION_HEADER);
+                }
+            }
+            return chain.next(context);
+        };
+    }
+
+    /**
+     * Downstream servislerin döndürdüğü ErrorResponse'u BusinessException'a çevirir,
+     * böylece INSUFFICIENT_BALANCE gibi hata kodları çağırana aynen ulaşır.
+     */
+    @Bean
+    public ErrorDecoder errorDecoder(ObjectMapper objectMapper) {
+        ErrorDecoder defaultDecoder = new ErrorDecoder.Default();
+        return (methodKey, response) -> {
+            if (response.status() >= 400 && response.status() < 500 && response.body() != null) {
+                try (InputStream body = response.body().asInputStream()) {
+                    ErrorResponse error = objectMapper.readValue(body, ErrorResponse.class);
+                    ErrorCode errorCode = findErrorCode(error.getErrorCode());
+                    if (errorCode != null) {
+                        return error.getDetails() != null
+                                ? new BusinessException(errorCode, error.getDetails())
+                                : new BusinessException(errorCode);
+                    }
+                } catch (IOException e) {
+                    log.debug("Could not read error body from {}: {}", methodKey, e.getMessage());
                 }
             }
+            return defaultDecoder.decode(methodKey, response);
         };
     }
+
+    private static ErrorCode findErrorCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            if (errorCode.getCode().equals(code)) {
+                return errorCode;
+            }
+        }
+        return null;
+    }
 }
@@ -1,10 +1,18 @@
 package com.toycell.servicetransfer.client;
 
 import com.toycell.commondomain.response.ApiResponse;
+import com.toycell.commondomain.security.ServiceCredential;
+import com.toycell.servicetransfer.dto.client.TransactionBatchRequest;
 import com.toycell.servicetransfer.dto.client.TransactionRequest;
+import com.toycell.servicetransfer.dto.client.TransactionResponse;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+import java.util.List;
 
 @FeignClient(
         name = "transaction-service",
@@ -15,4 +23,14 @@ public interface TransactionClient {
 
     @PostMapping("/api/transactions")
     ApiResponse<Object> createTransaction(@RequestBody TransactionRequest request);
+
+    /**
+     * Requires the signed service credential; users cannot write records through this endpoint
+     */
+    @PostMapping("/api/transactions/batch")
+    ApiResponse<List<TransactionResponse>> createTransactions(@RequestHeader(ServiceCredential.HEADER) String serviceCredential,
+                                                              @RequestBody TransactionBatchRequest request);
+
+    @GetMapping("/api/transactions/reference/{referenceId}")
+    ApiResponse<List<TransactionResponse>> getTransactionsByReference(@PathVariable("referenceId") String referenceId);
 }
@@ -0,0 +1,59 @@
+package com.toycell.servicetransfer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded executor for the remote pre-flight calls of a transfer.
+ * Worker threads inherit the caller's request attributes and security context,
+ * so FeignClientConfig can keep forwarding the Authorization header.
+ */
+@Configuration
+public class PreflightExecutorConfig {
+
+    @Bean(name = "transferPreflightExecutor")
+    public ThreadPoolTaskExecutor transferPreflightExecutor(
+            @Value("${transfer.preflight.pool-size:16}") int poolSize,
+            @Value("${transfer.preflight.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transfer-preflight-");
+        executor.setTaskDecorator(contextPropagatingDecorator());
+        // When saturated, run on the request thread instead of failing the transfer
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    private TaskDecorator contextPropagatingDecorator() {
+        return task -> {
+            RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+            SecurityContext securityContext = SecurityContextHolder.getContext();
+
+            return () -> {
+                RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+                SecurityContext previousContext = SecurityContextHolder.getContext();
+                try {
+                    RequestContextHolder.setRequestAttributes(requestAttributes);
+                    SecurityContextHolder.setContext(securityContext);
+                    task.run();
+                } finally {
+                    RequestContextHolder.setRequestAttributes(previousAttributes);
+                    SecurityContextHolder.setContext(previousContext);
+                }
+            };
+        };
+    }
+}
@@ -1,12 +1,17 @@
 package com.toycell.servicetransfer.controller;
 
+import com.toycell.commondomain.enums.TransactionStatus;
 import com.toycell.commondomain.response.ApiResponse;
+import com.toycell.servicetransfer.dto.BatchTransferRequest;
+import com.toycell.servicetransfer.dto.BatchTransferResponse;
+import com.toycell.servicetransfer.dto.TransferRecordsResponse;
 import com.toycell.servicetransfer.dto.TransferRequest;
 import com.toycell.servicetransfer.dto.TransferResponse;
 import com.toycell.servicetransfer.service.TransferService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -35,10 +40,44 @@ public class TransferController {
                 request.getSenderWalletId(), request.getReceiverWalletId());
 
         TransferResponse response = transferService.transfer(request, userId);
+        if (response.getStatus() == TransactionStatus.PENDING) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(
+                    "Transfer outcome pending, check by reference ID",
+                    response
+            ));
+        }
         
         return ResponseEntity.ok(ApiResponse.success(
                 "Transfer completed successfully",
                 response
         ));
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchTransferResponse>> batchTransfer(
+            @Valid @RequestBody BatchTransferRequest request,
+            Authentication authentication) {
+
+        Long userId = (Long) authentication.getPrincipal();
+        log.info("Batch transfer request from user {}: {} items in {} from wallet {}",
+                userId, request.getItems().size(), request.getCurrency(), request.getSenderWalletId());
+
+        BatchTransferResponse response = transferService.batchTransfer(request, userId);
+
+        return ResponseEntity.ok(ApiResponse.success(
+                "Batch transfer processed",
+                response
+        ));
+    }
+
+    @GetMapping("/{referenceId}/records")
+    public ResponseEntity<ApiResponse<TransferRecordsResponse>> getTransferRecords(
+            @PathVariable String referenceId,
+            Authentication authentication) {
+
+        Long userId = (Long) authentication.getPrincipal();
+        TransferRecordsResponse response = transferService.getTransferRecords(referenceId, userId);
+
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
 }
@@ -0,0 +1,51 @@
+package com.toycell.servicetransfer.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+
+    @NotNull(message = "Sender wallet ID is required")
+    private Long senderWalletId;
+
+    @NotNull(message = "Currency is required")
+    private Currency currency;
+
+    private String description;
+
+    @Valid
+    @NotEmpty(message = "At least one transfer item is required")
+    @Size(max = 50000, message = "At most 50000 transfer items per batch")
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        @NotNull(message = "Receiver wallet ID is required")
+        private Long receiverWalletId;
+
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+        private BigDecimal amount;
+
+        private String description;
+    }
+}
@@ -0,0 +1,45 @@
+package com.toycell.servicetransfer.dto;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+
+    private String batchReferenceId;
+    private Long senderWalletId;
+    private Currency currency;
+    private int requestedCount;
+    private int successCount;
+    private int failedCount;
+    private BigDecimal totalAmount;
+    private BigDecimal totalFee;
+    private LocalDateTime transferDate;
+    private List<ItemResult> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private Long receiverWalletId;
+        private BigDecimal amount;
+        private BigDecimal feeAmount;
+        private String referenceId;
+        private TransactionStatus status;
+        private String errorCode;
+        private String message;
+    }
+}
@@ -0,0 +1,19 @@
+package com.toycell.servicetransfer.dto;
+
+import com.toycell.commondomain.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferRecordsResponse {
+
+    private String referenceId;
+    private TransactionStatus recordStatus;
+    private Long senderTransactionId;
+    private Long receiverTransactionId;
+}
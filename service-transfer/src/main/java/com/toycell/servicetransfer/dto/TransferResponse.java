@@ -1,6 +1,7 @@
 package com.toycell.servicetransfer.dto;
 
 import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,7 +16,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class TransferResponse {
 
-    private Long transferId;
+    private String transferId; // same as referenceId, the transfer's only identifier
+    private String referenceId;
     private Long senderWalletId;
     private Long receiverWalletId;
     private BigDecimal amount;
@@ -26,4 +28,6 @@ public class TransferResponse {
     private LocalDateTime transferDate;
     private Long senderTransactionId;
     private Long receiverTransactionId;
+    private TransactionStatus status; // PENDING while the balance outcome is being reconciled
+    private TransactionStatus recordStatus; // PENDING until service-transaction assigns the ids
 }
@@ -0,0 +1,34 @@
+package com.toycell.servicetransfer.dto.client;
+
+import com.toycell.commondomain.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferInternalRequest {
+    private Long senderUserId;
+    private Long senderWalletId;
+    private Currency currency;
+    private String senderDescription;
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long receiverWalletId;
+        private BigDecimal amount;
+        private BigDecimal fee;
+        private String receiverDescription;
+        private String referenceId;
+    }
+}
@@ -0,0 +1,28 @@
+package com.toycell.servicetransfer.dto.client;
+
+import com.toycell.commondomain.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeBatchCalculationRequest {
+    private List<Item> items;
+    private boolean includeDetails;
+    private Long userId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private BigDecimal amount;
+        private Currency currency;
+    }
+}
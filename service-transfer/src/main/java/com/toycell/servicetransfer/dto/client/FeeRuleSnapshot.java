@@ -0,0 +1,36 @@
+package com.toycell.servicetransfer.dto.client;
+
+import com.toycell.commondomain.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeRuleSnapshot {
+    private Long version;
+    private List<Rule> rules;
+    private Rule defaultRule;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rule {
+        private Long id;
+        private Currency currency;
+        private BigDecimal minAmount;
+        private BigDecimal maxAmount;
+        private BigDecimal minMonthlyVolume;
+        private BigDecimal feePercentage;
+        private BigDecimal fixedFee;
+        private BigDecimal minFee;
+        private BigDecimal maxFee;
+        private Integer rulePriority;
+    }
+}
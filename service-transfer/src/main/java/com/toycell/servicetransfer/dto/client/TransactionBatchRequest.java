@@ -0,0 +1,16 @@
+package com.toycell.servicetransfer.dto.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchRequest {
+    private List<TransactionRequest> transactions;
+}
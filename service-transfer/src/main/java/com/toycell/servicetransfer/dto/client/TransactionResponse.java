@@ -0,0 +1,24 @@
+package com.toycell.servicetransfer.dto.client;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionResponse {
+    private Long id;
+    private Long userId;
+    private Long walletId;
+    private TransactionType type;
+    private BigDecimal amount;
+    private Currency currency;
+    private String referenceId;
+}
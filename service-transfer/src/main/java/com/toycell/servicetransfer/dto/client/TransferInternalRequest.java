@@ -0,0 +1,25 @@
+package com.toycell.servicetransfer.dto.client;
+
+import com.toycell.commondomain.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferInternalRequest {
+    private Long senderUserId;
+    private Long senderWalletId;
+    private Long receiverWalletId;
+    private BigDecimal amount;
+    private BigDecimal fee;
+    private Currency currency;
+    private String senderDescription;
+    private String receiverDescription;
+    private String referenceId;
+}
@@ -0,0 +1,33 @@
+package com.toycell.servicetransfer.dto.client;
+
+import com.toycell.commondomain.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferInternalResponse {
+    private String referenceId;
+    private Currency currency;
+    private BigDecimal amount;
+    private BigDecimal fee;
+    private BigDecimal totalAmount;
+
+    private Long senderWalletId;
+    private Long senderUserId;
+    private BigDecimal senderBalanceBefore;
+    private BigDecimal senderBalanceAfter;
+    private Long senderTransactionId;
+
+    private Long receiverWalletId;
+    private Long receiverUserId;
+    private BigDecimal receiverBalanceBefore;
+    private BigDecimal receiverBalanceAfter;
+    private Long receiverTransactionId;
+}
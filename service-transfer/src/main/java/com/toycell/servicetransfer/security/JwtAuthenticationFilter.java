@@ -1,5 +1,6 @@
 package com.toycell.servicetransfer.security;
 
+import com.toycell.commondomain.security.InternalIdentity;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +25,7 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenValidator jwtTokenValidator;
+    private final IdentityHeaderVerifier identityHeaderVerifier;
 
     @Override
     protected void doFilterInternal(
@@ -34,9 +36,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         log.debug("Processing request to: {}", request.getRequestURI());
 
         try {
+            InternalIdentity identity = identityHeaderVerifier.verify(request);
+            if (identity != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                identity.userId(),
+                                null,
+                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                        );
+
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                log.debug("Set authentication from gateway identity for user ID: {}", identity.userId());
+            }
+
             String jwt = extractJwtFromRequest(request);
             
-            if (jwt != null && jwtTokenValidator.validateToken(jwt) != null) {
+            if (identity == null && jwt != null && jwtTokenValidator.validateToken(jwt) != null) {
                 Long userId = jwtTokenValidator.getUserIdFromToken(jwt);
                 
                 UsernamePasswordAuthenticationToken authentication = 
@@ -50,7 +67,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 
                 log.debug("Set authentication for user ID: {}", userId);
-            } else {
+            } else if (identity == null) {
                 log.debug("No valid JWT token found in request");
             }
         } catch (Exception e) {
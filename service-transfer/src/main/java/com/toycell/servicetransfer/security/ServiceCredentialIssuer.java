@@ -0,0 +1,39 @@
+package com.toycell.servicetransfer.security;
+
+import com.toycell.commondomain.security.InternalIdentity;
+import com.toycell.commondomain.security.ServiceCredential;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Signs the short-lived {@value ServiceCredential#HEADER} credential this service sends to the
+ * internal endpoints of service-balance and service-transaction. Startup fails without a private
+ * {@code internal.service.secret}, since every transfer depends on it.
+ */
+@Component
+public class ServiceCredentialIssuer {
+
+    private static final String SERVICE = "service-transfer";
+
+    private final byte[] secret;
+    private final long ttlSeconds;
+
+    public ServiceCredentialIssuer(@Value("${internal.service.secret:}") String secret,
+                                   @Value("${internal.service.credential-ttl-seconds:60}") long ttlSeconds) {
+        this.secret = InternalIdentity.requireSecret(secret, ServiceCredential.SECRET_PROPERTY);
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String issue() {
+        return issue(null);
+    }
+
+    /**
+     * Credential for a call made for {@code userId}, whom this service has already authenticated
+     */
+    public String issue(Long userId) {
+        return ServiceCredential.issue(SERVICE, userId, secret, Instant.now().getEpochSecond(), ttlSeconds);
+    }
+}
@@ -0,0 +1,157 @@
+package com.toycell.servicetransfer.service;
+
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.fee.FeeArithmetic;
+import com.toycell.commondomain.fee.FeeRuleDefinition;
+import com.toycell.commondomain.fee.FeeRuleTable;
+import com.toycell.commondomain.response.ApiResponse;
+import com.toycell.servicetransfer.client.FeeClient;
+import com.toycell.servicetransfer.dto.client.FeeRuleSnapshot;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Local copy of service-fee's active rule set, so single transfers can price their fee
+ * in-process with the same table and arithmetic service-fee uses. The copy is revalidated
+ * with {@code If-None-Match} every {@code refresh-ms}, and right away when a service-fee
+ * response advertises a newer version in {@value #FEE_RULES_VERSION_HEADER}. If it has not
+ * been revalidated for {@code max-staleness-ms} it is not used and callers fall back to
+ * {@link FeeClient}.
+ */
+@Slf4j
+@Component
+public class FeeRuleCache {
+
+    public static final String FEE_RULES_VERSION_HEADER = "X-Fee-Rules-Version";
+
+    private final FeeClient feeClient;
+    private final Executor refreshExecutor;
+    private final boolean enabled;
+    private final long maxStalenessNanos;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(long version,
+                            Map<Currency, FeeRuleTable> tables,
+                            FeeRuleDefinition defaultRule,
+                            long validatedAt) {
+
+        Snapshot revalidated() {
+            return new Snapshot(version, tables, defaultRule, System.nanoTime());
+        }
+    }
+
+    public FeeRuleCache(FeeClient feeClient,
+                        @Qualifier("transferPreflightExecutor") Executor refreshExecutor,
+                        @Value("${transfer.fee-cache.enabled:true}") boolean enabled,
+                        @Value("${transfer.fee-cache.max-staleness-ms:10000}") long maxStalenessMs) {
+        this.feeClient = feeClient;
+        this.refreshExecutor = refreshExecutor;
+        this.enabled = enabled;
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMs);
+    }
+
+    /**
+     * Returns the fee for {@code amount}, or null when the local rule set is missing or stale, or
+     * when the currency has volume-tiered rules (the sender's volume is only known to service-fee).
+     */
+    public BigDecimal quote(BigDecimal amount, Currency currency) {
+        Snapshot current = snapshot;
+        if (current == null || System.nanoTime() - current.validatedAt() > maxStalenessNanos) {
+            return null;
+        }
+
+        FeeRuleTable table = current.tables().get(currency);
+        if (table != null && table.hasVolumeTiers()) {
+            return null;
+        }
+        FeeRuleDefinition rule = table != null ? table.find(amount) : null;
+        return FeeArithmetic.calculate(amount, rule != null ? rule : current.defaultRule());
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.fee-cache.refresh-ms:2000}")
+    public void refresh() {
+        if (enabled) {
+            revalidate();
+        }
+    }
+
+    /**
+     * Called with the rule set version service-fee reported on any response.
+     */
+    public void onVersionAdvertised(long version) {
+        Snapshot current = snapshot;
+        if (!enabled || (current != null && version <= current.version()) || refreshing.get()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(this::revalidate);
+        } catch (RejectedExecutionException e) {
+            log.debug("Fee rule refresh not scheduled, executor busy; the periodic refresh will pick up version {}", version);
+        }
+    }
+
+    private void revalidate() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Snapshot current = snapshot;
+        try {
+            ResponseEntity<ApiResponse<FeeRuleSnapshot>> response =
+                    feeClient.getRuleSnapshot(current != null ? "\"" + current.version() + "\"" : null);
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                snapshot = current != null ? current.revalidated() : null;
+            } else if (response.getBody() != null && response.getBody().getData() != null) {
+                snapshot = compile(response.getBody().getData());
+            }
+        } catch (FeignException e) {
+            if (e.status() == HttpStatus.NOT_MODIFIED.value() && current != null) {
+                snapshot = current.revalidated();
+            } else {
+                log.warn("Fee rule snapshot refresh failed: {}", e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Fee rule snapshot refresh failed: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private Snapshot compile(FeeRuleSnapshot data) {
+        Map<Currency, List<FeeRuleDefinition>> byCurrency = new EnumMap<>(Currency.class);
+        for (FeeRuleSnapshot.Rule rule : data.getRules()) {
+            byCurrency.computeIfAbsent(rule.getCurrency(), currency -> new ArrayList<>()).add(toDefinition(rule));
+        }
+
+        Map<Currency, FeeRuleTable> tables = new EnumMap<>(Currency.class);
+        byCurrency.forEach((currency, rules) -> tables.put(currency, FeeRuleTable.compile(rules)));
+
+        log.info("Loaded fee rule set version {} ({} rules)", data.getVersion(), data.getRules().size());
+        return new Snapshot(data.getVersion(), Collections.unmodifiableMap(tables),
+                toDefinition(data.getDefaultRule()), System.nanoTime());
+    }
+
+    private static FeeRuleDefinition toDefinition(FeeRuleSnapshot.Rule rule) {
+        return FeeRuleDefinition.of(rule.getId(), rule.getMinAmount(), rule.getMaxAmount(), rule.getMinMonthlyVolume(),
+                rule.getFeePercentage(), rule.getFixedFee(), rule.getMinFee(), rule.getMaxFee(),
+                rule.getRulePriority() != null ? rule.getRulePriority() : 0);
+    }
+}
@@ -0,0 +1,271 @@
+package com.toycell.servicetransfer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toycell.servicetransfer.dto.client.TransactionRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Append-only file journal for transaction records that still have to reach service-transaction.
+ * <p>
+ * Every record is written as {@code A <seq> <json>} before it is queued and {@code C <seq>} once
+ * service-transaction has stored it. A record service-transaction refuses is first copied to the
+ * dead-letter file and then marked {@code D <seq>}. Records without a commit or dead-letter line
+ * survive a restart and are replayed. The file is truncated when nothing is pending and rewritten
+ * once it grows past {@code transfer.records.journal-compact-bytes}.
+ */
+@Component
+@Slf4j
+public class TransactionRecordJournal {
+
+    private static final String APPEND = "A";
+    private static final String COMMIT = "C";
+    private static final String DEAD_LETTER = "D";
+
+    private final Path path;
+    private final Path deadLetterPath;
+    private final boolean fsync;
+    private final long compactBytes;
+    private final ObjectMapper objectMapper;
+
+    private FileChannel channel;
+    private long nextSeq = 1;
+    private long pendingCount;
+
+    public TransactionRecordJournal(@Value("${transfer.records.journal-path:./data/transfer/transaction-records.journal}") String path,
+                                    @Value("${transfer.records.dead-letter-path:./data/transfer/transaction-records.dead}") String deadLetterPath,
+                                    @Value("${transfer.records.fsync:true}") boolean fsync,
+                                    @Value("${transfer.records.journal-compact-bytes:67108864}") long compactBytes,
+                                    ObjectMapper objectMapper) {
+        this.path = Paths.get(path).toAbsolutePath();
+        this.deadLetterPath = Paths.get(deadLetterPath).toAbsolutePath();
+        this.fsync = fsync;
+        this.compactBytes = compactBytes;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(path.getParent());
+        if (Files.exists(path)) {
+            compact();
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log.info("Transaction record journal opened at {} with {} pending records", path, pendingCount);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public synchronized List<Entry> append(List<TransactionRequest> records) throws IOException {
+        List<Entry> entries = new ArrayList<>(records.size());
+        StringBuilder lines = new StringBuilder();
+        long seq = nextSeq;
+        for (TransactionRequest record : records) {
+            lines.append(APPEND).append(' ').append(seq).append(' ')
+                    .append(objectMapper.writeValueAsString(record)).append('\n');
+            entries.add(new Entry(seq++, record));
+        }
+        write(lines);
+        nextSeq = seq;
+        pendingCount += records.size();
+        return entries;
+    }
+
+    public synchronized void commit(Collection<Long> seqs) throws IOException {
+        resolve(seqs, COMMIT);
+    }
+
+    /**
+     * Moves a record service-transaction refuses to the dead-letter file, one JSON line per record
+     * with its sequence number and the rejection reason, and only then takes it out of the journal.
+     */
+    public synchronized void deadLetter(Entry entry, String reason) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("seq", entry.seq());
+        line.put("deadAt", Instant.now().toString());
+        line.put("reason", reason);
+        line.put("record", entry.request());
+
+        Files.createDirectories(deadLetterPath.getParent());
+        try (FileChannel deadLetters = FileChannel.open(deadLetterPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap((objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                deadLetters.write(buffer);
+            }
+            deadLetters.force(false);
+        }
+        resolve(List.of(entry.seq()), DEAD_LETTER);
+    }
+
+    private void resolve(Collection<Long> seqs, String marker) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Long seq : seqs) {
+            lines.append(marker).append(' ').append(seq).append('\n');
+        }
+        write(lines);
+        pendingCount -= seqs.size();
+
+        if (pendingCount <= 0) {
+            pendingCount = 0;
+            channel.truncate(0);
+        } else if (channel.size() > compactBytes) {
+            channel.close();
+            compact();
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} uncommitted records, skipping the sequence numbers in {@code exclude}.
+     */
+    public synchronized List<Entry> readPending(Set<Long> exclude, int limit) throws IOException {
+        Set<Long> committed = readResolved();
+        List<Entry> entries = new ArrayList<>();
+        scan(line -> {
+            if (entries.size() >= limit || !line.startsWith(APPEND + " ")) {
+                return;
+            }
+            Entry entry = parseAppend(line);
+            if (entry != null && !committed.contains(entry.seq()) && !exclude.contains(entry.seq())) {
+                entries.add(entry);
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Uncommitted records, used to rebuild the pending view after a restart.
+     */
+    public synchronized List<TransactionRequest> pendingRequests() throws IOException {
+        return readPending(Set.of(), Integer.MAX_VALUE).stream()
+                .map(Entry::request)
+                .toList();
+    }
+
+    public synchronized long getPendingCount() {
+        return pendingCount;
+    }
+
+    private void write(StringBuilder lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Rewrites the journal with only the uncommitted records and recomputes the counters.
+     */
+    private void compact() throws IOException {
+        Set<Long> committed = readResolved();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long[] maxSeq = {nextSeq - 1};
+        long[] pending = {0};
+
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            scan(line -> {
+                if (!line.startsWith(APPEND + " ")) {
+                    return;
+                }
+                Entry entry = parseAppend(line);
+                if (entry == null) {
+                    return;
+                }
+                maxSeq[0] = Math.max(maxSeq[0], entry.seq());
+                if (!committed.contains(entry.seq())) {
+                    try {
+                        writer.write(line);
+                        writer.newLine();
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    pending[0]++;
+                }
+            });
+        }
+
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        nextSeq = maxSeq[0] + 1;
+        pendingCount = pending[0];
+    }
+
+    // Sequence numbers that were stored or dead-lettered
+    private Set<Long> readResolved() throws IOException {
+        Set<Long> committed = new HashSet<>();
+        scan(line -> {
+            if (line.startsWith(COMMIT + " ") || line.startsWith(DEAD_LETTER + " ")) {
+                try {
+                    committed.add(Long.parseLong(line.substring(2).trim()));
+                } catch (NumberFormatException e) {
+                    log.warn("Skipping malformed journal line: {}", line);
+                }
+            }
+        });
+        return committed;
+    }
+
+    private void scan(Consumer<String> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumer.accept(line);
+            }
+        }
+    }
+
+    private Entry parseAppend(String line) {
+        int separator = line.indexOf(' ', 2);
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            long seq = Long.parseLong(line.substring(2, separator));
+            TransactionRequest request = objectMapper.readValue(line.substring(separator + 1), TransactionRequest.class);
+            return new Entry(seq, request);
+        } catch (NumberFormatException | JsonProcessingException e) {
+            // A torn last line after a crash; the record was never acknowledged to the caller
+            log.warn("Skipping malformed journal line: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public record Entry(long seq, TransactionRequest request) {
+    }
+}
@@ -0,0 +1,356 @@
+package com.toycell.servicetransfer.service;
+
+import com.toycell.commondomain.enums.TransactionType;
+import com.toycell.commonexception.exception.BusinessException;
+import com.toycell.servicetransfer.client.TransactionClient;
+import com.toycell.servicetransfer.dto.client.TransactionBatchRequest;
+import com.toycell.servicetransfer.dto.client.TransactionRequest;
+import com.toycell.servicetransfer.dto.client.TransactionResponse;
+import com.toycell.servicetransfer.security.ServiceCredentialIssuer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves transaction-record writes off the transfer critical path.
+ * <p>
+ * Records are first appended to the {@link TransactionRecordJournal} and then handed to a bounded
+ * in-memory queue. A single flusher thread sends them to {@code POST /api/transactions/batch}
+ * when {@code batch-size} records are collected or {@code flush-interval-ms} elapses, retrying
+ * with exponential backoff until service-transaction accepts them. When the in-memory queue is
+ * full the records stay only in the journal and are picked up once the queue drains.
+ * <p>
+ * If service-transaction rejects a batch as invalid, the batch is split in halves and resent
+ * until the refused records are isolated; only those go to the journal's dead-letter file, so
+ * one bad record never loses the valid ones sent with it.
+ */
+@Service
+@Slf4j
+public class TransactionRecordQueue {
+
+    private final TransactionRecordJournal journal;
+    private final TransactionClient transactionClient;
+    private final ServiceCredentialIssuer serviceCredentials;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    private final BlockingQueue<TransactionRecordJournal.Entry> queue;
+    private final Set<Long> queuedSeqs = ConcurrentHashMap.newKeySet();
+    private final Map<String, PendingRecords> pendingByReference = new ConcurrentHashMap<>();
+    private final Map<String, TransferRecordIds> assignedIds;
+    private final Object enqueueLock = new Object();
+
+    private volatile boolean spilled;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public TransactionRecordQueue(TransactionRecordJournal journal,
+                                  TransactionClient transactionClient,
+                                  ServiceCredentialIssuer serviceCredentials,
+                                  @Value("${transfer.records.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${transfer.records.batch-size:200}") int batchSize,
+                                  @Value("${transfer.records.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${transfer.records.retry-initial-backoff-ms:500}") long initialBackoffMs,
+                                  @Value("${transfer.records.retry-max-backoff-ms:30000}") long maxBackoffMs,
+                                  @Value("${transfer.records.assigned-ids-cache-size:10000}") int assignedIdsCacheSize) {
+        this.journal = journal;
+        this.transactionClient = transactionClient;
+        this.serviceCredentials = serviceCredentials;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.assignedIds = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TransferRecordIds> eldest) {
+                return size() > assignedIdsCacheSize;
+            }
+        });
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        // Records left over from the previous run are reloaded by the flusher
+        journal.pendingRequests().forEach(record -> markPending(record, 1));
+        spilled = journal.getPendingCount() > 0;
+
+        running = true;
+        flusher = new Thread(this::run, "transaction-record-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Durably queues the records. Falls back to a synchronous call when the journal cannot be written.
+     */
+    public void enqueue(List<TransactionRequest> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        List<TransactionRecordJournal.Entry> entries;
+        synchronized (enqueueLock) {
+            try {
+                entries = journal.append(records);
+            } catch (IOException e) {
+                log.error("Transaction record journal write failed, sending {} records synchronously: {}",
+                        records.size(), e.getMessage());
+                sendSynchronously(records);
+                return;
+            }
+
+            for (TransactionRecordJournal.Entry entry : entries) {
+                markPending(entry.request(), 1);
+                queuedSeqs.add(entry.seq());
+                if (!queue.offer(entry)) {
+                    queuedSeqs.remove(entry.seq());
+                    spilled = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Users whose records of the transfer are still queued, or null when none are.
+     */
+    public Set<Long> getPendingUserIds(String referenceId) {
+        PendingRecords pending = pendingByReference.get(referenceId);
+        return pending != null ? pending.userIds() : null;
+    }
+
+    public TransferRecordIds getAssignedIds(String referenceId) {
+        return assignedIds.get(referenceId);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<TransactionRecordJournal.Entry> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    reloadSpilled();
+                    continue;
+                }
+                flushWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Transaction record flusher error: {}", e.getMessage(), e);
+            }
+        }
+        log.info("Transaction record flusher stopped, {} records left in journal", journal.getPendingCount());
+    }
+
+    private List<TransactionRecordJournal.Entry> nextBatch() throws InterruptedException {
+        List<TransactionRecordJournal.Entry> batch = new ArrayList<>(batchSize);
+        TransactionRecordJournal.Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            TransactionRecordJournal.Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void flushWithRetry(List<TransactionRecordJournal.Entry> batch) throws InterruptedException, IOException {
+        int attempt = 0;
+        while (true) {
+            try {
+                List<TransactionResponse> saved = send(batch);
+                complete(batch, saved);
+                return;
+            } catch (BusinessException e) {
+                if (isRejection(e)) {
+                    isolateRejected(batch, e);
+                    return;
+                }
+                if (!running) {
+                    return;
+                }
+                attempt = backoff(batch, attempt, e);
+            } catch (Exception e) {
+                if (!running) {
+                    // Left in the journal, replayed on next start
+                    return;
+                }
+                attempt = backoff(batch, attempt, e);
+            }
+        }
+    }
+
+    private int backoff(List<TransactionRecordJournal.Entry> batch, int attempt, Exception e) throws InterruptedException {
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt, 20));
+        backoff += ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        attempt++;
+        log.warn("Sending {} transaction records failed (attempt {}), retrying in {}ms: {}",
+                batch.size(), attempt, backoff, e.getMessage());
+        Thread.sleep(backoff);
+        return attempt;
+    }
+
+    /**
+     * service-transaction stores a batch in one transaction, so a rejected batch stored nothing.
+     * Halve it and resend each half until the refused records stand alone, then dead-letter them.
+     */
+    private void isolateRejected(List<TransactionRecordJournal.Entry> batch, BusinessException e)
+            throws InterruptedException, IOException {
+        if (batch.size() == 1) {
+            TransactionRecordJournal.Entry entry = batch.get(0);
+            journal.deadLetter(entry, e.getErrorCode().getCode() + " " + e.getMessage());
+            queuedSeqs.remove(entry.seq());
+            markPending(entry.request(), -1);
+            log.error("Transaction record {} rejected by service-transaction, moved to dead letters: {} ({})",
+                    entry.seq(), entry.request(), e.getMessage());
+            return;
+        }
+        int middle = batch.size() / 2;
+        flushWithRetry(new ArrayList<>(batch.subList(0, middle)));
+        flushWithRetry(new ArrayList<>(batch.subList(middle, batch.size())));
+    }
+
+    // Authentication and generic server errors are about the call, not about the records in it
+    private static boolean isRejection(BusinessException e) {
+        String code = e.getErrorCode().getCode();
+        return !code.startsWith("AUTH") && !code.startsWith("GEN");
+    }
+
+    private List<TransactionResponse> send(List<TransactionRecordJournal.Entry> batch) {
+        List<TransactionRequest> records = new ArrayList<>(batch.size());
+        batch.forEach(entry -> records.add(entry.request()));
+
+        var response = transactionClient.createTransactions(serviceCredentials.issue(), new TransactionBatchRequest(records));
+        if (!response.isSuccess() || response.getData() == null) {
+            throw new IllegalStateException("service-transaction did not accept the batch");
+        }
+        return response.getData();
+    }
+
+    private void complete(List<TransactionRecordJournal.Entry> batch, List<TransactionResponse> saved) throws IOException {
+        List<Long> seqs = new ArrayList<>(batch.size());
+        batch.forEach(entry -> seqs.add(entry.seq()));
+        journal.commit(seqs);
+
+        saved.forEach(this::rememberId);
+        batch.forEach(entry -> {
+            queuedSeqs.remove(entry.seq());
+            markPending(entry.request(), -1);
+        });
+        log.debug("Flushed {} transaction records", batch.size());
+    }
+
+    private void reloadSpilled() throws IOException {
+        if (!spilled) {
+            return;
+        }
+        synchronized (enqueueLock) {
+            List<TransactionRecordJournal.Entry> entries = journal.readPending(queuedSeqs, queue.remainingCapacity());
+            for (TransactionRecordJournal.Entry entry : entries) {
+                queuedSeqs.add(entry.seq());
+                queue.offer(entry);
+            }
+            spilled = queuedSeqs.size() < journal.getPendingCount();
+            if (!entries.isEmpty()) {
+                log.info("Reloaded {} transaction records from journal", entries.size());
+            }
+        }
+    }
+
+    private void sendSynchronously(List<TransactionRequest> records) {
+        try {
+            var response = transactionClient.createTransactions(serviceCredentials.issue(), new TransactionBatchRequest(records));
+            if (response.isSuccess() && response.getData() != null) {
+                response.getData().forEach(this::rememberId);
+            } else {
+                log.warn("Failed to create {} transaction records, but transfer completed", records.size());
+            }
+        } catch (Exception e) {
+            log.error("Failed to create {} transaction records: {}", records.size(), e.getMessage());
+        }
+    }
+
+    private void markPending(TransactionRequest record, int delta) {
+        if (record.getReferenceId() != null) {
+            pendingByReference.compute(record.getReferenceId(), (key, pending) -> {
+                int count = (pending == null ? 0 : pending.count()) + delta;
+                if (count <= 0) {
+                    return null;
+                }
+                Set<Long> userIds = pending == null ? Set.of() : pending.userIds();
+                if (delta > 0 && record.getUserId() != null && !userIds.contains(record.getUserId())) {
+                    Set<Long> added = new HashSet<>(userIds);
+                    added.add(record.getUserId());
+                    userIds = Set.copyOf(added);
+                }
+                return new PendingRecords(count, userIds);
+            });
+        }
+    }
+
+    private void rememberId(TransactionResponse transaction) {
+        if (transaction.getReferenceId() == null) {
+            return;
+        }
+        assignedIds.compute(transaction.getReferenceId(), (key, ids) -> {
+            TransferRecordIds updated = ids != null ? ids : new TransferRecordIds();
+            if (transaction.getType() == TransactionType.TRANSFER_OUT) {
+                updated.setSenderTransactionId(transaction.getId());
+                updated.setSenderUserId(transaction.getUserId());
+            } else if (transaction.getType() == TransactionType.TRANSFER_IN) {
+                updated.setReceiverTransactionId(transaction.getId());
+                updated.setReceiverUserId(transaction.getUserId());
+            }
+            return updated;
+        });
+    }
+
+    private record PendingRecords(int count, Set<Long> userIds) {
+    }
+
+    @Data
+    public static class TransferRecordIds {
+        private Long senderTransactionId;
+        private Long senderUserId;
+        private Long receiverTransactionId;
+        private Long receiverUserId;
+    }
+}
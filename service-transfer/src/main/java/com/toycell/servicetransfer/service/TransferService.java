@@ -2,133 +2,174 @@ package com.toycell.servicetransfer.service;
 
 import com.toycell.commonexception.exception.BusinessException;
 import com.toycell.commonexception.enums.ErrorCode;
+import com.toycell.commondomain.enums.Currency;
+import com.toycell.commondomain.enums.TransactionStatus;
 import com.toycell.commondomain.enums.TransactionType;
 import com.toycell.servicetransfer.client.BalanceClient;
 import com.toycell.servicetransfer.client.FeeClient;
 import com.toycell.servicetransfer.client.TransactionClient;
+import com.toycell.servicetransfer.dto.BatchTransferRequest;
+import com.toycell.servicetransfer.dto.BatchTransferResponse;
+import com.toycell.servicetransfer.dto.TransferRecordsResponse;
 import com.toycell.servicetransfer.dto.TransferRequest;
 import com.toycell.servicetransfer.dto.TransferResponse;
 import com.toycell.servicetransfer.dto.client.*;
-import lombok.RequiredArgsConstructor;
+import com.toycell.servicetransfer.security.ServiceCredentialIssuer;
+import feign.Request;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TransferService {
 
+    // Matches the item limit of POST /api/fees/calculate/batch
+    private static final int FEE_QUOTE_BATCH_SIZE = 10000;
+
     private final BalanceClient balanceClient;
     private final FeeClient feeClient;
+    private final FeeRuleCache feeRuleCache;
     private final TransactionClient transactionClient;
+    private final TransactionRecordQueue transactionRecordQueue;
+    private final ServiceCredentialIssuer serviceCredentials;
+    private final Executor preflightExecutor;
+    private final long preflightTimeoutMs;
+    // Per-call Feign timeouts, so a pre-flight request is abandoned before the caller stops waiting for it
+    private final Request.Options preflightRequestOptions;
+    private final int batchChunkSize;
+    private final int balanceRetryAttempts;
+    private final long balanceRetryBackoffMs;
+    // Single transfers whose balance outcome is unknown, by reference ID
+    private final Map<String, TransferInternalRequest> unresolvedTransfers = new ConcurrentHashMap<>();
+    // Batch chunks whose balance outcome is unknown, under each of their items' reference IDs
+    private final Map<String, BatchTransferInternalRequest> unresolvedChunks = new ConcurrentHashMap<>();
+
+    public TransferService(BalanceClient balanceClient,
+                           FeeClient feeClient,
+                           FeeRuleCache feeRuleCache,
+                           TransactionClient transactionClient,
+                           TransactionRecordQueue transactionRecordQueue,
+                           ServiceCredentialIssuer serviceCredentials,
+                           @Qualifier("transferPreflightExecutor") Executor preflightExecutor,
+                           @Value("${transfer.preflight.timeout-ms:3000}") long preflightTimeoutMs,
+                           @Value("${transfer.preflight.connect-timeout-ms:1000}") long preflightConnectTimeoutMs,
+                           @Value("${transfer.preflight.read-timeout-ms:2000}") long preflightReadTimeoutMs,
+                           @Value("${transfer.batch.chunk-size:500}") int batchChunkSize,
+                           @Value("${transfer.balance.retry-attempts:2}") int balanceRetryAttempts,
+                           @Value("${transfer.balance.retry-backoff-ms:200}") long balanceRetryBackoffMs) {
+        this.balanceClient = balanceClient;
+        this.feeClient = feeClient;
+        this.feeRuleCache = feeRuleCache;
+        this.transactionClient = transactionClient;
+        this.transactionRecordQueue = transactionRecordQueue;
+        this.serviceCredentials = serviceCredentials;
+        this.preflightExecutor = preflightExecutor;
+        this.preflightTimeoutMs = preflightTimeoutMs;
+        if (preflightConnectTimeoutMs + preflightReadTimeoutMs > preflightTimeoutMs) {
+            throw new IllegalStateException("transfer.preflight.connect-timeout-ms + read-timeout-ms ("
+                    + (preflightConnectTimeoutMs + preflightReadTimeoutMs)
+                    + ") must not exceed transfer.preflight.timeout-ms (" + preflightTimeoutMs + ")");
+        }
+        this.preflightRequestOptions = new Request.Options(
+                preflightConnectTimeoutMs, TimeUnit.MILLISECONDS,
+                preflightReadTimeoutMs, TimeUnit.MILLISECONDS,
+                true);
+        this.batchChunkSize = batchChunkSize;
+        this.balanceRetryAttempts = balanceRetryAttempts;
+        this.balanceRetryBackoffMs = balanceRetryBackoffMs;
+    }
 
     @Transactional
     public TransferResponse transfer(TransferRequest request, Long senderUserId) {
         log.info("Starting transfer from wallet {} to wallet {}, amount: {}", 
                 request.getSenderWalletId(), request.getReceiverWalletId(), request.getAmount());
 
-        // 1. Validate wallets
-        WalletResponse senderWallet = validateAndGetWallet(request.getSenderWalletId());
-        WalletResponse receiverWallet = validateAndGetWalletInternal(request.getReceiverWalletId());
-
-        // 2. Validate sender owns the wallet
-        if (!senderWallet.getUserId().equals(senderUserId)) {
-            log.error("User {} does not own wallet {}", senderUserId, request.getSenderWalletId());
-            throw new BusinessException(ErrorCode.INVALID_TOKEN, "You can only transfer from your own wallet");
-        }
-
-        // 3. Validate same currency
-        if (!senderWallet.getCurrency().equals(receiverWallet.getCurrency())) {
-            log.error("Currency mismatch: sender {}, receiver {}", 
-                    senderWallet.getCurrency(), receiverWallet.getCurrency());
-            throw new BusinessException(ErrorCode.CURRENCY_MISMATCH);
-        }
-
-        // 4. Validate not transferring to self
+        // 1. Validate not transferring to self
         if (request.getSenderWalletId().equals(request.getReceiverWalletId())) {
             log.error("Cannot transfer to the same wallet");
             throw new BusinessException(ErrorCode.SAME_USER_TRANSFER);
         }
 
-        // 5. Calculate fee
-        FeeResponse feeResponse = calculateFee(request.getAmount(), request.getCurrency());
-        BigDecimal totalAmount = request.getAmount().add(feeResponse.getFeeAmount());
-
-        // 6. Validate sufficient balance
-        if (senderWallet.getBalance().compareTo(totalAmount) < 0) {
-            log.error("Insufficient balance: required {}, available {}", 
-                    totalAmount, senderWallet.getBalance());
-            throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE);
+        // 2. Calculate fee (ownership, currency and balance are checked by service-balance under row locks),
+        //    in-process from the cached rule set, or by service-fee when the cache is cold or stale
+        //    or the sender's volume decides the rule
+        BigDecimal fee = feeRuleCache.quote(request.getAmount(), request.getCurrency());
+        if (fee == null) {
+            fee = await(
+                    preflight(() -> calculateFee(request.getAmount(), request.getCurrency(), senderUserId)),
+                    "Fee calculation").getFeeAmount();
         }
+        BigDecimal totalAmount = request.getAmount().add(fee);
 
         // Generate transfer reference ID
         String transferReferenceId = "TRF-" + UUID.randomUUID().toString();
 
         try {
-            // 7. Withdraw from sender (amount + fee)
-            BigDecimal senderBalanceBefore = senderWallet.getBalance();
-            WalletResponse senderAfterWithdraw = withdraw(
-                    request.getSenderWalletId(), 
-                    totalAmount, 
-                    request.getCurrency(),
-                    "Transfer to wallet " + request.getReceiverWalletId() + " (including fee)"
-            );
-
-            // 8. Deposit to receiver (amount only, no fee)
-            BigDecimal receiverBalanceBefore = receiverWallet.getBalance();
-            WalletResponse receiverAfterDeposit = deposit(
-                    request.getReceiverWalletId(), 
-                    request.getAmount(), 
-                    request.getCurrency(),
-                    "Transfer from wallet " + request.getSenderWalletId()
-            );
-
-            // 9. Create transaction records
-            Long senderTransactionId = createTransaction(
-                    senderUserId,
-                    request.getSenderWalletId(),
-                    TransactionType.TRANSFER_OUT,
-                    totalAmount,
-                    request.getCurrency(),
-                    senderBalanceBefore,
-                    senderAfterWithdraw.getBalance(),
-                    "Transfer to wallet " + request.getReceiverWalletId() + " (Fee: " + feeResponse.getFeeAmount() + ")",
-                    transferReferenceId,
-                    receiverWallet.getUserId()
-            );
-
-            Long receiverTransactionId = createTransaction(
-                    receiverWallet.getUserId(),
-                    request.getReceiverWalletId(),
-                    TransactionType.TRANSFER_IN,
-                    request.getAmount(),
-                    request.getCurrency(),
-                    receiverBalanceBefore,
-                    receiverAfterDeposit.getBalance(),
-                    "Transfer from wallet " + request.getSenderWalletId(),
-                    transferReferenceId,
-                    senderUserId
-            );
+            // 3. Debit sender (amount + fee) and credit receiver (amount) in one balance transaction
+            TransferInternalRequest transferRequest = transferRequest(senderUserId, request, fee, transferReferenceId);
+            TransferInternalResponse balanceTransfer = transferBalances(transferRequest);
+
+            if (balanceTransfer == null) {
+                // The balance outcome is unknown; it is reconciled in the background under the same
+                // reference ID and the records follow once it settles
+                return TransferResponse.builder()
+                        .transferId(transferReferenceId)
+                        .referenceId(transferReferenceId)
+                        .senderWalletId(request.getSenderWalletId())
+                        .receiverWalletId(request.getReceiverWalletId())
+                        .amount(request.getAmount())
+                        .currency(request.getCurrency())
+                        .feeAmount(fee)
+                        .totalAmount(totalAmount)
+                        .description(request.getDescription())
+                        .transferDate(LocalDateTime.now())
+                        .status(TransactionStatus.PENDING)
+                        .recordStatus(TransactionStatus.PENDING)
+                        .build();
+            }
+
+            // 4. Queue transaction records; they are written to service-transaction in the background
+            transactionRecordQueue.enqueue(transferRecords(transferRequest, balanceTransfer));
 
             log.info("Transfer completed successfully: {}", transferReferenceId);
 
             return TransferResponse.builder()
-                    .transferId(System.currentTimeMillis())
+                    .transferId(transferReferenceId)
+                    .referenceId(transferReferenceId)
                     .senderWalletId(request.getSenderWalletId())
                     .receiverWalletId(request.getReceiverWalletId())
                     .amount(request.getAmount())
                     .currency(request.getCurrency())
-                    .feeAmount(feeResponse.getFeeAmount())
+                    .feeAmount(fee)
                     .totalAmount(totalAmount)
                     .description(request.getDescription())
                     .transferDate(LocalDateTime.now())
-                    .senderTransactionId(senderTransactionId)
-                    .receiverTransactionId(receiverTransactionId)
+                    .status(TransactionStatus.SUCCESS)
+                    .recordStatus(TransactionStatus.PENDING)
                     .build();
 
         } catch (BusinessException e) {
@@ -139,9 +180,180 @@ public class TransferService {
         }
     }
 
-    private WalletResponse validateAndGetWallet(Long walletId) {
+    /**
+     * Pays many receivers from one sender wallet. The sender is validated and the fees are
+     * quoted once up front; balances are then moved in chunks, each chunk being a single
+     * balance-service transaction that debits the sender once. Every item gets its own status.
+     */
+    public BatchTransferResponse batchTransfer(BatchTransferRequest request, Long senderUserId) {
+        List<BatchTransferRequest.Item> items = request.getItems();
+        Currency currency = request.getCurrency();
+        log.info("Starting batch transfer of {} items from wallet {}", items.size(), request.getSenderWalletId());
+
+        // 1. Validate sender and quote the distinct amounts (one fee-service call per FEE_QUOTE_BATCH_SIZE) concurrently
+        CompletableFuture<WalletResponse> senderFuture = preflight(() -> getSenderWallet(request.getSenderWalletId()));
+        Map<BigDecimal, BigDecimal> distinctAmounts = new LinkedHashMap<>();
+        for (BatchTransferRequest.Item item : items) {
+            distinctAmounts.putIfAbsent(item.getAmount().stripTrailingZeros(), item.getAmount());
+        }
+        List<BigDecimal> quotedAmounts = new ArrayList<>(distinctAmounts.values());
+        List<CompletableFuture<List<FeeResponse>>> feeFutures = new ArrayList<>();
+        for (int start = 0; start < quotedAmounts.size(); start += FEE_QUOTE_BATCH_SIZE) {
+            List<BigDecimal> amounts = quotedAmounts.subList(start, Math.min(start + FEE_QUOTE_BATCH_SIZE, quotedAmounts.size()));
+            feeFutures.add(preflight(() -> calculateFees(amounts, currency, senderUserId)));
+        }
+
+        WalletResponse sender = await(senderFuture, "Sender wallet lookup");
+        if (!sender.getUserId().equals(senderUserId)) {
+            throw new BusinessException(ErrorCode.INVALID_TOKEN, "You can only transfer from your own wallet");
+        }
+        if (!Boolean.TRUE.equals(sender.getActive())) {
+            throw new BusinessException(ErrorCode.WALLET_INACTIVE);
+        }
+        if (sender.getCurrency() != currency) {
+            throw new BusinessException(ErrorCode.CURRENCY_MISMATCH);
+        }
+
+        Map<BigDecimal, BigDecimal> fees = new HashMap<>();
+        int quoted = 0;
+        for (CompletableFuture<List<FeeResponse>> future : feeFutures) {
+            for (FeeResponse fee : await(future, "Fee calculation")) {
+                fees.put(quotedAmounts.get(quoted++).stripTrailingZeros(), fee.getFeeAmount());
+            }
+        }
+
+        // 2. Fail fast when the sender cannot cover the whole batch
+        BigDecimal requiredAmount = BigDecimal.ZERO;
+        for (BatchTransferRequest.Item item : items) {
+            requiredAmount = requiredAmount.add(item.getAmount()).add(fees.get(item.getAmount().stripTrailingZeros()));
+        }
+        if (sender.getBalance().compareTo(requiredAmount) < 0) {
+            throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE,
+                    "Batch requires " + requiredAmount + " " + currency + ", available " + sender.getBalance());
+        }
+
+        // 3. Move balances chunk by chunk (chunks share the sender row lock, so they run sequentially)
+        String batchReferenceId = "BATCH-" + UUID.randomUUID();
+        List<BatchTransferResponse.ItemResult> results = new ArrayList<>(items.size());
+        for (int start = 0; start < items.size(); start += batchChunkSize) {
+            List<BatchTransferRequest.Item> chunk = items.subList(start, Math.min(start + batchChunkSize, items.size()));
+            results.addAll(transferChunk(request, senderUserId, chunk, start, fees));
+        }
+
+        int successCount = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal totalFee = BigDecimal.ZERO;
+        for (BatchTransferResponse.ItemResult result : results) {
+            if (result.getStatus() == TransactionStatus.SUCCESS) {
+                successCount++;
+                totalAmount = totalAmount.add(result.getAmount());
+                totalFee = totalFee.add(result.getFeeAmount());
+            }
+        }
+
+        log.info("Batch transfer {} completed: {}/{} items succeeded", batchReferenceId, successCount, items.size());
+
+        return BatchTransferResponse.builder()
+                .batchReferenceId(batchReferenceId)
+                .senderWalletId(request.getSenderWalletId())
+                .currency(currency)
+                .requestedCount(items.size())
+                .successCount(successCount)
+                .failedCount(items.size() - successCount)
+                .totalAmount(totalAmount)
+                .totalFee(totalFee)
+                .transferDate(LocalDateTime.now())
+                .items(results)
+                .build();
+    }
+
+    private List<BatchTransferResponse.ItemResult> transferChunk(BatchTransferRequest request, Long senderUserId,
+                                                                 List<BatchTransferRequest.Item> chunk, int offset,
+                                                                 Map<BigDecimal, BigDecimal> fees) {
+        List<BatchTransferInternalRequest.Item> internalItems = new ArrayList<>(chunk.size());
+        for (BatchTransferRequest.Item item : chunk) {
+            internalItems.add(BatchTransferInternalRequest.Item.builder()
+                    .receiverWalletId(item.getReceiverWalletId())
+                    .amount(item.getAmount())
+                    .fee(fees.get(item.getAmount().stripTrailingZeros()))
+                    .receiverDescription(item.getDescription() != null
+                            ? item.getDescription()
+                            : "Transfer from wallet " + request.getSenderWalletId())
+                    .referenceId("TRF-" + UUID.randomUUID())
+                    .build());
+        }
+
+        BatchTransferInternalRequest chunkRequest = BatchTransferInternalRequest.builder()
+                .senderUserId(senderUserId)
+                .senderWalletId(request.getSenderWalletId())
+                .currency(request.getCurrency())
+                .senderDescription(request.getDescription() != null
+                        ? request.getDescription()
+                        : "Batch transfer (including fee)")
+                .items(internalItems)
+                .build();
+
+        BatchTransferInternalResponse balanceChunk;
+        try {
+            balanceChunk = retryUnknownOutcome(() -> callTransferInternalBatch(chunkRequest),
+                    "Batch chunk at offset " + offset);
+        } catch (BusinessException e) {
+            // The balance transaction rolled back, nothing in this chunk was applied
+            log.error("Batch chunk at offset {} rejected: {}", offset, e.getMessage());
+            return failedChunk(chunk, internalItems, offset, TransactionStatus.FAILED,
+                    e.getErrorCode().getCode(), e.getMessage());
+        }
+        if (balanceChunk == null) {
+            // Still unknown after the retries; settled in the background, items can be polled by reference ID
+            internalItems.forEach(item -> unresolvedChunks.put(item.getReferenceId(), chunkRequest));
+            log.error("Batch chunk at offset {} unresolved, reconciling in the background", offset);
+            return failedChunk(chunk, internalItems, offset, TransactionStatus.PENDING,
+                    ErrorCode.TRANSFER_FAILED.getCode(), "Outcome unknown, check by reference ID");
+        }
+        List<BatchTransferInternalResponse.ItemResult> balanceResults = balanceChunk.getItems();
+
+        List<BatchTransferResponse.ItemResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < balanceResults.size(); i++) {
+            BatchTransferInternalResponse.ItemResult balanceResult = balanceResults.get(i);
+            results.add(BatchTransferResponse.ItemResult.builder()
+                    .index(offset + i)
+                    .receiverWalletId(balanceResult.getReceiverWalletId())
+                    .amount(balanceResult.getAmount())
+                    .feeAmount(balanceResult.getFee())
+                    .referenceId(balanceResult.getReferenceId())
+                    .status(balanceResult.getStatus())
+                    .errorCode(balanceResult.getErrorCode())
+                    .message(balanceResult.getMessage())
+                    .build());
+        }
+
+        transactionRecordQueue.enqueue(chunkRecords(chunkRequest, balanceResults));
+        return results;
+    }
+
+    private List<BatchTransferResponse.ItemResult> failedChunk(List<BatchTransferRequest.Item> chunk,
+                                                               List<BatchTransferInternalRequest.Item> internalItems,
+                                                               int offset, TransactionStatus status,
+                                                               String errorCode, String message) {
+        List<BatchTransferResponse.ItemResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            results.add(BatchTransferResponse.ItemResult.builder()
+                    .index(offset + i)
+                    .receiverWalletId(chunk.get(i).getReceiverWalletId())
+                    .amount(chunk.get(i).getAmount())
+                    .feeAmount(internalItems.get(i).getFee())
+                    .referenceId(internalItems.get(i).getReferenceId())
+                    .status(status)
+                    .errorCode(errorCode)
+                    .message(message)
+                    .build());
+        }
+        return results;
+    }
+
+    private WalletResponse getSenderWallet(Long walletId) {
         try {
-            var response = balanceClient.getWallet(walletId);
+            var response = balanceClient.getWallet(walletId, preflightRequestOptions);
             if (!response.isSuccess() || response.getData() == null) {
                 throw new BusinessException(ErrorCode.WALLET_NOT_FOUND);
             }
@@ -154,24 +366,100 @@ public class TransferService {
         }
     }
 
-    private WalletResponse validateAndGetWalletInternal(Long walletId) {
-        try {
-            var response = balanceClient.getWalletInternal(walletId);
-            if (!response.isSuccess() || response.getData() == null) {
-                throw new BusinessException(ErrorCode.WALLET_NOT_FOUND);
+    /**
+     * Returns the transaction ids of a transfer, or PENDING while its records are still queued.
+     */
+    public TransferRecordsResponse getTransferRecords(String referenceId, Long userId) {
+        TransferInternalRequest unresolvedTransfer = unresolvedTransfers.get(referenceId);
+        BatchTransferInternalRequest unresolvedChunk = unresolvedChunks.get(referenceId);
+        Set<Long> queuedUserIds = transactionRecordQueue.getPendingUserIds(referenceId);
+        if (unresolvedTransfer != null || unresolvedChunk != null || queuedUserIds != null) {
+            // Until the balance outcome is known only the sender is on record as a participant
+            boolean participant = unresolvedTransfer != null ? userId.equals(unresolvedTransfer.getSenderUserId())
+                    : unresolvedChunk != null ? userId.equals(unresolvedChunk.getSenderUserId())
+                    : queuedUserIds.contains(userId);
+            if (!participant) {
+                throw new BusinessException(ErrorCode.TRANSFER_NOT_FOUND);
             }
-            return response.getData();
+            return TransferRecordsResponse.builder()
+                    .referenceId(referenceId)
+                    .recordStatus(TransactionStatus.PENDING)
+                    .build();
+        }
+
+        TransactionRecordQueue.TransferRecordIds ids = transactionRecordQueue.getAssignedIds(referenceId);
+        if (ids == null) {
+            ids = fetchRecordIds(referenceId);
+        }
+
+        if (!userId.equals(ids.getSenderUserId()) && !userId.equals(ids.getReceiverUserId())) {
+            throw new BusinessException(ErrorCode.TRANSFER_NOT_FOUND);
+        }
+
+        return TransferRecordsResponse.builder()
+                .referenceId(referenceId)
+                .recordStatus(TransactionStatus.SUCCESS)
+                .senderTransactionId(ids.getSenderTransactionId())
+                .receiverTransactionId(ids.getReceiverTransactionId())
+                .build();
+    }
+
+    private TransactionRecordQueue.TransferRecordIds fetchRecordIds(String referenceId) {
+        List<TransactionResponse> transactions;
+        try {
+            var response = transactionClient.getTransactionsByReference(referenceId);
+            transactions = response.isSuccess() && response.getData() != null ? response.getData() : List.of();
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
-            log.error("Failed to get wallet {}: {}", walletId, e.getMessage());
-            throw new BusinessException(ErrorCode.WALLET_NOT_FOUND);
+            log.error("Failed to fetch transaction records for {}: {}", referenceId, e.getMessage());
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE);
+        }
+
+        TransactionRecordQueue.TransferRecordIds ids = new TransactionRecordQueue.TransferRecordIds();
+        for (TransactionResponse transaction : transactions) {
+            if (transaction.getType() == TransactionType.TRANSFER_OUT) {
+                ids.setSenderTransactionId(transaction.getId());
+                ids.setSenderUserId(transaction.getUserId());
+            } else if (transaction.getType() == TransactionType.TRANSFER_IN) {
+                ids.setReceiverTransactionId(transaction.getId());
+                ids.setReceiverUserId(transaction.getUserId());
+            }
+        }
+        if (ids.getSenderTransactionId() == null && ids.getReceiverTransactionId() == null) {
+            throw new BusinessException(ErrorCode.TRANSFER_NOT_FOUND);
+        }
+        return ids;
+    }
+
+    private <T> CompletableFuture<T> preflight(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, preflightExecutor)
+                .orTimeout(preflightTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> T await(CompletableFuture<T> future, String callName) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.TRANSFER_FAILED, callName + " interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            if (cause instanceof TimeoutException) {
+                log.error("{} timed out after {}ms", callName, preflightTimeoutMs);
+                throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, callName + " timed out");
+            }
+            log.error("{} failed: {}", callName, cause.getMessage());
+            throw new BusinessException(ErrorCode.TRANSFER_FAILED, callName + " failed");
         }
     }
 
-    private FeeResponse calculateFee(BigDecimal amount, com.toycell.commondomain.enums.Currency currency) {
+    private FeeResponse calculateFee(BigDecimal amount, Currency currency, Long senderUserId) {
         try {
-            var response = feeClient.calculateTransferFee(amount, currency);
+            var response = feeClient.calculateTransferFee(amount, currency, senderUserId, preflightRequestOptions);
             if (!response.isSuccess() || response.getData() == null) {
                 throw new BusinessException(ErrorCode.FEE_CALCULATION_FAILED);
             }
@@ -184,79 +472,231 @@ public class TransferService {
         }
     }
 
-    private WalletResponse withdraw(Long walletId, BigDecimal amount, 
-                                    com.toycell.commondomain.enums.Currency currency, String description) {
+    private List<FeeResponse> calculateFees(List<BigDecimal> amounts, Currency currency, Long senderUserId) {
+        FeeBatchCalculationRequest request = FeeBatchCalculationRequest.builder()
+                .items(amounts.stream()
+                        .map(amount -> new FeeBatchCalculationRequest.Item(amount, currency))
+                        .toList())
+                .userId(senderUserId)
+                .build();
         try {
-            WithdrawRequest withdrawRequest = WithdrawRequest.builder()
-                    .walletId(walletId)
-                    .amount(amount)
-                    .currency(currency)
-                    .description(description)
-                    .build();
-
-            var response = balanceClient.withdraw(withdrawRequest);
-            if (!response.isSuccess() || response.getData() == null) {
-                throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE);
+            var response = feeClient.calculateTransferFees(request, preflightRequestOptions);
+            if (!response.isSuccess() || response.getData() == null || response.getData().size() != amounts.size()) {
+                throw new BusinessException(ErrorCode.FEE_CALCULATION_FAILED);
             }
             return response.getData();
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
-            log.error("Failed to withdraw from wallet {}: {}", walletId, e.getMessage());
-            throw new BusinessException(ErrorCode.TRANSFER_FAILED, "Withdrawal failed");
+            log.error("Failed to calculate fees: {}", e.getMessage());
+            throw new BusinessException(ErrorCode.FEE_CALCULATION_FAILED);
         }
     }
 
-    private WalletResponse deposit(Long walletId, BigDecimal amount, 
-                                   com.toycell.commondomain.enums.Currency currency, String description) {
-        try {
-            DepositRequest depositRequest = DepositRequest.builder()
-                    .walletId(walletId)
-                    .amount(amount)
-                    .currency(currency)
-                    .description(description)
-                    .build();
+    /**
+     * Moves the balances of a single transfer. If the outcome stays unknown after the retries of
+     * {@link #retryUnknownOutcome}, the transfer is handed to {@link #reconcileUnresolvedTransfers()}
+     * and null is returned.
+     */
+    private TransferInternalResponse transferBalances(TransferInternalRequest transferRequest) {
+        String referenceId = transferRequest.getReferenceId();
+        TransferInternalResponse balanceTransfer = retryUnknownOutcome(
+                () -> callTransferInternal(transferRequest), "Balance transfer " + referenceId);
+        if (balanceTransfer == null) {
+            unresolvedTransfers.put(referenceId, transferRequest);
+            log.error("Balance transfer {} unresolved, reconciling in the background", referenceId);
+        }
+        return balanceTransfer;
+    }
 
-            // Use internal endpoint for receiver wallet (no authentication needed)
-            var response = balanceClient.depositInternal(depositRequest);
-            if (!response.isSuccess() || response.getData() == null) {
-                throw new BusinessException(ErrorCode.TRANSFER_FAILED);
+    /**
+     * Calls service-balance, which is idempotent on the reference IDs, so a call that timed out
+     * or failed on I/O is simply resent: it either returns what already committed or applies it
+     * once. Returns null if the outcome is still unknown after
+     * {@code transfer.balance.retry-attempts} retries; a BusinessException is definite and rethrown.
+     */
+    private <T> T retryUnknownOutcome(Supplier<T> call, String what) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return call.get();
+            } catch (BusinessException e) {
+                throw e;
+            } catch (Exception e) {
+                log.warn("{} outcome unknown (attempt {}): {}", what, attempt + 1, e.getMessage());
+            }
+            if (attempt >= balanceRetryAttempts) {
+                return null;
+            }
+            try {
+                Thread.sleep(balanceRetryBackoffMs << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
             }
-            return response.getData();
-        } catch (BusinessException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Failed to deposit to wallet {}: {}", walletId, e.getMessage());
-            throw new BusinessException(ErrorCode.TRANSFER_FAILED, "Deposit failed");
         }
     }
 
-    private Long createTransaction(Long userId, Long walletId, TransactionType type,
-                                  BigDecimal amount, com.toycell.commondomain.enums.Currency currency,
-                                  BigDecimal balanceBefore, BigDecimal balanceAfter,
-                                  String description, String referenceId, Long relatedUserId) {
-        try {
-            TransactionRequest transactionRequest = TransactionRequest.builder()
-                    .userId(userId)
-                    .walletId(walletId)
-                    .type(type)
-                    .amount(amount)
-                    .currency(currency)
-                    .balanceBefore(balanceBefore)
-                    .balanceAfter(balanceAfter)
-                    .description(description)
-                    .referenceId(referenceId)
-                    .relatedUserId(relatedUserId)
-                    .build();
+    /**
+     * Resends unresolved transfers and batch chunks under their reference IDs until service-balance
+     * gives a definite answer, then queues their records. These live only in memory; whatever is
+     * still unresolved at shutdown is logged so it can be settled from the balance_transactions rows.
+     */
+    @Scheduled(fixedDelayString = "${transfer.balance.reconcile-ms:5000}")
+    public void reconcileUnresolvedTransfers() {
+        for (TransferInternalRequest transferRequest : unresolvedTransfers.values()) {
+            String referenceId = transferRequest.getReferenceId();
+            try {
+                TransferInternalResponse balanceTransfer = callTransferInternal(transferRequest);
+                transactionRecordQueue.enqueue(transferRecords(transferRequest, balanceTransfer));
+                unresolvedTransfers.remove(referenceId);
+                log.info("Balance transfer {} reconciled", referenceId);
+            } catch (BusinessException e) {
+                unresolvedTransfers.remove(referenceId);
+                log.warn("Balance transfer {} was not applied: {}", referenceId, e.getMessage());
+            } catch (Exception e) {
+                // service-balance is still unreachable; the rest wait for the next round
+                log.warn("Balance transfer {} still unresolved: {}", referenceId, e.getMessage());
+                return;
+            }
+        }
 
-            var response = transactionClient.createTransaction(transactionRequest);
-            if (!response.isSuccess()) {
-                log.warn("Failed to create transaction record, but transfer completed");
+        Set<BatchTransferInternalRequest> chunks = Collections.newSetFromMap(new IdentityHashMap<>());
+        chunks.addAll(unresolvedChunks.values());
+        for (BatchTransferInternalRequest chunkRequest : chunks) {
+            String firstReferenceId = chunkRequest.getItems().get(0).getReferenceId();
+            try {
+                BatchTransferInternalResponse balanceChunk = callTransferInternalBatch(chunkRequest);
+                transactionRecordQueue.enqueue(chunkRecords(chunkRequest, balanceChunk.getItems()));
+                chunkRequest.getItems().forEach(item -> unresolvedChunks.remove(item.getReferenceId()));
+                log.info("Batch chunk starting at {} reconciled", firstReferenceId);
+            } catch (BusinessException e) {
+                chunkRequest.getItems().forEach(item -> unresolvedChunks.remove(item.getReferenceId()));
+                log.warn("Batch chunk starting at {} was not applied: {}", firstReferenceId, e.getMessage());
+            } catch (Exception e) {
+                log.warn("Batch chunk starting at {} still unresolved: {}", firstReferenceId, e.getMessage());
+                return;
             }
-            return System.currentTimeMillis();
-        } catch (Exception e) {
-            log.error("Failed to create transaction record: {}", e.getMessage());
-            return null;
         }
     }
+
+    @PreDestroy
+    public void logUnresolvedTransfers() {
+        unresolvedTransfers.values().forEach(transferRequest ->
+                log.error("Balance transfer left unresolved at shutdown: {}", transferRequest));
+        Set<BatchTransferInternalRequest> chunks = Collections.newSetFromMap(new IdentityHashMap<>());
+        chunks.addAll(unresolvedChunks.values());
+        chunks.forEach(chunkRequest -> log.error("Batch chunk left unresolved at shutdown: {}", chunkRequest));
+    }
+
+    private TransferInternalResponse callTransferInternal(TransferInternalRequest transferRequest) {
+        var response = balanceClient.transferInternal(
+                serviceCredentials.issue(transferRequest.getSenderUserId()), transferRequest);
+        if (!response.isSuccess() || response.getData() == null) {
+            throw new BusinessException(ErrorCode.TRANSFER_FAILED);
+        }
+        return response.getData();
+    }
+
+    private BatchTransferInternalResponse callTransferInternalBatch(BatchTransferInternalRequest chunkRequest) {
+        var response = balanceClient.transferInternalBatch(
+                serviceCredentials.issue(chunkRequest.getSenderUserId()), chunkRequest);
+        if (!response.isSuccess() || response.getData() == null) {
+            throw new BusinessException(ErrorCode.TRANSFER_FAILED);
+        }
+        return response.getData();
+    }
+
+    private TransferInternalRequest transferRequest(Long senderUserId, TransferRequest request,
+                                                    BigDecimal fee, String referenceId) {
+        return TransferInternalRequest.builder()
+                .senderUserId(senderUserId)
+                .senderWalletId(request.getSenderWalletId())
+                .receiverWalletId(request.getReceiverWalletId())
+                .amount(request.getAmount())
+                .fee(fee)
+                .currency(request.getCurrency())
+                .senderDescription("Transfer to wallet " + request.getReceiverWalletId() + " (including fee)")
+                .receiverDescription("Transfer from wallet " + request.getSenderWalletId())
+                .referenceId(referenceId)
+                .build();
+    }
+
+    private List<TransactionRequest> transferRecords(TransferInternalRequest transferRequest,
+                                                     TransferInternalResponse balanceTransfer) {
+        BigDecimal fee = transferRequest.getFee();
+        return List.of(
+                buildTransactionRequest(
+                        transferRequest.getSenderUserId(),
+                        transferRequest.getSenderWalletId(),
+                        TransactionType.TRANSFER_OUT,
+                        transferRequest.getAmount().add(fee),
+                        transferRequest.getCurrency(),
+                        balanceTransfer.getSenderBalanceBefore(),
+                        balanceTransfer.getSenderBalanceAfter(),
+                        "Transfer to wallet " + transferRequest.getReceiverWalletId() + " (Fee: " + fee + ")",
+                        transferRequest.getReferenceId(),
+                        balanceTransfer.getReceiverUserId()),
+                buildTransactionRequest(
+                        balanceTransfer.getReceiverUserId(),
+                        transferRequest.getReceiverWalletId(),
+                        TransactionType.TRANSFER_IN,
+                        transferRequest.getAmount(),
+                        transferRequest.getCurrency(),
+                        balanceTransfer.getReceiverBalanceBefore(),
+                        balanceTransfer.getReceiverBalanceAfter(),
+                        "Transfer from wallet " + transferRequest.getSenderWalletId(),
+                        transferRequest.getReferenceId(),
+                        transferRequest.getSenderUserId()));
+    }
+
+    private List<TransactionRequest> chunkRecords(BatchTransferInternalRequest chunkRequest,
+                                                  List<BatchTransferInternalResponse.ItemResult> balanceResults) {
+        List<TransactionRequest> records = new ArrayList<>();
+        for (BatchTransferInternalResponse.ItemResult balanceResult : balanceResults) {
+            if (balanceResult.getStatus() != TransactionStatus.SUCCESS) {
+                continue;
+            }
+            records.add(buildTransactionRequest(
+                    chunkRequest.getSenderUserId(),
+                    chunkRequest.getSenderWalletId(),
+                    TransactionType.TRANSFER_OUT,
+                    balanceResult.getAmount().add(balanceResult.getFee()),
+                    chunkRequest.getCurrency(),
+                    balanceResult.getSenderBalanceBefore(),
+                    balanceResult.getSenderBalanceAfter(),
+                    "Transfer to wallet " + balanceResult.getReceiverWalletId() + " (Fee: " + balanceResult.getFee() + ")",
+                    balanceResult.getReferenceId(),
+                    balanceResult.getReceiverUserId()));
+            records.add(buildTransactionRequest(
+                    balanceResult.getReceiverUserId(),
+                    balanceResult.getReceiverWalletId(),
+                    TransactionType.TRANSFER_IN,
+                    balanceResult.getAmount(),
+                    chunkRequest.getCurrency(),
+                    balanceResult.getReceiverBalanceBefore(),
+                    balanceResult.getReceiverBalanceAfter(),
+                    "Transfer from wallet " + chunkRequest.getSenderWalletId(),
+                    balanceResult.getReferenceId(),
+                    chunkRequest.getSenderUserId()));
+        }
+        return records;
+    }
+
+    private TransactionRequest buildTransactionRequest(Long userId, Long walletId, TransactionType type,
+                                                       BigDecimal amount, Currency currency,
+                                                       BigDecimal balanceBefore, BigDecimal balanceAfter,
+                                                       String description, String referenceId, Long relatedUserId) {
+        return TransactionRequest.builder()
+                .userId(userId)
+                .walletId(walletId)
+                .type(type)
+                .amount(amount)
+                .currency(currency)
+                .balanceBefore(balanceBefore)
+                .balanceAfter(balanceAfter)
+                .description(description)
+                .referenceId(referenceId)
+                .relatedUserId(relatedUserId)
+                .build();
+    }
 }